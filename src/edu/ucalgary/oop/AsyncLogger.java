@@ -0,0 +1,302 @@
+package edu.ucalgary.oop;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Append-only log file written by a single background thread.
+// Callers only enqueue a line into a bounded ring buffer; the writer drains whatever has
+// accumulated, writes it in one go and flushes once per batch (group commit). Files are
+// rotated by size or age, and what happens when the buffer is full is set by the
+// backpressure policy.
+public class AsyncLogger implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_MAX_BYTES = 10L * 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE_MS = TimeUnit.DAYS.toMillis(1);
+    private static final int MAX_BATCH = 512;
+    private static final int ARCHIVES_KEPT = 5;
+    private static final String STOP = new String("stop"); // Compared by identity
+
+    // What log() does when the buffer is full
+    public enum Backpressure {
+        BLOCK,       // Wait for the writer to make room
+        DROP_NEWEST, // Discard the line being logged
+        DROP_OLDEST  // Discard the oldest buffered line
+    }
+
+    private final Path file;
+    private final BlockingQueue<String> buffer;
+    private final Backpressure policy;
+    private final long maxBytes;
+    private final long maxAgeMs;
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    private BufferedWriter writer;
+    private long fileBytes; // Encoded size of the current file
+    private static final int LINE_SEPARATOR_BYTES = System.lineSeparator().length();
+    private long fileOpenedAt;
+
+    // Metrics
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private volatile int maxDepth;
+
+    public AsyncLogger(String fileName) {
+        this(Paths.get(fileName), DEFAULT_CAPACITY, Backpressure.DROP_OLDEST, DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE_MS);
+    }
+
+    public AsyncLogger(Path file, int capacity, Backpressure policy, long maxBytes, long maxAgeMs) {
+        this.file = file;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+        this.writerThread = new Thread(this::drainLoop, "log-writer-" + file.getFileName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // Queues a timestamped line; never touches the file on the caller's thread
+    public void log(String message) {
+        enqueue(LocalDateTime.now() + " - " + message);
+    }
+
+    // Queues a structured audit event as key=value pairs
+    public void audit(String event, Map<String, ?> fields) {
+        StringBuilder line = new StringBuilder();
+        line.append(LocalDateTime.now()).append(" - AUDIT ").append(event);
+        for (Map.Entry<String, ?> field : fields.entrySet()) {
+            line.append(' ').append(field.getKey()).append('=').append(quote(String.valueOf(field.getValue())));
+        }
+        enqueue(line.toString());
+    }
+
+    // Queues an inquiry using its own log details
+    public void audit(ReliefService inquiry) {
+        enqueue(LocalDateTime.now() + " - AUDIT inquiry " + inquiry.getLogDetails());
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(' ') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\\\"") + '"';
+    }
+
+    private void enqueue(String line) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return;
+        }
+        boolean accepted;
+        switch (policy) {
+            case BLOCK:
+                try {
+                    buffer.put(line);
+                    accepted = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+                break;
+            case DROP_OLDEST:
+                accepted = buffer.offer(line);
+                while (!accepted) {
+                    if (buffer.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                    accepted = buffer.offer(line);
+                }
+                break;
+            default:
+                accepted = buffer.offer(line);
+        }
+        if (accepted) {
+            enqueued.incrementAndGet();
+            int depth = buffer.size();
+            if (depth > maxDepth) {
+                maxDepth = depth;
+            }
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drainLoop() {
+        List<String> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                String first = buffer.poll(200, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+            buffer.drainTo(batch, MAX_BATCH - batch.size());
+            // The stop marker only wakes the writer; it is never written
+            batch.removeIf(line -> line == STOP);
+            writeBatch(batch);
+            batch.clear();
+            stopping = closed && buffer.isEmpty();
+        }
+        closeWriter();
+    }
+
+    private void writeBatch(List<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            rotateIfNeeded();
+            for (String line : batch) {
+                writer.write(line);
+                writer.newLine();
+                fileBytes += utf8Length(line) + LINE_SEPARATOR_BYTES;
+            }
+            writer.flush();
+            flushes.incrementAndGet();
+            written.addAndGet(batch.size());
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+            dropped.addAndGet(batch.size());
+            closeWriter();
+        }
+    }
+
+    private void rotateIfNeeded() throws IOException {
+        long now = System.currentTimeMillis();
+        if (writer != null && fileBytes < maxBytes && now - fileOpenedAt < maxAgeMs) {
+            return;
+        }
+        if (writer != null) {
+            closeWriter();
+            // errorlog.txt -> errorlog.txt.1 -> errorlog.txt.2 ...
+            for (int i = ARCHIVES_KEPT - 1; i >= 1; i--) {
+                Path older = archive(i);
+                if (Files.exists(older)) {
+                    Files.move(older, archive(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, archive(1), StandardCopyOption.REPLACE_EXISTING);
+            rotations.incrementAndGet();
+        }
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileBytes = Files.size(file);
+        fileOpenedAt = now;
+    }
+
+    // Bytes the line takes once encoded, without encoding it
+    static int utf8Length(CharSequence line) {
+        int bytes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < line.length() && Character.isLowSurrogate(line.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private Path archive(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+        }
+        writer = null;
+    }
+
+    // Writes everything already queued, then stops the writer thread
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            buffer.offer(STOP);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Backpressure getBackpressurePolicy() {
+        return policy;
+    }
+
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxDepth;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public long getRotationCount() {
+        return rotations.get();
+    }
+
+    public String getStats() {
+        return "policy=" + policy
+                + " depth=" + getQueueDepth() + "/" + (buffer.size() + buffer.remainingCapacity())
+                + " maxDepth=" + maxDepth
+                + " enqueued=" + enqueued.get()
+                + " written=" + written.get()
+                + " dropped=" + dropped.get()
+                + " flushes=" + flushes.get()
+                + " rotations=" + rotations.get()
+                + " writeErrors=" + writeErrors.get();
+    }
+}
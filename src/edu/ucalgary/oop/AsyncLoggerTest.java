@@ -0,0 +1,118 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class AsyncLoggerTest {
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("async-logger-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testLinesAreWrittenInOrder() throws IOException {
+        Path file = directory.resolve("errorlog.txt");
+        AsyncLogger logger = new AsyncLogger(file, 64, AsyncLogger.Backpressure.BLOCK, 1 << 20, 60000);
+        for (int i = 0; i < 100; i++) {
+            logger.log("message " + i);
+        }
+        logger.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("Every queued line should be written on close", 100, lines.size());
+        assertTrue("Lines should keep their order", lines.get(99).endsWith(" - message 99"));
+        assertEquals("Nothing should be dropped under the blocking policy", 0, logger.getDroppedCount());
+        assertTrue("Lines should be flushed in batches, not one by one", logger.getFlushCount() <= 100);
+    }
+
+    @Test
+    public void testAuditEventFormat() throws IOException {
+        Path file = directory.resolve("audit.log");
+        AsyncLogger logger = new AsyncLogger(file, 64, AsyncLogger.Backpressure.BLOCK, 1 << 20, 60000);
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("type", "water");
+        fields.put("quantity", 3);
+        fields.put("location", "University of Calgary");
+        logger.audit("supply_allocation", fields);
+        logger.close();
+
+        String line = Files.readAllLines(file).get(0);
+        assertTrue("Audit lines should be tagged with the event",
+                line.contains(" - AUDIT supply_allocation type=water quantity=3 location=\"University of Calgary\""));
+    }
+
+    @Test
+    public void testInquiryAudit() throws IOException {
+        Path file = directory.resolve("audit.log");
+        AsyncLogger logger = new AsyncLogger(file, 64, AsyncLogger.Backpressure.BLOCK, 1 << 20, 60000);
+        ReliefService inquiry = new ReliefService(new Inquirer("Chinoso", "Nwosu", "555-9876", null),
+                new DisasterVictim("Aurelie", "2025-01-01"), "2025-01-02", "Seeking spouse", new Location("TELUS", "136 8 Ave SE"));
+        logger.audit(inquiry);
+        logger.close();
+
+        String line = Files.readAllLines(file).get(0);
+        assertTrue("Inquiry audits should carry the inquiry's log details", line.endsWith("AUDIT inquiry " + inquiry.getLogDetails()));
+    }
+
+    @Test
+    public void testRotatesBySize() throws IOException {
+        Path file = directory.resolve("errorlog.txt");
+        AsyncLogger logger = new AsyncLogger(file, 4, AsyncLogger.Backpressure.BLOCK, 100, 60000);
+        for (int i = 0; i < 20; i++) {
+            logger.log("a line that is long enough to fill the file quickly " + i);
+        }
+        logger.close();
+
+        assertTrue("The log should have rotated at least once", logger.getRotationCount() > 0);
+        assertTrue("The first archive should exist", Files.exists(directory.resolve("errorlog.txt.1")));
+    }
+
+    @Test
+    public void testRotationCountsEncodedBytes() throws Exception {
+        Path file = directory.resolve("errorlog.txt");
+        AsyncLogger logger = new AsyncLogger(file, 4, AsyncLogger.Backpressure.BLOCK, 100, 60000);
+        logger.log("é".repeat(40)); // Under 100 chars with the timestamp, over 100 bytes
+        while (logger.getWrittenCount() < 1) {
+            Thread.sleep(5);
+        }
+        logger.log("next");
+        logger.close();
+        assertEquals("The line's encoded size should trigger the rotation", 1, logger.getRotationCount());
+    }
+
+    @Test
+    public void testUtf8Length() {
+        assertEquals("ASCII is one byte a character", 3, AsyncLogger.utf8Length("abc"));
+        assertEquals("Accented letters take two bytes", 2, AsyncLogger.utf8Length("é"));
+        assertEquals("Other BMP characters take three", 3, AsyncLogger.utf8Length("€"));
+        assertEquals("A surrogate pair takes four", 4, AsyncLogger.utf8Length("\uD83D\uDE00"));
+    }
+
+    @Test
+    public void testLoggingAfterCloseIsDropped() {
+        AsyncLogger logger = new AsyncLogger(directory.resolve("errorlog.txt"), 4, AsyncLogger.Backpressure.DROP_NEWEST, 1 << 20, 60000);
+        logger.close();
+        logger.log("too late");
+        assertEquals("A closed logger should count late lines as dropped", 1, logger.getDroppedCount());
+        assertEquals("The configured policy should be reported", AsyncLogger.Backpressure.DROP_NEWEST, logger.getBackpressurePolicy());
+    }
+}
@@ -0,0 +1,567 @@
+package edu.ucalgary.oop;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs scripted commands without prompting, for bulk operations and throughput tests.
+// Input is one command per line, either CSV (add-victim,Freda,2025-01-15) or a JSON object
+// ({"command":"add-victim","first_name":"Freda","entry_date":"2025-01-15"}); blank lines and
+// lines starting with # are skipped. A parser thread reads and validates lines and hands
+// chunks to the calling thread, which executes them in order. Runs of add-victim commands
+// are sent to the target as one batch, flushed before any other command so later commands
+// see every earlier victim.
+public class BatchCommandRunner {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int CHUNK_SIZE = 256;
+    private static final int QUEUE_CHUNKS = 16;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    // Field names of each command, in CSV column order; trailing fields marked ? are optional
+    private static final Map<String, String[]> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("add-victim", new String[]{"first_name", "entry_date"});
+        FIELDS.put("log-inquiry", new String[]{"inquirer", "missing_person", "date"});
+        FIELDS.put("allocate", new String[]{"type", "quantity", "location", "person?"});
+        FIELDS.put("assign-family", new String[]{"name", "group_id"});
+        FIELDS.put("add-location", new String[]{"name", "address", "capacity?"});
+        FIELDS.put("admit", new String[]{"name", "location"});
+    }
+
+    // What the commands act on; failures are reported by throwing
+    public interface CommandTarget {
+        BulkVictimIntake.Result addVictims(List<DisasterVictim> victims) throws Exception;
+
+        void logInquiry(String inquirer, String missingPerson, String date) throws Exception;
+
+        void allocate(String type, int quantity, String location, String person) throws Exception;
+
+        void assignFamily(String name, int groupId) throws Exception;
+
+        // Opens a shelter that admissions can name; capacity is Location.UNLIMITED for no limit
+        void addLocation(String name, String address, int capacity) throws Exception;
+
+        // Places the victims with the name at the location
+        void admit(String name, String location) throws Exception;
+    }
+
+    private static final class Command {
+        private final long line;
+        private final String type;
+        private final String[] values; // In FIELDS order
+
+        Command(long line, String type, String[] values) {
+            this.line = line;
+            this.type = type;
+            this.values = values;
+        }
+    }
+
+    public static final class TypeStats {
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        public long getSucceeded() {
+            return succeeded.get();
+        }
+
+        public long getFailed() {
+            return failed.get();
+        }
+
+        public long getBusyNanos() {
+            return busyNanos.get();
+        }
+
+        // Commands per second of time spent executing this type
+        public double getThroughput() {
+            long busy = busyNanos.get();
+            return busy == 0 ? 0 : (succeeded.get() + failed.get()) * 1e9 / busy;
+        }
+    }
+
+    public static final class Summary {
+        private final Map<String, TypeStats> stats = new LinkedHashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private long lines;
+        private long elapsedNanos;
+
+        synchronized TypeStats statsFor(String type) {
+            return stats.computeIfAbsent(type, key -> new TypeStats());
+        }
+
+        synchronized void error(long line, String type, String message) {
+            statsFor(type).failed.incrementAndGet();
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + " (" + type + "): " + message);
+            }
+        }
+
+        public synchronized Map<String, TypeStats> getStats() {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(stats));
+        }
+
+        // The first errors, with their line numbers
+        public synchronized List<String> getErrors() {
+            return Collections.unmodifiableList(new ArrayList<>(errors));
+        }
+
+        public synchronized long getSucceeded() {
+            long total = 0;
+            for (TypeStats typeStats : stats.values()) {
+                total += typeStats.getSucceeded();
+            }
+            return total;
+        }
+
+        public synchronized long getFailed() {
+            long total = 0;
+            for (TypeStats typeStats : stats.values()) {
+                total += typeStats.getFailed();
+            }
+            return total;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public synchronized String toString() {
+            long total = getSucceeded() + getFailed();
+            StringBuilder out = new StringBuilder(String.format("Batch finished: %d commands in %.2f s (%.0f/s), %d failed%n",
+                    total, elapsedNanos / 1e9, elapsedNanos == 0 ? 0 : total * 1e9 / elapsedNanos, getFailed()));
+            for (Map.Entry<String, TypeStats> entry : stats.entrySet()) {
+                TypeStats typeStats = entry.getValue();
+                out.append(String.format("- %s: %d ok, %d failed, %.0f/s%n", entry.getKey(),
+                        typeStats.getSucceeded(), typeStats.getFailed(), typeStats.getThroughput()));
+            }
+            return out.toString();
+        }
+    }
+
+    private final CommandTarget target;
+    private final int batchSize;
+
+    public BatchCommandRunner(CommandTarget target) {
+        this(target, DEFAULT_BATCH_SIZE);
+    }
+
+    public BatchCommandRunner(CommandTarget target, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.target = target;
+        this.batchSize = batchSize;
+    }
+
+    // Parses and executes every command from the reader; returns once all have run
+    public Summary run(Reader input) throws IOException, InterruptedException {
+        Summary summary = new Summary();
+        BlockingQueue<List<Command>> chunks = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        List<Command> endOfInput = new ArrayList<>();
+        IOException[] readFailure = new IOException[1];
+        long start = System.nanoTime();
+
+        Thread parser = new Thread(() -> {
+            try {
+                parse(new BufferedReader(input), chunks, summary);
+            } catch (IOException e) {
+                readFailure[0] = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    chunks.put(endOfInput);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "batch-parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        List<Command> pendingVictims = new ArrayList<>();
+        try {
+            while (true) {
+                List<Command> chunk = chunks.take();
+                if (chunk == endOfInput) {
+                    break;
+                }
+                for (Command command : chunk) {
+                    if (command.type.equals("add-victim")) {
+                        pendingVictims.add(command);
+                        if (pendingVictims.size() >= batchSize) {
+                            flushVictims(pendingVictims, summary);
+                        }
+                    } else {
+                        flushVictims(pendingVictims, summary);
+                        execute(command, summary);
+                    }
+                }
+            }
+            flushVictims(pendingVictims, summary);
+        } finally {
+            parser.interrupt();
+            summary.elapsedNanos = System.nanoTime() - start;
+        }
+        parser.join();
+        if (readFailure[0] != null) {
+            throw readFailure[0];
+        }
+        return summary;
+    }
+
+    private void parse(BufferedReader reader, BlockingQueue<List<Command>> chunks, Summary summary)
+            throws IOException, InterruptedException {
+        List<Command> chunk = new ArrayList<>(CHUNK_SIZE);
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            String trimmed = text.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            Command command;
+            try {
+                command = trimmed.startsWith("{") ? parseJson(line, trimmed) : parseCsv(line, trimmed);
+            } catch (IllegalArgumentException e) {
+                summary.error(line, commandName(trimmed), e.getMessage());
+                continue;
+            }
+            if (command == null) {
+                continue; // CSV header
+            }
+            chunk.add(command);
+            if (chunk.size() == CHUNK_SIZE) {
+                chunks.put(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.put(chunk);
+        }
+        summary.lines = line;
+    }
+
+    // Best guess at the command of a line that failed to parse, for the error counts
+    private static String commandName(String text) {
+        for (String type : FIELDS.keySet()) {
+            if (text.startsWith(type) || text.contains("\"" + type + "\"")) {
+                return type;
+            }
+        }
+        return "unknown";
+    }
+
+    private static Command parseCsv(long line, String text) {
+        List<String> cells = splitCsv(text);
+        String type = cells.get(0).trim().toLowerCase();
+        if (type.equals("command")) {
+            return null;
+        }
+        String[] fields = fieldsOf(type);
+        if (cells.size() - 1 > fields.length) {
+            throw new IllegalArgumentException("Too many fields: expected " + String.join(",", fields));
+        }
+        String[] values = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = i + 1 < cells.size() ? cells.get(i + 1).trim() : null;
+        }
+        return validate(line, type, fields, values);
+    }
+
+    private static Command parseJson(long line, String text) {
+        Map<String, String> object = parseJsonObject(text);
+        String type = object.get("command");
+        if (type == null) {
+            throw new IllegalArgumentException("Missing \"command\"");
+        }
+        type = type.toLowerCase();
+        String[] fields = fieldsOf(type);
+        String[] values = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = object.get(fields[i].replace("?", ""));
+        }
+        return validate(line, type, fields, values);
+    }
+
+    private static String[] fieldsOf(String type) {
+        String[] fields = FIELDS.get(type);
+        if (fields == null) {
+            throw new IllegalArgumentException("Unknown command \"" + type + "\"");
+        }
+        return fields;
+    }
+
+    // Checks that required fields are present and dates and numbers are well formed
+    private static Command validate(long line, String type, String[] fields, String[] values) {
+        for (int i = 0; i < fields.length; i++) {
+            if (values[i] != null && values[i].isEmpty()) {
+                values[i] = null;
+            }
+            if (values[i] == null && !fields[i].endsWith("?")) {
+                throw new IllegalArgumentException("Missing " + fields[i]);
+            }
+        }
+        switch (type) {
+            case "add-victim":
+                requireDate(values[1], "entry_date");
+                break;
+            case "log-inquiry":
+                requireDate(values[2], "date");
+                break;
+            case "allocate":
+                if (requireInt(values[1], "quantity") <= 0) {
+                    throw new IllegalArgumentException("quantity must be positive");
+                }
+                break;
+            case "assign-family":
+                requireInt(values[1], "group_id");
+                break;
+            case "add-location":
+                if (values[2] != null && requireInt(values[2], "capacity") < 0) {
+                    throw new IllegalArgumentException("capacity must not be negative");
+                }
+                break;
+            default:
+                break;
+        }
+        return new Command(line, type, values);
+    }
+
+    private static void requireDate(String value, String field) {
+        if (!IsoDate.isValid(value)) {
+            throw new IllegalArgumentException(field + " must be YYYY-MM-DD: " + value);
+        }
+    }
+
+    private static int requireInt(String value, String field) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be a whole number: " + value);
+        }
+    }
+
+    private void flushVictims(List<Command> pending, Summary summary) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        TypeStats stats = summary.statsFor("add-victim");
+        long start = System.nanoTime();
+        List<Command> accepted = new ArrayList<>(pending.size());
+        List<DisasterVictim> victims = new ArrayList<>(pending.size());
+        for (Command command : pending) {
+            try {
+                victims.add(new DisasterVictim(command.values[0], command.values[1]));
+                accepted.add(command);
+            } catch (IllegalArgumentException e) {
+                summary.error(command.line, "add-victim", e.getMessage());
+            }
+        }
+        try {
+            BulkVictimIntake.Result result = target.addVictims(victims);
+            for (int row = 0; row < accepted.size(); row++) {
+                String failure = result.getFailures().get(row);
+                if (failure == null) {
+                    stats.succeeded.incrementAndGet();
+                } else {
+                    summary.error(accepted.get(row).line, "add-victim", failure);
+                }
+            }
+        } catch (Exception e) {
+            for (Command command : accepted) {
+                summary.error(command.line, "add-victim", String.valueOf(e.getMessage()));
+            }
+        } finally {
+            stats.busyNanos.addAndGet(System.nanoTime() - start);
+            pending.clear();
+        }
+    }
+
+    private void execute(Command command, Summary summary) {
+        TypeStats stats = summary.statsFor(command.type);
+        String[] values = command.values;
+        long start = System.nanoTime();
+        try {
+            switch (command.type) {
+                case "log-inquiry":
+                    target.logInquiry(values[0], values[1], values[2]);
+                    break;
+                case "allocate":
+                    target.allocate(values[0], Integer.parseInt(values[1]), values[2], values[3]);
+                    break;
+                case "assign-family":
+                    target.assignFamily(values[0], Integer.parseInt(values[1]));
+                    break;
+                case "add-location":
+                    target.addLocation(values[0], values[1],
+                            values[2] == null ? Location.UNLIMITED : Integer.parseInt(values[2]));
+                    break;
+                case "admit":
+                    target.admit(values[0], values[1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unhandled command " + command.type);
+            }
+            stats.succeeded.incrementAndGet();
+        } catch (Exception e) {
+            summary.error(command.line, command.type, String.valueOf(e.getMessage()));
+        } finally {
+            stats.busyNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    // Splits one CSV record; fields may be quoted, with "" standing for a quote
+    static List<String> splitCsv(String text) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    // Parses a flat JSON object whose values are strings, numbers, booleans or null
+    static Map<String, String> parseJsonObject(String text) {
+        Map<String, String> object = new LinkedHashMap<>();
+        int[] pos = {skipSpace(text, 0)};
+        expect(text, pos, '{');
+        if (peek(text, pos) == '}') {
+            pos[0]++;
+        } else {
+            while (true) {
+                String key = readJsonString(text, pos);
+                expect(text, pos, ':');
+                object.put(key, readJsonValue(text, pos));
+                char next = peek(text, pos);
+                pos[0]++;
+                if (next == '}') {
+                    break;
+                }
+                if (next != ',') {
+                    throw new IllegalArgumentException("Expected , or } at column " + pos[0]);
+                }
+            }
+        }
+        if (skipSpace(text, pos[0]) != text.length()) {
+            throw new IllegalArgumentException("Unexpected text after the object");
+        }
+        return object;
+    }
+
+    private static int skipSpace(String text, int pos) {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static char peek(String text, int[] pos) {
+        pos[0] = skipSpace(text, pos[0]);
+        if (pos[0] >= text.length()) {
+            throw new IllegalArgumentException("Unexpected end of JSON");
+        }
+        return text.charAt(pos[0]);
+    }
+
+    private static void expect(String text, int[] pos, char c) {
+        if (peek(text, pos) != c) {
+            throw new IllegalArgumentException("Expected " + c + " at column " + (pos[0] + 1));
+        }
+        pos[0]++;
+    }
+
+    private static String readJsonValue(String text, int[] pos) {
+        char c = peek(text, pos);
+        if (c == '"') {
+            return readJsonString(text, pos);
+        }
+        int start = pos[0];
+        while (pos[0] < text.length() && ",}".indexOf(text.charAt(pos[0])) < 0
+                && !Character.isWhitespace(text.charAt(pos[0]))) {
+            pos[0]++;
+        }
+        String literal = text.substring(start, pos[0]);
+        if (literal.equals("null")) {
+            return null;
+        }
+        if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?")) {
+            return literal;
+        }
+        throw new IllegalArgumentException("Unsupported JSON value \"" + literal + "\"");
+    }
+
+    private static String readJsonString(String text, int[] pos) {
+        expect(text, pos, '"');
+        StringBuilder value = new StringBuilder();
+        while (pos[0] < text.length()) {
+            char c = text.charAt(pos[0]++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (pos[0] >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(pos[0]++);
+            switch (escaped) {
+                case 'n': value.append('\n'); break;
+                case 't': value.append('\t'); break;
+                case 'r': value.append('\r'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (pos[0] + 4 > text.length()) {
+                        throw new IllegalArgumentException("Bad \\u escape");
+                    }
+                    value.append((char) Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16));
+                    pos[0] += 4;
+                    break;
+                default: value.append(escaped);
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+}
@@ -0,0 +1,136 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class BatchCommandRunnerTest {
+    private List<String> calls;
+    private List<Integer> batchSizes;
+    private BatchCommandRunner runner;
+
+    @Before
+    public void setUp() {
+        calls = new ArrayList<>();
+        batchSizes = new ArrayList<>();
+        runner = new BatchCommandRunner(new BatchCommandRunner.CommandTarget() {
+            @Override
+            public BulkVictimIntake.Result addVictims(List<DisasterVictim> victims) {
+                batchSizes.add(victims.size());
+                BulkVictimIntake.Result result = new BulkVictimIntake.Result();
+                for (int row = 0; row < victims.size(); row++) {
+                    calls.add("add " + victims.get(row).getFirstName());
+                    if (victims.get(row).getFirstName().equals("Reject")) {
+                        result.recordFailure(row, "rejected");
+                    } else {
+                        result.recordSuccess(row, row + 1);
+                    }
+                }
+                return result;
+            }
+
+            @Override
+            public void logInquiry(String inquirer, String missingPerson, String date) {
+                calls.add("inquiry " + inquirer + " " + missingPerson + " " + date);
+            }
+
+            @Override
+            public void allocate(String type, int quantity, String location, String person) {
+                if (quantity > 50) {
+                    throw new IllegalStateException("Insufficient stock");
+                }
+                calls.add("allocate " + type + " " + quantity + " " + location + " " + person);
+            }
+
+            @Override
+            public void assignFamily(String name, int groupId) {
+                calls.add("assign " + name + " " + groupId);
+            }
+
+            @Override
+            public void addLocation(String name, String address, int capacity) {
+                calls.add("location " + name + " " + address + " " + capacity);
+            }
+
+            @Override
+            public void admit(String name, String location) {
+                calls.add("admit " + name + " " + location);
+            }
+        }, 2);
+    }
+
+    @Test
+    public void testCsvAndJsonLinesRunInOrder() throws Exception {
+        String input = "command,field1,field2\n"
+                + "add-victim,Freda,2025-01-15\n"
+                + "# comment\n"
+                + "\n"
+                + "{\"command\":\"assign-family\",\"name\":\"Freda\",\"group_id\":7}\n"
+                + "log-inquiry,\"Nwosu, Chinoso\",Kai,2025-01-16\n"
+                + "allocate,blanket,3,TELUS\n"
+                + "{\"command\":\"admit\",\"name\":\"Freda\",\"location\":\"TELUS\"}\n";
+        BatchCommandRunner.Summary summary = runner.run(new StringReader(input));
+        assertEquals("Every command should run in file order", List.of("add Freda", "assign Freda 7",
+                "inquiry Nwosu, Chinoso Kai 2025-01-16", "allocate blanket 3 TELUS null", "admit Freda TELUS"), calls);
+        assertEquals("All commands should succeed", 5, summary.getSucceeded());
+        assertEquals("Nothing should fail", 0, summary.getFailed());
+        assertEquals("Every line should be read", 8, summary.getLines());
+    }
+
+    @Test
+    public void testLocationsAreAddedWithOptionalCapacity() throws Exception {
+        String input = "add-location,TELUS,136 8 Ave SE\n"
+                + "{\"command\":\"add-location\",\"name\":\"Shaw\",\"address\":\"20 Roundup Way\",\"capacity\":40}\n"
+                + "add-location,Genesis,7555 Falconridge Blvd,-1\n";
+        BatchCommandRunner.Summary summary = runner.run(new StringReader(input));
+        assertEquals("Capacity should default to unlimited", List.of("location TELUS 136 8 Ave SE 0",
+                "location Shaw 20 Roundup Way 40"), calls);
+        assertEquals("A negative capacity should be rejected", 1, summary.getFailed());
+    }
+
+    @Test
+    public void testVictimsAreBatchedAndFlushedBeforeOtherCommands() throws Exception {
+        String input = "add-victim,A,2025-01-15\nadd-victim,B,2025-01-15\nadd-victim,C,2025-01-15\n"
+                + "assign-family,C,1\nadd-victim,D,2025-01-15\n";
+        runner.run(new StringReader(input));
+        assertEquals("Batches should be capped and flushed before other commands", List.of(2, 1, 1), batchSizes);
+        assertEquals("The assignment should see the victim added before it", "assign C 1", calls.get(3));
+    }
+
+    @Test
+    public void testInvalidLinesAreCountedWithLineNumbers() throws Exception {
+        String input = "add-victim,Freda,2025-13-45\n"
+                + "frobnicate,x\n"
+                + "{\"command\":\"allocate\",\"type\":\"cot\",\"quantity\":\"many\",\"location\":\"TELUS\"}\n"
+                + "allocate,cot,99,TELUS,Kai\n"
+                + "add-victim,Reject,2025-01-15\n"
+                + "add-victim,Kai,2025-01-15\n";
+        BatchCommandRunner.Summary summary = runner.run(new StringReader(input));
+        Map<String, BatchCommandRunner.TypeStats> stats = summary.getStats();
+        assertEquals("The bad date and the rejected row should fail", 2, stats.get("add-victim").getFailed());
+        assertEquals("The valid victim should be added", 1, stats.get("add-victim").getSucceeded());
+        assertEquals("The bad quantity and the stock failure should fail", 2, stats.get("allocate").getFailed());
+        assertEquals("The unknown command should be counted", 1, stats.get("unknown").getFailed());
+        assertTrue("Errors should name their line", summary.getErrors().get(0).startsWith("line 1 (add-victim)"));
+        assertTrue("The summary should report per-type counts", summary.toString().contains("- allocate: 0 ok, 2 failed"));
+    }
+
+    @Test
+    public void testJsonParsing() {
+        Map<String, String> object = BatchCommandRunner.parseJsonObject(
+                "{ \"a\" : \"x\\\"y\\u0041\", \"b\": 12, \"c\": null, \"d\": true }");
+        assertEquals("Escapes should be decoded", "x\"yA", object.get("a"));
+        assertEquals("Numbers should be kept as text", "12", object.get("b"));
+        assertNull("null should map to null", object.get("c"));
+        assertEquals("Booleans should be kept as text", "true", object.get("d"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedJsonIsRejected() {
+        BatchCommandRunner.parseJsonObject("{\"a\": \"x\"");
+    }
+}
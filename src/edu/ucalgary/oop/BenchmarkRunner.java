@@ -0,0 +1,240 @@
+package edu.ucalgary.oop;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Minimal average-time benchmark harness for code that runs without a build tool.
+// Each benchmark gets warmup iterations and then timed iterations of a fixed length;
+// every iteration starts from fresh state made by the benchmark's fixture. Results are
+// written in the JSON layout JMH uses for -rf json, so existing tooling can compare runs.
+public class BenchmarkRunner {
+
+    // The code being measured; its return value is consumed so the JIT cannot drop the work
+    public interface Operation {
+        Object invoke() throws Exception;
+    }
+
+    // Builds the state for one iteration and returns the operation to time against it
+    public interface Fixture {
+        Operation prepare() throws Exception;
+    }
+
+    public static final class Result {
+        private final String benchmark;
+        private final Map<String, String> params;
+        private final double[] nanosPerOp;
+        private final int warmupIterations;
+        private final long iterationMillis;
+
+        Result(String benchmark, Map<String, String> params, double[] nanosPerOp, int warmupIterations, long iterationMillis) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.nanosPerOp = nanosPerOp;
+            this.warmupIterations = warmupIterations;
+            this.iterationMillis = iterationMillis;
+        }
+
+        public String getBenchmark() {
+            return benchmark;
+        }
+
+        public Map<String, String> getParams() {
+            return Collections.unmodifiableMap(params);
+        }
+
+        public double[] getRawData() {
+            return nanosPerOp.clone();
+        }
+
+        public double getScore() {
+            double sum = 0;
+            for (double value : nanosPerOp) {
+                sum += value;
+            }
+            return sum / nanosPerOp.length;
+        }
+
+        // Half-width of the 99.9% confidence interval, as JMH reports it
+        public double getScoreError() {
+            int n = nanosPerOp.length;
+            if (n < 2) {
+                return Double.NaN;
+            }
+            double mean = getScore();
+            double squares = 0;
+            for (double value : nanosPerOp) {
+                squares += (value - mean) * (value - mean);
+            }
+            return studentT999(n - 1) * Math.sqrt(squares / (n - 1)) / Math.sqrt(n);
+        }
+
+        @Override
+        public String toString() {
+            String label = params.isEmpty() ? benchmark : benchmark + " " + params;
+            return String.format("%-60s %12.1f +- %8.1f ns/op", label, getScore(), getScoreError());
+        }
+    }
+
+    // Two-sided 99.9% Student t critical values for 1..10 degrees of freedom
+    private static final double[] T_999 = {636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587};
+
+    private static double studentT999(int degreesOfFreedom) {
+        if (degreesOfFreedom <= T_999.length) {
+            return T_999[degreesOfFreedom - 1];
+        }
+        return degreesOfFreedom <= 30 ? 3.646 : 3.291;
+    }
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMillis;
+    private final Pattern filter;
+    private final List<Result> results = new ArrayList<>();
+    private long sink; // Consumed results; read once at the end so the work stays live
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis, String filter) {
+        if (measurementIterations <= 0 || iterationMillis <= 0 || warmupIterations < 0) {
+            throw new IllegalArgumentException("Iteration counts and length must be positive");
+        }
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+        this.filter = filter == null ? null : Pattern.compile(filter);
+    }
+
+    // True if the filter lets any of the benchmarks run, so costly shared setup can be skipped
+    public boolean selects(String... benchmarks) {
+        for (String benchmark : benchmarks) {
+            if (filter == null || filter.matcher(benchmark).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Runs the benchmark unless the filter excludes it; returns null when skipped
+    public Result run(String benchmark, Map<String, String> params, Fixture fixture) throws Exception {
+        if (!selects(benchmark)) {
+            return null;
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(fixture);
+        }
+        double[] nanosPerOp = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            nanosPerOp[i] = iteration(fixture);
+        }
+        Result result = new Result(benchmark, new LinkedHashMap<>(params), nanosPerOp, warmupIterations, iterationMillis);
+        results.add(result);
+        return result;
+    }
+
+    public Result run(String benchmark, Fixture fixture) throws Exception {
+        return run(benchmark, Collections.emptyMap(), fixture);
+    }
+
+    // Times the operation in growing batches until the iteration length is used up
+    private double iteration(Fixture fixture) throws Exception {
+        Operation operation = fixture.prepare();
+        long budget = iterationMillis * 1_000_000L;
+        long operations = 0;
+        long batch = 1;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long i = 0; i < batch; i++) {
+                consume(operation.invoke());
+            }
+            operations += batch;
+            if (batch < 1 << 16) {
+                batch <<= 1;
+            }
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budget);
+        return (double) elapsed / operations;
+    }
+
+    private void consume(Object value) {
+        sink += value == null ? 0 : value.hashCode();
+    }
+
+    public List<Result> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    // Writes every result as a JMH-style JSON array
+    public void writeJson(Writer out) throws IOException {
+        out.write("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            out.write("  {\n");
+            out.write("    \"benchmark\" : " + quote(result.benchmark) + ",\n");
+            out.write("    \"mode\" : \"avgt\",\n");
+            out.write("    \"threads\" : 1,\n");
+            out.write("    \"forks\" : 0,\n");
+            out.write("    \"jvm\" : " + quote(System.getProperty("java.home")) + ",\n");
+            out.write("    \"jdkVersion\" : " + quote(System.getProperty("java.version")) + ",\n");
+            out.write("    \"warmupIterations\" : " + result.warmupIterations + ",\n");
+            out.write("    \"warmupTime\" : \"" + result.iterationMillis + " ms\",\n");
+            out.write("    \"measurementIterations\" : " + result.nanosPerOp.length + ",\n");
+            out.write("    \"measurementTime\" : \"" + result.iterationMillis + " ms\",\n");
+            if (!result.params.isEmpty()) {
+                out.write("    \"params\" : {\n");
+                int p = 0;
+                for (Map.Entry<String, String> param : result.params.entrySet()) {
+                    out.write("      " + quote(param.getKey()) + " : " + quote(param.getValue())
+                            + (++p < result.params.size() ? ",\n" : "\n"));
+                }
+                out.write("    },\n");
+            }
+            out.write("    \"primaryMetric\" : {\n");
+            out.write("      \"score\" : " + number(result.getScore()) + ",\n");
+            out.write("      \"scoreError\" : " + number(result.getScoreError()) + ",\n");
+            out.write("      \"scoreUnit\" : \"ns/op\",\n");
+            StringBuilder raw = new StringBuilder();
+            for (double value : result.nanosPerOp) {
+                raw.append(raw.length() == 0 ? "" : ", ").append(number(value));
+            }
+            out.write("      \"rawData\" : [ [ " + raw + " ] ]\n");
+            out.write("    }\n");
+            out.write(i + 1 < results.size() ? "  },\n" : "  }\n");
+        }
+        out.write("]\n");
+        out.flush();
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : String.valueOf(value).toCharArray()) {
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    // Printed at the end so the consumed values cannot be optimised away
+    public long getSink() {
+        return sink;
+    }
+}
@@ -0,0 +1,54 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.StringWriter;
+import java.util.Map;
+
+public class BenchmarkRunnerTest {
+    private BenchmarkRunner runner;
+
+    @Before
+    public void setUp() {
+        runner = new BenchmarkRunner(1, 3, 5, "Location");
+    }
+
+    @Test
+    public void testRunMeasuresEveryIteration() throws Exception {
+        int[] prepared = {0};
+        BenchmarkRunner.Result result = runner.run("Location.getOccupants", Map.of("occupants", "16"), () -> {
+            prepared[0]++;
+            Location shelter = new Location("TELUS", "136 8 Ave SE");
+            return () -> shelter.getOccupants().size();
+        });
+        assertEquals("Each warmup and measured iteration should get fresh state", 4, prepared[0]);
+        assertEquals("One score per measured iteration should be kept", 3, result.getRawData().length);
+        assertTrue("The score should be positive", result.getScore() > 0);
+        assertFalse("Three iterations should give an error bound", Double.isNaN(result.getScoreError()));
+    }
+
+    @Test
+    public void testFilterSkipsOtherBenchmarks() throws Exception {
+        assertNull("Benchmarks outside the filter should be skipped",
+                runner.run("DisasterVictim.new", () -> () -> new DisasterVictim("Freda", "2025-01-15")));
+        assertTrue("Skipped benchmarks should not be reported", runner.getResults().isEmpty());
+    }
+
+    @Test
+    public void testJsonFollowsJmhLayout() throws Exception {
+        runner.run("Location.hasOccupant", Map.of("occupants", "1"), () -> {
+            Location shelter = new Location("TELUS", "136 8 Ave SE");
+            return () -> shelter.hasOccupant(1);
+        });
+        StringWriter out = new StringWriter();
+        runner.writeJson(out);
+        String json = out.toString();
+        assertTrue("The benchmark name should be written", json.contains("\"benchmark\" : \"Location.hasOccupant\""));
+        assertTrue("The mode should be average time", json.contains("\"mode\" : \"avgt\""));
+        assertTrue("Parameters should be written", json.contains("\"occupants\" : \"1\""));
+        assertTrue("The unit should be ns/op", json.contains("\"scoreUnit\" : \"ns/op\""));
+        assertTrue("Raw iteration data should be written", json.contains("\"rawData\""));
+        assertTrue("The document should be a JSON array", json.startsWith("[") && json.trim().endsWith("]"));
+    }
+}
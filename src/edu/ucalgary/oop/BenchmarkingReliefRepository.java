@@ -0,0 +1,220 @@
+package edu.ucalgary.oop;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+// ReliefRepository that times every call made to another repository.
+// Counts calls, failures and total and worst-case time per operation, so the same load
+// can be compared against the JDBC and in-memory stores.
+public class BenchmarkingReliefRepository implements ReliefRepository {
+
+    // One repository call, timed by call()
+    private interface Call<T> {
+        T run() throws SQLException;
+    }
+
+    public static final class OperationStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean failed) {
+            calls.increment();
+            totalNanos.add(nanos);
+            if (failed) {
+                errors.increment();
+            }
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getMeanNanos() {
+            long count = calls.sum();
+            return count == 0 ? 0 : totalNanos.sum() / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("calls=%d errors=%d mean=%.1fus max=%.1fus",
+                    getCalls(), getErrors(), getMeanNanos() / 1000.0, getMaxNanos() / 1000.0);
+        }
+    }
+
+    private final ReliefRepository delegate;
+    private final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+
+    public BenchmarkingReliefRepository(ReliefRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ReliefRepository getDelegate() {
+        return delegate;
+    }
+
+    private <T> T call(String operation, Call<T> call) throws SQLException {
+        OperationStats operationStats = stats.computeIfAbsent(operation, name -> new OperationStats());
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.run();
+            failed = false;
+            return result;
+        } finally {
+            operationStats.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int addVictim(DisasterVictim victim) throws SQLException {
+        return call("addVictim", () -> delegate.addVictim(victim));
+    }
+
+    @Override
+    public BulkVictimIntake.Result addVictims(Collection<DisasterVictim> victims) throws SQLException {
+        return call("addVictims", () -> delegate.addVictims(victims));
+    }
+
+    @Override
+    public int countVictimsByFirstName(String firstName) throws SQLException {
+        return call("countVictimsByFirstName", () -> delegate.countVictimsByFirstName(firstName));
+    }
+
+    @Override
+    public int renameVictims(String firstName, String newFirstName) throws SQLException {
+        return call("renameVictims", () -> delegate.renameVictims(firstName, newFirstName));
+    }
+
+    @Override
+    public int updateEntryDate(String firstName, String entryDate) throws SQLException {
+        return call("updateEntryDate", () -> delegate.updateEntryDate(firstName, entryDate));
+    }
+
+    @Override
+    public void forEachVictim(BiConsumer<DisasterVictim, Integer> consumer, Runnable onFirstPage) throws SQLException {
+        call("forEachVictim", () -> {
+            delegate.forEachVictim(consumer, onFirstPage);
+            return null;
+        });
+    }
+
+    @Override
+    public void addFamilyGroup(int groupId, String headName) throws SQLException {
+        call("addFamilyGroup", () -> {
+            delegate.addFamilyGroup(groupId, headName);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Integer, String> getFamilyGroups() throws SQLException {
+        return call("getFamilyGroups", delegate::getFamilyGroups);
+    }
+
+    @Override
+    public Integer getFamilyGroup(String firstName) throws SQLException {
+        return call("getFamilyGroup", () -> delegate.getFamilyGroup(firstName));
+    }
+
+    @Override
+    public int assignFamilyGroup(String firstName, int groupId) throws SQLException {
+        return call("assignFamilyGroup", () -> delegate.assignFamilyGroup(firstName, groupId));
+    }
+
+    @Override
+    public int addLocation(Location location) throws SQLException {
+        return call("addLocation", () -> delegate.addLocation(location));
+    }
+
+    @Override
+    public List<Location> getLocations() throws SQLException {
+        return call("getLocations", delegate::getLocations);
+    }
+
+    @Override
+    public long addSupply(String type, int quantity, String person, String location) throws SQLException {
+        return call("addSupply", () -> delegate.addSupply(type, quantity, person, location));
+    }
+
+    @Override
+    public Map<SupplyLedger.Key, Integer> getStockOnHand() throws SQLException {
+        return call("getStockOnHand", delegate::getStockOnHand);
+    }
+
+    @Override
+    public Map<Long, Long> getUnexpiredWater() throws SQLException {
+        return call("getUnexpiredWater", delegate::getUnexpiredWater);
+    }
+
+    @Override
+    public void expireSupplies(List<Long> supplyIds) throws SQLException {
+        call("expireSupplies", () -> {
+            delegate.expireSupplies(supplyIds);
+            return null;
+        });
+    }
+
+    @Override
+    public void addInquiry(ReliefService inquiry) throws SQLException {
+        call("addInquiry", () -> {
+            delegate.addInquiry(inquiry);
+            return null;
+        });
+    }
+
+    @Override
+    public List<ReliefService> findInquiries(String missingPersonName) throws SQLException {
+        return call("findInquiries", () -> delegate.findInquiries(missingPersonName));
+    }
+
+    @Override
+    public void addMedicalRecord(int personId, MedicalRecord record) throws SQLException {
+        call("addMedicalRecord", () -> {
+            delegate.addMedicalRecord(personId, record);
+            return null;
+        });
+    }
+
+    @Override
+    public List<MedicalRecord> getMedicalRecords(int personId) throws SQLException {
+        return call("getMedicalRecords", () -> delegate.getMedicalRecords(personId));
+    }
+
+    // Stats for one operation, or null if it has not been called
+    public OperationStats getStats(String operation) {
+        return stats.get(operation);
+    }
+
+    // Stats for every operation called so far, sorted by name
+    public Map<String, OperationStats> getStats() {
+        return new TreeMap<>(stats);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
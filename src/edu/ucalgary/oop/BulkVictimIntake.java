@@ -0,0 +1,196 @@
+package edu.ucalgary.oop;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Registers many disaster victims at once using JDBC batches inside a single transaction.
+// A chunk that fails is rolled back to its savepoint and retried row by row so that one
+// bad row is reported on its own instead of aborting the whole load.
+public class BulkVictimIntake {
+    public static final int DEFAULT_CHUNK_SIZE = 50;
+    private static final String INSERT_QUERY =
+            "INSERT INTO disaster_victims (first_name, entry_date) VALUES (?, ?)";
+
+    private final DatabaseManager databaseManager;
+    private final int chunkSize;
+
+    // Outcome of a bulk load; ids and failures are indexed by input position
+    public static class Result {
+        private final List<Integer> personIds = new ArrayList<>();
+        private final Map<Integer, String> failures = new LinkedHashMap<>();
+
+        void recordSuccess(int row, int personId) {
+            while (personIds.size() <= row) {
+                personIds.add(null);
+            }
+            personIds.set(row, personId);
+        }
+
+        void recordFailure(int row, String reason) {
+            while (personIds.size() <= row) {
+                personIds.add(null);
+            }
+            failures.put(row, reason);
+        }
+
+        // Generated person_id for each input row, or null where the row failed
+        public List<Integer> getPersonIds() {
+            return Collections.unmodifiableList(personIds);
+        }
+
+        public Map<Integer, String> getFailures() {
+            return Collections.unmodifiableMap(failures);
+        }
+
+        public int getInsertedCount() {
+            return personIds.size() - failures.size();
+        }
+
+        public boolean hasFailures() {
+            return !failures.isEmpty();
+        }
+    }
+
+    public BulkVictimIntake(DatabaseManager databaseManager) {
+        this(databaseManager, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkVictimIntake(DatabaseManager databaseManager, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.databaseManager = databaseManager;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public Result register(Stream<DisasterVictim> victims) throws SQLException {
+        return register(victims.iterator());
+    }
+
+    public Result register(Iterable<DisasterVictim> victims) throws SQLException {
+        return register(victims.iterator());
+    }
+
+    public Result register(DisasterVictim... victims) throws SQLException {
+        return register(Arrays.asList(victims));
+    }
+
+    // Inserts every victim and commits once; throws only if the transaction itself cannot complete
+    public Result register(Iterator<DisasterVictim> victims) throws SQLException {
+        Result result = new Result();
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_QUERY, new String[]{"person_id"})) {
+                List<DisasterVictim> chunk = new ArrayList<>(chunkSize);
+                int firstRow = 0;
+                int row = 0;
+                while (victims.hasNext()) {
+                    chunk.add(victims.next());
+                    row++;
+                    if (chunk.size() == chunkSize) {
+                        writeChunk(conn, pstmt, chunk, firstRow, result);
+                        chunk.clear();
+                        firstRow = row;
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    writeChunk(conn, pstmt, chunk, firstRow, result);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    private void writeChunk(Connection conn, PreparedStatement pstmt, List<DisasterVictim> chunk,
+                            int firstRow, Result result) throws SQLException {
+        List<Integer> batchedRows = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            DisasterVictim victim = chunk.get(i);
+            String problem = validate(victim);
+            if (problem != null) {
+                result.recordFailure(firstRow + i, problem);
+                continue;
+            }
+            bind(pstmt, victim);
+            pstmt.addBatch();
+            batchedRows.add(firstRow + i);
+        }
+        if (batchedRows.isEmpty()) {
+            return;
+        }
+
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            pstmt.executeBatch();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                for (int batchedRow : batchedRows) {
+                    if (!keys.next()) {
+                        throw new SQLException("Driver returned fewer generated keys than rows inserted");
+                    }
+                    result.recordSuccess(batchedRow, keys.getInt(1));
+                }
+            }
+            conn.releaseSavepoint(savepoint);
+        } catch (BatchUpdateException e) {
+            pstmt.clearBatch();
+            conn.rollback(savepoint);
+            retryRowByRow(conn, pstmt, chunk, firstRow, batchedRows, result);
+        }
+    }
+
+    // Isolates the failing rows of a chunk, each behind its own savepoint
+    private void retryRowByRow(Connection conn, PreparedStatement pstmt, List<DisasterVictim> chunk,
+                               int firstRow, List<Integer> rows, Result result) throws SQLException {
+        for (int row : rows) {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                bind(pstmt, chunk.get(row - firstRow));
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        result.recordSuccess(row, keys.getInt(1));
+                    }
+                }
+                conn.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                result.recordFailure(row, e.getMessage());
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, DisasterVictim victim) throws SQLException {
+        pstmt.setString(1, victim.getFirstName());
+        pstmt.setString(2, victim.getEntryDate());
+    }
+
+    private static String validate(DisasterVictim victim) {
+        if (victim == null) {
+            return "Victim is null";
+        }
+        if (victim.getFirstName() == null || victim.getFirstName().isBlank()) {
+            return "First name is required";
+        }
+        return null;
+    }
+}
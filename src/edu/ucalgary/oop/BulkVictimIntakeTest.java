@@ -0,0 +1,158 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class BulkVictimIntakeTest {
+    private List<String> calls; // What the intake asked of the database, in order
+    private int nextPersonId;
+    private DatabaseManager pool;
+
+    // A database that rejects any victim named "Duplicate" and numbers the rest from 1
+    private Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement": return fakeInsert();
+                        case "setSavepoint":
+                            calls.add("savepoint");
+                            return Proxy.newProxyInstance(Savepoint.class.getClassLoader(),
+                                    new Class<?>[]{Savepoint.class}, (savepoint, m, a) -> null);
+                        case "releaseSavepoint": calls.add("release"); return null;
+                        case "rollback": calls.add(args == null ? "rollback" : "rollback to savepoint"); return null;
+                        case "commit": calls.add("commit"); return null;
+                        case "isValid": return true;
+                        case "isClosed": return false;
+                        case "getAutoCommit": return true;
+                        default: return null;
+                    }
+                });
+    }
+
+    private PreparedStatement fakeInsert() {
+        String[] bound = new String[1];
+        List<String> batch = new ArrayList<>();
+        List<Integer> keys = new ArrayList<>();
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setString":
+                            if ((int) args[0] == 1) {
+                                bound[0] = (String) args[1];
+                            }
+                            return null;
+                        case "addBatch": batch.add(bound[0]); return null;
+                        case "clearBatch": batch.clear(); return null;
+                        case "executeBatch":
+                            calls.add("batch " + batch.size());
+                            keys.clear();
+                            try {
+                                if (batch.contains("Duplicate")) {
+                                    throw new BatchUpdateException("duplicate key", new int[0]);
+                                }
+                                for (String ignored : batch) {
+                                    keys.add(++nextPersonId);
+                                }
+                                return new int[batch.size()];
+                            } finally {
+                                batch.clear();
+                            }
+                        case "executeUpdate":
+                            calls.add("insert " + bound[0]);
+                            keys.clear();
+                            if (bound[0].equals("Duplicate")) {
+                                throw new SQLException("duplicate key");
+                            }
+                            keys.add(++nextPersonId);
+                            return 1;
+                        case "getGeneratedKeys": return fakeKeys(new ArrayList<>(keys));
+                        default: return null;
+                    }
+                });
+    }
+
+    private static ResultSet fakeKeys(List<Integer> keys) {
+        int[] cursor = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next": return ++cursor[0] < keys.size();
+                        case "getInt": return keys.get(cursor[0]);
+                        default: return null;
+                    }
+                });
+    }
+
+    private static List<DisasterVictim> victims(String... names) {
+        List<DisasterVictim> victims = new ArrayList<>();
+        for (String name : names) {
+            victims.add(new DisasterVictim(name, "2025-01-15"));
+        }
+        return victims;
+    }
+
+    @Before
+    public void setUp() {
+        calls = new ArrayList<>();
+        nextPersonId = 0;
+        pool = new DatabaseManager(this::fakeConnection, 2, 50, 60000);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testVictimsAreSentInChunks() throws SQLException {
+        BulkVictimIntake intake = new BulkVictimIntake(pool, 2);
+        BulkVictimIntake.Result result = intake.register(victims("Freda", "Kai", "Mei", "Jane", "Amara"));
+        assertEquals("Each chunk should be one batch under its own savepoint", List.of(
+                "savepoint", "batch 2", "release", "savepoint", "batch 2", "release",
+                "savepoint", "batch 1", "release", "commit"), calls);
+        assertEquals("Every row should get its generated id", List.of(1, 2, 3, 4, 5), result.getPersonIds());
+        assertFalse("Nothing should fail", result.hasFailures());
+    }
+
+    @Test
+    public void testFailingChunkIsRetriedRowByRow() throws SQLException {
+        BulkVictimIntake intake = new BulkVictimIntake(pool, 2);
+        BulkVictimIntake.Result result = intake.register(victims("Freda", "Duplicate", "Mei"));
+        assertEquals("A failed batch should roll back to its savepoint and retry each row", List.of(
+                "savepoint", "batch 2", "rollback to savepoint",
+                "savepoint", "insert Freda", "release",
+                "savepoint", "insert Duplicate", "rollback to savepoint",
+                "savepoint", "batch 1", "release", "commit"), calls);
+        assertEquals("Only the bad row should be missing an id", Arrays.asList(1, null, 2), result.getPersonIds());
+        assertEquals("The bad row should be reported by position", Map.of(1, "duplicate key"), result.getFailures());
+        assertEquals("The other rows should be inserted", 2, result.getInsertedCount());
+    }
+
+    @Test
+    public void testInvalidRowsAreNotSent() throws SQLException {
+        BulkVictimIntake intake = new BulkVictimIntake(pool, 2);
+        BulkVictimIntake.Result result = intake.register(victims("Freda", " "));
+        assertEquals("Only the valid row should be batched", List.of("savepoint", "batch 1", "release", "commit"), calls);
+        assertEquals("The blank name should be reported", "First name is required", result.getFailures().get(1));
+    }
+
+    @Test
+    public void testEmptyInputCommitsNothing() throws SQLException {
+        BulkVictimIntake.Result result = new BulkVictimIntake(pool, 2).register(new DisasterVictim[0]);
+        assertEquals("No batch should be sent", List.of("commit"), calls);
+        assertEquals("Nothing should be inserted", 0, result.getInsertedCount());
+    }
+}
@@ -1,32 +1,379 @@
 package edu.ucalgary.oop;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Bounded JDBC connection pool. Connections handed out by getConnection() are leases:
+// closing them returns the physical connection to the pool instead of closing it.
 public class DatabaseManager {
     private static DatabaseManager instance;
-    private Connection connection;
-    private static final String DB_URL = "jdbc:postgresql://localhost:5432/project";
-    private static final String DB_USER = "oop";
-    private static final String DB_PASSWORD = "ucalgary";
+    // Overridable with -Drelief.db.url=... etc., e.g. to point at an embedded database
+    private static final String DB_URL = System.getProperty("relief.db.url", "jdbc:postgresql://localhost:5432/project");
+    private static final String DB_USER = System.getProperty("relief.db.user", "oop");
+    private static final String DB_PASSWORD = System.getProperty("relief.db.password", "ucalgary");
+
+    private static final int DEFAULT_MAX_SIZE = 8;
+    private static final long DEFAULT_BORROW_TIMEOUT_MS = 5000;
+    private static final long DEFAULT_IDLE_TIMEOUT_MS = 60000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final int MAX_SQL_LABEL = 200;
+
+    // Opens a new physical connection; replaced in tests
+    interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long returnedAt;
+
+        IdleConnection(Connection connection, long returnedAt) {
+            this.connection = connection;
+            this.returnedAt = returnedAt;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    // Pool metrics
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong peakActive = new AtomicLong();
+    private final LatencyHistogram acquireLatency = ReliefMetrics.getInstance().histogram(
+            "relief_db_connection_acquire_seconds", "Time to lease a pooled database connection");
 
     private DatabaseManager() {
-        try {
-            connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-        } catch (SQLException e) {
-            throw new RuntimeException("Error connecting to the database", e);
+        this(() -> DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD),
+                DEFAULT_MAX_SIZE, DEFAULT_BORROW_TIMEOUT_MS, DEFAULT_IDLE_TIMEOUT_MS);
+    }
+
+    DatabaseManager(ConnectionFactory factory, int maxSize, long borrowTimeoutMs, long idleTimeoutMs) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
         }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.permits = new Semaphore(maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, idleTimeoutMs / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
     }
 
-    public static DatabaseManager getInstance() {
+    public static synchronized DatabaseManager getInstance() {
         if (instance == null) {
             instance = new DatabaseManager();
         }
         return instance;
     }
 
-    public Connection getConnection() {
-        return connection;
+    // Leases a connection, blocking up to the borrow timeout if the pool is saturated
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return borrow();
+        } finally {
+            acquireLatency.recordSince(start);
+        }
+    }
+
+    private Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        if (!permits.tryAcquire()) {
+            waits.incrementAndGet();
+            try {
+                if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    timeouts.incrementAndGet();
+                    throw new SQLTimeoutException("Timed out waiting for a database connection ("
+                            + maxSize + " in use)");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = factory.create();
+                created.incrementAndGet();
+            }
+            borrowed.incrementAndGet();
+            peakActive.accumulateAndGet(getActiveCount(), Math::max);
+            return lease(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Pops idle connections until one passes validation
+    private Connection takeValidIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) {
+                return null;
+            }
+            if (isUsable(candidate.connection)) {
+                return candidate.connection;
+            }
+            validationFailures.incrementAndGet();
+            destroy(candidate.connection);
+        }
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void giveBack(Connection physical) {
+        try {
+            if (closed || physical.isClosed()) {
+                destroy(physical);
+                return;
+            }
+            // Leave the connection the way the next borrower expects it
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            synchronized (idle) {
+                idle.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            destroy(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Closes connections that have been idle longer than the idle timeout
+    void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        synchronized (idle) {
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                IdleConnection candidate = it.next();
+                if (candidate.returnedAt > cutoff) {
+                    break;
+                }
+                it.remove();
+                evicted.incrementAndGet();
+                destroy(candidate.connection);
+            }
+        }
+    }
+
+    private void destroy(Connection connection) {
+        destroyed.incrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Nothing more to do with a broken connection
+        }
+    }
+
+    // Wraps a physical connection so that close() returns it to the pool exactly once
+    private Connection lease(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean released;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("close")) {
+                    synchronized (this) {
+                        if (!released) {
+                            released = true;
+                            giveBack(physical);
+                        }
+                    }
+                    return null;
+                }
+                if (name.equals("isClosed")) {
+                    synchronized (this) {
+                        if (released) {
+                            return true;
+                        }
+                    }
+                } else if (released) {
+                    throw new SQLException("Connection has already been returned to the pool");
+                }
+                Object result;
+                try {
+                    result = method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Statement) {
+                    String sql = name.equals("createStatement") || args == null ? null : (String) args[0];
+                    return timed((Statement) result, method.getReturnType(), sql);
+                }
+                return result;
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    // Wraps a statement so each execution is timed under its SQL text.
+    // Prepared statements resolve their histogram once, when they are prepared.
+    private static Statement timed(Statement statement, Class<?> type, String preparedSql) {
+        LatencyHistogram prepared = preparedSql == null ? null : statementLatency(preparedSql);
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            String sql = preparedSql;
+            if (sql == null && args != null && args.length > 0 && args[0] instanceof String) {
+                sql = (String) args[0];
+            }
+            LatencyHistogram latency = prepared != null ? prepared : statementLatency(sql);
+            long start = System.nanoTime();
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                ReliefMetrics.getInstance().counter("relief_db_statement_errors_total",
+                        "SQL statements that failed, by statement text", "sql", normalizeSql(sql)).increment();
+                throw e.getCause();
+            } finally {
+                latency.recordSince(start);
+            }
+        };
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static LatencyHistogram statementLatency(String sql) {
+        return ReliefMetrics.getInstance().histogram("relief_db_statement_seconds",
+                "Time to execute SQL statements, by statement text", "sql", normalizeSql(sql));
+    }
+
+    // Collapses whitespace so the same statement always gets the same series
+    static String normalizeSql(String sql) {
+        if (sql == null) {
+            return "batch";
+        }
+        String normalized = sql.trim().replaceAll("\\s+", " ");
+        return normalized.length() > MAX_SQL_LABEL ? normalized.substring(0, MAX_SQL_LABEL) + "..." : normalized;
+    }
+
+    // Closes every idle connection and refuses further leases
+    public void shutdown() {
+        closed = true;
+        evictor.shutdownNow();
+        synchronized (idle) {
+            for (IdleConnection candidate : idle) {
+                destroy(candidate.connection);
+            }
+            idle.clear();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public long getBorrowedCount() {
+        return borrowed.get();
+    }
+
+    public long getWaitCount() {
+        return waits.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailures.get();
+    }
+
+    // Fraction of the pool currently leased out
+    public double getSaturation() {
+        return (double) getActiveCount() / maxSize;
+    }
+
+    public String getStats() {
+        return "active=" + getActiveCount() + "/" + maxSize
+                + " idle=" + getIdleCount()
+                + " waiting=" + getWaitingCount()
+                + " peak=" + peakActive.get()
+                + " created=" + created.get()
+                + " destroyed=" + destroyed.get()
+                + " borrowed=" + borrowed.get()
+                + " waits=" + waits.get()
+                + " timeouts=" + timeouts.get()
+                + " evicted=" + evicted.get()
+                + " validationFailures=" + validationFailures.get();
     }
-}
\ No newline at end of file
+}
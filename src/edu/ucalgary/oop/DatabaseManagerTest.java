@@ -0,0 +1,125 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DatabaseManagerTest {
+    private List<boolean[]> physicalState; // [0] = closed, [1] = valid
+    private DatabaseManager pool;
+
+    // Builds an in-memory stand-in for a JDBC connection
+    private Connection fakeConnection() {
+        boolean[] state = {false, true};
+        physicalState.add(state);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close": state[0] = true; return null;
+                        case "isClosed": return state[0];
+                        case "isValid": return state[1] && !state[0];
+                        case "getAutoCommit": return true;
+                        default: return null;
+                    }
+                });
+    }
+
+    @Before
+    public void setUp() {
+        physicalState = new ArrayList<>();
+        pool = new DatabaseManager(this::fakeConnection, 2, 50, 60000);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testClosedLeaseIsReused() throws SQLException {
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+        second.close();
+        assertEquals("Returning a lease should let the next borrower reuse the physical connection", 1, pool.getCreatedCount());
+        assertFalse("Closing a lease must not close the physical connection", physicalState.get(0)[0]);
+        assertEquals("The connection should be idle after being returned", 1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testActiveCountTracksLeases() throws SQLException {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        assertEquals("Both leases should be active", 2, pool.getActiveCount());
+        assertEquals("A full pool should report saturation of 1", 1.0, pool.getSaturation(), 0.0001);
+        first.close();
+        second.close();
+        assertEquals("No leases should be active after closing both", 0, pool.getActiveCount());
+    }
+
+    @Test(expected = SQLTimeoutException.class)
+    public void testSaturatedPoolTimesOut() throws SQLException {
+        pool.getConnection();
+        pool.getConnection();
+        pool.getConnection();
+    }
+
+    @Test
+    public void testTimeoutIsCounted() throws SQLException {
+        pool.getConnection();
+        pool.getConnection();
+        try {
+            pool.getConnection();
+            fail("A third lease should not be granted by a pool of two");
+        } catch (SQLTimeoutException e) {
+            assertEquals("The failed borrow should be counted as a wait", 1, pool.getWaitCount());
+            assertEquals("The failed borrow should be counted as a timeout", 1, pool.getTimeoutCount());
+        }
+    }
+
+    @Test
+    public void testInvalidIdleConnectionIsReplaced() throws SQLException {
+        pool.getConnection().close();
+        physicalState.get(0)[1] = false;
+        pool.getConnection().close();
+        assertEquals("A connection failing validation should be replaced", 2, pool.getCreatedCount());
+        assertEquals("The validation failure should be counted", 1, pool.getValidationFailureCount());
+        assertTrue("The broken connection should be closed", physicalState.get(0)[0]);
+    }
+
+    @Test
+    public void testIdleConnectionsAreEvicted() throws SQLException {
+        DatabaseManager shortLived = new DatabaseManager(this::fakeConnection, 2, 50, 0);
+        try {
+            shortLived.getConnection().close();
+            shortLived.evictIdle();
+            assertEquals("Expired idle connections should be evicted", 0, shortLived.getIdleCount());
+            assertTrue("Evicted connections should be closed", physicalState.get(0)[0]);
+        } finally {
+            shortLived.shutdown();
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void testReturnedLeaseCannotBeUsed() throws SQLException {
+        Connection lease = pool.getConnection();
+        lease.close();
+        lease.prepareStatement("SELECT 1");
+    }
+
+    @Test
+    public void testDoubleCloseReturnsOnce() throws SQLException {
+        Connection lease = pool.getConnection();
+        lease.close();
+        lease.close();
+        assertEquals("Closing a lease twice should only return it once", 1, pool.getIdleCount());
+        assertEquals("No leases should be active", 0, pool.getActiveCount());
+    }
+}
@@ -4,31 +4,328 @@ import java.sql.*;
 import java.util.*;
 import java.time.*;
 import java.io.*;
-import javax.xml.parsers.*;
-import org.w3c.dom.*;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class DisasterReliefApp {
-    private static final String DB_URL = "jdbc:postgresql://localhost:5432/project";
-    private static final String DB_USER = "oop";
-    private static final String DB_PASSWORD = "ucalgary";
-    private static final Properties languageProperties = new Properties();
+    private static volatile TranslationCatalog language = TranslationCatalog.empty();
     private static final Scanner scanner = new Scanner(System.in);
-    private static final List<DisasterVictim> victims = new ArrayList<>();
-    private static final List<FamilyGroup> familyGroups = new ArrayList<>();
-    private static final List<Supply> inventory = new ArrayList<>();
+    private static final VictimRegistry victimRegistry = new VictimRegistry();
+    private static final MissingPersonMatcher missingPersonMatcher = MissingPersonMatcher.following(victimRegistry);
+    private static final ReunificationPipeline reunification = ReunificationPipeline.following(victimRegistry);
+    private static final FamilyClusterer familyClusters = new FamilyClusterer();
+    private static final SupplyLedger inventory = new SupplyLedger();
     private static String languageFile = "data/en-CA.xml";
+    private static final long EXPIRY_SWEEP_PERIOD_MS = 60_000;
+    private static final AsyncLogger errorLog = new AsyncLogger("errorlog.txt");
+    private static final AsyncLogger auditLog = new AsyncLogger("audit.log");
+    private static EventJournal journal; // Set by openRepository when journaling is on
+    private static WriteBehindReliefRepository writeBehind; // Likewise for write-behind
+    private static final ReliefRepository repository = openRepository();
+    private static final List<String> SUPPLY_TYPES = List.of("personal belonging", "blanket", "cot", "water");
+    private static final ReliefMetrics metrics = ReliefMetrics.getInstance();
+    private static final Set<Location> trackedLocations = ConcurrentHashMap.newKeySet();
+    // Metric label for each menu choice, indexed by option number
+    private static final String[] CLI_OPERATIONS = {"invalid", "add_victim", "log_inquiry", "allocate_supplies",
+            "create_family_group", "modify_data", "display_victims", "display_family_groups", "display_inventory",
+            "assign_family_group", "exit"};
+    private static final ExpirySweeper expirySweeper = new ExpirySweeper(ids -> repository.expireSupplies(ids));
+    // Write operations shared by batch mode and the HTTP service
+    private static final BatchCommandRunner.CommandTarget commands = new BatchCommandRunner.CommandTarget() {
+        @Override
+        public BulkVictimIntake.Result addVictims(List<DisasterVictim> victims) throws SQLException {
+            return registerVictims(victims);
+        }
+
+        @Override
+        public void logInquiry(String inquirer, String missingPerson, String date) throws SQLException {
+            recordInquiry(inquirer, missingPerson, date);
+        }
+
+        @Override
+        public void allocate(String type, int quantity, String location, String person) throws SQLException {
+            recordAllocation(type.toLowerCase(), quantity, location, person);
+        }
+
+        @Override
+        public void assignFamily(String name, int groupId) throws SQLException {
+            recordFamilyAssignment(name, groupId);
+        }
+
+        @Override
+        public void addLocation(String name, String address, int capacity) throws SQLException {
+            recordLocation(name, address, capacity);
+        }
+
+        @Override
+        public void admit(String name, String location) {
+            recordAdmission(name, location);
+        }
+    };
+    private static ReliefHttpServer httpServer;
+    // Changes hold the read side across the store call and the model update; a snapshot
+    // capture takes the write side for a moment
+    private static final ReadWriteLock modelLock = new ReentrantReadWriteLock();
+    private static final ReliefSnapshot snapshots = new ReliefSnapshot(victimRegistry, trackedLocations, inventory,
+            familyClusters, modelLock, DisasterReliefApp::journalPosition);
+    private static final Object familyAssignmentLock = new Object(); // Taken inside modelLock's read side
+    private static final Object locationLock = new Object(); // Likewise, so two desks cannot add the same name
+    private static Path snapshotFile;
+    private static ScheduledExecutorService snapshotWriter;
 
 
     // Starts application
+    // Usage: DisasterReliefApp [language] [--batch file|-] [--serve port]
+    // --serve listens on loopback; -Drelief.serve.bind=ADDRESS (e.g. 0.0.0.0) opens it wider
     public static void main(String[] args) {
-        if (args.length > 0) {
-            setLanguage(args[0]);
+        String batchSource = null;
+        int servePort = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch") && i + 1 < args.length) {
+                batchSource = args[++i];
+            } else if (args[i].equals("--serve") && i + 1 < args.length) {
+                servePort = Integer.parseInt(args[++i]);
+            } else {
+                setLanguage(args[i]);
+            }
         }
         loadLanguage();
+        startMetrics();
+        reunification.start();
         loadData(); // Load database data at startup
+        for (Location location : trackedLocations) {
+            reunification.trackLocation(location); // Occupants restored from a snapshot
+        }
+        if (batchSource != null) {
+            runBatch(batchSource);
+            if (servePort < 0) {
+                shutdown();
+                return;
+            }
+        }
+        if (servePort >= 0) {
+            serve(servePort);
+            return;
+        }
         runCLI();
     }
 
+    // Runs scripted commands from a file, or stdin for "-", and prints a summary
+    private static void runBatch(String source) {
+        BatchCommandRunner runner = new BatchCommandRunner(commands);
+        try (Reader input = source.equals("-") ? new InputStreamReader(System.in)
+                : new FileReader(source)) {
+            BatchCommandRunner.Summary summary = runner.run(input);
+            for (String error : summary.getErrors()) {
+                logError("Batch " + error);
+            }
+            System.out.print(summary);
+            if (!summary.getErrors().isEmpty()) {
+                System.out.println("First errors (up to 100 are written to errorlog.txt):");
+                for (String error : summary.getErrors().subList(0, Math.min(10, summary.getErrors().size()))) {
+                    System.out.println("  " + error);
+                }
+            }
+            if (!reunification.awaitApplied(5, TimeUnit.SECONDS)) {
+                System.out.println("Warning: some reunification matches are still being worked out.");
+            }
+            printReunificationMatches();
+        } catch (IOException e) {
+            logError("Batch input error: " + e.getMessage());
+            System.out.println("Error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs headless as an HTTP/JSON service until the process is stopped
+    private static void serve(int port) {
+        try {
+            InetAddress address = InetAddress.getByName(System.getProperty("relief.serve.bind", "127.0.0.1"));
+            if (!address.isLoopbackAddress()) {
+                System.out.println("Warning: serving without authentication on " + address.getHostAddress() + ".");
+            }
+            System.out.println("Serving on " + address.getHostAddress() + ":" + startServer(address, port)
+                    + "; stop with Ctrl+C");
+            startMatchPrinter();
+        } catch (IOException e) {
+            logError("HTTP server failed to start: " + e.getMessage());
+            System.out.println("Error: " + e.getMessage());
+            shutdown();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(DisasterReliefApp::shutdown));
+    }
+
+    // Prints each reunification match as it is found, for headless runs with no menu to show them
+    private static void startMatchPrinter() {
+        Thread printer = new Thread(() -> {
+            try {
+                while (true) {
+                    ReunificationPipeline.Notification match = reunification.poll(1, TimeUnit.SECONDS);
+                    if (match != null) {
+                        System.out.println("Possible reunification: " + match);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "reunification-printer");
+        printer.setDaemon(true);
+        printer.start();
+    }
+
+    // Starts the HTTP service over the shared state and returns its port; 0 picks a free one
+    static synchronized int startServer(InetAddress address, int port) throws IOException {
+        if (httpServer == null) {
+            httpServer = new ReliefHttpServer(commands, victimRegistry, missingPersonMatcher, inventory, repository);
+        }
+        return httpServer.start(address, port);
+    }
+
+    // Stops background work and releases the store
+    private static void shutdown() {
+        synchronized (DisasterReliefApp.class) {
+            if (httpServer != null) {
+                httpServer.close();
+            }
+            if (snapshotWriter != null) {
+                snapshotWriter.shutdownNow();
+                writeSnapshot();
+                System.out.println("Snapshot: " + snapshots);
+            }
+        }
+        expirySweeper.stop();
+        reunification.close();
+        printRepositoryStats();
+        repository.close();
+        metrics.stopHttpServer();
+        auditLog.close();
+        errorLog.close();
+    }
+
+    // Picks the store with -Drelief.store=jdbc|memory (default jdbc).
+    // -Drelief.db.createSchema=true creates missing tables, e.g. on an embedded database,
+    // -Drelief.journal=DIR records every change in an event journal,
+    // -Drelief.writeBehind=FILE acknowledges intake writes once they are in that log and
+    // applies them to the store in the background (the app will not start while an earlier
+    // log cannot be applied), and -Drelief.benchmark=true times every
+    // repository call and prints the totals on exit.
+    private static ReliefRepository openRepository() {
+        ReliefRepository store;
+        if ("memory".equalsIgnoreCase(System.getProperty("relief.store", "jdbc"))) {
+            store = new InMemoryReliefRepository();
+        } else {
+            JdbcReliefRepository jdbc = new JdbcReliefRepository(DatabaseManager.getInstance());
+            if (Boolean.getBoolean("relief.db.createSchema")) {
+                try {
+                    jdbc.createSchema();
+                } catch (SQLException e) {
+                    logError("Schema creation failed: " + e.getMessage());
+                }
+            }
+            store = jdbc;
+        }
+        String journalDirectory = System.getProperty("relief.journal");
+        if (journalDirectory != null) {
+            store = openJournal(Paths.get(journalDirectory), store);
+        }
+        String writeBehindLog = System.getProperty("relief.writeBehind");
+        if (writeBehindLog != null) {
+            try {
+                writeBehind = WriteBehindReliefRepository.open(Paths.get(writeBehindLog), store, DisasterReliefApp::logError);
+                store = writeBehind;
+            } catch (IOException | SQLException e) {
+                // Writing straight to the store now would land new writes before the older ones
+                // still in the log, e.g. an old rename over a newer one, so refuse to start. The
+                // log is left untouched and applied on the next start that can reach the store.
+                logError("Could not replay write-behind log " + writeBehindLog + ": " + e.getMessage());
+                errorLog.close();
+                System.out.println("Error: " + writeBehindLog + " could not be replayed (" + e.getMessage()
+                        + "); not starting until its writes can be applied.");
+                System.exit(1);
+            }
+        }
+        return Boolean.getBoolean("relief.benchmark") ? new BenchmarkingReliefRepository(store) : store;
+    }
+
+    // Records every change in the journal; an in-memory store is first rebuilt from it,
+    // which is how memory mode keeps its data across restarts. That rebuild always reads the
+    // whole journal, snapshot or not: a snapshot holds the model, not the store.
+    private static ReliefRepository openJournal(Path directory, ReliefRepository store) {
+        try {
+            if (store instanceof InMemoryReliefRepository) {
+                long started = System.nanoTime();
+                long events = JournalingReliefRepository.rebuild(directory, store);
+                if (events > 0) {
+                    System.out.printf("Rebuilt %d journal events in %d ms%n", events,
+                            (System.nanoTime() - started) / 1_000_000);
+                }
+            }
+            journal = new EventJournal(directory);
+            return new JournalingReliefRepository(store, journal, DisasterReliefApp::logError);
+        } catch (Exception e) {
+            logError("Journal disabled: " + e.getMessage());
+            System.out.println("Warning: changes are not being journaled: " + e.getMessage());
+            return store;
+        }
+    }
+
+    // Registers the gauges and the metrics MBean; -Drelief.metrics.port=N also serves
+    // Prometheus text at http://127.0.0.1:N/metrics
+    private static void startMetrics() {
+        metrics.gauge("relief_location_occupants", "Victims currently at each location", sink -> {
+            for (Location location : trackedLocations) {
+                sink.sample(location.getOccupantCount(), "location", location.getName());
+            }
+        });
+        metrics.gauge("relief_inventory_available", "Unreserved stock per location and supply type", sink -> {
+            for (SupplyLedger.Key key : inventory.keys()) {
+                sink.sample(inventory.getAvailable(key.getLocation(), key.getType()),
+                        "location", key.getLocation(), "type", key.getType());
+            }
+        });
+        metrics.gauge("relief_inventory_allocated", "Stock handed out per location and supply type", sink -> {
+            for (SupplyLedger.Key key : inventory.keys()) {
+                sink.sample(inventory.getAllocated(key.getLocation(), key.getType()),
+                        "location", key.getLocation(), "type", key.getType());
+            }
+        });
+        metrics.gauge("relief_registered_victims", "Victims held in the in-memory registry",
+                sink -> sink.sample(victimRegistry.size()));
+        metrics.gauge("relief_db_pool_connections", "Pooled database connections by state", sink -> {
+            JdbcReliefRepository store = ReliefRepository.unwrap(repository, JdbcReliefRepository.class);
+            if (store != null) {
+                DatabaseManager pool = store.getDatabaseManager();
+                sink.sample(pool.getActiveCount(), "state", "active");
+                sink.sample(pool.getIdleCount(), "state", "idle");
+                sink.sample(pool.getWaitingCount(), "state", "waiting");
+            }
+        });
+        metrics.registerMBean();
+
+        String port = System.getProperty("relief.metrics.port");
+        if (port != null) {
+            try {
+                System.out.println("Metrics at http://127.0.0.1:" + metrics.startHttpServer(Integer.parseInt(port)) + "/metrics");
+            } catch (IOException | NumberFormatException e) {
+                logError("Metrics endpoint not started: " + e.getMessage());
+            }
+        }
+    }
+
     // Sets the language file
     private static void setLanguage(String langCode) {
         File dataDir = new File("data");
@@ -56,25 +353,10 @@ public class DisasterReliefApp {
     }
 
 
-    // Loads translations from an XML file
+    // Loads translations from an XML file, reusing its compiled catalog when unchanged
     private static void loadLanguage() {
         try {
-            File file = new File(languageFile);
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(file);
-            document.getDocumentElement().normalize();
-
-            NodeList list = document.getElementsByTagName("translation");
-            for (int i = 0; i < list.getLength(); i++) {
-                Node node = list.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    Element element = (Element) node;
-                    String key = element.getElementsByTagName("key").item(0).getTextContent();
-                    String value = element.getElementsByTagName("value").item(0).getTextContent();
-                    languageProperties.setProperty(key, value);
-                }
-            }
+            language = TranslationCatalog.load(Paths.get(languageFile));
             System.out.println("Language loaded successfully.");
         } catch (Exception e) {
             logError("Error loading language file: " + e.getMessage());
@@ -84,12 +366,13 @@ public class DisasterReliefApp {
 
     // Retrieves a translated string
     public static String translate(String key) {
-        return languageProperties.getProperty(key, key);
+        return language.translate(key);
     }
 
     // Runs the command-line interface
     private static void runCLI() {
         while (true) {
+            printReunificationMatches();
             System.out.println("\n" + translate("main_menu"));
             System.out.println("1. " + translate("add_victim"));
             System.out.println("2. " + translate("log_inquiry"));
@@ -104,13 +387,14 @@ public class DisasterReliefApp {
             System.out.print(translate("select_option"));
 
             String choice = scanner.nextLine();
+            long started = System.nanoTime();
             switch (choice) {
                 case "1":
                     System.out.print("Enter first name: ");
                     String firstName = scanner.nextLine();
                     System.out.print("Enter entry date (YYYY-MM-DD): ");
                     String entryDate = scanner.nextLine();
-                    addDisasterVictim(firstName, entryDate, false);
+                    addDisasterVictim(firstName, entryDate);
                     break;
                 case "2": logInquiry(); break;
                 case "3": allocateSupplies(); break;
@@ -120,20 +404,64 @@ public class DisasterReliefApp {
                 case "7": displayFamilyGroups(); break;
                 case "8": displayInventory(); break;
                 case "9": assignPersonToFamilyGroup(); break; // Call the method
-                case "10": System.out.println(translate("exiting")); return; // Updated option number
+                case "10":
+                    System.out.println(translate("exiting"));
+                    shutdown();
+                    return; // Updated option number
                 default: System.out.println(translate("invalid_option"));
             }
+            operationLatency(choice).recordSince(started);
+        }
+    }
+
+    // Latency series for a menu choice; includes the time spent answering the prompts
+    private static LatencyHistogram operationLatency(String choice) {
+        int option = 0;
+        try {
+            option = Integer.parseInt(choice.trim());
+        } catch (NumberFormatException e) {
+            // Counted as invalid
+        }
+        String operation = CLI_OPERATIONS[option > 0 && option < CLI_OPERATIONS.length ? option : 0];
+        return metrics.histogram("relief_cli_operation_seconds", "Time to complete each menu operation",
+                "operation", operation);
+    }
+
+    // Prints per-operation timings when the repository is being benchmarked
+    private static void printRepositoryStats() {
+        if (writeBehind != null) {
+            System.out.println("Write-behind: " + writeBehind);
+        }
+        if (!(repository instanceof BenchmarkingReliefRepository)) {
+            return;
+        }
+        System.out.println("Repository timings:");
+        for (Map.Entry<String, BenchmarkingReliefRepository.OperationStats> entry
+                : ((BenchmarkingReliefRepository) repository).getStats().entrySet()) {
+            System.out.println("- " + entry.getKey() + ": " + entry.getValue());
+        }
+    }
+
+    // Prints matches the reunification pipeline has found since the menu was last shown
+    private static void printReunificationMatches() {
+        List<ReunificationPipeline.Notification> matches = new ArrayList<>();
+        if (reunification.drainNotifications(matches) == 0) {
+            return;
+        }
+        System.out.println("\nPossible reunifications:");
+        for (ReunificationPipeline.Notification match : matches) {
+            System.out.println("- " + match);
         }
     }
 
     // Display the list of victims
     private static void displayVictims() {
-        if (victims.isEmpty()) {
+        if (victimRegistry.isEmpty()) {
             System.out.println("No disaster victims recorded.");
             return;
         }
         System.out.println("List of Disaster Victims:");
-        for (DisasterVictim victim : victims) {
+        for (DisasterVictim victim : victimRegistry.all()) {
             System.out.println("- " + victim.getFirstName() + " (Entry Date: " + victim.getEntryDate() + ")");
         }
     }
@@ -145,37 +473,30 @@ public class DisasterReliefApp {
         System.out.print("Enter head of family name: ");
         String headName = scanner.nextLine();
 
-        Connection conn = null;
-        PreparedStatement pstmt = null;
+        Lock change = modelLock.readLock();
+        change.lock();
         try {
-            conn = DatabaseManager.getInstance().getConnection();
-            String query = "INSERT INTO family_groups (group_id, head_name) VALUES (?, ?)";
-            pstmt = conn.prepareStatement(query);
-            pstmt.setInt(1, familyGroupId);
-            pstmt.setString(2, headName);
-            pstmt.executeUpdate();
-
-            FamilyGroup newFamily = new FamilyGroup(familyGroupId, headName);
-            familyGroups.add(newFamily);
+            repository.addFamilyGroup(familyGroupId, headName);
+            familyClusters.createGroup(familyGroupId, headName);
             System.out.println("Family group created successfully.");
         } catch (SQLException e) {
             logError("Database error: " + e.getMessage());
             System.out.println("Error: " + e.getMessage());
         } finally {
-            try { if (pstmt != null) pstmt.close(); } catch (SQLException e) { logError("Error closing PreparedStatement: " + e.getMessage()); }
-            try { if (conn != null) conn.close(); } catch (SQLException e) { logError("Error closing Connection: " + e.getMessage()); }
+            change.unlock();
         }
     }
 
     // Display family groups
     private static void displayFamilyGroups() {
-        if (familyGroups.isEmpty()) {
+        if (familyClusters.getGroupCount() == 0) {
             System.out.println("No family groups recorded.");
             return;
         }
         System.out.println("List of Family Groups:");
-        for (FamilyGroup group : familyGroups) {
-            System.out.println("- Group ID: " + group.getGroupId() + " | Head: " + group.getHeadName());
+        for (FamilyGroup group : familyClusters.getGroups()) {
+            System.out.println("- Group ID: " + group.getGroupId() + " | Head: " + group.getHeadName()
+                    + " | Members: " + group.getMembers().size());
         }
     }
 
@@ -186,34 +507,87 @@ public class DisasterReliefApp {
         System.out.print("Enter family group ID: ");
         int familyGroupId = Integer.parseInt(scanner.nextLine());
 
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD)) {
-            // Check if the person is already in a family group
-            String checkQuery = "SELECT family_group_id FROM disaster_victims WHERE first_name = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkQuery)) {
-                checkStmt.setString(1, personName);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next() && rs.getInt("family_group_id") != 0) {
-                    System.out.println("Person is already in a family group.");
-                    return;
+        try {
+            recordFamilyAssignment(personName, familyGroupId);
+            System.out.println("Person assigned to family group successfully.");
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        } catch (SQLException e) {
+            logError("Database error: " + e.getMessage());
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // Stores a family group assignment; fails if the person already has a group or is unknown
+    static void recordFamilyAssignment(String personName, int familyGroupId) throws SQLException {
+        Lock change = modelLock.readLock();
+        change.lock();
+        try {
+            // The check and the assignment are one step, so two desks cannot both pass the check
+            synchronized (familyAssignmentLock) {
+                if (repository.getFamilyGroup(personName) != null) {
+                    throw new IllegalStateException("Person is already in a family group.");
+                }
+                if (repository.assignFamilyGroup(personName, familyGroupId) == 0) {
+                    throw new IllegalStateException("Person not found in the database.");
+                }
+                for (DisasterVictim victim : victimRegistry.findByFirstName(personName)) {
+                    familyClusters.assignStoredGroup(victim, familyGroupId);
                 }
             }
+        } finally {
+            change.unlock();
+        }
+    }
 
-            // Assign the person to the family group
-            String updateQuery = "UPDATE disaster_victims SET family_group_id = ? WHERE first_name = ?";
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
-                updateStmt.setInt(1, familyGroupId);
-                updateStmt.setString(2, personName);
-                int updatedRows = updateStmt.executeUpdate();
+    // Stores a new location and starts tracking it, so admissions and the reunification
+    // pipeline can use it; fails if a tracked location already has the name
+    static void recordLocation(String name, String address, int capacity) throws SQLException {
+        Location location = new Location(name, address, capacity);
+        Lock change = modelLock.readLock();
+        change.lock();
+        try {
+            synchronized (locationLock) {
+                for (Location existing : trackedLocations) {
+                    if (existing.getName().equals(name)) {
+                        throw new IllegalStateException("Location " + name + " already exists.");
+                    }
+                }
+                repository.addLocation(location);
+                trackedLocations.add(location);
+            }
+            reunification.trackLocation(location);
+        } finally {
+            change.unlock();
+        }
+    }
 
-                if (updatedRows > 0) {
-                    System.out.println("Person assigned to family group successfully.");
-                } else {
-                    System.out.println("Person not found in the database.");
+    // Places the victims with the name at a known location and tells the reunification
+    // pipeline; fails if nobody has the name or the location fills up
+    static void recordAdmission(String personName, String locationName) {
+        Location location = null;
+        for (Location candidate : trackedLocations) {
+            if (candidate.getName().equals(locationName)) {
+                location = candidate;
+            }
+        }
+        if (location == null) {
+            throw new IllegalArgumentException("Unknown location: " + locationName);
+        }
+        Lock change = modelLock.readLock();
+        change.lock();
+        try {
+            List<DisasterVictim> victims = victimRegistry.findByFirstName(personName);
+            if (victims.isEmpty()) {
+                throw new IllegalArgumentException("No victim named " + personName);
+            }
+            for (DisasterVictim victim : victims) {
+                if (!reunification.admit(location, victim)) {
+                    throw new IllegalStateException(locationName + " is full.");
                 }
             }
-        } catch (SQLException e) {
-            logError("Database error: " + e.getMessage());
-            System.out.println("Error: " + e.getMessage());
+        } finally {
+            change.unlock();
         }
     }
 
@@ -221,7 +595,7 @@ public class DisasterReliefApp {
     private static void allocateSupplies() {
         System.out.print("Enter supply type (personal belonging, blanket, cot, water): ");
         String type = scanner.nextLine().toLowerCase();
-        if (!List.of("personal belonging", "blanket", "cot", "water").contains(type)) {
+        if (!SUPPLY_TYPES.contains(type)) {
             System.out.println("Invalid supply type.");
             return;
         }
@@ -231,48 +605,89 @@ public class DisasterReliefApp {
         System.out.print("Allocate to (location/person): ");
         String allocationType = scanner.nextLine().toLowerCase();
 
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD)) {
-            String query;
-            if (allocationType.equals("location")) {
-                System.out.print("Enter location name: ");
-                String locationName = scanner.nextLine();
-                query = "INSERT INTO supplies (type, quantity, location) VALUES (?, ?, ?)";
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                    pstmt.setString(1, type);
-                    pstmt.setInt(2, quantity);
-                    pstmt.setString(3, locationName);
-                    pstmt.executeUpdate();
-                }
-            } else if (allocationType.equals("person")) {
-                System.out.print("Enter disaster victim's name: ");
-                String victimName = scanner.nextLine();
-                query = "INSERT INTO supplies (type, quantity, person) VALUES (?, ?, ?)";
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                    pstmt.setString(1, type);
-                    pstmt.setInt(2, quantity);
-                    pstmt.setString(3, victimName);
-                    pstmt.executeUpdate();
-                }
-            } else {
-                System.out.println("Invalid allocation type.");
-                return;
-            }
-
-            // Handle water expiry
-            if (type.equals("water")) {
-                String expireWaterQuery = "UPDATE supplies SET expired = true WHERE type = 'water' AND allocated_date < NOW() - INTERVAL '1 day'";
-                try (Statement stmt = conn.createStatement()) {
-                    stmt.executeUpdate(expireWaterQuery);
-                }
-            }
+        String locationName;
+        String victimName = null;
+        if (allocationType.equals("location")) {
+            System.out.print("Enter location name: ");
+            locationName = scanner.nextLine();
+        } else if (allocationType.equals("person")) {
+            System.out.print("Enter disaster victim's name: ");
+            victimName = scanner.nextLine();
+            System.out.print("Enter location supplying the items: ");
+            locationName = scanner.nextLine();
+        } else {
+            System.out.println("Invalid allocation type.");
+            return;
+        }
 
+        try {
+            recordAllocation(type, quantity, locationName, victimName);
             System.out.println("Supplies allocated successfully.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.out.println(e.getMessage());
         } catch (SQLException e) {
             logError("Database error: " + e.getMessage());
             System.out.println("Error: " + e.getMessage());
         }
     }
 
+    // Stores stock delivered to a location (victimName null) or handed from a location to a victim
+    static void recordAllocation(String type, int quantity, String locationName, String victimName) throws SQLException {
+        if (!SUPPLY_TYPES.contains(type)) {
+            throw new IllegalArgumentException("Invalid supply type.");
+        }
+        Lock change = modelLock.readLock();
+        change.lock();
+        try {
+            storeAllocation(type, quantity, locationName, victimName);
+        } finally {
+            change.unlock();
+        }
+    }
+
+    private static void storeAllocation(String type, int quantity, String locationName, String victimName) throws SQLException {
+        if (victimName == null) {
+            trackExpiry(type, repository.addSupply(type, quantity, null, locationName));
+            inventory.restock(locationName, type, quantity);
+            auditLog.audit("supply_allocation", allocationFields(type, quantity, null, locationName));
+            return;
+        }
+
+        // Hold the stock first so concurrent desks cannot hand out the same items
+        SupplyLedger.Reservation reservation = inventory.reserve(locationName, type, quantity);
+        if (reservation == null) {
+            throw new IllegalStateException("Insufficient stock: " + inventory.getAvailable(locationName, type)
+                    + " " + type + " available at " + locationName + ".");
+        }
+        try {
+            long supplyId = repository.addSupply(type, quantity, victimName, locationName);
+            reservation.commit();
+            trackExpiry(type, supplyId);
+            auditLog.audit("supply_allocation", allocationFields(type, quantity, victimName, locationName));
+        } finally {
+            reservation.release(); // No-op once committed
+        }
+    }
+
+    // Audit fields in a fixed order; person is left out for deliveries to a location
+    private static Map<String, Object> allocationFields(String type, int quantity, String victimName, String locationName) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("type", type);
+        fields.put("quantity", quantity);
+        if (victimName != null) {
+            fields.put("person", victimName);
+        }
+        fields.put("location", locationName);
+        return fields;
+    }
+
+    // Hands a new water allocation to the expiry sweeper
+    private static void trackExpiry(String type, long supplyId) {
+        if (type.equals("water")) {
+            expirySweeper.trackWater(supplyId);
+        }
+    }
+
     // Display the inventory
     private static void displayInventory() {
         if (inventory.isEmpty()) {
@@ -280,34 +695,169 @@ public class DisasterReliefApp {
             return;
         }
         System.out.println("List of Inventory Items:");
-        for (Supply item : inventory) {
-            System.out.println("- Type: " + item.getType() + " | Quantity: " + item.getQuantity());
+        for (SupplyLedger.Key key : inventory.keys()) {
+            System.out.println("- Location: " + key.getLocation() + " | Type: " + key.getType()
+                    + " | Available: " + inventory.getAvailable(key.getLocation(), key.getType())
+                    + " | Allocated: " + inventory.getAllocated(key.getLocation(), key.getType()));
         }
     }
 
     // Loads disaster victim data from the database
+    // Returns once the first page is in memory; the rest streams in on a background thread
     private static void loadData() {
+        if (restoreSnapshot()) {
+            return;
+        }
         System.out.println("Loading data from database...");
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = conn.createStatement()) {
-
-            // Delete expired water allocations
-            String deleteExpiredWaterQuery = "DELETE FROM supplies WHERE type = 'water' AND allocated_date < NOW() - INTERVAL '1 day'";
-            stmt.executeUpdate(deleteExpiredWaterQuery);
-
-            // Load disaster victims
-            ResultSet rs = stmt.executeQuery("SELECT * FROM disaster_victims");
-            while (rs.next()) {
-                DisasterVictim victim = new DisasterVictim(
-                        rs.getString("first_name"),
-                        rs.getString("entry_date")
-                );
-                victims.add(victim);
-            }
-            System.out.println("Data loaded successfully.");
+        JdbcReliefRepository jdbc = ReliefRepository.unwrap(repository, JdbcReliefRepository.class);
+        try {
+            // Seed the inventory: stock delivered to a location minus what it has handed to people
+            for (Map.Entry<SupplyLedger.Key, Integer> stock : repository.getStockOnHand().entrySet()) {
+                inventory.restock(stock.getKey().getLocation(), stock.getKey().getType(), stock.getValue());
+            }
+
+            if (jdbc == null) {
+                trackedLocations.addAll(repository.getLocations()); // The graph loader reads them otherwise
+            }
+
+            // Water expiry runs in the background from here on
+            expirySweeper.loadPending(repository);
+            expirySweeper.start(EXPIRY_SWEEP_PERIOD_MS);
         } catch (SQLException e) {
             logError("Database connection error: " + e.getMessage());
+            return;
+        }
+
+        // Load disaster victims, then their stored family groups
+        CountDownLatch firstPage = new CountDownLatch(1);
+        Thread background = new Thread(() -> {
+            try {
+                long loaded = jdbc != null ? loadGraph(jdbc, firstPage::countDown)
+                        : familyClusters.loadFrom(repository, victimRegistry::add, firstPage::countDown);
+                // Logged, not printed: by now the menu owns the terminal
+                auditLog.audit("victims_loaded", Map.of("count", loaded));
+                startSnapshots();
+            } catch (SQLException e) {
+                logError("Database connection error: " + e.getMessage());
+            } catch (RuntimeException e) {
+                logError("Victim load stopped after " + victimRegistry.size() + " victims: " + e);
+            } finally {
+                firstPage.countDown();
+            }
+        }, "victim-loader");
+        background.setDaemon(true);
+        background.start();
+
+        try {
+            firstPage.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Reads each of the database's tables once and wires the victims' medical records and
+    // belongings before registering them. Locations are tracked before the first page of
+    // victims is released. Stored inquiries for people not registered yet are reopened, so a
+    // later intake still matches them. Logs rows/sec for each table.
+    private static long loadGraph(JdbcReliefRepository jdbc, Runnable onFirstPage) throws SQLException {
+        ReliefGraphLoader loader = new ReliefGraphLoader(jdbc.getDatabaseManager());
+        ReliefGraphLoader.Graph graph = loader.loadTables();
+        trackedLocations.addAll(graph.getLocations());
+        loader.loadVictims(graph, (victim, groupId) -> victimRegistry.add(victim), onFirstPage);
+        familyClusters.addStoredGroups(graph.getFamilyGroups());
+        for (ReliefService inquiry : graph.getInquiries()) {
+            if (victimRegistry.findByFirstName(inquiry.getMissingPerson().getFirstName()).isEmpty()) {
+                reunification.openInquiry(inquiry);
+            }
+        }
+        for (ReliefGraphLoader.TableStats table : graph.getStats()) {
+            auditLog.audit("table_loaded", Map.of("table", table.getTable(), "rows", table.getRows(),
+                    "rows_per_sec", Math.round(table.getRowsPerSecond())));
         }
+        return graph.getVictims().size();
+    }
+
+    // -Drelief.snapshot=FILE keeps a binary image of the model in FILE, rewritten every
+    // relief.snapshot.period seconds (default 300) and on exit, and starts from it plus the
+    // journal's later events instead of reloading from the database. Needs -Drelief.journal,
+    // which is what tells the snapshot apart from changes made after it. Only the JDBC store
+    // gains from this: with -Drelief.store=memory the store itself is still rebuilt from the
+    // whole journal first, so startup stays proportional to the journal's length.
+    private static boolean restoreSnapshot() {
+        String file = System.getProperty("relief.snapshot");
+        if (file == null) {
+            return false;
+        }
+        if (journal == null) {
+            System.out.println("Warning: snapshots are off; -Drelief.snapshot needs -Drelief.journal.");
+            return false;
+        }
+        snapshotFile = Paths.get(file);
+        if (ReliefRepository.unwrap(repository, InMemoryReliefRepository.class) != null) {
+            System.out.println("Note: with the memory store, snapshots do not shorten startup; "
+                    + "the store is rebuilt from the whole journal.");
+        }
+        if (!Files.exists(snapshotFile)) {
+            return false;
+        }
+        long started = System.nanoTime();
+        ReliefSnapshot.Image image;
+        try {
+            image = ReliefSnapshot.read(snapshotFile);
+            if (image.getJournalSequence() > journal.getNextSequence()) {
+                throw new IOException("it is ahead of the journal");
+            }
+        } catch (IOException e) {
+            // Nothing has been loaded yet, so the database path can still run
+            logError("Snapshot " + snapshotFile + " not used: " + e.getMessage());
+            System.out.println("Warning: snapshot not used (" + e.getMessage() + "); loading from the database.");
+            return false;
+        }
+        snapshots.restore(image);
+        long events = 0;
+        try {
+            events = snapshots.replay(journal.getDirectory(), image.getJournalSequence());
+            expirySweeper.loadPending(repository);
+            expirySweeper.start(EXPIRY_SWEEP_PERIOD_MS);
+        } catch (Exception e) {
+            logError("Snapshot restore incomplete: " + e.getMessage());
+        }
+        System.out.printf("Restored %d victims from snapshot and %d journal events in %d ms%n",
+                image.getVictimCount(), events, (System.nanoTime() - started) / 1_000_000);
+        startSnapshots();
+        return true;
+    }
+
+    // Starts periodic snapshots once the model is fully loaded
+    private static synchronized void startSnapshots() {
+        if (snapshotFile == null || snapshotWriter != null) {
+            return;
+        }
+        long period = Long.getLong("relief.snapshot.period", 300);
+        snapshotWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "snapshot-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshotWriter.scheduleWithFixedDelay(DisasterReliefApp::writeSnapshot, period, period, TimeUnit.SECONDS);
+    }
+
+    private static void writeSnapshot() {
+        try {
+            snapshots.save(snapshotFile);
+        } catch (Exception e) {
+            logError("Snapshot failed: " + e.getMessage());
+        }
+    }
+
+    // Journal sequence the model is current to. Writes still queued behind write-behind are
+    // journaled once they reach the store, so the position is read on the flusher when the
+    // queue gets there; the snapshot lock is never held while the database catches up.
+    private static Future<Long> journalPosition() {
+        if (writeBehind != null) {
+            return writeBehind.whenFlushed(journal::getNextSequence);
+        }
+        return CompletableFuture.completedFuture(journal.getNextSequence());
     }
 
     // Allow users to update disaster victim details
@@ -321,23 +871,24 @@ public class DisasterReliefApp {
         System.out.print("Choice: ");
         String choice = scanner.nextLine();
 
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD)) {
-            String query; // Declare the variable without initializing it
-
+        try {
             if ("1".equals(choice)) {
                 System.out.print("Enter new first name: ");
                 String newFirstName = scanner.nextLine();
-                query = "UPDATE disaster_victims SET first_name = ? WHERE first_name = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                    pstmt.setString(1, newFirstName);
-                    pstmt.setString(2, firstName);
-                    int affectedRows = pstmt.executeUpdate();
-                    if (affectedRows > 0) {
-                        System.out.println("Data updated successfully.");
-                    } else {
-                        System.out.println("No matching record found.");
+                int renamed;
+                Lock change = modelLock.readLock();
+                change.lock();
+                try {
+                    renamed = repository.renameVictims(firstName, newFirstName);
+                    if (renamed > 0) {
+                        for (DisasterVictim victim : victimRegistry.findByFirstName(firstName)) {
+                            victimRegistry.rename(victim, newFirstName, victim.getLastName());
+                        }
                     }
+                } finally {
+                    change.unlock();
                 }
+                System.out.println(renamed > 0 ? "Data updated successfully." : "No matching record found.");
             } else if ("2".equals(choice)) {
                 System.out.print("Enter new entry date (YYYY-MM-DD): ");
                 String newEntryDate = scanner.nextLine();
@@ -347,16 +898,11 @@ public class DisasterReliefApp {
                     return;
                 }
 
-                query = "UPDATE disaster_victims SET entry_date = ? WHERE first_name = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                    pstmt.setString(1, newEntryDate);
-                    pstmt.setString(2, firstName);
-                    int affectedRows = pstmt.executeUpdate();
-                    if (affectedRows > 0) {
-                        System.out.println("Data updated successfully.");
-                    } else {
-                        System.out.println("No matching record found.");
-                    }
+                try {
+                    System.out.println(changeEntryDate(firstName, newEntryDate) > 0
+                            ? "Data updated successfully." : "No matching record found.");
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
                 }
             } else {
                 System.out.println("Invalid choice.");
@@ -368,23 +914,48 @@ public class DisasterReliefApp {
         }
     }
 
-    // Adds a new disaster victim to the database
-    public static void addDisasterVictim(String firstName, String entryDate, boolean useMock) {
-        if (useMock) {
-            // Use MockDatabaseManager instead of a real database connection
-            MockDatabaseManager.getInstance().addMockVictim(new DisasterVictim(firstName, entryDate));
-            System.out.println("Mock disaster victim added successfully.");
-            return;
+    // Stores a corrected entry date and re-registers the matching victims with it; the entry
+    // date is fixed when a DisasterVictim is made, so each one is replaced by a copy
+    static int changeEntryDate(String firstName, String entryDate) throws SQLException {
+        int entryDay = IsoDate.parseOrThrow(entryDate, "Invalid date format. Use YYYY-MM-DD.");
+        Lock change = modelLock.readLock();
+        change.lock();
+        try {
+            // Copies are made first so a birth date after the new entry date stops the change
+            List<DisasterVictim> matching = victimRegistry.findByFirstName(firstName);
+            List<DisasterVictim> copies = new ArrayList<>(matching.size());
+            for (DisasterVictim victim : matching) {
+                copies.add(victim.withEntryDate(entryDay));
+            }
+            int updated = repository.updateEntryDate(firstName, entryDate);
+            if (updated > 0) {
+                for (int i = 0; i < matching.size(); i++) {
+                    DisasterVictim copy = copies.get(i);
+                    victimRegistry.replace(matching.get(i), copy);
+                    familyClusters.replace(copy);
+                    for (Location location : trackedLocations) {
+                        location.replaceOccupant(copy);
+                    }
+                }
+            }
+            return updated;
+        } finally {
+            change.unlock();
         }
+    }
 
-        // Real database interaction
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                     "INSERT INTO disaster_victims (first_name, entry_date) VALUES (?, ?)")) {
-
-            pstmt.setString(1, firstName);
-            pstmt.setString(2, entryDate);
-            pstmt.executeUpdate();
+    // Adds a new disaster victim to the repository
+    public static void addDisasterVictim(String firstName, String entryDate) {
+        try {
+            DisasterVictim victim = new DisasterVictim(firstName, entryDate);
+            Lock change = modelLock.readLock();
+            change.lock();
+            try {
+                repository.addVictim(victim);
+                victimRegistry.add(victim);
+            } finally {
+                change.unlock();
+            }
 
             System.out.println("Disaster victim added successfully.");
         } catch (SQLException e) {
@@ -393,9 +964,44 @@ public class DisasterReliefApp {
         }
     }
 
+    // Registers a group of disaster victims in one batched transaction
+    public static BulkVictimIntake.Result addDisasterVictims(Collection<DisasterVictim> newVictims) {
+        try {
+            BulkVictimIntake.Result result = registerVictims(newVictims);
+            for (Map.Entry<Integer, String> failure : result.getFailures().entrySet()) {
+                logError("Bulk intake row " + failure.getKey() + " failed: " + failure.getValue());
+            }
+            System.out.println(result.getInsertedCount() + " disaster victims added, "
+                    + result.getFailures().size() + " failed.");
+            return result;
+        } catch (SQLException e) {
+            logError("Database error: " + e.getMessage());
+            System.out.println("Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Stores the victims and adds those that were stored to the registry
+    static BulkVictimIntake.Result registerVictims(Collection<DisasterVictim> newVictims) throws SQLException {
+        Lock change = modelLock.readLock();
+        change.lock();
+        try {
+            BulkVictimIntake.Result result = repository.addVictims(newVictims);
+            int row = 0;
+            for (DisasterVictim victim : newVictims) {
+                if (!result.getFailures().containsKey(row++)) {
+                    victimRegistry.add(victim);
+                }
+            }
+            return result;
+        } finally {
+            change.unlock();
+        }
+    }
+
     // Helper method to validate date format
     private static boolean isValidDate(String date) {
-        return date.matches("\\d{4}-\\d{2}-\\d{2}");
+        return IsoDate.isValid(date);
     }
 
     // Logs an inquiry in the database
@@ -408,21 +1014,18 @@ public class DisasterReliefApp {
             System.out.print("Enter your name: ");
             inquirerName = scanner.nextLine();
 
-            // Check if victim exists in the database
-            try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-                 PreparedStatement checkStmt = conn.prepareStatement(
-                         "SELECT COUNT(*) FROM disaster_victims WHERE first_name = ?")) {
-
-                checkStmt.setString(1, inquirerName);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next() && rs.getInt(1) == 0) {
-                    System.out.println("No disaster victim found with that name.");
+            // Check the in-memory registry first and only go to the database on a miss
+            if (victimRegistry.findByFirstName(inquirerName).isEmpty()) {
+                try {
+                    if (repository.countVictimsByFirstName(inquirerName) == 0) {
+                        System.out.println("No disaster victim found with that name.");
+                        return;
+                    }
+                } catch (SQLException e) {
+                    logError("Database error: " + e.getMessage());
+                    System.out.println("Error: " + e.getMessage());
                     return;
                 }
-            } catch (SQLException e) {
-                logError("Database error: " + e.getMessage());
-                System.out.println("Error: " + e.getMessage());
-                return;
             }
         } else {
             System.out.print("Enter inquirer name: ");
@@ -431,32 +1034,46 @@ public class DisasterReliefApp {
 
         System.out.print("Enter missing person name: ");
         String missingPerson = scanner.nextLine();
+
+        List<MissingPersonMatcher.Candidate> candidates = missingPersonMatcher.match(missingPerson, 5);
+        if (!candidates.isEmpty()) {
+            System.out.println("Possible matches among registered victims:");
+            for (MissingPersonMatcher.Candidate candidate : candidates) {
+                DisasterVictim victim = candidate.getVictim();
+                System.out.printf("- %s %s (ID %d, score %.2f)%n", victim.getFirstName(),
+                        victim.getLastName() == null ? "" : victim.getLastName(),
+                        victim.getAssignedSocialID(), candidate.getScore());
+            }
+        }
         System.out.print("Enter date of inquiry (YYYY-MM-DD): ");
         String inquiryDate = scanner.nextLine();
 
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             PreparedStatement pstmt = conn.prepareStatement(
-                     "INSERT INTO inquiries (inquirer_name, missing_person, date_of_inquiry) VALUES (?, ?, ?)")) {
-
-            pstmt.setString(1, inquirerName);
-            pstmt.setString(2, missingPerson);
-            pstmt.setString(3, inquiryDate);
-            pstmt.executeUpdate();
-
+        try {
+            recordInquiry(inquirerName, missingPerson, inquiryDate);
             System.out.println("Inquiry logged successfully.");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
         } catch (SQLException e) {
             logError(e.getMessage());
             System.out.println("Error: " + e.getMessage());
         }
     }
 
+    // Stores an inquiry and starts watching intake and shelters for the missing person
+    static void recordInquiry(String inquirerName, String missingPerson, String inquiryDate) throws SQLException {
+        if (!isValidDate(inquiryDate)) {
+            throw new IllegalArgumentException("Invalid date format. Use YYYY-MM-DD.");
+        }
+        ReliefService inquiry = new ReliefService(new Inquirer(inquirerName, null, null, null),
+                DisasterVictim.soughtPerson(missingPerson), inquiryDate, null, null);
+        repository.addInquiry(inquiry);
+        auditLog.audit(inquiry);
+        reunification.openInquiry(inquiry);
+    }
 
-    // Logs errors to errorlog.txt
+
+    // Logs errors to errorlog.txt without blocking on file I/O
     private static void logError(String message) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("errorlog.txt", true))) {
-            writer.println(LocalDateTime.now() + " - " + message);
-        } catch (IOException e) {
-            System.out.println("Could not write to error log.");
-        }
+        errorLog.log(message);
     }
 }
\ No newline at end of file
@@ -6,22 +6,30 @@ See LICENSE.txt for more information.
 
 package edu.ucalgary.oop;
 
-import java.util.List;
 import java.util.Arrays;
 import java.util.ArrayList;
-import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DisasterVictim {
-    private static int counter = 0;
+    private static final AtomicInteger counter = new AtomicInteger(); // Shared by every intake thread
 
     private String firstName;
     private String lastName;
-    private String dateOfBirth;
+    private int dateOfBirth = IsoDate.INVALID; // Epoch day; INVALID until set
     private final int ASSIGNED_SOCIAL_ID;
     private ArrayList<FamilyRelation> familyConnections = new ArrayList<>();
     private ArrayList<MedicalRecord> medicalRecords = new ArrayList<>();
-    private Supply[] personalBelongings;
-    private final String ENTRY_DATE;
+    private static final Supply[] NO_SUPPLIES = new Supply[0];
+    private final ArrayList<Supply> personalBelongings = new ArrayList<>();
+    private final Map<String, Integer> belongingQuantities = new LinkedHashMap<>(); // Total quantity per supply type
+    private Supply[] belongingsView; // Cached array for getPersonalBelongings, rebuilt after a change; never handed out
+    private static final FamilyRelation[] NO_RELATIONS = new FamilyRelation[0];
+    private FamilyRelation[] familyConnectionsView; // Cached array for getFamilyConnections; never handed out
+    private final int ENTRY_DATE; // Epoch day
     private Gender gender; // Changed from String to Gender enum
     private String comments;
 
@@ -33,40 +41,54 @@ public class DisasterVictim {
     }
 
     public DisasterVictim(String firstName, String ENTRY_DATE) throws IllegalArgumentException {
-        this.firstName = firstName;
-        if (!isValidDateFormat(ENTRY_DATE)) {
-            throw new IllegalArgumentException("Invalid date format for entry date. Expected format: YYYY-MM-DD");
-        }
-        this.ENTRY_DATE = ENTRY_DATE;
-        this.ASSIGNED_SOCIAL_ID = generateSocialID();
+        this(firstName, IsoDate.parseOrThrow(ENTRY_DATE, "Invalid date format for entry date. Expected format: YYYY-MM-DD"));
     }
 
     public DisasterVictim(String firstName, String ENTRY_DATE, String dateOfBirth) throws IllegalArgumentException {
+        this(firstName, ENTRY_DATE);
+        setDateOfBirth(dateOfBirth);
+    }
+
+    // Entry date given as an epoch day, for bulk loaders that already hold one
+    public DisasterVictim(String firstName, int entryEpochDay) {
         this.firstName = firstName;
-        if (!isValidDateFormat(ENTRY_DATE)) {
-            throw new IllegalArgumentException("Invalid date format for entry date. Expected format: YYYY-MM-DD");
-        }
-        this.ENTRY_DATE = ENTRY_DATE;
+        this.ENTRY_DATE = entryEpochDay;
         this.ASSIGNED_SOCIAL_ID = generateSocialID();
-        setDateOfBirth(dateOfBirth);
     }
 
-    private static int generateSocialID() {
-        counter++;
-        return counter;
+    // Brings a victim back under the social ID it had before, e.g. from a ReliefSnapshot;
+    // IDs handed out afterwards continue above it
+    DisasterVictim(int socialId, String firstName, int entryEpochDay) {
+        this.firstName = firstName;
+        this.ENTRY_DATE = entryEpochDay;
+        this.ASSIGNED_SOCIAL_ID = socialId;
+        counter.accumulateAndGet(socialId, Math::max);
     }
 
-    private static boolean isValidDateFormat(String date) {
-        String dateFormatPattern = "^\\d{4}-\\d{2}-\\d{2}$";
-        return date.matches(dateFormatPattern);
+    // Stands in for the person an inquiry asks about, of whom only the name is known: takes
+    // social ID 0, which is never handed out, and has no entry date
+    static DisasterVictim soughtPerson(String firstName) {
+        return new DisasterVictim(0, firstName, IsoDate.INVALID);
     }
 
-    private static int convertDateStringToInt(String dateStr) {
-        // Use regex to remove dashes from the date string
-        String formattedDate = dateStr.replaceAll("-", "");
+    // Copy under the same social ID with another entry date, for correcting a registered
+    // victim's entry date; relations, medical records and belongings are shared, not copied
+    DisasterVictim withEntryDate(int entryEpochDay) throws IllegalArgumentException {
+        DisasterVictim copy = new DisasterVictim(ASSIGNED_SOCIAL_ID, firstName, entryEpochDay);
+        copy.lastName = lastName;
+        if (dateOfBirth != IsoDate.INVALID) {
+            copy.setDateOfBirth(dateOfBirth);
+        }
+        copy.gender = gender;
+        copy.comments = comments;
+        copy.familyConnections.addAll(familyConnections);
+        copy.medicalRecords.addAll(medicalRecords);
+        copy.addPersonalBelongings(personalBelongings);
+        return copy;
+    }
 
-        // Convert the formatted string to an integer
-        return Integer.parseInt(formattedDate);
+    private static int generateSocialID() {
+        return counter.incrementAndGet();
     }
 
     // Getters and setters
@@ -88,22 +110,25 @@ public class DisasterVictim {
     }
 
     public String getDateOfBirth() {
+        return IsoDate.format(dateOfBirth);
+    }
+
+    // Epoch day of birth, or IsoDate.INVALID if unknown
+    public int getDateOfBirthEpochDay() {
         return dateOfBirth;
     }
 
     public void setDateOfBirth(String dateOfBirth) throws IllegalArgumentException {
-        if (!isValidDateFormat(dateOfBirth)) {
-            throw new IllegalArgumentException("Invalid date format for date of birth. Expected format: YYYY-MM-DD");
-        }
+        setDateOfBirth(IsoDate.parseOrThrow(dateOfBirth, "Invalid date format for date of birth. Expected format: YYYY-MM-DD"));
+    }
 
+    public void setDateOfBirth(int birthEpochDay) throws IllegalArgumentException {
         // A person cannot be born after entering a centre
-        int entryDate = convertDateStringToInt(ENTRY_DATE);
-        int birthDate = convertDateStringToInt(dateOfBirth);
-        if (birthDate > entryDate) {
+        if (birthEpochDay > ENTRY_DATE) {
             throw new IllegalArgumentException("Birthdate must be the same as or before entry date");
         }
 
-        this.dateOfBirth = dateOfBirth;
+        this.dateOfBirth = birthEpochDay;
     }
 
     public int getAssignedSocialID() {
@@ -111,7 +136,11 @@ public class DisasterVictim {
     }
 
     public FamilyRelation[] getFamilyConnections() {
-        return familyConnections.toArray(new FamilyRelation[0]);
+        if (familyConnectionsView == null) {
+            familyConnectionsView = familyConnections.isEmpty() ? NO_RELATIONS : familyConnections.toArray(NO_RELATIONS);
+        }
+        // Callers get their own copy, so writing into it cannot change what others see
+        return familyConnectionsView.length == 0 ? NO_RELATIONS : familyConnectionsView.clone();
     }
 
     public MedicalRecord[] getMedicalRecords() {
@@ -119,7 +148,23 @@ public class DisasterVictim {
     }
 
     public Supply[] getPersonalBelongings() {
-        return this.personalBelongings;
+        if (belongingsView == null) {
+            belongingsView = personalBelongings.isEmpty() ? NO_SUPPLIES : personalBelongings.toArray(NO_SUPPLIES);
+        }
+        return belongingsView.length == 0 ? NO_SUPPLIES : belongingsView.clone();
+    }
+
+    public int getPersonalBelongingCount() {
+        return personalBelongings.size();
+    }
+
+    // Total quantity held of a supply type, counted when each belonging was added
+    public int getBelongingQuantity(String type) {
+        return belongingQuantities.getOrDefault(type, 0);
+    }
+
+    public Map<String, Integer> getBelongingQuantities() {
+        return Collections.unmodifiableMap(belongingQuantities);
     }
 
     // The add and remove methods remain correct.
@@ -127,6 +172,7 @@ public class DisasterVictim {
     // Correct the setters to accept Lists instead of arrays
     public void setFamilyConnections(FamilyRelation[] connections) {
         this.familyConnections.clear();
+        this.familyConnectionsView = null;
         for (FamilyRelation newRecord : connections) {
             addFamilyConnection(newRecord);
         }
@@ -140,54 +186,50 @@ public class DisasterVictim {
     }
 
     public void setPersonalBelongings(Supply[] belongings) {
-        this.personalBelongings = belongings;
+        this.personalBelongings.clear();
+        this.belongingQuantities.clear();
+        this.belongingsView = null;
+        if (belongings != null) {
+            addPersonalBelongings(Arrays.asList(belongings));
+        }
     }
 
     // Add a Supply to personalBelonging
     public void addPersonalBelonging(Supply supply) {
-        if (this.personalBelongings == null) {
-            Supply tmpSupply[] = { supply };
-            this.setPersonalBelongings(tmpSupply);
-            return;
-        }
-
-        // Create an array one larger than the previous array
-        int newLength = this.personalBelongings.length + 1;
-        Supply tmpPersonalBelongings[] = new Supply[newLength];
+        personalBelongings.add(supply);
+        belongingQuantities.merge(supply.getType(), supply.getQuantity(), Integer::sum);
+        belongingsView = null;
+    }
 
-        // Copy all the items in the current array to the new array
-        int i;
-        for (i = 0; i < personalBelongings.length; i++) {
-            tmpPersonalBelongings[i] = this.personalBelongings[i];
+    // Add several Supplies to personalBelongings, growing the storage once
+    public void addPersonalBelongings(Collection<Supply> supplies) {
+        personalBelongings.ensureCapacity(personalBelongings.size() + supplies.size());
+        for (Supply supply : supplies) {
+            addPersonalBelonging(supply);
         }
-
-        // Add the new element at the end of the new array
-        tmpPersonalBelongings[i] = supply;
-
-        // Replace the original array with the new array
-        this.personalBelongings = tmpPersonalBelongings;
     }
 
     // Remove a Supply from personalBelongings, we assume it only appears once
-    public void removePersonalBelonging(Supply unwantedSupply) {
-        Supply[] updatedBelongings = new Supply[personalBelongings.length - 1];
-        int index = 0;
-        int newIndex = index;
-        for (Supply supply : personalBelongings) {
-            if (!supply.equals(unwantedSupply)) {
-                updatedBelongings[newIndex] = supply;
-                newIndex++;
-            }
-            index++;
+    public boolean removePersonalBelonging(Supply unwantedSupply) {
+        if (!personalBelongings.remove(unwantedSupply)) {
+            return false;
         }
+        belongingQuantities.computeIfPresent(unwantedSupply.getType(), (type, quantity) -> {
+            int remaining = quantity - unwantedSupply.getQuantity();
+            return remaining <= 0 ? null : remaining;
+        });
+        belongingsView = null;
+        return true;
     }
 
     public void removeFamilyConnection(FamilyRelation exRelation) {
         familyConnections.remove(exRelation);
+        familyConnectionsView = null;
     }
 
     public void addFamilyConnection(FamilyRelation record) {
         familyConnections.add(record);
+        familyConnectionsView = null;
     }
 
     // Add a MedicalRecord to medicalRecords
@@ -196,6 +238,10 @@ public class DisasterVictim {
     }
 
     public String getEntryDate() {
+        return IsoDate.format(ENTRY_DATE);
+    }
+
+    public int getEntryEpochDay() {
         return ENTRY_DATE;
     }
 
@@ -12,6 +12,9 @@ import static org.junit.Assert.*;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 
 public class DisasterVictimTest {
     private DisasterVictim victim;
@@ -306,6 +309,94 @@ public void testSetPersonalBelongings() {
     assertTrue("setPersonalBelongings should correctly update personal belongings", correct);
 }
 
+    @Test
+    public void testRemovePersonalBelongingActuallyRemoves() {
+        Supply keep = new Supply("Blanket", 1);
+        Supply drop = new Supply("Water Bottle", 2);
+        victim.addPersonalBelonging(keep);
+        victim.addPersonalBelonging(drop);
+
+        assertTrue("removePersonalBelonging should report a removed supply", victim.removePersonalBelonging(drop));
+        Supply[] remaining = victim.getPersonalBelongings();
+        assertEquals("Only one supply should remain", 1, remaining.length);
+        assertSame("The supply that was not removed should remain", keep, remaining[0]);
+        assertFalse("Removing a supply that is not held should report nothing removed", victim.removePersonalBelonging(drop));
+    }
+
+    @Test
+    public void testAddPersonalBelongingsInBulk() {
+        victim.addPersonalBelongings(suppliesToSet);
+        Supply[] actual = victim.getPersonalBelongings();
+        assertEquals("addPersonalBelongings should add every supply", suppliesToSet.size(), actual.length);
+        assertSame("addPersonalBelongings should keep insertion order", suppliesToSet.get(1), actual[1]);
+    }
+
+    @Test
+    public void testBelongingQuantitiesAreGroupedByType() {
+        victim.addPersonalBelonging(new Supply("water", 2));
+        Supply extraWater = new Supply("water", 3);
+        victim.addPersonalBelonging(extraWater);
+        victim.addPersonalBelonging(new Supply("cot", 1));
+        assertEquals("Quantities of the same type should be summed", 5, victim.getBelongingQuantity("water"));
+
+        victim.removePersonalBelonging(extraWater);
+        assertEquals("Removing a supply should reduce its type's quantity", 2, victim.getBelongingQuantity("water"));
+        assertEquals("An absent type should have no quantity", 0, victim.getBelongingQuantity("blanket"));
+    }
+
+    @Test
+    public void testNoPersonalBelongingsIsEmptyArray() {
+        assertEquals("A victim with no belongings should return an empty array", 0, victim.getPersonalBelongings().length);
+    }
+
+    @Test
+    public void testReturnedArraysAreCopies() {
+        DisasterVictim victim = new DisasterVictim("Freda", "2025-01-18");
+        DisasterVictim son = new DisasterVictim("Kai", "2025-01-18");
+        victim.addPersonalBelonging(new Supply("blanket", 1));
+        victim.addFamilyConnection(new FamilyRelation(victim, "parent", son));
+        victim.getPersonalBelongings()[0] = null;
+        victim.getFamilyConnections()[0] = null;
+        assertNotNull("Writing into a returned array should not change the belongings", victim.getPersonalBelongings()[0]);
+        assertNotNull("Writing into a returned array should not change the relations", victim.getFamilyConnections()[0]);
+    }
+
+    @Test
+    public void testSoughtPersonTakesNoSocialId() {
+        DisasterVictim before = new DisasterVictim("Before", "2025-01-18");
+        DisasterVictim sought = DisasterVictim.soughtPerson("Kai");
+        DisasterVictim after = new DisasterVictim("After", "2025-01-18");
+        assertEquals("The sought person should not hold a real social ID", 0, sought.getAssignedSocialID());
+        assertNull("The sought person should have no entry date", sought.getEntryDate());
+        assertEquals("No social ID should be used up", before.getAssignedSocialID() + 1, after.getAssignedSocialID());
+    }
+
+    @Test
+    public void testSocialIdsAreUniqueAcrossThreads() throws Exception {
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> desks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread desk = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 5000; i++) {
+                    ids.add(new DisasterVictim("Kai", validDate).getAssignedSocialID());
+                }
+            });
+            desk.start();
+            desks.add(desk);
+        }
+        start.countDown();
+        for (Thread desk : desks) {
+            desk.join();
+        }
+        assertEquals("Victims created at the same time should never share a social ID", 8 * 5000, ids.size());
+    }
+
 
     
 }
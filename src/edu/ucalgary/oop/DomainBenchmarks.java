@@ -0,0 +1,484 @@
+package edu.ucalgary.oop;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Benchmarks for the hot paths of the domain model: victim construction and dates of birth,
+// personal belongings, shelter occupancy, family relation traversal, translation lookups and
+// repository inserts, journal appends and replays, and snapshot writes and restarts at a
+// million victims, beside a restart from the journal alone, and population scans over
+// VictimColumns beside the same questions asked of the objects, and fuzzy missing-person
+// queries at a million victims with their p50 and p99 latency. The JDBC benchmarks run only when
+// -Drelief.db.url names a database, typically an embedded one, whose driver is on the
+// classpath; the victim load from SQL is then measured beside the journal replay.
+// Usage: DomainBenchmarks [-o results.json] [-f regex] [-wi warmups] [-i iterations] [-t ms]
+public class DomainBenchmarks {
+    private static final int[] BELONGING_SIZES = {1, 16, 256, 4096};
+    private static final int[] OCCUPANT_COUNTS = {16, 1024, 65536};
+    private static final int[] RELATION_COUNTS = {4, 64, 1024};
+    private static final int INSERT_BATCH = 100;
+    private static final int JOURNAL_VICTIMS = 100_000;
+    private static final int SNAPSHOT_VICTIMS = 1_000_000;
+    private static final int COLUMN_VICTIMS = 1_000_000;
+    private static final int MATCHER_VICTIMS = 1_000_000;
+    private static final int MATCHER_QUERIES = 2000;
+    private static final String[] NAME_SYLLABLES = {"a", "ba", "chi", "da", "dre", "el", "fa", "gu", "ha", "in",
+            "jo", "ka", "li", "lo", "ma", "mei", "na", "no", "o", "pa", "qui", "ra", "ri", "sa", "so", "ta",
+            "tu", "u", "va", "wen", "xi", "ya", "yo", "za", "zhu", "ar", "on", "is", "ek"};
+
+    public static void main(String[] args) throws Exception {
+        String output = null;
+        String filter = null;
+        int warmups = 3;
+        int iterations = 5;
+        long iterationMillis = 500;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-o": output = args[i + 1]; break;
+                case "-f": filter = args[i + 1]; break;
+                case "-wi": warmups = Integer.parseInt(args[i + 1]); break;
+                case "-i": iterations = Integer.parseInt(args[i + 1]); break;
+                case "-t": iterationMillis = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmups, iterations, iterationMillis, filter);
+        victimBenchmarks(runner);
+        belongingBenchmarks(runner);
+        occupancyBenchmarks(runner);
+        relationBenchmarks(runner);
+        translationBenchmarks(runner);
+        repositoryBenchmarks(runner);
+        journalBenchmarks(runner);
+        snapshotBenchmarks(runner);
+        columnBenchmarks(runner);
+        matcherBenchmarks(runner);
+
+        for (BenchmarkRunner.Result result : runner.getResults()) {
+            System.out.println(result);
+        }
+        if (output != null) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(output))) {
+                runner.writeJson(out);
+            }
+            System.out.println("Results written to " + output);
+        }
+        System.out.println("(sink " + runner.getSink() + ")");
+    }
+
+    private static void victimBenchmarks(BenchmarkRunner runner) throws Exception {
+        runner.run("DisasterVictim.new", () -> () -> new DisasterVictim("Freda", "2025-01-15"));
+        runner.run("DisasterVictim.newWithDateOfBirth", () -> () -> new DisasterVictim("Freda", "2025-01-15", "1987-06-02"));
+        runner.run("DisasterVictim.setDateOfBirth", () -> {
+            DisasterVictim victim = new DisasterVictim("Freda", "2025-01-15");
+            String[] dates = {"1987-06-02", "2001-11-30", "1955-02-28", "2019-07-04"};
+            int[] next = {0};
+            return () -> {
+                victim.setDateOfBirth(dates[next[0]++ & 3]);
+                return victim.getDateOfBirthEpochDay();
+            };
+        });
+    }
+
+    // Fills a new victim up to size belongings one call at a time, so the score shows how the
+    // per-add cost grows with the list and the per-type totals
+    private static void belongingBenchmarks(BenchmarkRunner runner) throws Exception {
+        for (int size : BELONGING_SIZES) {
+            runner.run("DisasterVictim.addPersonalBelonging", Map.of("size", String.valueOf(size)), () -> {
+                Supply[] supplies = new Supply[size];
+                for (int i = 0; i < size; i++) {
+                    supplies[i] = new Supply(i % 2 == 0 ? "blanket" : "water", 1);
+                }
+                return () -> {
+                    DisasterVictim victim = new DisasterVictim("Freda", 20103);
+                    for (Supply supply : supplies) {
+                        victim.addPersonalBelonging(supply);
+                    }
+                    return victim.getBelongingQuantity("water");
+                };
+            });
+            runner.run("DisasterVictim.getPersonalBelongings", Map.of("size", String.valueOf(size)), () -> {
+                DisasterVictim victim = new DisasterVictim("Freda", "2025-01-15");
+                for (int i = 0; i < size; i++) {
+                    victim.addPersonalBelonging(new Supply("blanket", 1));
+                }
+                return () -> victim.getPersonalBelongings().length;
+            });
+        }
+    }
+
+    private static void occupancyBenchmarks(BenchmarkRunner runner) throws Exception {
+        for (int count : OCCUPANT_COUNTS) {
+            Map<String, String> params = Map.of("occupants", String.valueOf(count));
+            runner.run("Location.addRemoveOccupant", params, () -> {
+                Location shelter = shelterWith(count);
+                DisasterVictim arrival = new DisasterVictim("Kai", "2025-01-15");
+                return () -> {
+                    boolean added = shelter.addOccupant(arrival);
+                    shelter.removeOccupant(arrival);
+                    return added;
+                };
+            });
+            runner.run("Location.getOccupants", params, () -> {
+                Location shelter = shelterWith(count);
+                return () -> shelter.getOccupants().size();
+            });
+            runner.run("Location.hasOccupant", params, () -> {
+                Location shelter = shelterWith(count);
+                int[] ids = shelter.occupantView().stream().mapToInt(DisasterVictim::getAssignedSocialID).toArray();
+                int[] next = {0};
+                return () -> shelter.hasOccupant(ids[next[0]++ % ids.length]);
+            });
+        }
+    }
+
+    private static Location shelterWith(int occupants) {
+        Location shelter = new Location("TELUS", "136 8 Ave SE");
+        for (int i = 0; i < occupants; i++) {
+            shelter.addOccupant(new DisasterVictim("Occupant", "2025-01-15"));
+        }
+        return shelter;
+    }
+
+    // Walks every relation of a victim and counts the children, as a family lookup does
+    private static void relationBenchmarks(BenchmarkRunner runner) throws Exception {
+        String[] kinds = {"sibling", "parent", "child", "spouse"};
+        for (int count : RELATION_COUNTS) {
+            runner.run("FamilyRelation.traverse", Map.of("relations", String.valueOf(count)), () -> {
+                DisasterVictim victim = new DisasterVictim("Freda", "2025-01-15");
+                for (int i = 0; i < count; i++) {
+                    victim.addFamilyConnection(new FamilyRelation(victim, kinds[i % kinds.length],
+                            new DisasterVictim("Relative", "2025-01-15")));
+                }
+                return () -> {
+                    int children = 0;
+                    for (FamilyRelation relation : victim.getFamilyConnections()) {
+                        if (relation.getRelationshipType() == RelationshipType.CHILD
+                                && relation.getPersonTwo() != null) {
+                            children++;
+                        }
+                    }
+                    return children;
+                };
+            });
+        }
+    }
+
+    private static void translationBenchmarks(BenchmarkRunner runner) throws Exception {
+        Path directory = Files.createTempDirectory("translation-bench");
+        Path file = directory.resolve("en-CA.xml");
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<translations>\n");
+        String[] keys = new String[200];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "menu_option_" + i;
+            xml.append("  <translation><key>").append(keys[i]).append("</key><value>Option ").append(i)
+                    .append("</value></translation>\n");
+        }
+        Files.writeString(file, xml.append("</translations>\n"));
+        try {
+            TranslationCatalog catalog = TranslationCatalog.load(file);
+            int[] ids = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                ids[i] = TranslationCatalog.keyId(keys[i]);
+            }
+            runner.run("TranslationCatalog.translate", () -> {
+                int[] next = {0};
+                return () -> catalog.translate(keys[next[0]++ % keys.length]);
+            });
+            runner.run("TranslationCatalog.get", () -> {
+                int[] next = {0};
+                return () -> catalog.get(ids[next[0]++ % ids.length]);
+            });
+            runner.run("TranslationCatalog.translateMissing", () -> () -> catalog.translate("no_such_key"));
+        } finally {
+            Files.deleteIfExists(TranslationCatalog.cacheFileFor(file));
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void repositoryBenchmarks(BenchmarkRunner runner) throws Exception {
+        insertBenchmarks(runner, "memory", InMemoryReliefRepository::new);
+        if (System.getProperty("relief.db.url") == null) {
+            System.out.println("JDBC insert benchmarks skipped: set -Drelief.db.url to an embedded database");
+            return;
+        }
+        JdbcReliefRepository jdbc = new JdbcReliefRepository(DatabaseManager.getInstance());
+        try {
+            jdbc.createSchema();
+            insertBenchmarks(runner, "jdbc", () -> jdbc);
+        } catch (SQLException e) {
+            System.out.println("JDBC insert benchmarks skipped: " + e.getMessage());
+        } finally {
+            jdbc.close();
+        }
+    }
+
+    private static void insertBenchmarks(BenchmarkRunner runner, String store, Supplier<ReliefRepository> source) throws Exception {
+        Map<String, String> params = Map.of("store", store);
+        runner.run("ReliefRepository.addVictim", params, () -> {
+            ReliefRepository repository = source.get();
+            DisasterVictim victim = new DisasterVictim("Freda", "2025-01-15");
+            return () -> repository.addVictim(victim);
+        });
+        runner.run("ReliefRepository.addVictims", Map.of("store", store, "batch", String.valueOf(INSERT_BATCH)), () -> {
+            ReliefRepository repository = source.get();
+            List<DisasterVictim> batch = new ArrayList<>(INSERT_BATCH);
+            for (int i = 0; i < INSERT_BATCH; i++) {
+                batch.add(new DisasterVictim("Freda", "2025-01-15"));
+            }
+            return () -> repository.addVictims(batch).getInsertedCount();
+        });
+        runner.run("ReliefRepository.addSupply", params, () -> {
+            ReliefRepository repository = source.get();
+            return () -> repository.addSupply("blanket", 1, null, "TELUS");
+        });
+    }
+
+    // Appending, reading back and rebuilding a store from the event journal, against loading
+    // the same victims from SQL when a database is configured
+    private static void journalBenchmarks(BenchmarkRunner runner) throws Exception {
+        Path appendDirectory = Files.createTempDirectory("journal-bench");
+        Path replayDirectory = Files.createTempDirectory("journal-replay-bench");
+        try {
+            runner.run("EventJournal.append", () -> {
+                EventJournal journal = new EventJournal(appendDirectory);
+                return () -> journal.append(EventJournal.Type.VICTIM_CREATED, 1, 0, "Freda", "2025-01-15");
+            });
+            try (EventJournal journal = new EventJournal(replayDirectory)) {
+                for (int i = 0; i < JOURNAL_VICTIMS; i++) {
+                    journal.append(EventJournal.Type.VICTIM_CREATED, i + 1, 0, "Victim" + (i % 5000), "2025-01-15");
+                }
+            }
+            Map<String, String> params = Map.of("victims", String.valueOf(JOURNAL_VICTIMS));
+            runner.run("EventJournal.replay", params, () -> () -> EventJournal.replay(replayDirectory, event -> { }));
+            runner.run("JournalingReliefRepository.rebuild", params, () ->
+                    () -> JournalingReliefRepository.rebuild(replayDirectory, new InMemoryReliefRepository()));
+        } finally {
+            deleteTree(appendDirectory);
+            deleteTree(replayDirectory);
+        }
+        if (System.getProperty("relief.db.url") == null) {
+            return;
+        }
+        JdbcReliefRepository jdbc = new JdbcReliefRepository(DatabaseManager.getInstance());
+        try {
+            jdbc.createSchema();
+            List<DisasterVictim> victims = new ArrayList<>(JOURNAL_VICTIMS);
+            for (int i = 0; i < JOURNAL_VICTIMS; i++) {
+                victims.add(new DisasterVictim("Victim" + (i % 5000), "2025-01-15"));
+            }
+            jdbc.addVictims(victims);
+            runner.run("JdbcReliefRepository.forEachVictim", Map.of("victims", String.valueOf(JOURNAL_VICTIMS)), () -> () -> {
+                long[] count = {0};
+                jdbc.forEachVictim((victim, group) -> count[0]++, () -> { });
+                return count[0];
+            });
+        } catch (SQLException e) {
+            System.out.println("JDBC load benchmark skipped: " + e.getMessage());
+        } finally {
+            jdbc.close();
+        }
+    }
+
+    // Startup of the in-memory model at SNAPSHOT_VICTIMS: reading and restoring a snapshot,
+    // against replaying the same victims from the journal; also the cost of writing one
+    private static void snapshotBenchmarks(BenchmarkRunner runner) throws Exception {
+        if (!runner.selects("ReliefSnapshot.save", "ReliefSnapshot.read", "ReliefSnapshot.startup",
+                "ReliefSnapshot.startupFromJournal")) {
+            return;
+        }
+        Map<String, String> params = Map.of("victims", String.valueOf(SNAPSHOT_VICTIMS));
+        Path directory = Files.createTempDirectory("snapshot-bench");
+        Path file = directory.resolve("relief.snapshot");
+        Path journalDirectory = directory.resolve("journal");
+        try {
+            saveBenchmark(runner, params, file, journalDirectory);
+            System.out.println("Snapshot of " + SNAPSHOT_VICTIMS + " victims: " + Files.size(file) + " bytes");
+            runner.run("ReliefSnapshot.read", params, () -> () -> ReliefSnapshot.read(file).getVictimCount());
+            runner.run("ReliefSnapshot.startup", params, () -> () -> {
+                ReliefSnapshot restarted = emptyModel();
+                restarted.restore(ReliefSnapshot.read(file));
+                return restarted;
+            });
+            runner.run("ReliefSnapshot.startupFromJournal", params, () -> () -> emptyModel().replay(journalDirectory, 0));
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    // Builds the populated model and its journal, then times saving it. The model is only
+    // reachable from here, so it is gone before the startup benchmarks run.
+    private static void saveBenchmark(BenchmarkRunner runner, Map<String, String> params, Path file,
+                                      Path journalDirectory) throws Exception {
+        VictimRegistry victims = new VictimRegistry();
+        Set<Location> locations = ConcurrentHashMap.newKeySet();
+        Location shelter = new Location("TELUS", "136 8 Ave SE");
+        locations.add(shelter);
+        try (EventJournal journal = new EventJournal(journalDirectory)) {
+            DisasterVictim previous = null;
+            for (int i = 0; i < SNAPSHOT_VICTIMS; i++) {
+                DisasterVictim victim = new DisasterVictim("Victim" + (i % 5000), 20103);
+                victim.setLastName("Family" + (i % 20000));
+                victim.setDateOfBirth(20103 - 365 * (i % 90));
+                victim.setGender(DisasterVictim.Gender.values()[i % 3]);
+                if (i % 10 == 1) {
+                    FamilyRelation relation = new FamilyRelation(previous, "sibling", victim);
+                    previous.addFamilyConnection(relation);
+                    victim.addFamilyConnection(relation);
+                }
+                if (i % 20 == 0) {
+                    victim.addMedicalRecord(new MedicalRecord(shelter, "Checkup", "2025-01-16"));
+                }
+                if (i % 100 == 0) {
+                    shelter.addOccupant(victim);
+                }
+                victims.add(victim);
+                journal.append(EventJournal.Type.VICTIM_CREATED, i + 1, 0, victim.getFirstName(), victim.getEntryDate());
+                previous = victim;
+            }
+        }
+        ReliefSnapshot model = new ReliefSnapshot(victims, locations, new SupplyLedger(), new FamilyClusterer(),
+                new ReentrantReadWriteLock(), () -> CompletableFuture.completedFuture(0L));
+        runner.run("ReliefSnapshot.save", params, () -> () -> model.save(file).getVictimCount());
+    }
+
+    // "Children under five per location" and "gender by entry date" over COLUMN_VICTIMS spread
+    // across ten shelters, as column scans and as walks over the objects
+    private static void columnBenchmarks(BenchmarkRunner runner) throws Exception {
+        if (!runner.selects("VictimColumns.childrenByLocation", "VictimColumns.childrenByLocation.objects",
+                "VictimColumns.genderByEntryDate", "VictimColumns.genderByEntryDate.objects")) {
+            return;
+        }
+        int today = 20110;
+        List<DisasterVictim> victims = new ArrayList<>(COLUMN_VICTIMS);
+        List<Location> shelters = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            shelters.add(new Location("Shelter" + i, i + " Main St"));
+        }
+        for (int i = 0; i < COLUMN_VICTIMS; i++) {
+            DisasterVictim victim = new DisasterVictim("Victim" + (i % 5000), today - i % 30);
+            victim.setLastName("Family" + (i % 20000));
+            victim.setDateOfBirth(today - 30 - (int) ((long) i * 7919 % 30000));
+            victim.setGender(i % 7 == 0 ? null : DisasterVictim.Gender.values()[i % 3]);
+            shelters.get(i % 10).addOccupant(victim);
+            victims.add(victim);
+        }
+        VictimColumns columns = VictimColumns.of(victims, shelters, null);
+        System.out.printf("%d victims: columns ~%d MB, objects ~%d MB (estimated)%n", COLUMN_VICTIMS,
+                columns.footprintBytes() >> 20, VictimColumns.estimateObjectBytes(victims) >> 20);
+
+        Map<String, String> params = Map.of("victims", String.valueOf(COLUMN_VICTIMS));
+        int fiveYearsAgo = (int) LocalDate.ofEpochDay(today).minusYears(5).toEpochDay();
+        runner.run("VictimColumns.childrenByLocation", params, () ->
+                () -> columns.filter().youngerThan(5, today).countByLocation());
+        runner.run("VictimColumns.childrenByLocation.objects", params, () -> () -> {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Location shelter : shelters) {
+                int[] count = {0};
+                shelter.forEachOccupant(victim -> {
+                    int birth = victim.getDateOfBirthEpochDay();
+                    if (birth > fiveYearsAgo && birth <= today) {
+                        count[0]++;
+                    }
+                });
+                counts.put(shelter.getName(), count[0]);
+            }
+            return counts;
+        });
+        runner.run("VictimColumns.genderByEntryDate", params, () ->
+                () -> columns.filter().countByEntryDateAndGender());
+        runner.run("VictimColumns.genderByEntryDate.objects", params, () -> () -> {
+            Map<Integer, int[]> counts = new TreeMap<>();
+            for (DisasterVictim victim : victims) {
+                DisasterVictim.Gender gender = victim.getGender();
+                counts.computeIfAbsent(victim.getEntryEpochDay(), day -> new int[VictimColumns.UNKNOWN_GENDER + 1])
+                        [gender == null ? VictimColumns.UNKNOWN_GENDER : gender.ordinal()]++;
+            }
+            return counts;
+        });
+    }
+
+    // Inquiries with one misspelled letter against MATCHER_VICTIMS generated two-part names.
+    // The runner reports the mean; the p50 and p99 the target is set in are printed beside it.
+    private static void matcherBenchmarks(BenchmarkRunner runner) throws Exception {
+        if (!runner.selects("MissingPersonMatcher.match")) {
+            return;
+        }
+        Random random = new Random(42);
+        MissingPersonMatcher matcher = new MissingPersonMatcher();
+        List<String> names = new ArrayList<>(MATCHER_VICTIMS);
+        for (int i = 0; i < MATCHER_VICTIMS; i++) {
+            DisasterVictim victim = new DisasterVictim(generatedName(random, 2), "2025-01-15");
+            victim.setLastName(generatedName(random, 3));
+            matcher.add(victim);
+            names.add(victim.getFirstName() + " " + victim.getLastName());
+        }
+        String[] queries = new String[MATCHER_QUERIES];
+        for (int i = 0; i < queries.length; i++) {
+            char[] name = names.get(random.nextInt(names.size())).toCharArray();
+            int at = random.nextInt(name.length);
+            if (name[at] != ' ') {
+                name[at] = (char) ('a' + random.nextInt(26));
+            }
+            queries[i] = new String(name);
+        }
+
+        Map<String, String> params = Map.of("victims", String.valueOf(MATCHER_VICTIMS));
+        runner.run("MissingPersonMatcher.match", params, () -> {
+            int[] next = {0};
+            return () -> matcher.match(queries[next[0]++ % queries.length], 5);
+        });
+        long[] nanos = new long[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            long start = System.nanoTime();
+            matcher.match(queries[i], 5);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("MissingPersonMatcher.match at %d victims: p50 %.2f ms, p99 %.2f ms%n", MATCHER_VICTIMS,
+                nanos[nanos.length / 2] / 1e6, nanos[nanos.length * 99 / 100] / 1e6);
+    }
+
+    // One to `parts` syllables, capitalised, from a vocabulary small enough that names repeat
+    private static String generatedName(Random random, int parts) {
+        StringBuilder name = new StringBuilder();
+        int count = 1 + random.nextInt(parts);
+        for (int i = 0; i < count; i++) {
+            name.append(NAME_SYLLABLES[random.nextInt(NAME_SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    private static ReliefSnapshot emptyModel() {
+        return new ReliefSnapshot(new VictimRegistry(), ConcurrentHashMap.newKeySet(), new SupplyLedger(),
+                new FamilyClusterer(), new ReentrantReadWriteLock(), () -> CompletableFuture.completedFuture(0L));
+    }
+
+    private static void deleteTree(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
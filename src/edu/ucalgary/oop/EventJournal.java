@@ -0,0 +1,353 @@
+package edu.ucalgary.oop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only history of changes, kept in memory-mapped segment files.
+// Each record is a length, a CRC32C of the payload and the payload itself; segments are
+// preallocated and zero-filled, so a zero length marks the end of the written part. When a
+// record does not fit, the journal moves to a new segment named after the sequence number
+// of its first event. Appending is a copy into the mapping under a short lock; the OS
+// writes pages back on its own and force() pushes them to disk on demand, on rolling and on
+// close. Reading maps each segment read-only and walks it front to back.
+public class EventJournal implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    private static final int HEADER_BYTES = 8; // length + crc
+    private static final String SUFFIX = ".journal";
+
+    // Layout of id, number and fields for each kind of event
+    public enum Type {
+        VICTIM_CREATED,        // id person_id; fields first name, entry date
+        VICTIMS_RENAMED,       // fields first name, new first name
+        ENTRY_DATE_CHANGED,    // fields first name, entry date
+        FAMILY_GROUP_CREATED,  // number group id; fields head name
+        FAMILY_GROUP_ASSIGNED, // number group id; fields first name
+        LOCATION_ADDED,        // id location_id; number capacity; fields name, address
+        SUPPLY_ALLOCATED,      // id supply_id; number quantity; fields type, person, location
+        SUPPLY_EXPIRED,        // id supply_id
+        INQUIRY_LOGGED,        // fields inquirer, missing person, date of inquiry
+        MEDICAL_RECORD_ADDED;  // id person_id; fields location, treatment details, date of treatment
+
+        private static final Type[] VALUES = values();
+    }
+
+    public static final class Event {
+        private final Type type;
+        private final long sequence;
+        private final long timestamp;
+        private final long id;
+        private final int number;
+        private final String[] fields;
+
+        Event(Type type, long sequence, long timestamp, long id, int number, String[] fields) {
+            this.type = type;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.id = id;
+            this.number = number;
+            this.fields = fields;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        // Epoch milliseconds when the event was appended
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public String getField(int index) {
+            return index < fields.length ? fields[index] : null;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + sequence + " " + type + " id=" + id + " number=" + number + " " + String.join("|",
+                    Stream.of(fields).map(String::valueOf).toArray(String[]::new));
+        }
+    }
+
+    public interface EventHandler {
+        void accept(Event event) throws Exception;
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final CRC32C crc = new CRC32C();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+    private long segmentFirstSequence;
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+    // Metrics
+    private volatile long appended;
+    private volatile long rolls;
+    private volatile long truncatedBytes;
+
+    public EventJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    // Opens the journal for appending after the last valid record, dropping a torn tail
+    public EventJournal(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < 1024) {
+            throw new IllegalArgumentException("Segments must be at least 1 KiB");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(0);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        segmentFirstSequence = firstSequence(last);
+        channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentBytes));
+        long count = 0;
+        int position = 0;
+        while (true) {
+            int length = validRecordAt(segment, position, crc);
+            if (length <= 0) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+            count++;
+        }
+        // Zero whatever follows, so a torn record can never be read as the end of a new one
+        int end = position;
+        int lastDirty = end;
+        for (; position + 8 <= segment.limit(); position += 8) {
+            if (segment.getLong(position) != 0) {
+                segment.putLong(position, 0);
+                lastDirty = position + 8;
+            }
+        }
+        for (; position < segment.limit(); position++) {
+            if (segment.get(position) != 0) {
+                segment.put(position, (byte) 0);
+                lastDirty = position + 1;
+            }
+        }
+        truncatedBytes = lastDirty - end;
+        segment.position(end);
+        nextSequence = segmentFirstSequence + count;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Names are zero-padded, so name order is sequence order
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segmentFirstSequence = firstSequence;
+        nextSequence = firstSequence;
+    }
+
+    // Length of the whole, CRC-valid record at position, or 0 at the end of the written part
+    private static int validRecordAt(ByteBuffer buffer, int position, CRC32C check) {
+        if (position + HEADER_BYTES > buffer.limit()) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER_BYTES + length > buffer.limit()) {
+            return 0;
+        }
+        check.reset();
+        check.update(buffer.slice(position + HEADER_BYTES, length));
+        return (int) check.getValue() == buffer.getInt(position + 4) ? length : 0;
+    }
+
+    // Appends an event and returns its sequence number
+    public synchronized long append(Type type, long id, int number, String... fields) throws IOException {
+        if (segment == null) {
+            throw new IOException("Journal is closed");
+        }
+        ByteBuffer payload = encode(type, System.currentTimeMillis(), id, number, fields);
+        int length = payload.remaining();
+        if (HEADER_BYTES + length > segmentBytes) {
+            throw new IllegalArgumentException("Event of " + length + " bytes does not fit in a segment");
+        }
+        if (segment.remaining() < HEADER_BYTES + length) {
+            roll();
+        }
+        crc.reset();
+        crc.update(payload.duplicate());
+        int start = segment.position();
+        // Length goes in last so a reader never sees a header without its payload
+        segment.putInt(start + 4, (int) crc.getValue());
+        segment.put(start + HEADER_BYTES, payload, payload.position(), length);
+        segment.putInt(start, length);
+        segment.position(start + HEADER_BYTES + length);
+        appended++;
+        return nextSequence++;
+    }
+
+    private ByteBuffer encode(Type type, long timestamp, long id, int number, String[] fields) {
+        int size = 1 + 8 + 8 + 4 + 1;
+        byte[][] encoded = new byte[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i] == null ? null : fields[i].getBytes(StandardCharsets.UTF_8);
+            size += 4 + (encoded[i] == null ? 0 : encoded[i].length);
+        }
+        if (scratch.capacity() < size) {
+            scratch = ByteBuffer.allocate(Math.max(size, scratch.capacity() * 2));
+        }
+        scratch.clear();
+        scratch.put((byte) type.ordinal()).putLong(timestamp).putLong(id).putInt(number).put((byte) fields.length);
+        for (byte[] field : encoded) {
+            if (field == null) {
+                scratch.putInt(-1);
+            } else {
+                scratch.putInt(field.length).put(field);
+            }
+        }
+        return scratch.flip();
+    }
+
+    private static Event decode(ByteBuffer record, long sequence) {
+        Type type = Type.VALUES[record.get()];
+        long timestamp = record.getLong();
+        long id = record.getLong();
+        int number = record.getInt();
+        String[] fields = new String[record.get()];
+        for (int i = 0; i < fields.length; i++) {
+            int length = record.getInt();
+            if (length >= 0) {
+                fields[i] = new String(record.array(), record.arrayOffset() + record.position(), length, StandardCharsets.UTF_8);
+                record.position(record.position() + length);
+            }
+        }
+        return new Event(type, sequence, timestamp, id, number, fields);
+    }
+
+    private void roll() throws IOException {
+        closeSegment();
+        openSegment(nextSequence);
+        rolls++;
+    }
+
+    private void closeSegment() throws IOException {
+        segment.force();
+        channel.close();
+        segment = null; // The mapping itself goes away when the buffer is collected
+    }
+
+    // Pushes everything appended so far to disk
+    public synchronized void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    public long getAppendedCount() {
+        return appended;
+    }
+
+    public long getRollCount() {
+        return rolls;
+    }
+
+    // Length of the torn tail cleared when the journal was opened
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            closeSegment();
+        }
+    }
+
+    // Reads every valid event in the directory in order and returns how many there were.
+    // Reading stops at the first torn or corrupt record, which can only be at the end.
+    public static long replay(Path directory, EventHandler handler) throws Exception {
+        return replay(directory, 0, handler);
+    }
+
+    // Same as above for the events from fromSequence on; earlier segments are not read
+    public static long replay(Path directory, long fromSequence, EventHandler handler) throws Exception {
+        long count = 0;
+        List<Path> files = segments(directory);
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            if (i + 1 < files.size() && firstSequence(files.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            long sequence = firstSequence(file);
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                CRC32C check = new CRC32C();
+                byte[] payload = new byte[256];
+                int position = 0;
+                while (true) {
+                    int length = validRecordAt(mapped, position, check);
+                    if (length <= 0) {
+                        break;
+                    }
+                    if (sequence >= fromSequence) {
+                        if (payload.length < length) {
+                            payload = new byte[Math.max(length, payload.length * 2)];
+                        }
+                        mapped.get(position + HEADER_BYTES, payload, 0, length);
+                        handler.accept(decode(ByteBuffer.wrap(payload, 0, length), sequence));
+                        count++;
+                    }
+                    sequence++;
+                    position += HEADER_BYTES + length;
+                }
+                if (position + HEADER_BYTES <= mapped.limit() && mapped.getInt(position) != 0) {
+                    return count; // Corrupt record: nothing after it can be trusted
+                }
+            }
+        }
+        return count;
+    }
+}
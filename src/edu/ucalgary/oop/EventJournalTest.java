@@ -0,0 +1,197 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+public class EventJournalTest {
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("event-journal-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private List<EventJournal.Event> readAll() throws Exception {
+        List<EventJournal.Event> events = new ArrayList<>();
+        EventJournal.replay(directory, events::add);
+        return events;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void testEventsAreReplayedInOrder() throws Exception {
+        try (EventJournal journal = new EventJournal(directory, 4096)) {
+            assertEquals("First event should be sequence 0", 0,
+                    journal.append(EventJournal.Type.VICTIM_CREATED, 7, 0, "Freda", "2025-01-15"));
+            journal.append(EventJournal.Type.SUPPLY_ALLOCATED, 3, 12, "blanket", null, "TELUS");
+        }
+        List<EventJournal.Event> events = readAll();
+        assertEquals("Both events should be read back", 2, events.size());
+        EventJournal.Event supply = events.get(1);
+        assertEquals("Type should round-trip", EventJournal.Type.SUPPLY_ALLOCATED, supply.getType());
+        assertEquals("Sequence should follow append order", 1, supply.getSequence());
+        assertEquals("Id should round-trip", 3, supply.getId());
+        assertEquals("Number should round-trip", 12, supply.getNumber());
+        assertNull("Null fields should stay null", supply.getField(1));
+        assertEquals("Text fields should round-trip", "TELUS", supply.getField(2));
+    }
+
+    @Test
+    public void testSegmentsRollAndReopenContinuesTheSequence() throws Exception {
+        try (EventJournal journal = new EventJournal(directory, 1024)) {
+            for (int i = 0; i < 100; i++) {
+                journal.append(EventJournal.Type.INQUIRY_LOGGED, 0, 0, "Kai", "Amara " + i, "2025-01-16");
+            }
+            assertTrue("A small segment size should force rolling", journal.getRollCount() > 0);
+        }
+        long segments = segmentCount();
+        try (EventJournal journal = new EventJournal(directory, 1024)) {
+            assertEquals("Reopening should continue after the last event", 100, journal.getNextSequence());
+            journal.append(EventJournal.Type.INQUIRY_LOGGED, 0, 0, "Kai", "Amara 100", "2025-01-16");
+        }
+        List<EventJournal.Event> events = readAll();
+        assertEquals("Every event across segments should be read", 101, events.size());
+        assertEquals("Order should hold across segments", "Amara 100", events.get(100).getField(1));
+        assertTrue("Reopening should not start a new segment", segmentCount() <= segments + 1);
+    }
+
+    @Test
+    public void testCorruptTailIsIgnoredAndCleared() throws Exception {
+        try (EventJournal journal = new EventJournal(directory, 4096)) {
+            journal.append(EventJournal.Type.VICTIM_CREATED, 1, 0, "Freda", "2025-01-15");
+            journal.append(EventJournal.Type.VICTIM_CREATED, 2, 0, "Kai", "2025-01-15");
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().get();
+        }
+        // Damage one byte inside the second record's payload
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            int second = 8 + header.getInt(0);
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xff}), second + 12);
+        }
+        assertEquals("Only the intact record should be replayed", 1, readAll().size());
+
+        try (EventJournal journal = new EventJournal(directory, 4096)) {
+            assertTrue("The damaged record should be cleared on open", journal.getTruncatedBytes() > 0);
+            assertEquals("Appending should resume after the intact record", 1,
+                    journal.append(EventJournal.Type.VICTIM_CREATED, 3, 0, "Amara", "2025-01-16"));
+        }
+        assertEquals("The new record should follow the intact one", "Amara", readAll().get(1).getField(0));
+    }
+
+    @Test
+    public void testRebuildRestoresTheStore() throws Exception {
+        InMemoryReliefRepository original = new InMemoryReliefRepository();
+        List<String> errors = new ArrayList<>();
+        try (JournalingReliefRepository journaled = new JournalingReliefRepository(original,
+                new EventJournal(directory, 4096), errors::add)) {
+            int freda = journaled.addVictim(new DisasterVictim("Freda", "2025-01-15"));
+            journaled.addVictims(List.of(new DisasterVictim("Kai", "2025-01-15"), new DisasterVictim("Kai", "2025-01-16")));
+            journaled.renameVictims("Kai", "Kainoa");
+            journaled.addSupply("blanket", 10, null, "TELUS");
+            journaled.addSupply("blanket", 4, "Freda", "TELUS");
+            long water = journaled.addSupply("water", 2, "Freda", "TELUS");
+            journaled.addSupply("water", 1, "Kainoa", "TELUS");
+            journaled.expireSupplies(List.of(water));
+            journaled.addInquiry(new ReliefService(new Inquirer("Kai", null, null, null),
+                    new DisasterVictim("Amara", "2025-01-16"), "2025-01-16", null, null));
+            journaled.addMedicalRecord(freda, new MedicalRecord(new Location("TELUS", null), "Splint", "2025-01-17"));
+        }
+
+        InMemoryReliefRepository rebuilt = new InMemoryReliefRepository();
+        assertEquals("Every change should be replayed", 11, JournalingReliefRepository.rebuild(directory, rebuilt));
+        assertEquals("Victims should be restored", 3, rebuilt.getVictimCount());
+        assertEquals("Renames should be applied", 2, rebuilt.countVictimsByFirstName("Kainoa"));
+        assertEquals("Stock should match", original.getStockOnHand(), rebuilt.getStockOnHand());
+        assertEquals("Only the unexpired water should remain", 1, rebuilt.getUnexpiredWater().size());
+        assertEquals("Inquiries should be restored", 1, rebuilt.findInquiries("Amara").size());
+        assertEquals("Medical records should follow their victim", "Splint",
+                rebuilt.getMedicalRecords(1).get(0).getTreatmentDetails());
+        assertTrue("No journal errors expected: " + errors, errors.isEmpty());
+    }
+
+    @Test
+    public void testJournalFollowsTheStoreUnderConcurrentChanges() throws Exception {
+        // A store that is slow to return after applying a rename, so a second desk can get in between
+        InMemoryReliefRepository original = new InMemoryReliefRepository() {
+            @Override
+            public int renameVictims(String firstName, String newFirstName) {
+                int renamed = super.renameVictims(firstName, newFirstName);
+                LockSupport.parkNanos(20_000);
+                return renamed;
+            }
+        };
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        try (JournalingReliefRepository journaled = new JournalingReliefRepository(original,
+                new EventJournal(directory, 1 << 20), errors::add)) {
+            journaled.addVictim(new DisasterVictim("Kai", "2025-01-15"));
+            // Two desks rename the same person back and forth; only one rename can apply at a time
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> desks = new ArrayList<>();
+            for (String[] rename : new String[][] {{"Kai", "Kainoa"}, {"Kainoa", "Kai"}}) {
+                desks.add(new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 1000; i++) {
+                            journaled.renameVictims(rename[0], rename[1]);
+                        }
+                    } catch (SQLException | InterruptedException e) {
+                        errors.add(e.getMessage());
+                    }
+                }));
+            }
+            for (Thread desk : desks) {
+                desk.start();
+            }
+            start.countDown();
+            for (Thread desk : desks) {
+                desk.join();
+            }
+        }
+
+        // Replayed in journal order, every rename must find the person under its old name
+        InMemoryReliefRepository rebuilt = new InMemoryReliefRepository();
+        EventJournal.replay(directory, event -> {
+            if (event.getType() == EventJournal.Type.VICTIMS_RENAMED) {
+                assertEquals("Event " + event + " should apply to the store as journaled", 1,
+                        rebuilt.renameVictims(event.getField(0), event.getField(1)));
+            } else {
+                rebuilt.addVictim(new DisasterVictim(event.getField(0), event.getField(1)));
+            }
+        });
+        assertEquals("The rebuilt store should end where the original did",
+                original.countVictimsByFirstName("Kai"), rebuilt.countVictimsByFirstName("Kai"));
+        assertTrue("No errors expected: " + errors, errors.isEmpty());
+    }
+}
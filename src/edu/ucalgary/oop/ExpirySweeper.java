@@ -0,0 +1,180 @@
+package edu.ucalgary.oop;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Background expiry of perishable supply allocations such as water.
+// Allocations are kept in a min-heap ordered by expiry time. Each tick pops only the
+// entries that are due and expires them in small batches, so no statement ever scans
+// the whole supplies table on the allocation path.
+public class ExpirySweeper {
+    public static final long WATER_LIFETIME_MS = TimeUnit.DAYS.toMillis(1);
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_MAX_BATCHES_PER_TICK = 10;
+
+    // Performs the expiry of one batch of due allocations
+    public interface Expirer {
+        void expire(List<Long> supplyIds) throws Exception;
+    }
+
+    private static final class Entry {
+        private final long supplyId;
+        private final long expiresAt;
+
+        Entry(long supplyId, long expiresAt) {
+            this.supplyId = supplyId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final PriorityQueue<Entry> due = new PriorityQueue<>((a, b) -> Long.compare(a.expiresAt, b.expiresAt));
+    private final Expirer expirer;
+    private final LongSupplier clock;
+    private final int batchSize;
+    private final int maxBatchesPerTick;
+    private ScheduledExecutorService scheduler;
+
+    // Metrics
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong totalExpired = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile long lastTickExpired;
+    private volatile long lastSweepNanos;
+    private volatile long maxSweepNanos;
+
+    public ExpirySweeper(Expirer expirer) {
+        this(expirer, System::currentTimeMillis, DEFAULT_BATCH_SIZE, DEFAULT_MAX_BATCHES_PER_TICK);
+    }
+
+    ExpirySweeper(Expirer expirer, LongSupplier clock, int batchSize, int maxBatchesPerTick) {
+        if (batchSize <= 0 || maxBatchesPerTick <= 0) {
+            throw new IllegalArgumentException("Batch size and batches per tick must be positive");
+        }
+        this.expirer = expirer;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.maxBatchesPerTick = maxBatchesPerTick;
+    }
+
+    // Queues every unexpired water allocation already in the repository
+    public int loadPending(ReliefRepository repository) throws SQLException {
+        Map<Long, Long> pending = repository.getUnexpiredWater();
+        for (Map.Entry<Long, Long> allocation : pending.entrySet()) {
+            track(allocation.getKey(), allocation.getValue() + WATER_LIFETIME_MS);
+        }
+        return pending.size();
+    }
+
+    // Schedules an allocation to expire at the given time
+    public void track(long supplyId, long expiresAtMillis) {
+        synchronized (due) {
+            due.add(new Entry(supplyId, expiresAtMillis));
+        }
+    }
+
+    // Schedules a water allocation made now
+    public void trackWater(long supplyId) {
+        track(supplyId, clock.getAsLong() + WATER_LIFETIME_MS);
+    }
+
+    public void start(long periodMs) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "expiry-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, 0, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Expires up to maxBatchesPerTick batches of due entries; returns how many were expired
+    public int tick() {
+        long start = System.nanoTime();
+        long now = clock.getAsLong();
+        int expired = 0;
+        for (int batches = 0; batches < maxBatchesPerTick; batches++) {
+            List<Entry> batch = takeDue(now);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (Entry entry : batch) {
+                ids.add(entry.supplyId);
+            }
+            try {
+                expirer.expire(ids);
+                expired += batch.size();
+            } catch (Exception e) {
+                // Put the batch back and try again on the next tick
+                failedBatches.incrementAndGet();
+                synchronized (due) {
+                    due.addAll(batch);
+                }
+                break;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        ticks.incrementAndGet();
+        totalExpired.addAndGet(expired);
+        lastTickExpired = expired;
+        lastSweepNanos = elapsed;
+        if (elapsed > maxSweepNanos) {
+            maxSweepNanos = elapsed;
+        }
+        return expired;
+    }
+
+    private List<Entry> takeDue(long now) {
+        List<Entry> batch = new ArrayList<>();
+        synchronized (due) {
+            while (batch.size() < batchSize && !due.isEmpty() && due.peek().expiresAt <= now) {
+                batch.add(due.poll());
+            }
+        }
+        return batch;
+    }
+
+    public int getPendingCount() {
+        synchronized (due) {
+            return due.size();
+        }
+    }
+
+    public long getTickCount() {
+        return ticks.get();
+    }
+
+    public long getTotalExpired() {
+        return totalExpired.get();
+    }
+
+    public long getLastTickExpired() {
+        return lastTickExpired;
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+
+    public long getLastSweepNanos() {
+        return lastSweepNanos;
+    }
+
+    public long getMaxSweepNanos() {
+        return maxSweepNanos;
+    }
+}
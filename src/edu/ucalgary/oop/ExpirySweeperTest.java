@@ -0,0 +1,77 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExpirySweeperTest {
+    private long now;
+    private List<List<Long>> expiredBatches;
+    private boolean failNext;
+    private ExpirySweeper sweeper;
+
+    @Before
+    public void setUp() {
+        now = 1_000_000;
+        expiredBatches = new ArrayList<>();
+        failNext = false;
+        sweeper = new ExpirySweeper(ids -> {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("Database unavailable");
+            }
+            expiredBatches.add(new ArrayList<>(ids));
+        }, () -> now, 2, 2);
+    }
+
+    @Test
+    public void testOnlyDueEntriesExpire() {
+        sweeper.track(1, now - 10);
+        sweeper.track(2, now + 10);
+        assertEquals("Only the entry that is due should expire", 1, sweeper.tick());
+        assertEquals("The expired batch should hold the due entry", List.of(1L), expiredBatches.get(0));
+        assertEquals("The entry that is not due should remain pending", 1, sweeper.getPendingCount());
+    }
+
+    @Test
+    public void testEntriesExpireInTimeOrder() {
+        sweeper.track(3, now - 1);
+        sweeper.track(1, now - 30);
+        sweeper.track(2, now - 20);
+        sweeper.tick();
+        assertEquals("The oldest entries should expire first", List.of(1L, 2L), expiredBatches.get(0));
+        assertEquals("The remaining entry should follow in the next batch", List.of(3L), expiredBatches.get(1));
+    }
+
+    @Test
+    public void testTickWorkIsBounded() {
+        for (long id = 1; id <= 7; id++) {
+            sweeper.track(id, now - 1);
+        }
+        assertEquals("A tick should expire at most two batches of two", 4, sweeper.tick());
+        assertEquals("The rest should wait for the next tick", 3, sweeper.getPendingCount());
+        assertEquals("The metrics should record the last tick", 4, sweeper.getLastTickExpired());
+        sweeper.tick();
+        assertEquals("Totals should accumulate across ticks", 7, sweeper.getTotalExpired());
+    }
+
+    @Test
+    public void testFailedBatchIsRetried() {
+        sweeper.track(1, now - 1);
+        failNext = true;
+        assertEquals("Nothing should expire when the batch fails", 0, sweeper.tick());
+        assertEquals("The failure should be counted", 1, sweeper.getFailedBatchCount());
+        assertEquals("The failed entry should be retried", 1, sweeper.tick());
+    }
+
+    @Test
+    public void testWaterLifetime() {
+        sweeper.trackWater(9);
+        now += ExpirySweeper.WATER_LIFETIME_MS - 1;
+        assertEquals("Water should not expire before a day has passed", 0, sweeper.tick());
+        now += 1;
+        assertEquals("Water should expire after a day", 1, sweeper.tick());
+    }
+}
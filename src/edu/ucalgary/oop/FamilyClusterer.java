@@ -0,0 +1,431 @@
+package edu.ucalgary.oop;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Derives family groups from FamilyRelation edges and stored family_group ids.
+// People are nodes of a union-find keyed by social ID: a relation between two people, or
+// two people sharing a stored family_group, puts them in the same set, and each set of two
+// or more people (or anyone with a stored group) has one FamilyGroup whose members are kept
+// in step. Lookups walk the parent links without locking. Changes are serialised; a new
+// link merges two sets in place, and removing a relation only regroups the one family it
+// belonged to, using the FamilyGraph to find what still holds that family together.
+public class FamilyClusterer {
+    private static final class Node {
+        private final int id;
+        private DisasterVictim victim; // Replaced by a new copy of the same person; writers only
+        private volatile Node parent = this;
+        private int size = 1; // Only meaningful on a root
+
+        Node(DisasterVictim victim) {
+            this.id = victim.getAssignedSocialID();
+            this.victim = victim;
+        }
+    }
+
+    private final FamilyGraph graph;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<Integer, Node> nodes = new ConcurrentHashMap<>();
+    private final Map<Integer, FamilyGroup> groupsByRoot = new ConcurrentHashMap<>();
+    private final Map<Integer, FamilyGroup> groupsById = new ConcurrentHashMap<>();
+    private final Set<Integer> storedIds = new HashSet<>(); // Group ids that came from family_group or were created by hand
+    private final Map<Integer, Integer> storedGroupOf = new HashMap<>(); // Social ID -> stored family_group
+    private final Map<Integer, Set<Integer>> storedMembers = new HashMap<>(); // Stored family_group -> social IDs
+    private int nextDerivedId = 1;
+
+    public FamilyClusterer() {
+        this(new FamilyGraph());
+    }
+
+    public FamilyClusterer(FamilyGraph graph) {
+        this.graph = graph;
+    }
+
+    public FamilyGraph getGraph() {
+        return graph;
+    }
+
+    // Registers an empty group created by hand, or returns the group that already has the id
+    public FamilyGroup createGroup(int groupId, String headName) {
+        writeLock.lock();
+        try {
+            FamilyGroup group = storedGroup(groupId, headName);
+            groupsById.put(groupId, group);
+            return group;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Seeds stored groups, each with the members that carry its id
+    public void addStoredGroups(Map<Integer, FamilyGroup> stored) {
+        for (FamilyGroup group : stored.values()) {
+            createGroup(group.getGroupId(), group.getHeadName());
+            for (DisasterVictim member : group.getMembers()) {
+                assignStoredGroup(member, group.getGroupId());
+            }
+        }
+    }
+
+    // Streams every stored victim into intake, then seeds the stored groups with their members
+    // and indexes the relations the loaded victims carry. A group id with no family_groups row
+    // is headed by its first member. Returns how many victims were loaded.
+    public long loadFrom(ReliefRepository repository, Consumer<DisasterVictim> intake, Runnable onFirstPage)
+            throws SQLException {
+        Map<Integer, FamilyGroup> stored = new TreeMap<>();
+        for (Map.Entry<Integer, String> row : repository.getFamilyGroups().entrySet()) {
+            stored.put(row.getKey(), new FamilyGroup(row.getKey(), row.getValue()));
+        }
+        List<DisasterVictim> related = new ArrayList<>();
+        long[] loaded = {0};
+        repository.forEachVictim((victim, groupId) -> {
+            intake.accept(victim);
+            loaded[0]++;
+            if (groupId != null) {
+                stored.computeIfAbsent(groupId, id -> new FamilyGroup(id, fullName(victim))).addMember(victim);
+            }
+            if (victim.getFamilyConnections().length > 0) {
+                related.add(victim);
+            }
+        }, onFirstPage);
+        addStoredGroups(stored);
+        addAll(related);
+        return loaded[0];
+    }
+
+    // Records the person's stored family_group and joins them to that family
+    public void assignStoredGroup(DisasterVictim victim, int groupId) {
+        writeLock.lock();
+        try {
+            Node node = node(victim);
+            Integer previous = storedGroupOf.put(node.id, groupId);
+            if (previous != null && previous == groupId) {
+                return;
+            }
+            if (previous != null) {
+                storedMembers.get(previous).remove(node.id);
+                regroup(node);
+            }
+            Set<Integer> peers = storedMembers.computeIfAbsent(groupId, id -> new HashSet<>());
+            Integer anchor = peers.isEmpty() ? null : peers.iterator().next();
+            peers.add(node.id);
+            if (anchor != null) {
+                union(node, nodes.get(anchor));
+                return;
+            }
+
+            // First member of this stored group: label the person's family with it
+            FamilyGroup group = storedGroup(groupId, fullName(victim));
+            Node root = find(node);
+            FamilyGroup current = groupsByRoot.get(root.id);
+            if (current == group || (current != null && storedIds.contains(current.getGroupId()))) {
+                return; // The family already carries a stored id
+            }
+            if (current == null) {
+                group.addMember(victim);
+            } else {
+                moveMembers(current, group);
+                groupsById.remove(current.getGroupId());
+            }
+            groupsByRoot.put(root.id, group);
+            groupsById.put(groupId, group);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Points the person's node and family group at a new copy of them, such as one made by
+    // withEntryDate; false if the person is not known here
+    public boolean replace(DisasterVictim copy) {
+        writeLock.lock();
+        try {
+            Node node = nodes.get(copy.getAssignedSocialID());
+            if (node == null) {
+                return false;
+            }
+            node.victim = copy;
+            FamilyGroup group = groupsByRoot.get(find(node).id);
+            if (group != null) {
+                group.replaceMember(copy);
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Indexes every relation held by the given victims
+    public void addAll(Collection<DisasterVictim> victims) {
+        for (DisasterVictim victim : victims) {
+            for (FamilyRelation relation : victim.getFamilyConnections()) {
+                addRelation(relation);
+            }
+        }
+    }
+
+    public void addRelation(FamilyRelation relation) {
+        writeLock.lock();
+        try {
+            graph.add(relation);
+            union(node(relation.getPersonOne()), node(relation.getPersonTwo()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Removes a relation and splits its family if nothing else holds it together
+    public boolean removeRelation(FamilyRelation relation) {
+        writeLock.lock();
+        try {
+            if (!graph.remove(relation)) {
+                return false;
+            }
+            regroup(nodes.get(relation.getPersonOne().getAssignedSocialID()));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // The person's family group, or null if they have none
+    public FamilyGroup groupOf(DisasterVictim victim) {
+        return groupOf(victim.getAssignedSocialID());
+    }
+
+    public FamilyGroup groupOf(int socialId) {
+        Node node = nodes.get(socialId);
+        return node == null ? null : groupsByRoot.get(root(node).id);
+    }
+
+    public boolean sameFamily(int socialIdOne, int socialIdTwo) {
+        Node one = nodes.get(socialIdOne);
+        Node two = nodes.get(socialIdTwo);
+        return one != null && two != null && root(one) == root(two);
+    }
+
+    public Collection<FamilyGroup> getGroups() {
+        return Collections.unmodifiableCollection(groupsById.values());
+    }
+
+    public FamilyGroup getGroup(int groupId) {
+        return groupsById.get(groupId);
+    }
+
+    // Stored group ids, in order, with the social IDs assigned to each
+    public Map<Integer, List<Integer>> getStoredAssignments() {
+        writeLock.lock();
+        try {
+            Map<Integer, List<Integer>> assignments = new TreeMap<>();
+            for (int groupId : storedIds) {
+                assignments.put(groupId, new ArrayList<>(storedMembers.getOrDefault(groupId, Collections.emptySet())));
+            }
+            return assignments;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int getGroupCount() {
+        return groupsById.size();
+    }
+
+    private Node node(DisasterVictim victim) {
+        return nodes.computeIfAbsent(victim.getAssignedSocialID(), id -> new Node(victim));
+    }
+
+    // Lock-free lookup; never rewrites links, so it is safe alongside a regroup
+    private static Node root(Node node) {
+        Node current = node;
+        while (current.parent != current) {
+            current = current.parent;
+        }
+        return current;
+    }
+
+    // Root lookup with path halving; writers only
+    private static Node find(Node node) {
+        Node current = node;
+        while (current.parent != current) {
+            Node next = current.parent;
+            current.parent = next.parent;
+            current = next.parent;
+        }
+        return current;
+    }
+
+    // Merges two families; the larger set keeps its root, and a stored group beats a derived one
+    private void union(Node a, Node b) {
+        Node rootA = find(a);
+        Node rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (rootA.size < rootB.size) {
+            Node swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        FamilyGroup groupA = groupsByRoot.remove(rootA.id);
+        FamilyGroup groupB = groupsByRoot.remove(rootB.id);
+        rootB.parent = rootA;
+        rootA.size += rootB.size;
+
+        FamilyGroup merged;
+        if (groupA == null && groupB == null) {
+            merged = derivedGroup(fullName(rootA.victim));
+            merged.addMember(rootA.victim);
+            merged.addMember(rootB.victim);
+        } else if (groupA == null || groupB == null) {
+            merged = groupA == null ? groupB : groupA;
+            merged.addMember(groupA == null ? rootA.victim : rootB.victim);
+        } else {
+            boolean keepB = storedIds.contains(groupB.getGroupId()) && !storedIds.contains(groupA.getGroupId());
+            merged = keepB ? groupB : groupA;
+            FamilyGroup absorbed = keepB ? groupA : groupB;
+            moveMembers(absorbed, merged);
+            groupsById.remove(absorbed.getGroupId());
+        }
+        groupsByRoot.put(rootA.id, merged);
+        groupsById.put(merged.getGroupId(), merged);
+    }
+
+    // Rebuilds the sets of one family from its remaining relations and stored groups
+    private void regroup(Node start) {
+        Node root = find(start);
+        FamilyGroup old = groupsByRoot.remove(root.id);
+        List<DisasterVictim> members = old == null ? List.of(root.victim) : new ArrayList<>(old.getMembers());
+        if (old != null) {
+            groupsById.remove(old.getGroupId());
+        }
+
+        // Local union-find over just this family
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int i = 0; i < members.size(); i++) {
+            index.put(members.get(i).getAssignedSocialID(), i);
+        }
+        int[] parent = new int[members.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        Map<Integer, Integer> firstOfStored = new HashMap<>();
+        for (int i = 0; i < members.size(); i++) {
+            int id = members.get(i).getAssignedSocialID();
+            for (int relative : graph.neighbors(id)) {
+                Integer j = index.get(relative);
+                if (j != null) {
+                    link(parent, i, j);
+                }
+            }
+            Integer stored = storedGroupOf.get(id);
+            if (stored != null) {
+                link(parent, i, firstOfStored.computeIfAbsent(stored, s -> index.get(id)));
+            }
+        }
+
+        Map<Integer, List<Integer>> pieces = new HashMap<>();
+        for (int i = 0; i < parent.length; i++) {
+            pieces.computeIfAbsent(top(parent, i), r -> new ArrayList<>()).add(i);
+        }
+        List<List<Integer>> bySize = new ArrayList<>(pieces.values());
+        bySize.sort((x, y) -> y.size() - x.size());
+
+        boolean oldReused = false;
+        for (List<Integer> piece : bySize) {
+            Node pieceRoot = nodes.get(members.get(piece.get(0)).getAssignedSocialID());
+            TreeSet<Integer> pieceStored = new TreeSet<>();
+            for (int i : piece) {
+                Node node = nodes.get(members.get(i).getAssignedSocialID());
+                node.parent = pieceRoot;
+                Integer stored = storedGroupOf.get(node.id);
+                if (stored != null) {
+                    pieceStored.add(stored);
+                }
+            }
+            pieceRoot.parent = pieceRoot;
+            pieceRoot.size = piece.size();
+            if (piece.size() == 1 && pieceStored.isEmpty()) {
+                continue; // A lone person has no family group
+            }
+
+            FamilyGroup group;
+            DisasterVictim head = members.get(piece.get(0));
+            if (old != null && !oldReused && (pieceStored.contains(old.getGroupId())
+                    || (pieceStored.isEmpty() && !storedIds.contains(old.getGroupId())))) {
+                group = old;
+                oldReused = true;
+                group.clearMembers();
+            } else if (!pieceStored.isEmpty()) {
+                group = storedGroup(pieceStored.first(), fullName(head));
+            } else {
+                group = derivedGroup(fullName(head));
+            }
+            for (int i : piece) {
+                group.addMember(members.get(i));
+            }
+            groupsByRoot.put(pieceRoot.id, group);
+            groupsById.put(group.getGroupId(), group);
+        }
+    }
+
+    private static int top(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void link(int[] parent, int a, int b) {
+        int rootA = top(parent, a);
+        int rootB = top(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    // Group object for a stored id; a derived group that already took the number is renumbered
+    private FamilyGroup storedGroup(int groupId, String headName) {
+        boolean alreadyStored = !storedIds.add(groupId);
+        nextDerivedId = Math.max(nextDerivedId, groupId + 1);
+        FamilyGroup existing = groupsById.get(groupId);
+        if (existing != null && !alreadyStored) {
+            FamilyGroup renumbered = derivedGroup(existing.getHeadName());
+            moveMembers(existing, renumbered);
+            groupsById.remove(groupId);
+            groupsById.put(renumbered.getGroupId(), renumbered);
+            groupsByRoot.put(find(nodes.get(renumbered.getMembers().get(0).getAssignedSocialID())).id, renumbered);
+            existing = null;
+        }
+        return existing != null ? existing : new FamilyGroup(groupId, headName);
+    }
+
+    private FamilyGroup derivedGroup(String headName) {
+        while (storedIds.contains(nextDerivedId) || groupsById.containsKey(nextDerivedId)) {
+            nextDerivedId++;
+        }
+        return new FamilyGroup(nextDerivedId++, headName);
+    }
+
+    private static void moveMembers(FamilyGroup from, FamilyGroup to) {
+        for (DisasterVictim member : from.getMembers()) {
+            to.addMember(member);
+        }
+        from.clearMembers();
+    }
+
+    private static String fullName(DisasterVictim victim) {
+        return victim.getFirstName() + (victim.getLastName() == null ? "" : " " + victim.getLastName());
+    }
+}
@@ -0,0 +1,140 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class FamilyClustererTest {
+    private FamilyClusterer clusterer;
+    private DisasterVictim mother;
+    private DisasterVictim son;
+    private DisasterVictim daughter;
+    private DisasterVictim stranger;
+
+    @Before
+    public void setUp() {
+        clusterer = new FamilyClusterer();
+        mother = new DisasterVictim("Freda", "2025-01-18");
+        son = new DisasterVictim("Kai", "2025-01-18");
+        daughter = new DisasterVictim("Mei", "2025-01-19");
+        stranger = new DisasterVictim("Jane", "2025-01-20");
+    }
+
+    @Test
+    public void testRelationsFormOneGroup() {
+        clusterer.addRelation(new FamilyRelation(mother, "parent", son));
+        clusterer.addRelation(new FamilyRelation(son, "sibling", daughter));
+        FamilyGroup group = clusterer.groupOf(daughter);
+        assertNotNull("Related people should get a family group", group);
+        assertSame("Everyone related should share the group", group, clusterer.groupOf(mother));
+        assertEquals("The group should list every relative", 3, group.getMembers().size());
+        assertTrue("Relatives should be in the same family", clusterer.sameFamily(mother.getAssignedSocialID(), daughter.getAssignedSocialID()));
+        assertNull("An unrelated person should have no group", clusterer.groupOf(stranger));
+        assertEquals("Only one group should exist", 1, clusterer.getGroupCount());
+    }
+
+    @Test
+    public void testRemovingARelationSplitsTheGroup() {
+        FamilyRelation parent = new FamilyRelation(mother, "parent", son);
+        clusterer.addRelation(parent);
+        clusterer.addRelation(new FamilyRelation(son, "sibling", daughter));
+        int groupId = clusterer.groupOf(mother).getGroupId();
+
+        assertTrue("An indexed relation should be removed", clusterer.removeRelation(parent));
+        assertNull("The mother should be on her own again", clusterer.groupOf(mother));
+        assertFalse("The mother should no longer be in the children's family",
+                clusterer.sameFamily(mother.getAssignedSocialID(), son.getAssignedSocialID()));
+        FamilyGroup children = clusterer.groupOf(son);
+        assertEquals("The larger part should keep the group id", groupId, children.getGroupId());
+        assertEquals("The remaining group should only list the children", List.of(son, daughter), children.getMembers());
+        assertFalse("A relation cannot be removed twice", clusterer.removeRelation(parent));
+    }
+
+    @Test
+    public void testStoredGroupHoldsFamilyTogether() {
+        clusterer.assignStoredGroup(mother, 7);
+        clusterer.assignStoredGroup(son, 7);
+        FamilyRelation parent = new FamilyRelation(mother, "parent", son);
+        clusterer.addRelation(parent);
+        clusterer.removeRelation(parent);
+        FamilyGroup group = clusterer.groupOf(son);
+        assertEquals("The stored id should name the group", 7, group.getGroupId());
+        assertSame("A shared family_group should keep people together", group, clusterer.groupOf(mother));
+    }
+
+    @Test
+    public void testRelationJoinsPersonToStoredGroup() {
+        clusterer.createGroup(3, "Smith Family");
+        clusterer.assignStoredGroup(mother, 3);
+        clusterer.addRelation(new FamilyRelation(daughter, "child", mother));
+        FamilyGroup group = clusterer.getGroup(3);
+        assertEquals("The hand-made group should keep its head", "Smith Family", group.getHeadName());
+        assertEquals("A relative of a member should join the stored group", 2, group.getMembers().size());
+    }
+
+    @Test
+    public void testStoredIdTakenByDerivedGroupIsRenumbered() {
+        clusterer.addRelation(new FamilyRelation(son, "sibling", daughter));
+        int derivedId = clusterer.groupOf(son).getGroupId();
+        clusterer.assignStoredGroup(stranger, derivedId);
+        assertEquals("The stored id should go to the stored group", List.of(stranger), clusterer.getGroup(derivedId).getMembers());
+        assertTrue("The derived group should get a new id", clusterer.groupOf(son).getGroupId() != derivedId);
+        assertEquals("The derived group should keep its members", 2, clusterer.groupOf(son).getMembers().size());
+    }
+
+    @Test
+    public void testReplacedCopyTakesThePersonsPlace() {
+        clusterer.addRelation(new FamilyRelation(mother, "parent", son));
+        clusterer.addRelation(new FamilyRelation(son, "sibling", daughter));
+        DisasterVictim copy = son.withEntryDate(son.getEntryEpochDay() + 1);
+        assertTrue("A known person should be replaced", clusterer.replace(copy));
+        assertTrue("The group should list the copy", clusterer.groupOf(mother).getMembers().contains(copy));
+        assertFalse("The group should drop the old object", clusterer.groupOf(mother).getMembers().contains(son));
+
+        // A split rebuilds groups from the nodes, which must hold the copy too
+        clusterer.removeRelation(new FamilyRelation(son, "sibling", daughter));
+        assertEquals("The copy should stay with the mother", List.of(mother, copy), clusterer.groupOf(copy).getMembers());
+        assertFalse("An unknown person should not be replaced", clusterer.replace(stranger));
+    }
+
+    @Test
+    public void testSeedsFromLoadedGroups() {
+        FamilyGroup stored = new FamilyGroup(12, "Freda");
+        stored.addMember(mother);
+        stored.addMember(stranger);
+        clusterer.addStoredGroups(Map.of(12, stored));
+        assertTrue("People sharing Person.family_group should be one family",
+                clusterer.sameFamily(mother.getAssignedSocialID(), stranger.getAssignedSocialID()));
+        assertEquals("The loaded group should be listed", 2, clusterer.getGroup(12).getMembers().size());
+    }
+
+    @Test
+    public void testLoadsStoredGroupsWithTheVictims() throws Exception {
+        try (InMemoryReliefRepository repository = new InMemoryReliefRepository()) {
+            repository.addVictim(mother);
+            repository.addVictim(son);
+            repository.addVictim(stranger);
+            repository.addFamilyGroup(5, "Freda's family");
+            repository.assignFamilyGroup("Freda", 5);
+            repository.assignFamilyGroup("Kai", 5);
+
+            List<DisasterVictim> loaded = new ArrayList<>();
+            int[] firstPages = {0};
+            long count = clusterer.loadFrom(repository, loaded::add, () -> firstPages[0]++);
+
+            assertEquals("Every stored victim should be loaded", 3, count);
+            assertEquals("Every loaded victim should reach the intake", 3, loaded.size());
+            assertEquals("The first page should be signalled once", 1, firstPages[0]);
+            FamilyGroup group = clusterer.getGroup(5);
+            assertNotNull("The stored group should be known after loading", group);
+            assertEquals("The stored head should be kept", "Freda's family", group.getHeadName());
+            assertEquals("Both assigned victims should be members", 2, group.getMembers().size());
+            DisasterVictim loadedStranger = loaded.stream()
+                    .filter(victim -> victim.getFirstName().equals("Jane")).findFirst().get();
+            assertNull("A victim with no stored group should have none", clusterer.groupOf(loadedStranger));
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Index over every FamilyRelation, keyed by social ID.
+// Relations are kept in compressed sparse rows: one offsets array, one targets array and
+// one byte of RelationshipType per edge, with each row sorted by target. Both directions
+// are stored, so the row of person A says how A relates to each relative. Additions and
+// removals go into a small overlay that queries merge with the rows; once the overlay grows
+// past a fraction of the graph it is folded into freshly built rows.
+public class FamilyGraph {
+    private static final byte REMOVED = -1;
+    private static final int MIN_COMPACT_THRESHOLD = 1024;
+    private static final Csr EMPTY = new Csr(new int[1], new int[0], new byte[0]);
+
+    private static final class Csr {
+        private final int[] offsets;
+        private final int[] targets;
+        private final byte[] types;
+
+        Csr(int[] offsets, int[] targets, byte[] types) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.types = types;
+        }
+
+        int nodeCount() {
+            return offsets.length - 1;
+        }
+
+        // Position of the edge v -> target, or -1
+        int find(int v, int target) {
+            if (v >= nodeCount()) {
+                return -1;
+            }
+            int index = Arrays.binarySearch(targets, offsets[v], offsets[v + 1], target);
+            return index < 0 ? -1 : index;
+        }
+    }
+
+    // Growable list of ints for the overlay rows and BFS queues
+    private static final class IntList {
+        private int[] items = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+    }
+
+    private interface EdgeVisitor {
+        void visit(int target, byte type);
+    }
+
+    private static final class Components {
+        private final long version;
+        private final int[] labels;
+
+        Components(long version, int[] labels) {
+            this.version = version;
+            this.labels = labels;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Csr csr = EMPTY;
+    private final Map<Long, Byte> overrides = new HashMap<>(); // Directed pair -> type code or REMOVED
+    private final Map<Integer, IntList> overlayRows = new HashMap<>(); // Targets with an override, per row
+    private int maxId;
+    private int edgeCount;
+    private long version;
+    private volatile Components components;
+
+    public FamilyGraph() {
+    }
+
+    // Builds the rows directly from parallel edge arrays: from[i] is types[i] of to[i].
+    // If the same pair appears more than once, the last occurrence wins.
+    public static FamilyGraph build(int[] from, RelationshipType[] types, int[] to) {
+        if (from.length != types.length || from.length != to.length) {
+            throw new IllegalArgumentException("Edge arrays must have the same length");
+        }
+        int max = 0;
+        for (int i = 0; i < from.length; i++) {
+            if (from[i] < 0 || to[i] < 0 || from[i] == to[i]) {
+                throw new IllegalArgumentException("Invalid relation between " + from[i] + " and " + to[i]);
+            }
+            max = Math.max(max, Math.max(from[i], to[i]));
+        }
+
+        int[] offsets = new int[max + 2];
+        for (int i = 0; i < from.length; i++) {
+            offsets[from[i] + 1]++;
+            offsets[to[i] + 1]++;
+        }
+        for (int v = 0; v <= max; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        // Each slot holds target << 32 | edge index, so sorting a row orders it by target
+        // and then by input order
+        long[] slots = new long[offsets[max + 1]];
+        int[] fill = Arrays.copyOf(offsets, max + 1);
+        for (int i = 0; i < from.length; i++) {
+            slots[fill[from[i]]++] = ((long) to[i] << 32) | i;
+            slots[fill[to[i]]++] = ((long) from[i] << 32) | i;
+        }
+
+        int[] compactOffsets = new int[max + 2];
+        int[] targets = new int[slots.length];
+        byte[] codes = new byte[slots.length];
+        int written = 0;
+        for (int v = 0; v <= max; v++) {
+            Arrays.sort(slots, offsets[v], offsets[v + 1]);
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int target = (int) (slots[s] >>> 32);
+                if (s + 1 < offsets[v + 1] && (int) (slots[s + 1] >>> 32) == target) {
+                    continue; // A later duplicate of this pair follows
+                }
+                int edge = (int) slots[s];
+                RelationshipType type = from[edge] == v ? types[edge] : types[edge].inverse();
+                targets[written] = target;
+                codes[written] = type.code();
+                written++;
+            }
+            compactOffsets[v + 1] = written;
+        }
+
+        FamilyGraph graph = new FamilyGraph();
+        graph.csr = new Csr(compactOffsets, Arrays.copyOf(targets, written), Arrays.copyOf(codes, written));
+        graph.maxId = max;
+        graph.edgeCount = written / 2;
+        return graph;
+    }
+
+    // Indexes every family connection held by the given victims
+    public void addAll(Collection<DisasterVictim> victims) {
+        for (DisasterVictim victim : victims) {
+            for (FamilyRelation relation : victim.getFamilyConnections()) {
+                add(relation);
+            }
+        }
+    }
+
+    public void add(FamilyRelation relation) {
+        add(relation.getPersonOne().getAssignedSocialID(), relation.getRelationshipType(),
+                relation.getPersonTwo().getAssignedSocialID());
+    }
+
+    public boolean remove(FamilyRelation relation) {
+        return remove(relation.getPersonOne().getAssignedSocialID(), relation.getPersonTwo().getAssignedSocialID());
+    }
+
+    // Records that from is the given relation of to, replacing any earlier relation between them
+    public void add(int from, RelationshipType type, int to) {
+        if (from < 0 || to < 0 || from == to) {
+            throw new IllegalArgumentException("Invalid relation between " + from + " and " + to);
+        }
+        lock.writeLock().lock();
+        try {
+            if (lookup(from, to) == REMOVED) {
+                edgeCount++;
+            }
+            override(from, to, type.code());
+            override(to, from, type.inverse().code());
+            maxId = Math.max(maxId, Math.max(from, to));
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Removes the relation between two people; returns false if there was none
+    public boolean remove(int from, int to) {
+        lock.writeLock().lock();
+        try {
+            if (lookup(from, to) == REMOVED) {
+                return false;
+            }
+            override(from, to, REMOVED);
+            override(to, from, REMOVED);
+            edgeCount--;
+            changed();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // How from relates to to, or null if they are not directly related
+    public RelationshipType relationship(int from, int to) {
+        lock.readLock().lock();
+        try {
+            byte code = lookup(from, to);
+            return code == REMOVED ? null : RelationshipType.fromCode(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Social IDs of everyone directly related to the person, in ascending order
+    public int[] neighbors(int socialId) {
+        lock.readLock().lock();
+        try {
+            IntList result = new IntList();
+            forEachEdge(socialId, (target, type) -> result.add(target));
+            int[] ids = Arrays.copyOf(result.items, result.size);
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int degree(int socialId) {
+        return neighbors(socialId).length;
+    }
+
+    // Everyone reachable within maxHops relations of the person, nearest first
+    public int[] withinHops(int socialId, int maxHops) {
+        return withinHops(socialId, maxHops, null);
+    }
+
+    // As withinHops, but only following relations of the given types
+    public int[] withinHops(int socialId, int maxHops, Set<RelationshipType> follow) {
+        EnumSet<RelationshipType> allowed = follow == null ? null : EnumSet.copyOf(follow);
+        lock.readLock().lock();
+        try {
+            if (socialId < 0 || socialId > maxId) {
+                return new int[0];
+            }
+            BitSet seen = new BitSet(maxId + 1);
+            seen.set(socialId);
+            IntList found = new IntList();
+            IntList frontier = new IntList();
+            frontier.add(socialId);
+            for (int hop = 0; hop < maxHops && frontier.size > 0; hop++) {
+                IntList next = new IntList();
+                for (int i = 0; i < frontier.size; i++) {
+                    forEachEdge(frontier.items[i], (target, type) -> {
+                        if (!seen.get(target) && (allowed == null || allowed.contains(RelationshipType.fromCode(type)))) {
+                            seen.set(target);
+                            next.add(target);
+                            found.add(target);
+                        }
+                    });
+                }
+                frontier = next;
+            }
+            return Arrays.copyOf(found.items, found.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Representative social ID of the person's connected family component; someone with no
+    // relations is a component of their own, so that is their own ID
+    public int componentOf(int socialId) {
+        int[] labels = componentLabels();
+        int label = socialId >= 0 && socialId < labels.length ? labels[socialId] : -1;
+        return label < 0 ? socialId : label;
+    }
+
+    // Everyone in the person's connected component, including the person, in ascending order
+    public int[] componentMembers(int socialId) {
+        int[] relatives = withinHops(socialId, Integer.MAX_VALUE);
+        int[] members = Arrays.copyOf(relatives, relatives.length + 1);
+        members[relatives.length] = socialId;
+        Arrays.sort(members);
+        return members;
+    }
+
+    // Every connected component with at least minSize members, each in ascending order
+    public List<int[]> components(int minSize) {
+        int[] labels = componentLabels();
+        int[] sizes = new int[labels.length];
+        for (int v = 0; v < labels.length; v++) {
+            if (labels[v] >= 0) {
+                sizes[labels[v]]++;
+            }
+        }
+        Map<Integer, int[]> byLabel = new HashMap<>();
+        int[] filled = new int[labels.length];
+        List<int[]> result = new ArrayList<>();
+        for (int v = 0; v < labels.length; v++) {
+            int label = labels[v];
+            if (label < 0 || sizes[label] < minSize) {
+                continue;
+            }
+            int[] members = byLabel.get(label);
+            if (members == null) {
+                members = new int[sizes[label]];
+                byLabel.put(label, members);
+                result.add(members);
+            }
+            members[filled[label]++] = v;
+        }
+        return result;
+    }
+
+    public int componentCount(int minSize) {
+        return components(minSize).size();
+    }
+
+    // Labels every related person with the root of its union-find set; unrelated IDs get -1
+    private int[] componentLabels() {
+        Components cached = components;
+        lock.readLock().lock();
+        try {
+            if (cached != null && cached.version == version) {
+                return cached.labels;
+            }
+            int[] parent = new int[maxId + 1];
+            for (int v = 0; v <= maxId; v++) {
+                parent[v] = v;
+            }
+            int[] size = new int[maxId + 1];
+            Arrays.fill(size, 1);
+            BitSet related = new BitSet(maxId + 1);
+            for (int v = 0; v <= maxId; v++) {
+                final int from = v;
+                forEachEdge(v, (target, type) -> {
+                    related.set(from);
+                    if (target > from) {
+                        union(parent, size, from, target);
+                    }
+                });
+            }
+            int[] labels = new int[maxId + 1];
+            for (int v = 0; v <= maxId; v++) {
+                labels[v] = related.get(v) ? find(parent, v) : -1;
+            }
+            components = new Components(version, labels);
+            return labels;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]]; // Path halving
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private static void union(int[] parent, int[] size, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+
+    // Folds the overlay into freshly built rows
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            if (overrides.isEmpty()) {
+                return;
+            }
+            int[] offsets = new int[maxId + 2];
+            for (int v = 0; v <= maxId; v++) {
+                int[] degree = {0};
+                forEachEdge(v, (target, type) -> degree[0]++);
+                offsets[v + 1] = offsets[v] + degree[0];
+            }
+            int[] targets = new int[offsets[maxId + 1]];
+            byte[] types = new byte[targets.length];
+            long[] row = new long[16];
+            for (int v = 0; v <= maxId; v++) {
+                int count = offsets[v + 1] - offsets[v];
+                if (row.length < count) {
+                    row = new long[count];
+                }
+                long[] slots = row;
+                int[] filled = {0};
+                forEachEdge(v, (target, type) -> slots[filled[0]++] = ((long) target << 8) | (type & 0xFF));
+                Arrays.sort(slots, 0, count);
+                for (int i = 0; i < count; i++) {
+                    targets[offsets[v] + i] = (int) (slots[i] >>> 8);
+                    types[offsets[v] + i] = (byte) slots[i];
+                }
+            }
+            csr = new Csr(offsets, targets, types);
+            overrides.clear();
+            overlayRows.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getEdgeCount() {
+        lock.readLock().lock();
+        try {
+            return edgeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of directed changes waiting in the overlay
+    public int getPendingChanges() {
+        lock.readLock().lock();
+        try {
+            return overrides.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long pair(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    // Current type code of the edge from -> to, or REMOVED; caller holds the lock
+    private byte lookup(int from, int to) {
+        if (overlayRows.containsKey(from)) {
+            Byte code = overrides.get(pair(from, to));
+            if (code != null) {
+                return code;
+            }
+        }
+        int index = from < 0 ? -1 : csr.find(from, to);
+        return index < 0 ? REMOVED : csr.types[index];
+    }
+
+    private void override(int from, int to, byte code) {
+        if (overrides.put(pair(from, to), code) == null) {
+            overlayRows.computeIfAbsent(from, v -> new IntList()).add(to);
+        }
+    }
+
+    private void changed() {
+        version++;
+        if (overrides.size() > Math.max(MIN_COMPACT_THRESHOLD, csr.targets.length / 4)) {
+            compact();
+        }
+    }
+
+    // Visits the live edges of a row, merging the built rows with the overlay; caller holds the lock
+    private void forEachEdge(int v, EdgeVisitor visitor) {
+        Csr rows = csr;
+        IntList overlay = overlayRows.get(v);
+        if (v >= 0 && v < rows.nodeCount()) {
+            for (int i = rows.offsets[v]; i < rows.offsets[v + 1]; i++) {
+                int target = rows.targets[i];
+                if (overlay == null || !overrides.containsKey(pair(v, target))) {
+                    visitor.visit(target, rows.types[i]);
+                }
+            }
+        }
+        if (overlay != null) {
+            for (int i = 0; i < overlay.size; i++) {
+                byte code = overrides.get(pair(v, overlay.items[i]));
+                if (code != REMOVED) {
+                    visitor.visit(overlay.items[i], code);
+                }
+            }
+        }
+    }
+}
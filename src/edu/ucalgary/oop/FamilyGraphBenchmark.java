@@ -0,0 +1,66 @@
+package edu.ucalgary.oop;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Times FamilyGraph on a synthetic population: bulk build, 3-hop queries, components and
+// incremental edits. Usage: FamilyGraphBenchmark [people] [relations]
+public class FamilyGraphBenchmark {
+    public static void main(String[] args) {
+        int people = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int relations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        Random random = new Random(380);
+        RelationshipType[] kinds = RelationshipType.values();
+
+        // Mostly local relations, so the graph forms families rather than one giant component
+        int[] from = new int[relations];
+        int[] to = new int[relations];
+        RelationshipType[] types = new RelationshipType[relations];
+        for (int i = 0; i < relations; i++) {
+            int a = 1 + random.nextInt(people);
+            int b = Math.max(1, Math.min(people, a + random.nextInt(21) - 10));
+            if (b == a) {
+                b = a == people ? a - 1 : a + 1;
+            }
+            from[i] = a;
+            to[i] = b;
+            types[i] = kinds[random.nextInt(kinds.length)];
+        }
+
+        long start = System.nanoTime();
+        FamilyGraph graph = FamilyGraph.build(from, types, to);
+        report("build", System.nanoTime() - start, 1, graph.getEdgeCount() + " relations");
+
+        int queries = 10_000;
+        long[] latencies = new long[queries];
+        long found = 0;
+        for (int i = 0; i < queries; i++) {
+            long queryStart = System.nanoTime();
+            found += graph.withinHops(1 + random.nextInt(people), 3).length;
+            latencies[i] = System.nanoTime() - queryStart;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("withinHops(3): p50=%.1f us p99=%.1f us avg relatives=%d%n",
+                latencies[queries / 2] / 1e3, latencies[queries * 99 / 100] / 1e3, found / queries);
+
+        start = System.nanoTime();
+        int families = graph.componentCount(2);
+        report("components", System.nanoTime() - start, 1, families + " families");
+
+        int edits = 100_000;
+        start = System.nanoTime();
+        for (int i = 0; i < edits; i++) {
+            int a = 1 + random.nextInt(people - 1);
+            if (i % 2 == 0) {
+                graph.add(a, RelationshipType.SIBLING, a + 1);
+            } else {
+                graph.remove(a, a + 1);
+            }
+        }
+        report("add/remove", System.nanoTime() - start, edits, graph.getPendingChanges() + " pending changes");
+    }
+
+    private static void report(String name, long nanos, int operations, String detail) {
+        System.out.printf("%s: %.1f ms total, %.2f us/op (%s)%n", name, nanos / 1e6, nanos / 1e3 / operations, detail);
+    }
+}
@@ -0,0 +1,99 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.EnumSet;
+import java.util.List;
+
+public class FamilyGraphTest {
+    private FamilyGraph graph;
+
+    // 1 - 2 - 3 - 4 - 5 in one family, 10 - 11 in another
+    @Before
+    public void setUp() {
+        graph = FamilyGraph.build(
+                new int[] {1, 2, 3, 4, 10},
+                new RelationshipType[] {RelationshipType.PARENT, RelationshipType.SIBLING, RelationshipType.SPOUSE,
+                        RelationshipType.GRANDPARENT, RelationshipType.SIBLING},
+                new int[] {2, 3, 4, 5, 11});
+    }
+
+    @Test
+    public void testRelationshipsAreStoredBothWays() {
+        assertEquals("Person one should be the parent of person two", RelationshipType.PARENT, graph.relationship(1, 2));
+        assertEquals("Person two should be the child of person one", RelationshipType.CHILD, graph.relationship(2, 1));
+        assertNull("Unrelated people should have no relationship", graph.relationship(1, 5));
+        assertArrayEquals("Neighbours should come back in ascending order", new int[] {1, 3}, graph.neighbors(2));
+        assertEquals("Each relation should count once", 5, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testWithinHops() {
+        assertArrayEquals("Relatives should be found nearest first", new int[] {2, 3, 4}, graph.withinHops(1, 3));
+        assertEquals("Zero hops should find nobody", 0, graph.withinHops(1, 0).length);
+        assertArrayEquals("Only the given relation types should be followed", new int[] {3},
+                graph.withinHops(2, 3, EnumSet.of(RelationshipType.SIBLING)));
+    }
+
+    @Test
+    public void testIncrementalAddAndRemove() {
+        graph.add(5, RelationshipType.GUARDIAN, 10);
+        assertEquals("An added relation should be visible at once", RelationshipType.WARD, graph.relationship(10, 5));
+        assertEquals("Joining two families should leave one component", 1, graph.componentCount(2));
+
+        assertTrue("An existing relation should be removed", graph.remove(3, 4));
+        assertFalse("A missing relation cannot be removed", graph.remove(3, 4));
+        assertNull("A removed relation should be gone", graph.relationship(4, 3));
+        assertArrayEquals("Removal should split the family", new int[] {1, 2, 3}, graph.componentMembers(1));
+        assertEquals("The edge count should follow adds and removes", 5, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testReplacingARelation() {
+        graph.add(2, RelationshipType.PARENT, 1);
+        assertEquals("A second relation between the same pair should replace the first",
+                RelationshipType.CHILD, graph.relationship(1, 2));
+        assertEquals("Replacing a relation should not add an edge", 5, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testCompactKeepsState() {
+        graph.add(6, RelationshipType.CHILD, 5);
+        graph.remove(1, 2);
+        graph.compact();
+        assertEquals("Compaction should empty the overlay", 0, graph.getPendingChanges());
+        assertEquals("Added relations should survive compaction", RelationshipType.PARENT, graph.relationship(5, 6));
+        assertNull("Removed relations should stay removed", graph.relationship(1, 2));
+        assertArrayEquals("Rows should stay sorted after compaction", new int[] {4, 6}, graph.withinHops(5, 1));
+    }
+
+    @Test
+    public void testComponents() {
+        List<int[]> families = graph.components(2);
+        assertEquals("There should be two families", 2, families.size());
+        assertArrayEquals("The first family should hold five people", new int[] {1, 2, 3, 4, 5}, families.get(0));
+        assertEquals("Members of one family should share a component", graph.componentOf(1), graph.componentOf(5));
+        assertTrue("Separate families should not share a component", graph.componentOf(1) != graph.componentOf(10));
+    }
+
+    @Test
+    public void testUnrelatedPeopleAreTheirOwnComponent() {
+        assertEquals("Someone without relations inside the known range should be their own component",
+                7, graph.componentOf(7));
+        assertEquals("Someone beyond the known range should be their own component too",
+                1000, graph.componentOf(1000));
+        assertTrue("Two unrelated people should not share a component", graph.componentOf(7) != graph.componentOf(8));
+    }
+
+    @Test
+    public void testIndexesVictimConnections() {
+        DisasterVictim parent = new DisasterVictim("Freda", "2025-01-18");
+        DisasterVictim child = new DisasterVictim("Kai", "2025-01-18");
+        parent.addFamilyConnection(new FamilyRelation(parent, "mother", child));
+        FamilyGraph victims = new FamilyGraph();
+        victims.addAll(List.of(parent, child));
+        assertEquals("Free-text relations should be coded", RelationshipType.CHILD,
+                victims.relationship(child.getAssignedSocialID(), parent.getAssignedSocialID()));
+    }
+}
@@ -1,7 +1,7 @@
 package edu.ucalgary.oop;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 class FamilyGroup {
     private int groupId;
@@ -11,13 +11,32 @@ class FamilyGroup {
     public FamilyGroup(int groupId, String headName) {
         this.groupId = groupId;
         this.headName = headName;
-        this.members = new ArrayList<>();
+        this.members = new CopyOnWriteArrayList<>(); // Read while FamilyClusterer regroups
     }
 
     public void addMember(DisasterVictim victim) {
         members.add(victim);
     }
 
+    public boolean removeMember(DisasterVictim victim) {
+        return members.remove(victim);
+    }
+
+    // Swaps in a new copy of the member with the same social ID; false if there is none
+    boolean replaceMember(DisasterVictim victim) {
+        for (int i = 0; i < members.size(); i++) {
+            if (members.get(i).getAssignedSocialID() == victim.getAssignedSocialID()) {
+                members.set(i, victim);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void clearMembers() {
+        members.clear();
+    }
+
     public int getGroupId() {
         return groupId;
     }
@@ -36,6 +36,11 @@ public class FamilyRelation {
         this.relationshipTo = relationshipTo;
     }
 
+    // Coded form of relationshipTo, as used by FamilyGraph
+    public RelationshipType getRelationshipType() {
+        return RelationshipType.parse(relationshipTo);
+    }
+
     // Getter and setter for personTwo
     public DisasterVictim getPersonTwo() {
         return personTwo;
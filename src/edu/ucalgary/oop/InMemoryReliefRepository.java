@@ -0,0 +1,276 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+// ReliefRepository that keeps every table in concurrent maps, so the application can run
+// and be load-tested without a database server.
+// Each lookup the application makes has its own index: victims by person_id and by first
+// name, stock on hand per location and type, unexpired water by supply_id, inquiries by
+// the missing person's name and medical records by person_id. Writers keep the indexes up
+// to date as they go, so no query scans a table.
+public class InMemoryReliefRepository implements ReliefRepository {
+    private static final class VictimRow {
+        private final int personId;
+        private volatile String firstName;
+        private volatile String entryDate;
+        private volatile Integer familyGroup;
+
+        VictimRow(int personId, String firstName, String entryDate) {
+            this.personId = personId;
+            this.firstName = firstName;
+            this.entryDate = entryDate;
+        }
+    }
+
+    private static final class SupplyRow {
+        private final String type;
+        private final int quantity;
+        private final String person;
+        private final String location;
+        private final long allocatedAt;
+        private volatile boolean expired;
+
+        SupplyRow(String type, int quantity, String person, String location, long allocatedAt) {
+            this.type = type;
+            this.quantity = quantity;
+            this.person = person;
+            this.location = location;
+            this.allocatedAt = allocatedAt;
+        }
+
+        // Effect of the row on the supplying location's stock
+        int stockChange() {
+            return person == null ? quantity : -quantity;
+        }
+    }
+
+    private final LongSupplier clock;
+    private final AtomicInteger nextPersonId = new AtomicInteger();
+    private final AtomicInteger nextLocationId = new AtomicInteger();
+    private final AtomicLong nextSupplyId = new AtomicLong();
+
+    private final ConcurrentNavigableMap<Integer, VictimRow> victims = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Integer>> victimsByFirstName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> familyGroups = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Integer, Location> locations = new ConcurrentSkipListMap<>();
+    private final Map<Long, SupplyRow> supplies = new ConcurrentHashMap<>();
+    private final Map<SupplyLedger.Key, AtomicInteger> stockOnHand = new ConcurrentHashMap<>();
+    private final Map<Long, Long> unexpiredWater = new ConcurrentHashMap<>();
+    private final Map<String, Queue<ReliefService>> inquiriesByMissingPerson = new ConcurrentHashMap<>();
+    private final Map<Integer, Queue<MedicalRecord>> medicalRecords = new ConcurrentHashMap<>();
+
+    public InMemoryReliefRepository() {
+        this(System::currentTimeMillis);
+    }
+
+    InMemoryReliefRepository(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public int addVictim(DisasterVictim victim) {
+        int personId = nextPersonId.incrementAndGet();
+        victims.put(personId, new VictimRow(personId, victim.getFirstName(), victim.getEntryDate()));
+        victimsByFirstName.computeIfAbsent(victim.getFirstName(), name -> ConcurrentHashMap.newKeySet()).add(personId);
+        return personId;
+    }
+
+    @Override
+    public BulkVictimIntake.Result addVictims(Collection<DisasterVictim> newVictims) {
+        BulkVictimIntake.Result result = new BulkVictimIntake.Result();
+        int row = 0;
+        for (DisasterVictim victim : newVictims) {
+            if (victim == null || victim.getFirstName() == null) {
+                result.recordFailure(row, "A victim must have a first name");
+            } else {
+                result.recordSuccess(row, addVictim(victim));
+            }
+            row++;
+        }
+        return result;
+    }
+
+    @Override
+    public int countVictimsByFirstName(String firstName) {
+        return victimsByFirstName.getOrDefault(firstName, Collections.emptySet()).size();
+    }
+
+    @Override
+    public int renameVictims(String firstName, String newFirstName) {
+        if (firstName.equals(newFirstName)) {
+            return countVictimsByFirstName(firstName);
+        }
+        // Detach the whole name entry at once so each row moves exactly once
+        Set<Integer> ids = victimsByFirstName.remove(firstName);
+        if (ids == null) {
+            return 0;
+        }
+        for (int personId : ids) {
+            victims.get(personId).firstName = newFirstName;
+        }
+        victimsByFirstName.computeIfAbsent(newFirstName, name -> ConcurrentHashMap.newKeySet()).addAll(ids);
+        return ids.size();
+    }
+
+    @Override
+    public int updateEntryDate(String firstName, String entryDate) {
+        int updated = 0;
+        for (int personId : victimsByFirstName.getOrDefault(firstName, Collections.emptySet())) {
+            victims.get(personId).entryDate = entryDate;
+            updated++;
+        }
+        return updated;
+    }
+
+    @Override
+    public void forEachVictim(BiConsumer<DisasterVictim, Integer> consumer, Runnable onFirstPage) {
+        boolean first = true;
+        for (VictimRow row : victims.values()) {
+            consumer.accept(new DisasterVictim(row.firstName, row.entryDate), row.familyGroup);
+            if (first && onFirstPage != null) {
+                onFirstPage.run();
+            }
+            first = false;
+        }
+        if (first && onFirstPage != null) {
+            onFirstPage.run();
+        }
+    }
+
+    @Override
+    public void addFamilyGroup(int groupId, String headName) {
+        familyGroups.put(groupId, headName);
+    }
+
+    @Override
+    public Integer getFamilyGroup(String firstName) {
+        for (int personId : victimsByFirstName.getOrDefault(firstName, Collections.emptySet())) {
+            return victims.get(personId).familyGroup;
+        }
+        return null;
+    }
+
+    @Override
+    public int assignFamilyGroup(String firstName, int groupId) {
+        int updated = 0;
+        for (int personId : victimsByFirstName.getOrDefault(firstName, Collections.emptySet())) {
+            victims.get(personId).familyGroup = groupId;
+            updated++;
+        }
+        return updated;
+    }
+
+    @Override
+    public Map<Integer, String> getFamilyGroups() {
+        return Collections.unmodifiableMap(familyGroups);
+    }
+
+    @Override
+    public int addLocation(Location location) {
+        int locationId = nextLocationId.incrementAndGet();
+        locations.put(locationId, location);
+        return locationId;
+    }
+
+    @Override
+    public List<Location> getLocations() {
+        return new ArrayList<>(locations.values());
+    }
+
+    @Override
+    public long addSupply(String type, int quantity, String person, String location) {
+        long supplyId = nextSupplyId.incrementAndGet();
+        SupplyRow row = new SupplyRow(type, quantity, person, location, clock.getAsLong());
+        supplies.put(supplyId, row);
+        if (location != null) {
+            stockOnHand.computeIfAbsent(new SupplyLedger.Key(location, type), key -> new AtomicInteger())
+                    .addAndGet(row.stockChange());
+        }
+        if (type.equals("water")) {
+            unexpiredWater.put(supplyId, row.allocatedAt);
+        }
+        return supplyId;
+    }
+
+    @Override
+    public Map<SupplyLedger.Key, Integer> getStockOnHand() {
+        Map<SupplyLedger.Key, Integer> stock = new LinkedHashMap<>();
+        for (Map.Entry<SupplyLedger.Key, AtomicInteger> entry : stockOnHand.entrySet()) {
+            int onHand = entry.getValue().get();
+            if (onHand > 0) {
+                stock.put(entry.getKey(), onHand);
+            }
+        }
+        return stock;
+    }
+
+    @Override
+    public Map<Long, Long> getUnexpiredWater() {
+        return new LinkedHashMap<>(unexpiredWater);
+    }
+
+    @Override
+    public void expireSupplies(List<Long> supplyIds) {
+        for (long supplyId : supplyIds) {
+            SupplyRow row = supplies.get(supplyId);
+            if (row == null || row.expired) {
+                continue;
+            }
+            synchronized (row) {
+                if (row.expired) {
+                    continue;
+                }
+                row.expired = true;
+            }
+            unexpiredWater.remove(supplyId);
+            if (row.location != null) {
+                stockOnHand.get(new SupplyLedger.Key(row.location, row.type)).addAndGet(-row.stockChange());
+            }
+        }
+    }
+
+    @Override
+    public void addInquiry(ReliefService inquiry) {
+        inquiriesByMissingPerson.computeIfAbsent(inquiry.getMissingPerson().getFirstName(),
+                name -> new ConcurrentLinkedQueue<>()).add(inquiry);
+    }
+
+    @Override
+    public List<ReliefService> findInquiries(String missingPersonName) {
+        return new ArrayList<>(inquiriesByMissingPerson.getOrDefault(missingPersonName, new ConcurrentLinkedQueue<>()));
+    }
+
+    @Override
+    public void addMedicalRecord(int personId, MedicalRecord record) {
+        medicalRecords.computeIfAbsent(personId, id -> new ConcurrentLinkedQueue<>()).add(record);
+    }
+
+    @Override
+    public List<MedicalRecord> getMedicalRecords(int personId) {
+        return new ArrayList<>(medicalRecords.getOrDefault(personId, new ConcurrentLinkedQueue<>()));
+    }
+
+    public int getVictimCount() {
+        return victims.size();
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
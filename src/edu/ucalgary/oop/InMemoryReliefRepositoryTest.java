@@ -0,0 +1,118 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class InMemoryReliefRepositoryTest {
+    private InMemoryReliefRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new InMemoryReliefRepository(() -> 1_000L);
+    }
+
+    @Test
+    public void testVictimsAreIndexedByFirstName() {
+        int first = repository.addVictim(new DisasterVictim("Freda", "2025-01-15"));
+        int second = repository.addVictim(new DisasterVictim("Freda", "2025-01-16"));
+        repository.addVictim(new DisasterVictim("Kai", "2025-01-16"));
+        assertTrue("Each victim should get its own person_id", first != second);
+        assertEquals("Both Fredas should be counted", 2, repository.countVictimsByFirstName("Freda"));
+        assertEquals("Unknown names should count zero", 0, repository.countVictimsByFirstName("Mei"));
+    }
+
+    @Test
+    public void testRenameMovesVictimsToTheNewName() {
+        repository.addVictim(new DisasterVictim("Freda", "2025-01-15"));
+        repository.addVictim(new DisasterVictim("Freda", "2025-01-16"));
+        assertEquals("Both victims should be renamed", 2, repository.renameVictims("Freda", "Frida"));
+        assertEquals("The old name should be gone", 0, repository.countVictimsByFirstName("Freda"));
+        assertEquals("The new name should find both", 2, repository.countVictimsByFirstName("Frida"));
+        assertEquals("Renaming a missing name should change nothing", 0, repository.renameVictims("Freda", "Kai"));
+
+        List<DisasterVictim> loaded = new ArrayList<>();
+        int[] firstPages = {0};
+        repository.forEachVictim((victim, group) -> loaded.add(victim), () -> firstPages[0]++);
+        assertEquals("Every victim should be streamed", 2, loaded.size());
+        assertEquals("Streamed victims should carry the new name", "Frida", loaded.get(0).getFirstName());
+        assertEquals("The first page callback should run once", 1, firstPages[0]);
+    }
+
+    @Test
+    public void testFamilyGroupAssignment() {
+        repository.addVictim(new DisasterVictim("Kai", "2025-01-15"));
+        repository.addFamilyGroup(7, "Kai");
+        assertNull("A new victim should have no group", repository.getFamilyGroup("Kai"));
+        assertEquals("One victim should be assigned", 1, repository.assignFamilyGroup("Kai", 7));
+        assertEquals("The stored group should be returned", Integer.valueOf(7), repository.getFamilyGroup("Kai"));
+        assertEquals("Assigning a missing person should update nothing", 0, repository.assignFamilyGroup("Mei", 7));
+    }
+
+    @Test
+    public void testStockOnHandFollowsDeliveriesHandoutsAndExpiry() {
+        repository.addSupply("blanket", 10, null, "TELUS");
+        repository.addSupply("blanket", 3, "Kai", "TELUS");
+        long water = repository.addSupply("water", 5, null, "TELUS");
+        Map<SupplyLedger.Key, Integer> stock = repository.getStockOnHand();
+        assertEquals("Handouts should be subtracted", Integer.valueOf(7), stock.get(new SupplyLedger.Key("TELUS", "blanket")));
+        assertEquals("Water should be on hand", Integer.valueOf(5), stock.get(new SupplyLedger.Key("TELUS", "water")));
+        assertEquals("Water should be pending expiry from its allocation time", Long.valueOf(1_000L),
+                repository.getUnexpiredWater().get(water));
+
+        repository.expireSupplies(Arrays.asList(water, water));
+        assertNull("Expired water should leave the stock", repository.getStockOnHand().get(new SupplyLedger.Key("TELUS", "water")));
+        assertTrue("Expired water should no longer be pending", repository.getUnexpiredWater().isEmpty());
+    }
+
+    @Test
+    public void testInquiriesAndMedicalRecordsAreStoredByKey() {
+        ReliefService inquiry = new ReliefService(new Inquirer("Chinoso", null, null, null),
+                new DisasterVictim("Kai", "2025-01-01"), "2025-01-02", null, null);
+        repository.addInquiry(inquiry);
+        assertEquals("The inquiry should be found by the missing person", 1, repository.findInquiries("Kai").size());
+        assertTrue("Other names should find nothing", repository.findInquiries("Mei").isEmpty());
+
+        Location shelter = new Location("TELUS", "136 8 Ave SE");
+        repository.addLocation(shelter);
+        assertEquals("The location should be listed", 1, repository.getLocations().size());
+        int personId = repository.addVictim(new DisasterVictim("Kai", "2025-01-15"));
+        repository.addMedicalRecord(personId, new MedicalRecord(shelter, "Broken arm", "2025-01-16"));
+        assertEquals("The record should be found by person_id", 1, repository.getMedicalRecords(personId).size());
+        assertTrue("Other people should have no records", repository.getMedicalRecords(personId + 1).isEmpty());
+    }
+
+    @Test
+    public void testBulkIntakeReportsFailures() {
+        BulkVictimIntake.Result result = repository.addVictims(Arrays.asList(
+                new DisasterVictim("Kai", "2025-01-15"), null, new DisasterVictim("Mei", "2025-01-15")));
+        assertEquals("Two victims should be inserted", 2, result.getInsertedCount());
+        assertTrue("The null row should fail", result.getFailures().containsKey(1));
+        assertEquals("Only stored victims should be counted", 2, repository.getVictimCount());
+    }
+
+    @Test
+    public void testConcurrentWritersKeepIndexesConsistent() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    repository.addVictim(new DisasterVictim("Freda", "2025-01-15"));
+                    repository.addSupply("cot", 1, null, "TELUS");
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue("Writers should finish", pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals("Every victim should be indexed", 4000, repository.countVictimsByFirstName("Freda"));
+        assertEquals("Every delivery should be counted", Integer.valueOf(4000),
+                repository.getStockOnHand().get(new SupplyLedger.Key("TELUS", "cot")));
+    }
+}
@@ -0,0 +1,113 @@
+package edu.ucalgary.oop;
+
+// Parsing and formatting of YYYY-MM-DD dates as epoch days (days since 1970-01-01).
+// Parsing walks the characters directly, so validating or converting a date allocates
+// nothing and never uses exceptions for an invalid value.
+public final class IsoDate {
+    // Returned by parse for anything that is not a real YYYY-MM-DD date
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    private static final int DAYS_0000_TO_1970 = 719528;
+
+    private IsoDate() {
+    }
+
+    public static boolean isValid(CharSequence date) {
+        return parse(date) != INVALID;
+    }
+
+    // Epoch day of a YYYY-MM-DD date, or INVALID
+    public static int parse(CharSequence date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return INVALID;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    // Like parse, but rejects invalid input with the given message
+    public static int parseOrThrow(CharSequence date, String message) throws IllegalArgumentException {
+        int epochDay = parse(date);
+        if (epochDay == INVALID) {
+            throw new IllegalArgumentException(message);
+        }
+        return epochDay;
+    }
+
+    // Value of the decimal digits in [from, to), or -1 if any character is not a digit
+    private static int digits(CharSequence date, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = date.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Same arithmetic as LocalDate.toEpochDay, for years 0 to 9999
+    public static int toEpochDay(int year, int month, int day) {
+        int total = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    // YYYY-MM-DD text of an epoch day, or null for INVALID
+    public static String format(int epochDay) {
+        if (epochDay == INVALID) {
+            return null;
+        }
+        // Civil-from-days conversion on a calendar whose years start in March
+        int zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+        int era = Math.floorDiv(zeroDay, 146097);
+        int dayOfEra = zeroDay - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int marchMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * marchMonth + 2) / 5 + 1;
+        int month = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        char[] text = new char[10];
+        text[0] = (char) ('0' + year / 1000);
+        text[1] = (char) ('0' + year / 100 % 10);
+        text[2] = (char) ('0' + year / 10 % 10);
+        text[3] = (char) ('0' + year % 10);
+        text[4] = '-';
+        text[5] = (char) ('0' + month / 10);
+        text[6] = (char) ('0' + month % 10);
+        text[7] = '-';
+        text[8] = (char) ('0' + day / 10);
+        text[9] = (char) ('0' + day % 10);
+        return new String(text);
+    }
+}
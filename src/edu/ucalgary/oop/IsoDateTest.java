@@ -0,0 +1,49 @@
+package edu.ucalgary.oop;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.time.LocalDate;
+
+public class IsoDateTest {
+
+    @Test
+    public void testParseMatchesLocalDate() {
+        LocalDate date = LocalDate.of(1896, 1, 1);
+        LocalDate end = LocalDate.of(2104, 12, 31);
+        while (!date.isAfter(end)) {
+            assertEquals("parse should agree with LocalDate for " + date, date.toEpochDay(), IsoDate.parse(date.toString()));
+            date = date.plusDays(1);
+        }
+    }
+
+    @Test
+    public void testFormatRoundTrips() {
+        for (int epochDay = -30000; epochDay <= 60000; epochDay += 7) {
+            assertEquals("format should agree with LocalDate", LocalDate.ofEpochDay(epochDay).toString(), IsoDate.format(epochDay));
+        }
+    }
+
+    @Test
+    public void testRejectsMalformedText() {
+        assertEquals("Wrong separators should be rejected", IsoDate.INVALID, IsoDate.parse("2025/01/18"));
+        assertEquals("Missing dashes should be rejected", IsoDate.INVALID, IsoDate.parse("20250118"));
+        assertEquals("Letters should be rejected", IsoDate.INVALID, IsoDate.parse("2025-0a-18"));
+        assertEquals("Null should be rejected", IsoDate.INVALID, IsoDate.parse(null));
+        assertFalse("Day-first dates should be rejected", IsoDate.isValid("15/13/2025"));
+    }
+
+    @Test
+    public void testRejectsImpossibleDates() {
+        assertFalse("Month 13 should be rejected", IsoDate.isValid("2025-13-01"));
+        assertFalse("February 30 should be rejected", IsoDate.isValid("2025-02-30"));
+        assertFalse("February 29 should be rejected outside leap years", IsoDate.isValid("2025-02-29"));
+        assertTrue("February 29 should be accepted in leap years", IsoDate.isValid("2024-02-29"));
+        assertFalse("1900 was not a leap year", IsoDate.isValid("1900-02-29"));
+        assertTrue("2000 was a leap year", IsoDate.isValid("2000-02-29"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseOrThrow() {
+        IsoDate.parseOrThrow("2025-04-31", "Invalid date");
+    }
+}
@@ -0,0 +1,324 @@
+package edu.ucalgary.oop;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// ReliefRepository backed by the application's tables through the connection pool.
+// Works against PostgreSQL or an embedded JDBC database; createSchema() sets up the tables
+// on a fresh embedded database.
+public class JdbcReliefRepository implements ReliefRepository {
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS disaster_victims (person_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "first_name VARCHAR(100) NOT NULL, entry_date VARCHAR(10), family_group_id INTEGER)",
+            "CREATE TABLE IF NOT EXISTS family_groups (group_id INTEGER PRIMARY KEY, head_name VARCHAR(100))",
+            "CREATE TABLE IF NOT EXISTS locations (location_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "name VARCHAR(100) NOT NULL, address VARCHAR(200), capacity INTEGER DEFAULT 0)",
+            "CREATE TABLE IF NOT EXISTS supplies (supply_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "type VARCHAR(50) NOT NULL, quantity INTEGER NOT NULL, person VARCHAR(100), location VARCHAR(100), "
+                    + "allocated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, expired BOOLEAN DEFAULT FALSE)",
+            "CREATE TABLE IF NOT EXISTS inquiries (inquiry_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "inquirer_name VARCHAR(100), missing_person VARCHAR(100), date_of_inquiry VARCHAR(10))",
+            "CREATE TABLE IF NOT EXISTS medical_records (record_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "person_id INTEGER NOT NULL, location VARCHAR(100), treatment_details TEXT, date_of_treatment VARCHAR(10))"
+    };
+
+    private final DatabaseManager databaseManager;
+
+    public JdbcReliefRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    public DatabaseManager getDatabaseManager() {
+        return databaseManager;
+    }
+
+    // Creates any missing application tables, e.g. on a fresh embedded database
+    public void createSchema() throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String ddl : SCHEMA) {
+                stmt.execute(ddl);
+            }
+        }
+    }
+
+    @Override
+    public int addVictim(DisasterVictim victim) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "INSERT INTO disaster_victims (first_name, entry_date) VALUES (?, ?)", new String[]{"person_id"})) {
+            pstmt.setString(1, victim.getFirstName());
+            pstmt.setString(2, victim.getEntryDate());
+            pstmt.executeUpdate();
+            return (int) generatedKey(pstmt);
+        }
+    }
+
+    @Override
+    public BulkVictimIntake.Result addVictims(Collection<DisasterVictim> victims) throws SQLException {
+        return new BulkVictimIntake(databaseManager).register(victims);
+    }
+
+    @Override
+    public int countVictimsByFirstName(String firstName) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT COUNT(*) FROM disaster_victims WHERE first_name = ?")) {
+            pstmt.setString(1, firstName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    @Override
+    public int renameVictims(String firstName, String newFirstName) throws SQLException {
+        return update("UPDATE disaster_victims SET first_name = ? WHERE first_name = ?", newFirstName, firstName);
+    }
+
+    @Override
+    public int updateEntryDate(String firstName, String entryDate) throws SQLException {
+        return update("UPDATE disaster_victims SET entry_date = ? WHERE first_name = ?", entryDate, firstName);
+    }
+
+    @Override
+    public void forEachVictim(BiConsumer<DisasterVictim, Integer> consumer, Runnable onFirstPage) throws SQLException {
+        new VictimStreamLoader(databaseManager).load(consumer, onFirstPage);
+    }
+
+    @Override
+    public void addFamilyGroup(int groupId, String headName) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "INSERT INTO family_groups (group_id, head_name) VALUES (?, ?)")) {
+            pstmt.setInt(1, groupId);
+            pstmt.setString(2, headName);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public Map<Integer, String> getFamilyGroups() throws SQLException {
+        Map<Integer, String> groups = new LinkedHashMap<>();
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT group_id, head_name FROM family_groups ORDER BY group_id")) {
+            while (rs.next()) {
+                groups.put(rs.getInt("group_id"), rs.getString("head_name"));
+            }
+        }
+        return groups;
+    }
+
+    @Override
+    public Integer getFamilyGroup(String firstName) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT family_group_id FROM disaster_victims WHERE first_name = ?")) {
+            pstmt.setString(1, firstName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                int groupId = rs.getInt("family_group_id");
+                return rs.wasNull() || groupId == 0 ? null : groupId;
+            }
+        }
+    }
+
+    @Override
+    public int assignFamilyGroup(String firstName, int groupId) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "UPDATE disaster_victims SET family_group_id = ? WHERE first_name = ?")) {
+            pstmt.setInt(1, groupId);
+            pstmt.setString(2, firstName);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public int addLocation(Location location) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "INSERT INTO locations (name, address, capacity) VALUES (?, ?, ?)", new String[]{"location_id"})) {
+            pstmt.setString(1, location.getName());
+            pstmt.setString(2, location.getAddress());
+            pstmt.setInt(3, location.getCapacity());
+            pstmt.executeUpdate();
+            return (int) generatedKey(pstmt);
+        }
+    }
+
+    @Override
+    public List<Location> getLocations() throws SQLException {
+        List<Location> locations = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name, address, capacity FROM locations ORDER BY location_id")) {
+            while (rs.next()) {
+                locations.add(new Location(rs.getString("name"), rs.getString("address"), rs.getInt("capacity")));
+            }
+        }
+        return locations;
+    }
+
+    @Override
+    public long addSupply(String type, int quantity, String person, String location) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "INSERT INTO supplies (type, quantity, person, location) VALUES (?, ?, ?, ?)", new String[]{"supply_id"})) {
+            pstmt.setString(1, type);
+            pstmt.setInt(2, quantity);
+            pstmt.setString(3, person);
+            pstmt.setString(4, location);
+            pstmt.executeUpdate();
+            return generatedKey(pstmt);
+        }
+    }
+
+    @Override
+    public Map<SupplyLedger.Key, Integer> getStockOnHand() throws SQLException {
+        Map<SupplyLedger.Key, Integer> stock = new LinkedHashMap<>();
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT location, type, "
+                     + "SUM(CASE WHEN person IS NULL THEN quantity ELSE -quantity END) AS on_hand "
+                     + "FROM supplies WHERE location IS NOT NULL AND expired IS NOT TRUE GROUP BY location, type")) {
+            while (rs.next()) {
+                int onHand = rs.getInt("on_hand");
+                if (onHand > 0) {
+                    stock.put(new SupplyLedger.Key(rs.getString("location"), rs.getString("type")), onHand);
+                }
+            }
+        }
+        return stock;
+    }
+
+    @Override
+    public Map<Long, Long> getUnexpiredWater() throws SQLException {
+        Map<Long, Long> pending = new LinkedHashMap<>();
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT supply_id, allocated_date FROM supplies "
+                     + "WHERE type = 'water' AND expired IS NOT TRUE")) {
+            while (rs.next()) {
+                Timestamp allocated = rs.getTimestamp("allocated_date");
+                if (allocated != null) {
+                    pending.put(rs.getLong("supply_id"), allocated.getTime());
+                }
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public void expireSupplies(List<Long> supplyIds) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "UPDATE supplies SET expired = true WHERE supply_id = ?")) {
+            for (long supplyId : supplyIds) {
+                pstmt.setLong(1, supplyId);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    @Override
+    public void addInquiry(ReliefService inquiry) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "INSERT INTO inquiries (inquirer_name, missing_person, date_of_inquiry) VALUES (?, ?, ?)")) {
+            pstmt.setString(1, inquiry.getInquirer().getFirstName());
+            pstmt.setString(2, inquiry.getMissingPerson().getFirstName());
+            pstmt.setString(3, inquiry.getDateOfInquiry());
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<ReliefService> findInquiries(String missingPersonName) throws SQLException {
+        List<ReliefService> inquiries = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT inquirer_name, missing_person, date_of_inquiry FROM inquiries WHERE missing_person = ?")) {
+            pstmt.setString(1, missingPersonName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String date = rs.getString("date_of_inquiry");
+                    if (!IsoDate.isValid(date)) {
+                        continue; // Rows logged before dates were validated
+                    }
+                    inquiries.add(new ReliefService(new Inquirer(rs.getString("inquirer_name"), null, null, null),
+                            DisasterVictim.soughtPerson(rs.getString("missing_person")), date, null, null));
+                }
+            }
+        }
+        return inquiries;
+    }
+
+    @Override
+    public void addMedicalRecord(int personId, MedicalRecord record) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("INSERT INTO medical_records "
+                     + "(person_id, location, treatment_details, date_of_treatment) VALUES (?, ?, ?, ?)")) {
+            pstmt.setInt(1, personId);
+            pstmt.setString(2, record.getLocation() == null ? null : record.getLocation().getName());
+            pstmt.setString(3, record.getTreatmentDetails());
+            pstmt.setString(4, record.getDateOfTreatment());
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<MedicalRecord> getMedicalRecords(int personId) throws SQLException {
+        List<MedicalRecord> records = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT location, treatment_details, date_of_treatment "
+                     + "FROM medical_records WHERE person_id = ? ORDER BY record_id")) {
+            pstmt.setInt(1, personId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String location = rs.getString("location");
+                    records.add(new MedicalRecord(location == null ? null : new Location(location, null),
+                            rs.getString("treatment_details"), rs.getString("date_of_treatment")));
+                }
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void close() {
+        databaseManager.shutdown();
+    }
+
+    private int update(String query, String first, String second) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, first);
+            pstmt.setString(2, second);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    private static long generatedKey(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("No generated key returned");
+            }
+            return keys.getLong(1);
+        }
+    }
+}
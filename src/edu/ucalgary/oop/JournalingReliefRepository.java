@@ -0,0 +1,306 @@
+package edu.ucalgary.oop;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// ReliefRepository that records every change made through it in an EventJournal.
+// Victim creates and edits, family groups, locations, supply allocations and expiries,
+// inquiries and medical records each become one event once the wrapped store has accepted
+// them, with the ids the store handed out. A change is stored and journaled under one lock,
+// so the journal lists changes in the order the store applied them. Nothing is ever
+// overwritten, so the journal is the full history behind the tables; rebuild() replays it
+// into another store, which is how an in-memory store comes back after a restart without
+// touching the database.
+public class JournalingReliefRepository implements ReliefRepository {
+    private final ReliefRepository delegate;
+    private final EventJournal journal;
+    private final Consumer<String> errorHandler;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public JournalingReliefRepository(ReliefRepository delegate, EventJournal journal, Consumer<String> errorHandler) {
+        this.delegate = delegate;
+        this.journal = journal;
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public ReliefRepository getDelegate() {
+        return delegate;
+    }
+
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    // The change is already stored, so a journal failure is reported rather than thrown
+    private void record(EventJournal.Type type, long id, int number, String... fields) {
+        try {
+            journal.append(type, id, number, fields);
+        } catch (IOException | RuntimeException e) {
+            errorHandler.accept("Could not journal " + type + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int addVictim(DisasterVictim victim) throws SQLException {
+        writeLock.lock();
+        try {
+            int personId = delegate.addVictim(victim);
+            record(EventJournal.Type.VICTIM_CREATED, personId, 0, victim.getFirstName(), victim.getEntryDate());
+            return personId;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public BulkVictimIntake.Result addVictims(Collection<DisasterVictim> victims) throws SQLException {
+        writeLock.lock();
+        try {
+            BulkVictimIntake.Result result = delegate.addVictims(victims);
+            Iterator<Integer> personIds = result.getPersonIds().iterator();
+            for (DisasterVictim victim : victims) {
+                Integer personId = personIds.hasNext() ? personIds.next() : null;
+                if (personId != null) {
+                    record(EventJournal.Type.VICTIM_CREATED, personId, 0, victim.getFirstName(), victim.getEntryDate());
+                }
+            }
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int countVictimsByFirstName(String firstName) throws SQLException {
+        return delegate.countVictimsByFirstName(firstName);
+    }
+
+    @Override
+    public int renameVictims(String firstName, String newFirstName) throws SQLException {
+        writeLock.lock();
+        try {
+            int renamed = delegate.renameVictims(firstName, newFirstName);
+            if (renamed > 0) {
+                record(EventJournal.Type.VICTIMS_RENAMED, 0, renamed, firstName, newFirstName);
+            }
+            return renamed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int updateEntryDate(String firstName, String entryDate) throws SQLException {
+        writeLock.lock();
+        try {
+            int updated = delegate.updateEntryDate(firstName, entryDate);
+            if (updated > 0) {
+                record(EventJournal.Type.ENTRY_DATE_CHANGED, 0, updated, firstName, entryDate);
+            }
+            return updated;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void forEachVictim(BiConsumer<DisasterVictim, Integer> consumer, Runnable onFirstPage) throws SQLException {
+        delegate.forEachVictim(consumer, onFirstPage);
+    }
+
+    @Override
+    public void addFamilyGroup(int groupId, String headName) throws SQLException {
+        writeLock.lock();
+        try {
+            delegate.addFamilyGroup(groupId, headName);
+            record(EventJournal.Type.FAMILY_GROUP_CREATED, 0, groupId, headName);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, String> getFamilyGroups() throws SQLException {
+        return delegate.getFamilyGroups();
+    }
+
+    @Override
+    public Integer getFamilyGroup(String firstName) throws SQLException {
+        return delegate.getFamilyGroup(firstName);
+    }
+
+    @Override
+    public int assignFamilyGroup(String firstName, int groupId) throws SQLException {
+        writeLock.lock();
+        try {
+            int assigned = delegate.assignFamilyGroup(firstName, groupId);
+            if (assigned > 0) {
+                record(EventJournal.Type.FAMILY_GROUP_ASSIGNED, 0, groupId, firstName);
+            }
+            return assigned;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int addLocation(Location location) throws SQLException {
+        writeLock.lock();
+        try {
+            int locationId = delegate.addLocation(location);
+            record(EventJournal.Type.LOCATION_ADDED, locationId, location.getCapacity(), location.getName(),
+                    location.getAddress());
+            return locationId;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Location> getLocations() throws SQLException {
+        return delegate.getLocations();
+    }
+
+    @Override
+    public long addSupply(String type, int quantity, String person, String location) throws SQLException {
+        writeLock.lock();
+        try {
+            long supplyId = delegate.addSupply(type, quantity, person, location);
+            record(EventJournal.Type.SUPPLY_ALLOCATED, supplyId, quantity, type, person, location);
+            return supplyId;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<SupplyLedger.Key, Integer> getStockOnHand() throws SQLException {
+        return delegate.getStockOnHand();
+    }
+
+    @Override
+    public Map<Long, Long> getUnexpiredWater() throws SQLException {
+        return delegate.getUnexpiredWater();
+    }
+
+    @Override
+    public void expireSupplies(List<Long> supplyIds) throws SQLException {
+        writeLock.lock();
+        try {
+            delegate.expireSupplies(supplyIds);
+            for (long supplyId : supplyIds) {
+                record(EventJournal.Type.SUPPLY_EXPIRED, supplyId, 0);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addInquiry(ReliefService inquiry) throws SQLException {
+        writeLock.lock();
+        try {
+            delegate.addInquiry(inquiry);
+            record(EventJournal.Type.INQUIRY_LOGGED, 0, 0, inquiry.getInquirer().getFirstName(),
+                    inquiry.getMissingPerson().getFirstName(), inquiry.getDateOfInquiry());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<ReliefService> findInquiries(String missingPersonName) throws SQLException {
+        return delegate.findInquiries(missingPersonName);
+    }
+
+    @Override
+    public void addMedicalRecord(int personId, MedicalRecord record) throws SQLException {
+        writeLock.lock();
+        try {
+            delegate.addMedicalRecord(personId, record);
+            record(EventJournal.Type.MEDICAL_RECORD_ADDED, personId, 0,
+                    record.getLocation() == null ? null : record.getLocation().getName(),
+                    record.getTreatmentDetails(), record.getDateOfTreatment());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<MedicalRecord> getMedicalRecords(int personId) throws SQLException {
+        return delegate.getMedicalRecords(personId);
+    }
+
+    @Override
+    public void close() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            errorHandler.accept("Could not close the journal: " + e.getMessage());
+        }
+        delegate.close();
+    }
+
+    // Applies every event in the journal directory to the target, in order, and returns how
+    // many were applied. The target hands out its own ids, so journaled person and supply ids
+    // are mapped to the new ones as they are created.
+    public static long rebuild(Path directory, ReliefRepository target) throws Exception {
+        Map<Long, Integer> personIds = new HashMap<>();
+        Map<Long, Long> supplyIds = new HashMap<>();
+        return EventJournal.replay(directory, event -> {
+            switch (event.getType()) {
+                case VICTIM_CREATED:
+                    personIds.put(event.getId(), target.addVictim(
+                            new DisasterVictim(event.getField(0), event.getField(1))));
+                    break;
+                case VICTIMS_RENAMED:
+                    target.renameVictims(event.getField(0), event.getField(1));
+                    break;
+                case ENTRY_DATE_CHANGED:
+                    target.updateEntryDate(event.getField(0), event.getField(1));
+                    break;
+                case FAMILY_GROUP_CREATED:
+                    target.addFamilyGroup(event.getNumber(), event.getField(0));
+                    break;
+                case FAMILY_GROUP_ASSIGNED:
+                    target.assignFamilyGroup(event.getField(0), event.getNumber());
+                    break;
+                case LOCATION_ADDED:
+                    target.addLocation(new Location(event.getField(0), event.getField(1), event.getNumber()));
+                    break;
+                case SUPPLY_ALLOCATED:
+                    supplyIds.put(event.getId(), target.addSupply(event.getField(0), event.getNumber(),
+                            event.getField(1), event.getField(2)));
+                    break;
+                case SUPPLY_EXPIRED:
+                    Long supplyId = supplyIds.get(event.getId());
+                    if (supplyId != null) {
+                        target.expireSupplies(List.of(supplyId));
+                    }
+                    break;
+                case INQUIRY_LOGGED:
+                    target.addInquiry(new ReliefService(new Inquirer(event.getField(0), null, null, null),
+                            DisasterVictim.soughtPerson(event.getField(1)), event.getField(2), null, null));
+                    break;
+                case MEDICAL_RECORD_ADDED:
+                    Integer personId = personIds.get(event.getId());
+                    target.addMedicalRecord(personId == null ? (int) event.getId() : personId, new MedicalRecord(
+                            event.getField(0) == null ? null : new Location(event.getField(0), null),
+                            event.getField(1), event.getField(2)));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event " + event);
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals("Values below 128 ns should be exact", 50, histogram.getValueAtPercentile(50));
+        assertEquals("The top percentile should be the maximum", 100, histogram.getValueAtPercentile(100));
+        assertEquals("Every value should be counted", 100, histogram.getCount());
+        assertEquals("The sum should be exact", 5050, histogram.getSumNanos());
+    }
+
+    @Test
+    public void testLargeValuesStayWithinPrecision() {
+        long[] values = {1_000, 123_456, 7_654_321, 2_000_000_000L};
+        for (long value : values) {
+            LatencyHistogram single = new LatencyHistogram();
+            single.record(value);
+            single.record(Long.MAX_VALUE / 2);
+            long reported = single.getValueAtPercentile(50);
+            assertTrue("The bucket should cover " + value, reported >= value);
+            assertTrue("The bucket should be within 1.6% of " + value, reported - value <= value / 64 + 1);
+        }
+    }
+
+    @Test
+    public void testBucketsCoverTheWholeRange() {
+        long previous = -1;
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue("Higher values should not map to lower buckets", index >= previous);
+            assertTrue("The bucket bound should cover the value", LatencyHistogram.highestValueAt(index) >= value);
+            previous = index;
+        }
+        histogram.record(Long.MAX_VALUE);
+        assertEquals("The largest value should be recordable", Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testResetClearsEverything() {
+        histogram.record(5_000);
+        histogram.reset();
+        assertEquals("The count should be cleared", 0, histogram.getCount());
+        assertEquals("The maximum should be cleared", 0, histogram.getMaxNanos());
+        assertEquals("An empty histogram should report zero", 0, histogram.getValueAtPercentile(99));
+    }
+}
@@ -7,12 +7,27 @@ See LICENSE.txt for more information.
 package edu.ucalgary.oop;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class Location {
+    public static final int UNLIMITED = 0;
+
     private String name;
     private String address;
-    private ArrayList<DisasterVictim> occupants = new ArrayList<>(); // Initialized
-    private ArrayList<Supply> supplies = new ArrayList<>(); // Initialized
+    // Occupants keyed by social ID; several intake desks may update them at once
+    private final Map<Integer, DisasterVictim> occupants = new ConcurrentHashMap<>();
+    private final AtomicInteger occupantCount = new AtomicInteger();
+    private volatile int capacity = UNLIMITED;
+    // Supplies change rarely and are read often, so reads share one snapshot
+    private final CopyOnWriteArrayList<Supply> supplies = new CopyOnWriteArrayList<>();
 
     // Constructor
     public Location(String name, String address) {
@@ -20,6 +35,11 @@ public class Location {
         this.address = address;
     }
 
+    public Location(String name, String address, int capacity) {
+        this(name, address);
+        this.capacity = checkCapacity(capacity);
+    }
+
     // Getter and setter for name
     public String getName() {
         return name;
@@ -38,14 +58,74 @@ public class Location {
         this.address = address;
     }
 
+    // Getter and setter for capacity; UNLIMITED means no limit
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = checkCapacity(capacity);
+    }
+
+    private static int checkCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        return capacity;
+    }
+
+    public boolean isFull() {
+        int limit = capacity;
+        return limit != UNLIMITED && occupantCount.get() >= limit;
+    }
+
+    public int getOccupantCount() {
+        return occupantCount.get();
+    }
+
     // Getter for occupants
     public ArrayList<DisasterVictim> getOccupants() {
-        return new ArrayList<>(occupants); // Return a copy to maintain encapsulation
+        return new ArrayList<>(occupants.values()); // Return a copy to maintain encapsulation
+    }
+
+    // Live, read-only view of occupants; iteration reflects concurrent changes without copying
+    public Collection<DisasterVictim> occupantView() {
+        return Collections.unmodifiableCollection(occupants.values());
     }
 
-    // Setter for occupants
+    public void forEachOccupant(Consumer<DisasterVictim> action) {
+        occupants.values().forEach(action);
+    }
+
+    public DisasterVictim getOccupant(int socialId) {
+        return occupants.get(socialId);
+    }
+
+    public boolean hasOccupant(int socialId) {
+        return occupants.containsKey(socialId);
+    }
+
+    // Setter for occupants; goes through the same lock-free space accounting as addOccupant and
+    // removeOccupant, so a concurrent arrival cannot leave the count out of step with the map
     public void setOccupants(ArrayList<DisasterVictim> occupants) {
-        this.occupants = new ArrayList<>(occupants); // Clear and addAll in one step, maintains encapsulation
+        Map<Integer, DisasterVictim> wanted = new LinkedHashMap<>();
+        for (DisasterVictim occupant : occupants) {
+            wanted.put(occupant.getAssignedSocialID(), occupant);
+        }
+        int limit = capacity;
+        if (limit != UNLIMITED && wanted.size() > limit) {
+            throw new IllegalArgumentException("Occupants exceed the capacity of " + name);
+        }
+        for (Integer socialId : this.occupants.keySet()) {
+            if (!wanted.containsKey(socialId)) {
+                removeOccupant(socialId);
+            }
+        }
+        for (DisasterVictim occupant : wanted.values()) {
+            if (!replaceOccupant(occupant) && !addOccupant(occupant)) {
+                throw new IllegalStateException(name + " filled up while its occupants were being set");
+            }
+        }
     }
 
     // Getter for supplies
@@ -53,19 +133,63 @@ public class Location {
         return new ArrayList<>(supplies); // Return a copy to maintain encapsulation
     }
 
+    // Read-only snapshot-backed view of supplies, no copy
+    public List<Supply> supplyView() {
+        return Collections.unmodifiableList(supplies);
+    }
+
     // Setter for supplies
     public void setSupplies(ArrayList<Supply> supplies) {
-        this.supplies = new ArrayList<>(supplies); // Clear and addAll in one step, maintains encapsulation
+        synchronized (this.supplies) {
+            this.supplies.clear();
+            this.supplies.addAll(supplies);
+        }
+    }
+
+    // Add an occupant to occupants; returns false if the location is full
+    public boolean addOccupant(DisasterVictim occupant) {
+        if (occupants.containsKey(occupant.getAssignedSocialID())) {
+            return true;
+        }
+        if (!reserveSpace()) {
+            return false;
+        }
+        if (occupants.putIfAbsent(occupant.getAssignedSocialID(), occupant) != null) {
+            occupantCount.decrementAndGet(); // Already here, give the space back
+        }
+        return true;
     }
 
-    // Add an occupant to occupants
-    public void addOccupant(DisasterVictim occupant) {
-        occupants.add(occupant);
+    // Claims one space against the capacity without locking
+    private boolean reserveSpace() {
+        while (true) {
+            int current = occupantCount.get();
+            int limit = capacity;
+            if (limit != UNLIMITED && current >= limit) {
+                return false;
+            }
+            if (occupantCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Swaps in a new object for an occupant with the same social ID; returns false if absent
+    public boolean replaceOccupant(DisasterVictim occupant) {
+        return occupants.replace(occupant.getAssignedSocialID(), occupant) != null;
     }
 
     // Remove an occupant from occupants
     public void removeOccupant(DisasterVictim occupant) {
-        occupants.remove(occupant);
+        removeOccupant(occupant.getAssignedSocialID());
+    }
+
+    public boolean removeOccupant(int socialId) {
+        if (occupants.remove(socialId) == null) {
+            return false;
+        }
+        occupantCount.decrementAndGet();
+        return true;
     }
 
     // Add a supply to supplies
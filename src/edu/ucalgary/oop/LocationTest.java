@@ -9,6 +9,10 @@ import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class LocationTest {
     private Location location;
@@ -90,4 +94,69 @@ public class LocationTest {
         location.setSupplies(newSupplies);
         assertTrue("setSupplies should replace the supplies list with the new list", containsSupply(location.getSupplies(), supply));
     }
+
+    @Test
+    public void testOccupantCountAndLookupBySocialId() {
+        location.addOccupant(victim);
+        location.addOccupant(victim);
+        assertEquals("Adding the same occupant twice should count them once", 1, location.getOccupantCount());
+        assertSame("getOccupant should find the occupant by social ID", victim, location.getOccupant(victim.getAssignedSocialID()));
+        assertTrue("removeOccupant by social ID should report a removal", location.removeOccupant(victim.getAssignedSocialID()));
+        assertEquals("The count should drop after removal", 0, location.getOccupantCount());
+    }
+
+    @Test
+    public void testCapacityLimit() {
+        Location small = new Location("Shelter C", "1 Small St", 1);
+        assertFalse("An empty location should not be full", small.isFull());
+        assertTrue("The first occupant should fit", small.addOccupant(victim));
+        assertTrue("A location at capacity should be full", small.isFull());
+        assertFalse("An occupant beyond capacity should be refused", small.addOccupant(new DisasterVictim("Jane Doe", "2025-01-02")));
+        assertEquals("A refused occupant should not be counted", 1, small.getOccupantCount());
+    }
+
+    @Test
+    public void testOccupantViewIsLive() {
+        Collection<DisasterVictim> view = location.occupantView();
+        location.addOccupant(victim);
+        assertTrue("occupantView should reflect later additions", view.contains(victim));
+    }
+
+    @Test
+    public void testConcurrentAddsNeverExceedCapacity() throws InterruptedException {
+        Location shelter = new Location("TELUS", "136 8 Ave SE", 500);
+        ExecutorService desks = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1000; i++) {
+            desks.execute(() -> shelter.addOccupant(new DisasterVictim("Evacuee", "2025-01-01")));
+        }
+        desks.shutdown();
+        assertTrue("Intake desks should finish", desks.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals("Concurrent intake should stop exactly at capacity", 500, shelter.getOccupantCount());
+        assertEquals("The count should agree with the occupants held", 500, shelter.getOccupants().size());
+    }
+
+    @Test
+    public void testSetOccupantsKeepsCountDuringConcurrentChanges() throws InterruptedException {
+        Location shelter = new Location("TELUS", "136 8 Ave SE");
+        ArrayList<DisasterVictim> family = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            family.add(new DisasterVictim("Resident", "2025-01-01"));
+        }
+        ExecutorService desks = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 2000; i++) {
+            if (i % 10 == 0) {
+                desks.execute(() -> shelter.setOccupants(family));
+            } else {
+                desks.execute(() -> {
+                    DisasterVictim walkIn = new DisasterVictim("Walk-in", "2025-01-01");
+                    shelter.addOccupant(walkIn);
+                    shelter.removeOccupant(walkIn);
+                });
+            }
+        }
+        desks.shutdown();
+        assertTrue("Desks should finish", desks.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals("The count should agree with the occupants held", shelter.getOccupants().size(),
+                shelter.getOccupantCount());
+    }
 }
@@ -6,23 +6,17 @@ See LICENSE.txt for more information.
 
 package edu.ucalgary.oop;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-
 public class MedicalRecord {
     private Location location;
     private String treatmentDetails;
-    private String dateOfTreatment;
+    private int dateOfTreatment; // Epoch day
 
     public MedicalRecord(Location location, String treatmentDetails, String dateOfTreatment) throws IllegalArgumentException {
         setLocation(location);
         this.treatmentDetails = treatmentDetails;
 
         // Check if the treatmentDetails string matches the expected date format
-        if (!isValidDateFormat(dateOfTreatment)) {
-            throw new IllegalArgumentException("Invalid date format for treatment details. Expected format: YYYY-MM-DD");
-        }
-        this.dateOfTreatment = dateOfTreatment;
+        this.dateOfTreatment = IsoDate.parseOrThrow(dateOfTreatment, "Invalid date format for treatment details. Expected format: YYYY-MM-DD");
     }
 
     // Getter and setter for location
@@ -46,24 +40,15 @@ public class MedicalRecord {
 
     // Getter and setter for dateOfTreatment
     public String getDateOfTreatment() {
+        return IsoDate.format(dateOfTreatment);
+    }
+
+    public int getDateOfTreatmentEpochDay() {
         return dateOfTreatment;
     }
 
     public void setDateOfTreatment(String dateOfTreatment) throws IllegalArgumentException {
         // Check if the date of treatment string matches the expected date format
-        if (!isValidDateFormat(dateOfTreatment)) {
-            throw new IllegalArgumentException("Invalid date format. Expected format: YYYY-MM-DD");
-        }
-        this.dateOfTreatment = dateOfTreatment;
-    }
-
-    // Helper method to check if a string matches the YYYY-MM-DD date format
-    private boolean isValidDateFormat(String date) {
-        try {
-            LocalDate.parse(date, DateTimeFormatter.ISO_DATE);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        this.dateOfTreatment = IsoDate.parseOrThrow(dateOfTreatment, "Invalid date format. Expected format: YYYY-MM-DD");
     }
 }
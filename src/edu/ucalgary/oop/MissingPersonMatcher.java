@@ -0,0 +1,481 @@
+package edu.ucalgary.oop;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Fuzzy name matching for missing-person inquiries.
+// Names are accent-folded and indexed by character trigrams and by a Soundex code per
+// name part. A query gathers a bounded set of candidates from the rarest postings, then
+// ranks them by trigram overlap, edit distance and phonetic agreement.
+public class MissingPersonMatcher implements VictimRegistry.Listener {
+    public static final double DEFAULT_MIN_SCORE = 0.35;
+    private static final int SEED_BUDGET = 4000;
+    private static final int RERANK_FACTOR = 8;
+
+    private final Map<String, Postings> gramIndex = new HashMap<>();
+    private final Map<String, Postings> phoneticIndex = new HashMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // A ranked match for a query
+    public static class Candidate {
+        private final DisasterVictim victim;
+        private final double score;
+
+        Candidate(DisasterVictim victim, double score) {
+            this.victim = victim;
+            this.score = score;
+        }
+
+        public DisasterVictim getVictim() {
+            return victim;
+        }
+
+        // Between 0 (nothing in common) and 1 (identical after folding)
+        public double getScore() {
+            return score;
+        }
+    }
+
+    // What was indexed for one victim, kept so it can be unindexed on rename or removal
+    private static class Entry {
+        private final DisasterVictim victim;
+        private final String folded;
+        private final String[] grams;
+        private final String[] codes;
+
+        Entry(DisasterVictim victim, String folded, String[] grams, String[] codes) {
+            this.victim = victim;
+            this.folded = folded;
+            this.grams = grams;
+            this.codes = codes;
+        }
+    }
+
+    // Sorted, growable list of social IDs for one index term
+    private static class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            // Social IDs are handed out in increasing order, so this is nearly always an append
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            ensureCapacity();
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+        }
+    }
+
+    public MissingPersonMatcher() {
+    }
+
+    // A matcher holding the registry's current victims and kept up to date as it changes
+    public static MissingPersonMatcher following(VictimRegistry registry) {
+        MissingPersonMatcher matcher = new MissingPersonMatcher();
+        for (DisasterVictim victim : registry.all()) {
+            matcher.add(victim);
+        }
+        registry.addListener(matcher);
+        return matcher;
+    }
+
+    public void add(DisasterVictim victim) {
+        Entry entry = entryFor(victim);
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.put(victim.getAssignedSocialID(), entry);
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(DisasterVictim victim) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(victim.getAssignedSocialID());
+            if (previous != null) {
+                unindex(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Re-reads the victim's current name
+    public void update(DisasterVictim victim) {
+        add(victim);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void victimAdded(DisasterVictim victim) {
+        add(victim);
+    }
+
+    @Override
+    public void victimRemoved(DisasterVictim victim) {
+        remove(victim);
+    }
+
+    @Override
+    public void victimRenamed(DisasterVictim victim) {
+        update(victim);
+    }
+
+    public List<Candidate> match(ReliefService inquiry, int limit) {
+        DisasterVictim sought = inquiry.getMissingPerson();
+        return match(fullName(sought.getFirstName(), sought.getLastName()), limit);
+    }
+
+    public List<Candidate> match(String name, int limit) {
+        return match(name, limit, DEFAULT_MIN_SCORE);
+    }
+
+    // Up to limit candidates scoring at least minScore, best first
+    public List<Candidate> match(String name, int limit, double minScore) {
+        String folded = fold(name);
+        if (folded.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String[] queryGrams = grams(folded);
+        String[] queryCodes = codes(folded);
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, int[]> hits = gather(queryGrams, queryCodes);
+
+            // Cheap pre-score on shared trigrams, keeping a few times more than requested
+            int keep = limit * RERANK_FACTOR;
+            PriorityQueue<double[]> shortlist = new PriorityQueue<>(keep + 1, (a, b) -> Double.compare(a[0], b[0]));
+            for (Map.Entry<Integer, int[]> hit : hits.entrySet()) {
+                Entry entry = entries.get(hit.getKey());
+                double dice = 2.0 * hit.getValue()[0] / (queryGrams.length + entry.grams.length);
+                double phonetic = queryCodes.length == 0 ? 0 : (double) hit.getValue()[1] / queryCodes.length;
+                shortlist.add(new double[]{0.7 * dice + 0.3 * phonetic, hit.getKey(), dice, phonetic});
+                if (shortlist.size() > keep) {
+                    shortlist.poll();
+                }
+            }
+
+            List<Candidate> ranked = new ArrayList<>(shortlist.size());
+            for (double[] pre : shortlist) {
+                Entry entry = entries.get((int) pre[1]);
+                double similarity = similarity(folded, entry.folded);
+                double score = 0.45 * pre[2] + 0.35 * similarity + 0.2 * Math.min(1.0, pre[3]);
+                if (score >= minScore) {
+                    ranked.add(new Candidate(entry.victim, score));
+                }
+            }
+            ranked.sort((a, b) -> Double.compare(b.score, a.score));
+            return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Counts term hits per victim. Candidates are seeded from the rarest postings within a
+    // fixed budget; when every term is common they are seeded from pairwise intersections of
+    // the three rarest lists instead, which tolerates one misspelled term. Remaining lists
+    // only credit candidates already found, so a query never walks the whole population.
+    private Map<Integer, int[]> gather(String[] grams, String[] codes) {
+        List<Postings> lists = new ArrayList<>(grams.length + codes.length);
+        List<Integer> slots = new ArrayList<>(grams.length + codes.length);
+        addLists(gramIndex, grams, 0, lists, slots);
+        addLists(phoneticIndex, codes, 1, lists, slots);
+        Integer[] order = new Integer[lists.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(lists.get(a).size, lists.get(b).size));
+
+        Map<Integer, int[]> hits = new HashMap<>();
+        int next = 0;
+        int budget = SEED_BUDGET;
+        while (next < order.length && lists.get(order[next]).size <= budget) {
+            Postings postings = lists.get(order[next]);
+            int slot = slots.get(order[next]);
+            for (int i = 0; i < postings.size; i++) {
+                hits.computeIfAbsent(postings.ids[i], id -> new int[2])[slot]++;
+            }
+            budget -= postings.size;
+            next++;
+        }
+        if (hits.isEmpty() && next < order.length) {
+            int seeded = Math.min(3, order.length - next);
+            for (int x = next; x < next + seeded; x++) {
+                for (int y = x + 1; y < next + seeded; y++) {
+                    intersect(lists.get(order[x]), lists.get(order[y]), hits);
+                }
+            }
+            if (seeded == 1) {
+                Postings only = lists.get(order[next]);
+                for (int i = 0; i < Math.min(only.size, SEED_BUDGET); i++) {
+                    hits.put(only.ids[i], new int[2]);
+                }
+            }
+            // Seeding only chose candidates; their counts are credited below like any other list
+            for (int x = next; x < next + seeded; x++) {
+                credit(lists.get(order[x]), slots.get(order[x]), hits);
+            }
+            next += seeded;
+        }
+        for (; next < order.length; next++) {
+            credit(lists.get(order[next]), slots.get(order[next]), hits);
+        }
+        return hits;
+    }
+
+    private static void addLists(Map<String, Postings> index, String[] terms, int slot,
+                                 List<Postings> lists, List<Integer> slots) {
+        for (String term : terms) {
+            Postings postings = index.get(term);
+            if (postings != null) {
+                lists.add(postings);
+                slots.add(slot);
+            }
+        }
+    }
+
+    // Adds every id present in both sorted lists as a zero-count candidate, galloping
+    // through the longer list so the cost follows the shorter one
+    private static void intersect(Postings a, Postings b, Map<Integer, int[]> hits) {
+        Postings small = a.size <= b.size ? a : b;
+        Postings large = small == a ? b : a;
+        int from = 0;
+        for (int i = 0; i < small.size && from < large.size && hits.size() < SEED_BUDGET; i++) {
+            int id = small.ids[i];
+            int step = 1;
+            int to = from;
+            while (to < large.size && large.ids[to] < id) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(large.ids, from, Math.min(to + 1, large.size), id);
+            if (at >= 0) {
+                hits.putIfAbsent(id, new int[2]);
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+    }
+
+    // Credits existing candidates that appear in the list, probing whichever side is smaller
+    private static void credit(Postings postings, int slot, Map<Integer, int[]> hits) {
+        int probeCost = hits.size() * (32 - Integer.numberOfLeadingZeros(postings.size + 1));
+        if (probeCost < postings.size) {
+            for (Map.Entry<Integer, int[]> hit : hits.entrySet()) {
+                if (Arrays.binarySearch(postings.ids, 0, postings.size, hit.getKey()) >= 0) {
+                    hit.getValue()[slot]++;
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < postings.size; i++) {
+            int[] counts = hits.get(postings.ids[i]);
+            if (counts != null) {
+                counts[slot]++;
+            }
+        }
+    }
+
+    private void index(Entry entry) {
+        int id = entry.victim.getAssignedSocialID();
+        for (String gram : entry.grams) {
+            gramIndex.computeIfAbsent(gram, g -> new Postings()).add(id);
+        }
+        for (String code : entry.codes) {
+            phoneticIndex.computeIfAbsent(code, c -> new Postings()).add(id);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        int id = entry.victim.getAssignedSocialID();
+        drop(gramIndex, entry.grams, id);
+        drop(phoneticIndex, entry.codes, id);
+    }
+
+    private static void drop(Map<String, Postings> index, String[] terms, int id) {
+        for (String term : terms) {
+            Postings postings = index.get(term);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.size == 0) {
+                    index.remove(term);
+                }
+            }
+        }
+    }
+
+    private static Entry entryFor(DisasterVictim victim) {
+        String folded = fold(fullName(victim.getFirstName(), victim.getLastName()));
+        return new Entry(victim, folded, grams(folded), codes(folded));
+    }
+
+    private static String fullName(String firstName, String lastName) {
+        if (lastName == null || lastName.isEmpty()) {
+            return firstName == null ? "" : firstName;
+        }
+        return firstName == null ? lastName : firstName + " " + lastName;
+    }
+
+    // Lower-cases, strips accents and collapses everything that is not a letter into single spaces
+    static String fold(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetter(c)) {
+                if (pendingSpace && folded.length() > 0) {
+                    folded.append(' ');
+                }
+                pendingSpace = false;
+                folded.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return folded.toString();
+    }
+
+    // Distinct padded trigrams of each name part
+    static String[] grams(String folded) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String part : folded.split(" ")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            String padded = "$" + part + "$";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams.toArray(new String[0]);
+    }
+
+    static String[] codes(String folded) {
+        Set<String> codes = new LinkedHashSet<>();
+        for (String part : folded.split(" ")) {
+            if (!part.isEmpty()) {
+                codes.add(soundex(part));
+            }
+        }
+        return codes.toArray(new String[0]);
+    }
+
+    // American Soundex of a folded name part
+    static String soundex(String part) {
+        char[] code = {part.charAt(0), '0', '0', '0'};
+        int length = 1;
+        char previous = soundexDigit(part.charAt(0));
+        for (int i = 1; i < part.length() && length < 4; i++) {
+            char c = part.charAt(i);
+            char digit = soundexDigit(c);
+            if (digit != '0' && digit != previous) {
+                code[length++] = digit;
+            }
+            // h and w do not separate letters with the same code
+            if (c != 'h' && c != 'w') {
+                previous = digit;
+            }
+        }
+        return new String(code);
+    }
+
+    private static char soundexDigit(char c) {
+        switch (c) {
+            case 'b': case 'f': case 'p': case 'v':
+                return '1';
+            case 'c': case 'g': case 'j': case 'k': case 'q': case 's': case 'x': case 'z':
+                return '2';
+            case 'd': case 't':
+                return '3';
+            case 'l':
+                return '4';
+            case 'm': case 'n':
+                return '5';
+            case 'r':
+                return '6';
+            default:
+                return '0';
+        }
+    }
+
+    // 1 - normalized Levenshtein distance, using two rolling rows
+    static double similarity(String a, String b) {
+        int longest = Math.max(a.length(), b.length());
+        if (longest == 0) {
+            return 1.0;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return 1.0 - (double) previous[b.length()] / longest;
+    }
+}
@@ -0,0 +1,85 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+
+public class MissingPersonMatcherTest {
+    private VictimRegistry registry;
+    private MissingPersonMatcher matcher;
+    private DisasterVictim aurelie;
+    private DisasterVictim raman;
+
+    @Before
+    public void setUp() {
+        registry = new VictimRegistry();
+        aurelie = new DisasterVictim("Aurélie", "2025-01-05");
+        aurelie.setLastName("Dupont");
+        raman = new DisasterVictim("Raman", "2025-01-02");
+        raman.setLastName("Narayan");
+        registry.add(aurelie);
+        registry.add(raman);
+        DisasterVictim chinoso = new DisasterVictim("Chinoso", "2025-01-03");
+        chinoso.setLastName("Nwosu");
+        registry.add(chinoso);
+        matcher = MissingPersonMatcher.following(registry);
+    }
+
+    @Test
+    public void testFoldRemovesAccentsAndPunctuation() {
+        assertEquals("fold should strip accents and lower-case", "aurelie dupont nwosu", MissingPersonMatcher.fold("  Aurélie Dupont-Nwosu "));
+    }
+
+    @Test
+    public void testSoundex() {
+        assertEquals("Robert should code as R163", "r163", MissingPersonMatcher.soundex("robert"));
+        assertEquals("Rupert should share Robert's code", "r163", MissingPersonMatcher.soundex("rupert"));
+        assertEquals("Ashcraft should skip the h between s and c", "a261", MissingPersonMatcher.soundex("ashcraft"));
+    }
+
+    @Test
+    public void testUnaccentedQueryFindsAccentedName() {
+        List<MissingPersonMatcher.Candidate> found = matcher.match("Aurelie Dupont", 3);
+        assertFalse("An unaccented query should find the accented name", found.isEmpty());
+        assertSame("The accented victim should rank first", aurelie, found.get(0).getVictim());
+        assertEquals("An exact match after folding should score 1", 1.0, found.get(0).getScore(), 0.0001);
+    }
+
+    @Test
+    public void testMisspelledQueryStillMatches() {
+        List<MissingPersonMatcher.Candidate> found = matcher.match("Orelie Dupond", 3);
+        assertFalse("A misspelled query should still produce candidates", found.isEmpty());
+        assertSame("The closest name should rank first", aurelie, found.get(0).getVictim());
+    }
+
+    @Test
+    public void testUnrelatedQueryFindsNothing() {
+        assertTrue("An unrelated name should not match anyone", matcher.match("Zbigniew Kowalczyk", 3).isEmpty());
+    }
+
+    @Test
+    public void testRenameIsIndexedIncrementally() {
+        registry.rename(raman, "Ramanathan", "Narayanan");
+        List<MissingPersonMatcher.Candidate> found = matcher.match("Ramanathan Narayanan", 1);
+        assertSame("The new name should be searchable", raman, found.get(0).getVictim());
+        assertEquals("The renamed victim should match the new name exactly", 1.0, found.get(0).getScore(), 0.0001);
+    }
+
+    @Test
+    public void testNewVictimIsIndexedIncrementally() {
+        DisasterVictim nathalie = new DisasterVictim("Nathalie", "2025-01-09");
+        nathalie.setLastName("Dupont-Nwosu");
+        registry.add(nathalie);
+        assertSame("A newly registered victim should be searchable", nathalie, matcher.match("Nathalie Dupont Nwosu", 1).get(0).getVictim());
+        assertEquals("The matcher should track the registry size", 4, matcher.size());
+    }
+
+    @Test
+    public void testRemovedVictimIsNotMatched() {
+        registry.remove(aurelie.getAssignedSocialID());
+        for (MissingPersonMatcher.Candidate candidate : matcher.match("Aurelie Dupont", 5)) {
+            assertNotSame("A removed victim should not be matched", aurelie, candidate.getVictim());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package edu.ucalgary.oop;
+
+import java.util.Locale;
+
+// Coded form of FamilyRelation.relationshipTo, read as "person one is the <type> of person two"
+public enum RelationshipType {
+    SIBLING,
+    PARENT,
+    CHILD,
+    SPOUSE,
+    GRANDPARENT,
+    GRANDCHILD,
+    GUARDIAN,
+    WARD,
+    OTHER;
+
+    private static final RelationshipType[] VALUES = values();
+
+    // The same relationship seen from person two's side
+    public RelationshipType inverse() {
+        switch (this) {
+            case PARENT: return CHILD;
+            case CHILD: return PARENT;
+            case GRANDPARENT: return GRANDCHILD;
+            case GRANDCHILD: return GRANDPARENT;
+            case GUARDIAN: return WARD;
+            case WARD: return GUARDIAN;
+            default: return this;
+        }
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static RelationshipType fromCode(int code) {
+        return VALUES[code];
+    }
+
+    // Maps the free-text relationship used by FamilyRelation; anything unrecognised is OTHER
+    public static RelationshipType parse(String text) {
+        if (text == null) {
+            return OTHER;
+        }
+        switch (text.trim().toLowerCase(Locale.ROOT)) {
+            case "sibling": case "brother": case "sister":
+                return SIBLING;
+            case "parent": case "mother": case "father":
+                return PARENT;
+            case "child": case "son": case "daughter":
+                return CHILD;
+            case "spouse": case "husband": case "wife": case "partner":
+                return SPOUSE;
+            case "grandparent": case "grandmother": case "grandfather":
+                return GRANDPARENT;
+            case "grandchild": case "grandson": case "granddaughter":
+                return GRANDCHILD;
+            case "guardian":
+                return GUARDIAN;
+            case "ward":
+                return WARD;
+            default:
+                return OTHER;
+        }
+    }
+}
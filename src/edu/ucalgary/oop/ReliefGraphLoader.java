@@ -0,0 +1,222 @@
+package edu.ucalgary.oop;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Loads the object graph around the disaster victims from JdbcReliefRepository's tables.
+// family_groups, locations, medical_records, supplies and inquiries are each read once with a
+// set-based SELECT into maps keyed by the columns that link them: person_id for medical
+// records, the person's and location's names for supplies and inquiries. Victims then stream
+// in page by page through VictimStreamLoader and each is wired from those maps before it is
+// handed on, so loading costs one query per table (one per page for disaster_victims) and
+// never one per victim. Rows read and rows/sec are kept for every table.
+public class ReliefGraphLoader {
+    private static final int FETCH_SIZE = 1000;
+
+    private final DatabaseManager databaseManager;
+    private final int pageSize;
+
+    // Rows read and time spent for one table
+    public static class TableStats {
+        private final String table;
+        private final long rows;
+        private final long nanos;
+
+        TableStats(String table, long rows, long nanos) {
+            this.table = table;
+            this.rows = rows;
+            this.nanos = nanos;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public double getRowsPerSecond() {
+            return nanos == 0 ? rows : rows * 1_000_000_000.0 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d rows in %.1f ms (%.0f rows/sec)",
+                    table, rows, nanos / 1_000_000.0, getRowsPerSecond());
+        }
+    }
+
+    // What has been loaded so far; filled by loadTables, then by loadVictims
+    public static class Graph {
+        private final Map<Integer, FamilyGroup> familyGroups = new LinkedHashMap<>();
+        private final Map<String, Location> locations = new LinkedHashMap<>(); // By name, as supplies refer to them
+        private final Map<Integer, List<MedicalRecord>> medicalRecords = new HashMap<>(); // By person_id
+        private final Map<String, List<Supply>> belongings = new HashMap<>(); // By the person's first name
+        private final List<String[]> inquiryRows = new ArrayList<>(); // inquirer_name, missing_person, date
+        private final Map<Integer, DisasterVictim> victims = new LinkedHashMap<>(); // By person_id
+        private final List<ReliefService> inquiries = new ArrayList<>();
+        private final List<TableStats> stats = new ArrayList<>();
+
+        public Map<Integer, FamilyGroup> getFamilyGroups() {
+            return Collections.unmodifiableMap(familyGroups);
+        }
+
+        public List<Location> getLocations() {
+            return new ArrayList<>(locations.values());
+        }
+
+        public Map<Integer, DisasterVictim> getVictims() {
+            return Collections.unmodifiableMap(victims);
+        }
+
+        public List<ReliefService> getInquiries() {
+            return Collections.unmodifiableList(inquiries);
+        }
+
+        public List<TableStats> getStats() {
+            return Collections.unmodifiableList(stats);
+        }
+    }
+
+    // Consumes one row of a table
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    public ReliefGraphLoader(DatabaseManager databaseManager) {
+        this(databaseManager, VictimStreamLoader.DEFAULT_PAGE_SIZE);
+    }
+
+    public ReliefGraphLoader(DatabaseManager databaseManager, int pageSize) {
+        this.databaseManager = databaseManager;
+        this.pageSize = pageSize;
+    }
+
+    // Both steps in one call
+    public Graph load(BiConsumer<DisasterVictim, Integer> intake, Runnable onFirstPage) throws SQLException {
+        Graph graph = loadTables();
+        loadVictims(graph, intake, onFirstPage);
+        return graph;
+    }
+
+    // Reads every table except disaster_victims, in one transaction
+    public Graph loadTables() throws SQLException {
+        Graph graph = new Graph();
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                scan(conn, graph, "family_groups", "SELECT group_id, head_name FROM family_groups "
+                        + "ORDER BY group_id", rs -> graph.familyGroups.put(rs.getInt("group_id"),
+                                new FamilyGroup(rs.getInt("group_id"), rs.getString("head_name"))));
+
+                scan(conn, graph, "locations", "SELECT name, address, capacity FROM locations "
+                        + "ORDER BY location_id", rs -> graph.locations.putIfAbsent(rs.getString("name"),
+                                new Location(rs.getString("name"), rs.getString("address"), rs.getInt("capacity"))));
+
+                scan(conn, graph, "medical_records", "SELECT person_id, location, treatment_details, date_of_treatment "
+                        + "FROM medical_records ORDER BY record_id", rs -> {
+                    String date = rs.getString("date_of_treatment");
+                    if (!IsoDate.isValid(date)) {
+                        return; // Rows stored before dates were validated
+                    }
+                    graph.medicalRecords.computeIfAbsent(rs.getInt("person_id"), id -> new ArrayList<>())
+                            .add(new MedicalRecord(location(graph, rs.getString("location")),
+                                    rs.getString("treatment_details"), date));
+                });
+
+                // Deliveries to a location (no person) are stock, which the inventory ledger holds
+                scan(conn, graph, "supplies", "SELECT type, quantity, person FROM supplies "
+                        + "WHERE person IS NOT NULL AND expired IS NOT TRUE ORDER BY supply_id", rs ->
+                        graph.belongings.computeIfAbsent(rs.getString("person"), name -> new ArrayList<>())
+                                .add(new Supply(rs.getString("type"), rs.getInt("quantity"))));
+
+                scan(conn, graph, "inquiries", "SELECT inquirer_name, missing_person, date_of_inquiry "
+                        + "FROM inquiries ORDER BY inquiry_id", rs -> {
+                    String date = rs.getString("date_of_inquiry");
+                    if (IsoDate.isValid(date)) {
+                        graph.inquiryRows.add(new String[]{rs.getString("inquirer_name"),
+                                rs.getString("missing_person"), date});
+                    }
+                });
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return graph;
+    }
+
+    // Streams disaster_victims, wiring each victim's medical records, belongings and stored
+    // family group before handing it to intake with its family_group_id, then links the
+    // inquiries to the victims they name. Supplies name a person only by first name, so
+    // they go to the first victim (lowest person_id) with that name.
+    public void loadVictims(Graph graph, BiConsumer<DisasterVictim, Integer> intake, Runnable onFirstPage)
+            throws SQLException {
+        long start = System.nanoTime();
+        VictimStreamLoader stream = new VictimStreamLoader(databaseManager, pageSize, FETCH_SIZE);
+        Map<String, DisasterVictim> byFirstName = new HashMap<>();
+        stream.load((victim, groupId) -> {
+            int personId = stream.getLastPersonId(); // The row being delivered
+            for (MedicalRecord record : graph.medicalRecords.getOrDefault(personId, List.of())) {
+                victim.addMedicalRecord(record);
+            }
+            if (byFirstName.putIfAbsent(victim.getFirstName(), victim) == null) {
+                List<Supply> held = graph.belongings.remove(victim.getFirstName());
+                if (held != null) {
+                    victim.addPersonalBelongings(held);
+                }
+            }
+            if (groupId != null) {
+                graph.familyGroups.computeIfAbsent(groupId, id -> new FamilyGroup(id, victim.getFirstName()))
+                        .addMember(victim);
+            }
+            graph.victims.put(personId, victim);
+            intake.accept(victim, groupId);
+        }, onFirstPage);
+        graph.stats.add(new TableStats("disaster_victims", stream.getRowsLoaded(), System.nanoTime() - start));
+
+        for (String[] row : graph.inquiryRows) {
+            DisasterVictim sought = byFirstName.get(row[1]);
+            graph.inquiries.add(new ReliefService(new Inquirer(row[0], null, null, null),
+                    sought == null ? DisasterVictim.soughtPerson(row[1]) : sought, row[2], null, null));
+        }
+        graph.inquiryRows.clear();
+    }
+
+    // A location named by another table; names with no locations row still get an object
+    private static Location location(Graph graph, String name) {
+        return name == null ? null : graph.locations.getOrDefault(name, new Location(name, null));
+    }
+
+    // Reads a whole table in one query and records its throughput
+    private void scan(Connection conn, Graph graph, String table, String query, RowHandler handler)
+            throws SQLException {
+        long start = System.nanoTime();
+        long rows = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                    rows++;
+                }
+            }
+        }
+        graph.stats.add(new TableStats(table, rows, System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,186 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReliefGraphLoaderTest {
+    private static final List<String> TABLES = List.of("family_groups", "locations", "medical_records", "supplies",
+            "inquiries", "disaster_victims");
+
+    private Map<String, List<Map<String, Object>>> tables;
+    private List<String> queried; // Table of each query sent, in order
+    private DatabaseManager pool;
+
+    // Answers each SELECT from the table it names; the victim query is paged on person_id
+    private Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement": return fakeQuery((String) args[0]);
+                        case "isValid": return true;
+                        case "isClosed": return false;
+                        case "getAutoCommit": return true;
+                        default: return null;
+                    }
+                });
+    }
+
+    private PreparedStatement fakeQuery(String sql) {
+        String table = TABLES.stream().filter(name -> sql.contains("FROM " + name)).findFirst().orElseThrow();
+        int[] params = new int[3];
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setInt": params[(int) args[0]] = (int) args[1]; return null;
+                        case "executeQuery":
+                            queried.add(table);
+                            List<Map<String, Object>> rows = new ArrayList<>();
+                            for (Map<String, Object> row : tables.get(table)) {
+                                if (!table.equals("disaster_victims")
+                                        || ((int) row.get("person_id") > params[1] && rows.size() < params[2])) {
+                                    rows.add(row);
+                                }
+                            }
+                            return fakeRows(rows);
+                        default: return null;
+                    }
+                });
+    }
+
+    private static ResultSet fakeRows(List<Map<String, Object>> rows) {
+        int[] cursor = {-1};
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next": return ++cursor[0] < rows.size();
+                        case "wasNull": return wasNull[0];
+                        case "getString":
+                        case "getInt":
+                            Object value = rows.get(cursor[0]).get((String) args[0]);
+                            wasNull[0] = value == null;
+                            if (method.getName().equals("getInt")) {
+                                return value == null ? 0 : (Integer) value;
+                            }
+                            return value;
+                        default: return null;
+                    }
+                });
+    }
+
+    private void row(String table, Object... columnsAndValues) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < columnsAndValues.length; i += 2) {
+            row.put((String) columnsAndValues[i], columnsAndValues[i + 1]);
+        }
+        tables.get(table).add(row);
+    }
+
+    @Before
+    public void setUp() {
+        tables = new LinkedHashMap<>();
+        for (String table : TABLES) {
+            tables.put(table, new ArrayList<>());
+        }
+        queried = new ArrayList<>();
+        pool = new DatabaseManager(this::fakeConnection, 2, 50, 60000);
+
+        row("family_groups", "group_id", 7, "head_name", "Okafor family");
+        row("locations", "name", "TELUS", "address", "136 8 Ave SE", "capacity", 50);
+        row("locations", "name", "Shaw", "address", "20 Roundup Way", "capacity", 0);
+        row("medical_records", "person_id", 3, "location", "TELUS",
+                "treatment_details", "Splint", "date_of_treatment", "2025-01-16");
+        row("medical_records", "person_id", 9, "location", null,
+                "treatment_details", "Insulin", "date_of_treatment", "2025-01-17");
+        row("medical_records", "person_id", 3, "location", "Clinic",
+                "treatment_details", "Bandage", "date_of_treatment", "Jan 16");
+        row("supplies", "type", "blanket", "quantity", 2, "person", "Freda");
+        row("supplies", "type", "water", "quantity", 1, "person", "Kai");
+        row("inquiries", "inquirer_name", "Chinoso", "missing_person", "Freda", "date_of_inquiry", "2025-01-18");
+        row("inquiries", "inquirer_name", "Chinoso", "missing_person", "Amara", "date_of_inquiry", "2025-01-18");
+        row("disaster_victims", "person_id", 3, "first_name", "Freda",
+                "entry_date", "2025-01-15", "family_group_id", 7);
+        row("disaster_victims", "person_id", 8, "first_name", "Kai",
+                "entry_date", "2025-01-16", "family_group_id", null);
+        row("disaster_victims", "person_id", 9, "first_name", "Mei", "entry_date", "2025-01-16", "family_group_id", 7);
+        row("disaster_victims", "person_id", 12, "first_name", "Freda",
+                "entry_date", "2025-01-17", "family_group_id", null);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testEachTableIsReadOnce() throws Exception {
+        new ReliefGraphLoader(pool, 2).load((victim, groupId) -> { }, null);
+        assertEquals("Every table should be one query, and victims one per page", List.of("family_groups",
+                "locations", "medical_records", "supplies", "inquiries", "disaster_victims", "disaster_victims",
+                "disaster_victims"), queried);
+    }
+
+    @Test
+    public void testVictimsAreWiredBeforeIntake() throws Exception {
+        List<String> delivered = new ArrayList<>();
+        List<Integer> groups = new ArrayList<>();
+        ReliefGraphLoader.Graph graph = new ReliefGraphLoader(pool, 2).load((victim, groupId) -> {
+            delivered.add(victim.getFirstName() + " " + victim.getMedicalRecords().length
+                    + " " + victim.getPersonalBelongingCount());
+            groups.add(groupId);
+        }, null);
+        assertEquals("Each victim should arrive with its records and belongings",
+                List.of("Freda 1 1", "Kai 0 1", "Mei 1 0", "Freda 0 0"), delivered);
+        assertEquals("Stored family groups should come with each victim", Arrays.asList(7, null, 7, null), groups);
+
+        DisasterVictim freda = graph.getVictims().get(3);
+        assertSame("A record should point at the loaded location", graph.getLocations().get(0),
+                freda.getMedicalRecords()[0].getLocation());
+        assertEquals("Belongings should come from the person's allocations", 2, freda.getBelongingQuantity("blanket"));
+        assertEquals("Victims should be keyed by person_id", "Mei", graph.getVictims().get(9).getFirstName());
+    }
+
+    @Test
+    public void testGroupsLocationsAndInquiriesAreLinked() throws Exception {
+        ReliefGraphLoader.Graph graph = new ReliefGraphLoader(pool, 2).load((victim, groupId) -> { }, null);
+        FamilyGroup group = graph.getFamilyGroups().get(7);
+        assertEquals("The stored head name should be kept", "Okafor family", group.getHeadName());
+        assertEquals("Members should be the victims carrying the id",
+                List.of(graph.getVictims().get(3), graph.getVictims().get(9)), group.getMembers());
+        assertEquals("Capacity should be kept", 50, graph.getLocations().get(0).getCapacity());
+
+        List<ReliefService> inquiries = graph.getInquiries();
+        assertEquals("Both inquiries should be loaded", 2, inquiries.size());
+        assertSame("An inquiry should point at the registered victim", graph.getVictims().get(3),
+                inquiries.get(0).getMissingPerson());
+        assertEquals("An inquiry for someone not registered should still name them", "Amara",
+                inquiries.get(1).getMissingPerson().getFirstName());
+    }
+
+    @Test
+    public void testRowsAreCountedPerTable() throws Exception {
+        int[] firstPages = {0};
+        ReliefGraphLoader.Graph graph = new ReliefGraphLoader(pool, 2).load((victim, groupId) -> { },
+                () -> firstPages[0]++);
+        Map<String, Long> rows = new LinkedHashMap<>();
+        for (ReliefGraphLoader.TableStats table : graph.getStats()) {
+            rows.put(table.getTable(), table.getRows());
+            assertTrue("Throughput should be reported", table.getRowsPerSecond() > 0);
+        }
+        assertEquals("Every row read should be counted, including skipped ones", Map.of("family_groups", 1L,
+                "locations", 2L, "medical_records", 3L, "supplies", 2L, "inquiries", 2L, "disaster_victims", 4L), rows);
+        assertEquals("The first page should be signalled once", 1, firstPages[0]);
+    }
+}
@@ -0,0 +1,368 @@
+package edu.ucalgary.oop;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// HTTP/JSON front end to the relief operations, so many intake desks can work at once.
+// Every request runs on its own virtual thread; the registry, matcher, inventory ledger and
+// repository behind it are all safe for concurrent use. Writes go through the same
+// CommandTarget as batch mode, so validation and side effects match the terminal.
+// There is no authentication, so it listens on loopback unless given another address.
+//
+//   POST /victims             {"first_name","entry_date"}             -> 201 {"person_id"}
+//   GET  /victims?first_name=&limit=                                  -> registered victims
+//   GET  /victims/matches?name=&limit=                                -> fuzzy matches
+//   POST /inquiries           {"inquirer","missing_person","date"}    -> 201
+//   GET  /inquiries?missing_person=                                   -> stored inquiries
+//   POST /allocations         {"type","quantity","location","person"} -> 201
+//   POST /family-assignments  {"name","group_id"}                     -> 201
+//   POST /locations           {"name","address","capacity"}           -> 201
+//   POST /admissions          {"name","location"}                     -> 201
+//   GET  /inventory                                                   -> stock per location and type
+public class ReliefHttpServer implements AutoCloseable {
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_PAGE = 100;
+
+    // A request the route could not serve, with the status to answer with
+    private static final class HttpError extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Route {
+        String handle(HttpExchange exchange) throws Exception;
+    }
+
+    private final BatchCommandRunner.CommandTarget commands;
+    private final VictimRegistry registry;
+    private final MissingPersonMatcher matcher;
+    private final SupplyLedger inventory;
+    private final ReliefRepository repository;
+    private final ReliefMetrics metrics;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ReliefHttpServer(BatchCommandRunner.CommandTarget commands, VictimRegistry registry,
+                            MissingPersonMatcher matcher, SupplyLedger inventory, ReliefRepository repository) {
+        this(commands, registry, matcher, inventory, repository, ReliefMetrics.getInstance());
+    }
+
+    ReliefHttpServer(BatchCommandRunner.CommandTarget commands, VictimRegistry registry, MissingPersonMatcher matcher,
+                     SupplyLedger inventory, ReliefRepository repository, ReliefMetrics metrics) {
+        this.commands = commands;
+        this.registry = registry;
+        this.matcher = matcher;
+        this.inventory = inventory;
+        this.repository = repository;
+        this.metrics = metrics;
+    }
+
+    // Starts serving on the loopback port (0 picks a free one) and returns the bound port
+    public int start(int port) throws IOException {
+        return start(InetAddress.getLoopbackAddress(), port);
+    }
+
+    // Same as above on the given address; a wildcard address serves every interface
+    public synchronized int start(InetAddress address, int port) throws IOException {
+        if (server != null) {
+            return server.getAddress().getPort();
+        }
+        server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        route("/victims", "POST", this::addVictim, "GET", this::findVictims);
+        route("/victims/matches", "GET", this::matchVictims);
+        route("/inquiries", "POST", this::logInquiry, "GET", this::findInquiries);
+        route("/allocations", "POST", this::allocate);
+        route("/family-assignments", "POST", this::assignFamily);
+        route("/locations", "POST", this::addLocation);
+        route("/admissions", "POST", this::admit);
+        route("/inventory", "GET", this::listInventory);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    // The bound address, or null when not serving
+    public synchronized InetSocketAddress getAddress() {
+        return server == null ? null : server.getAddress();
+    }
+
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    private void route(String path, String method, Route handler) {
+        route(path, Map.of(method, handler));
+    }
+
+    private void route(String path, String method, Route handler, String otherMethod, Route otherHandler) {
+        route(path, Map.of(method, handler, otherMethod, otherHandler));
+    }
+
+    // Registers a path with a handler per HTTP method
+    private void route(String path, Map<String, Route> byMethod) {
+        LatencyHistogram latency = metrics.histogram("relief_http_request_seconds",
+                "Time to serve HTTP requests, by path", "path", path);
+        server.createContext(path, exchange -> {
+            long start = System.nanoTime();
+            int status;
+            String body;
+            try {
+                if (!exchange.getRequestURI().getPath().equals(path)) {
+                    throw new HttpError(404, "No such resource");
+                }
+                Route handler = byMethod.get(exchange.getRequestMethod());
+                if (handler == null) {
+                    exchange.getResponseHeaders().set("Allow", String.join(", ", byMethod.keySet()));
+                    throw new HttpError(405, "Method not allowed");
+                }
+                body = handler.handle(exchange);
+                status = exchange.getRequestMethod().equals("POST") ? 201 : 200;
+            } catch (HttpError e) {
+                status = e.status;
+                body = error(e.getMessage());
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = error(e.getMessage());
+            } catch (IllegalStateException e) {
+                status = 409;
+                body = error(e.getMessage());
+            } catch (SQLException e) {
+                status = 503;
+                body = error("Storage unavailable: " + e.getMessage());
+            } catch (Exception e) {
+                status = 500;
+                body = error(String.valueOf(e.getMessage()));
+            }
+            try {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } finally {
+                exchange.close();
+                latency.recordSince(start);
+                metrics.counter("relief_http_responses_total", "HTTP responses, by path and status",
+                        "path", path, "status", Integer.toString(status)).increment();
+            }
+        });
+    }
+
+    private String addVictim(HttpExchange exchange) throws Exception {
+        Map<String, String> request = readJson(exchange);
+        String entryDate = required(request, "entry_date");
+        if (!IsoDate.isValid(entryDate)) {
+            throw new IllegalArgumentException("entry_date must be YYYY-MM-DD");
+        }
+        DisasterVictim victim = new DisasterVictim(required(request, "first_name"), entryDate);
+        BulkVictimIntake.Result result = commands.addVictims(List.of(victim));
+        if (result.hasFailures()) {
+            throw new IllegalArgumentException(result.getFailures().values().iterator().next());
+        }
+        return "{\"person_id\":" + result.getPersonIds().get(0) + ",\"social_id\":" + victim.getAssignedSocialID() + "}";
+    }
+
+    private String findVictims(HttpExchange exchange) throws HttpError {
+        String firstName = requiredParam(exchange, "first_name");
+        String limit = queryParams(exchange).get("limit");
+        List<DisasterVictim> victims = registry.findByFirstName(firstName);
+        // Common names can match thousands of people; answer with the first page only
+        int count = Math.min(victims.size(), limit == null ? DEFAULT_PAGE : parseInt(limit, "limit"));
+        StringBuilder out = new StringBuilder("[");
+        for (DisasterVictim victim : victims.subList(0, Math.max(0, count))) {
+            appendVictim(out.append(out.length() > 1 ? "," : ""), victim).append('}');
+        }
+        return out.append(']').toString();
+    }
+
+    private String matchVictims(HttpExchange exchange) throws HttpError {
+        String name = requiredParam(exchange, "name");
+        String limit = queryParams(exchange).get("limit");
+        StringBuilder out = new StringBuilder("[");
+        for (MissingPersonMatcher.Candidate candidate : matcher.match(name, limit == null ? 5 : parseInt(limit, "limit"))) {
+            appendVictim(out.append(out.length() > 1 ? "," : ""), candidate.getVictim())
+                    .append(",\"score\":").append(String.format(java.util.Locale.ROOT, "%.3f", candidate.getScore())).append('}');
+        }
+        return out.append(']').toString();
+    }
+
+    private static StringBuilder appendVictim(StringBuilder out, DisasterVictim victim) {
+        return out.append("{\"social_id\":").append(victim.getAssignedSocialID())
+                .append(",\"first_name\":").append(quote(victim.getFirstName()))
+                .append(",\"last_name\":").append(quote(victim.getLastName()))
+                .append(",\"entry_date\":").append(quote(victim.getEntryDate()));
+    }
+
+    private String logInquiry(HttpExchange exchange) throws Exception {
+        Map<String, String> request = readJson(exchange);
+        commands.logInquiry(required(request, "inquirer"), required(request, "missing_person"), required(request, "date"));
+        return "{}";
+    }
+
+    private String findInquiries(HttpExchange exchange) throws Exception {
+        StringBuilder out = new StringBuilder("[");
+        for (ReliefService inquiry : repository.findInquiries(requiredParam(exchange, "missing_person"))) {
+            out.append(out.length() > 1 ? "," : "")
+                    .append("{\"inquirer\":").append(quote(inquiry.getInquirer().getFirstName()))
+                    .append(",\"missing_person\":").append(quote(inquiry.getMissingPerson().getFirstName()))
+                    .append(",\"date\":").append(quote(inquiry.getDateOfInquiry())).append('}');
+        }
+        return out.append(']').toString();
+    }
+
+    private String allocate(HttpExchange exchange) throws Exception {
+        Map<String, String> request = readJson(exchange);
+        int quantity = parseInt(required(request, "quantity"), "quantity");
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        commands.allocate(required(request, "type").toLowerCase(), quantity, required(request, "location"),
+                request.get("person"));
+        return "{}";
+    }
+
+    private String assignFamily(HttpExchange exchange) throws Exception {
+        Map<String, String> request = readJson(exchange);
+        commands.assignFamily(required(request, "name"), parseInt(required(request, "group_id"), "group_id"));
+        return "{}";
+    }
+
+    private String addLocation(HttpExchange exchange) throws Exception {
+        Map<String, String> request = readJson(exchange);
+        String capacity = request.get("capacity");
+        commands.addLocation(required(request, "name"), required(request, "address"),
+                capacity == null ? Location.UNLIMITED : parseInt(capacity, "capacity"));
+        return "{}";
+    }
+
+    private String admit(HttpExchange exchange) throws Exception {
+        Map<String, String> request = readJson(exchange);
+        commands.admit(required(request, "name"), required(request, "location"));
+        return "{}";
+    }
+
+    private String listInventory(HttpExchange exchange) {
+        StringBuilder out = new StringBuilder("[");
+        for (SupplyLedger.Key key : inventory.keys()) {
+            out.append(out.length() > 1 ? "," : "")
+                    .append("{\"location\":").append(quote(key.getLocation()))
+                    .append(",\"type\":").append(quote(key.getType()))
+                    .append(",\"available\":").append(inventory.getAvailable(key.getLocation(), key.getType()))
+                    .append(",\"allocated\":").append(inventory.getAllocated(key.getLocation(), key.getType()))
+                    .append('}');
+        }
+        return out.append(']').toString();
+    }
+
+    private static Map<String, String> readJson(HttpExchange exchange) throws IOException, HttpError {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+                if (body.size() > MAX_BODY_BYTES) {
+                    throw new HttpError(413, "Request body too large");
+                }
+            }
+        }
+        return BatchCommandRunner.parseJsonObject(body.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String required(Map<String, String> request, String field) {
+        String value = request.get(field);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        return value;
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static String requiredParam(HttpExchange exchange, String name) throws HttpError {
+        String value = queryParams(exchange).get(name);
+        if (value == null || value.isEmpty()) {
+            throw new HttpError(400, "Missing query parameter " + name);
+        }
+        return value;
+    }
+
+    private static int parseInt(String value, String field) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be a whole number");
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,175 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ReliefHttpServerTest {
+    private VictimRegistry registry;
+    private SupplyLedger inventory;
+    private InMemoryReliefRepository repository;
+    private List<String> calls;
+    private ReliefHttpServer server;
+    private HttpClient client;
+    private String base;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new VictimRegistry();
+        inventory = new SupplyLedger();
+        repository = new InMemoryReliefRepository();
+        calls = Collections.synchronizedList(new ArrayList<>());
+        BatchCommandRunner.CommandTarget commands = new BatchCommandRunner.CommandTarget() {
+            @Override
+            public BulkVictimIntake.Result addVictims(List<DisasterVictim> victims) throws Exception {
+                BulkVictimIntake.Result result = repository.addVictims(victims);
+                registry.addAll(victims);
+                return result;
+            }
+
+            @Override
+            public void logInquiry(String inquirer, String missingPerson, String date) throws Exception {
+                repository.addInquiry(new ReliefService(new Inquirer(inquirer, null, null, null),
+                        DisasterVictim.soughtPerson(missingPerson), date, null, null));
+            }
+
+            @Override
+            public void allocate(String type, int quantity, String location, String person) {
+                if (person == null) {
+                    inventory.restock(location, type, quantity);
+                } else if (!inventory.allocate(location, type, quantity)) {
+                    throw new IllegalStateException("Insufficient stock");
+                }
+            }
+
+            @Override
+            public void assignFamily(String name, int groupId) {
+                calls.add("assign " + name + " " + groupId);
+            }
+
+            @Override
+            public void addLocation(String name, String address, int capacity) {
+                calls.add("location " + name + " " + address + " " + capacity);
+            }
+
+            @Override
+            public void admit(String name, String location) {
+                calls.add("admit " + name + " " + location);
+            }
+        };
+        server = new ReliefHttpServer(commands, registry, MissingPersonMatcher.following(registry), inventory, repository,
+                new ReliefMetrics());
+        base = "http://127.0.0.1:" + server.start(0);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(base + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(base + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testListensOnLoopbackByDefault() {
+        assertTrue("An unauthenticated server should not be reachable from other hosts",
+                server.getAddress().getAddress().isLoopbackAddress());
+    }
+
+    @Test
+    public void testAddVictimThenLookUp() throws Exception {
+        HttpResponse<String> created = post("/victims", "{\"first_name\":\"Freda\",\"entry_date\":\"2025-01-15\"}");
+        assertEquals("Adding a victim should answer 201", 201, created.statusCode());
+        assertTrue("Response should carry the new person id", created.body().contains("\"person_id\":"));
+
+        HttpResponse<String> found = get("/victims?first_name=Freda");
+        assertEquals("Lookup should succeed", 200, found.statusCode());
+        assertTrue("Lookup should list the new victim", found.body().contains("\"first_name\":\"Freda\""));
+
+        HttpResponse<String> matches = get("/victims/matches?name=Fred");
+        assertTrue("Fuzzy match should find the victim", matches.body().contains("\"score\":"));
+    }
+
+    @Test
+    public void testInvalidInputIsRejected() throws Exception {
+        assertEquals("Bad date should answer 400", 400,
+                post("/victims", "{\"first_name\":\"Freda\",\"entry_date\":\"15/01/2025\"}").statusCode());
+        assertEquals("Missing field should answer 400", 400,
+                post("/inquiries", "{\"inquirer\":\"Kai\"}").statusCode());
+        assertEquals("Missing query parameter should answer 400", 400, get("/victims").statusCode());
+        assertEquals("Wrong method should answer 405", 405, get("/allocations").statusCode());
+        assertEquals("Unknown path should answer 404", 404, get("/victims/unknown").statusCode());
+    }
+
+    @Test
+    public void testAllocationsAndInventory() throws Exception {
+        assertEquals("Delivery should answer 201", 201,
+                post("/allocations", "{\"type\":\"blanket\",\"quantity\":\"10\",\"location\":\"TELUS\"}").statusCode());
+        assertEquals("Allocation within stock should answer 201", 201, post("/allocations",
+                "{\"type\":\"blanket\",\"quantity\":\"4\",\"location\":\"TELUS\",\"person\":\"Kai\"}").statusCode());
+        assertEquals("Allocation beyond stock should answer 409", 409, post("/allocations",
+                "{\"type\":\"blanket\",\"quantity\":\"7\",\"location\":\"TELUS\",\"person\":\"Kai\"}").statusCode());
+
+        String body = get("/inventory").body();
+        assertTrue("Inventory should show remaining stock", body.contains("\"available\":6"));
+        assertTrue("Inventory should show allocated stock", body.contains("\"allocated\":4"));
+    }
+
+    @Test
+    public void testInquiriesFamilyAssignmentsAndAdmissions() throws Exception {
+        assertEquals("Inquiry should answer 201", 201, post("/inquiries",
+                "{\"inquirer\":\"Kai\",\"missing_person\":\"Amara\",\"date\":\"2025-01-16\"}").statusCode());
+        assertTrue("Stored inquiry should be listed",
+                get("/inquiries?missing_person=Amara").body().contains("\"inquirer\":\"Kai\""));
+        assertEquals("Family assignment should answer 201", 201,
+                post("/family-assignments", "{\"name\":\"Amara\",\"group_id\":\"3\"}").statusCode());
+        assertEquals("Admission should answer 201", 201,
+                post("/admissions", "{\"name\":\"Amara\",\"location\":\"TELUS\"}").statusCode());
+        assertEquals("Both should reach the target", List.of("assign Amara 3", "admit Amara TELUS"), calls);
+    }
+
+    @Test
+    public void testLocations() throws Exception {
+        assertEquals("A new location should answer 201", 201, post("/locations",
+                "{\"name\":\"TELUS\",\"address\":\"136 8 Ave SE\",\"capacity\":\"40\"}").statusCode());
+        assertEquals("Capacity should be optional", 201,
+                post("/locations", "{\"name\":\"Shaw\",\"address\":\"20 Roundup Way\"}").statusCode());
+        assertEquals("An address is required", 400, post("/locations", "{\"name\":\"Genesis\"}").statusCode());
+        assertEquals("Both should reach the target", List.of("location TELUS 136 8 Ave SE 40",
+                "location Shaw 20 Roundup Way 0"), calls);
+    }
+
+    @Test
+    public void testConcurrentIntakeKeepsEveryVictim() throws Exception {
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<Integer>> statuses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            statuses.add(clients.submit(() ->
+                    post("/victims", "{\"first_name\":\"Kai\",\"entry_date\":\"2025-01-15\"}").statusCode()));
+        }
+        for (Future<Integer> status : statuses) {
+            assertEquals("Every concurrent add should succeed", 201, (int) status.get());
+        }
+        clients.shutdown();
+        assertEquals("Every victim should be registered", 200, registry.findByFirstName("Kai").size());
+    }
+}
@@ -0,0 +1,234 @@
+package edu.ucalgary.oop;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Closed-loop load generator for ReliefHttpServer. Each step runs the given number of clients,
+// one virtual thread each, sending a mix of intake, inquiry, allocation and lookup requests
+// back to back, and reports throughput and latency percentiles so the knee in the curve shows
+// as concurrency grows. --embedded starts an in-memory service in this JVM instead of
+// calling a running one, which is handy but puts client and server on the same cores.
+// Usage: ReliefLoadGenerator [url | --embedded] [-c 1,2,4,8,16,32,64] [-d seconds] [-w seconds] [-o results.csv]
+public class ReliefLoadGenerator {
+    private static final String LOCATION = "LOADTEST";
+    private static final int SEED_STOCK = 100_000_000;
+    private static final String[] NAMES = {"Freda", "Kai", "Amara", "Jonah", "Priya", "Mateo", "Lena", "Tariq"};
+
+    // One measured step at a fixed number of clients
+    public static final class Step {
+        private final int clients;
+        private final long requests;
+        private final long errors;
+        private final double seconds;
+        private final LatencyHistogram latency;
+
+        Step(int clients, long requests, long errors, double seconds, LatencyHistogram latency) {
+            this.clients = clients;
+            this.requests = requests;
+            this.errors = errors;
+            this.seconds = seconds;
+            this.latency = latency;
+        }
+
+        public double getThroughput() {
+            return requests / seconds;
+        }
+
+        public double getLatencyMillis(double percentile) {
+            return latency.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f", clients, requests, errors,
+                    getThroughput(), latency.getMeanNanos() / 1e6, getLatencyMillis(50), getLatencyMillis(99),
+                    getLatencyMillis(99.9), latency.getMaxNanos() / 1e6);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%7d %10d %8d %11.1f %9.3f %9.3f %9.3f %9.3f %9.3f", clients, requests,
+                    errors, getThroughput(), latency.getMeanNanos() / 1e6, getLatencyMillis(50),
+                    getLatencyMillis(99), getLatencyMillis(99.9), latency.getMaxNanos() / 1e6);
+        }
+    }
+
+    private final URI base;
+    private final HttpClient client;
+
+    public ReliefLoadGenerator(String baseUrl) {
+        this.base = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://127.0.0.1:8080";
+        boolean embedded = false;
+        int[] clientCounts = {1, 2, 4, 8, 16, 32, 64};
+        int seconds = 10;
+        int warmupSeconds = 2;
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--embedded": embedded = true; break;
+                case "-c": clientCounts = parseCounts(args[++i]); break;
+                case "-d": seconds = Integer.parseInt(args[++i]); break;
+                case "-w": warmupSeconds = Integer.parseInt(args[++i]); break;
+                case "-o": output = args[++i]; break;
+                default:
+                    if (args[i].startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                    }
+                    url = args[i];
+            }
+        }
+        if (embedded) {
+            // Must be set before DisasterReliefApp opens its repository
+            if (System.getProperty("relief.store") == null) {
+                System.setProperty("relief.store", "memory");
+            }
+            url = "http://127.0.0.1:" + DisasterReliefApp.startServer(InetAddress.getLoopbackAddress(), 0);
+        }
+
+        ReliefLoadGenerator generator = new ReliefLoadGenerator(url);
+        generator.seed();
+        if (warmupSeconds > 0) {
+            generator.runStep(clientCounts[clientCounts.length - 1], warmupSeconds);
+        }
+        System.out.println("Target " + url);
+        System.out.println("clients   requests   errors   req/s        mean ms   p50 ms    p99 ms    p99.9 ms  max ms");
+        List<Step> steps = new ArrayList<>();
+        for (int clients : clientCounts) {
+            Step step = generator.runStep(clients, seconds);
+            steps.add(step);
+            System.out.println(step);
+        }
+        if (output != null) {
+            writeCsv(steps, output);
+            System.out.println("Results written to " + output);
+        }
+        System.exit(0);
+    }
+
+    private static int[] parseCounts(String list) {
+        String[] parts = list.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return counts;
+    }
+
+    private static void writeCsv(List<Step> steps, String file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(file)), false, StandardCharsets.UTF_8)) {
+            out.println("clients,requests,errors,throughput,mean_ms,p50_ms,p99_ms,p999_ms,max_ms");
+            for (Step step : steps) {
+                out.println(step.toCsv());
+            }
+        }
+    }
+
+    // Delivers stock to the load-test location so allocations to people do not run dry
+    void seed() throws IOException, InterruptedException {
+        for (String type : new String[] {"blanket", "cot"}) {
+            int status = send(post("allocations", "{\"type\":\"" + type + "\",\"quantity\":\"" + SEED_STOCK
+                    + "\",\"location\":\"" + LOCATION + "\"}"));
+            if (status >= 500) {
+                throw new IOException("Service at " + base + " answered " + status);
+            }
+        }
+    }
+
+    // Runs the clients for the given time and returns what they measured
+    public Step runStep(int clients, int seconds) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = nextRequest(ThreadLocalRandom.current());
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = send(request);
+                    } catch (IOException e) {
+                        status = -1;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    latency.recordSince(sent);
+                    requests.increment();
+                    // 409 is a legitimate "not enough stock" answer, not a failure
+                    if (status < 0 || (status >= 400 && status != 409)) {
+                        errors.increment();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        return new Step(clients, requests.sum(), errors.sum(), elapsed, latency);
+    }
+
+    // Roughly what a busy intake centre sends: mostly registrations, then lookups
+    private HttpRequest nextRequest(ThreadLocalRandom random) {
+        String name = NAMES[random.nextInt(NAMES.length)];
+        int roll = random.nextInt(100);
+        if (roll < 50) {
+            return post("victims", "{\"first_name\":\"" + name + "\",\"entry_date\":\"2025-01-15\"}");
+        } else if (roll < 60) {
+            return get("victims?first_name=" + encode(name));
+        } else if (roll < 70) {
+            return get("victims/matches?name=" + encode(name.substring(0, name.length() - 1)) + "&limit=5");
+        } else if (roll < 80) {
+            return post("inquiries", "{\"inquirer\":\"Load\",\"missing_person\":\"" + name
+                    + "\",\"date\":\"2025-01-16\"}");
+        } else if (roll < 90) {
+            return get("inventory");
+        }
+        return post("allocations", "{\"type\":\"" + (random.nextBoolean() ? "blanket" : "cot")
+                + "\",\"quantity\":\"1\",\"location\":\"" + LOCATION + "\",\"person\":\"" + name + "\"}");
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
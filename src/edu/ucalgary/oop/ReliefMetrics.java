@@ -0,0 +1,277 @@
+package edu.ucalgary.oop;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Counters, latency histograms and gauges for the application, exposed as Prometheus text
+// over a local HTTP endpoint and as a JMX MXBean.
+// Metrics are grouped into families by name; each family holds one series per label set.
+// Callers on hot paths look a series up once and keep it, so recording is just a striped
+// LongAdder increment or a LatencyHistogram record. Gauges are read only when scraped.
+public class ReliefMetrics implements ReliefMetricsMXBean {
+    public static final String OBJECT_NAME = "edu.ucalgary.oop:type=ReliefMetrics";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final ReliefMetrics instance = new ReliefMetrics();
+
+    // Reports the current values of a gauge family when it is scraped
+    public interface GaugeSource {
+        void collect(GaugeSink sink);
+    }
+
+    public interface GaugeSink {
+        // labels are name/value pairs
+        void sample(double value, String... labels);
+    }
+
+    private enum Type {
+        COUNTER("counter"), SUMMARY("summary"), GAUGE("gauge");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final Map<String, Object> series = new ConcurrentHashMap<>(); // rendered labels -> LongAdder or LatencyHistogram
+        private final GaugeSource source;
+
+        Family(String name, String help, Type type, GaugeSource source) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.source = source;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+    private HttpServer server;
+
+    public static ReliefMetrics getInstance() {
+        return instance;
+    }
+
+    // Counter series for the label pairs, created on first use
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, help, Type.COUNTER, null).series
+                .computeIfAbsent(renderLabels(labels), key -> new LongAdder());
+    }
+
+    // Latency histogram series for the label pairs, created on first use
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, Type.SUMMARY, null).series
+                .computeIfAbsent(renderLabels(labels), key -> new LatencyHistogram());
+    }
+
+    // Registers a gauge family; a later registration with the same name replaces it
+    public void gauge(String name, String help, GaugeSource source) {
+        families.put(name, new Family(name, help, Type.GAUGE, source));
+    }
+
+    private Family family(String name, String help, Type type, GaugeSource source) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = families.computeIfAbsent(name, key -> new Family(name, help, type, source));
+        }
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type.text);
+        }
+        return family;
+    }
+
+    private static String renderLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder rendered = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            rendered.append(i == 0 ? "" : ",").append(labels[i]).append("=\"");
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            for (char c : value.toCharArray()) {
+                if (c == '\\' || c == '"') {
+                    rendered.append('\\').append(c);
+                } else if (c == '\n') {
+                    rendered.append("\\n");
+                } else {
+                    rendered.append(c);
+                }
+            }
+            rendered.append('"');
+        }
+        return rendered.toString();
+    }
+
+    private static String series(String name, String labels) {
+        return labels.isEmpty() ? name : name + "{" + labels + "}";
+    }
+
+    private static String series(String name, String labels, String extraLabel) {
+        return name + "{" + (labels.isEmpty() ? "" : labels + ",") + extraLabel + "}";
+    }
+
+    private static String number(double value) {
+        if (value == (long) value) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static Map<String, Double> collectGauge(Family family) {
+        Map<String, Double> samples = new LinkedHashMap<>();
+        try {
+            family.source.collect((value, labels) -> samples.put(renderLabels(labels), value));
+        } catch (RuntimeException e) {
+            // A failing gauge should not break the rest of the scrape
+        }
+        return samples;
+    }
+
+    // Every metric in the Prometheus text exposition format, latencies in seconds
+    @Override
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Family family : new TreeMap<>(families).values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.text).append('\n');
+            if (family.type == Type.GAUGE) {
+                for (Map.Entry<String, Double> sample : collectGauge(family).entrySet()) {
+                    out.append(series(family.name, sample.getKey())).append(' ')
+                            .append(number(sample.getValue())).append('\n');
+                }
+                continue;
+            }
+            for (Map.Entry<String, Object> entry : new TreeMap<>(family.series).entrySet()) {
+                String labels = entry.getKey();
+                if (family.type == Type.COUNTER) {
+                    out.append(series(family.name, labels)).append(' ')
+                            .append(((LongAdder) entry.getValue()).sum()).append('\n');
+                    continue;
+                }
+                LatencyHistogram histogram = (LatencyHistogram) entry.getValue();
+                for (double quantile : QUANTILES) {
+                    out.append(series(family.name, labels, "quantile=\"" + quantile + "\"")).append(' ')
+                            .append(number(histogram.getValueAtPercentile(quantile * 100) / 1e9)).append('\n');
+                }
+                out.append(series(family.name + "_sum", labels)).append(' ')
+                        .append(number(histogram.getSumNanos() / 1e9)).append('\n');
+                out.append(series(family.name + "_count", labels)).append(' ')
+                        .append(histogram.getCount()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new TreeMap<>();
+        for (Family family : families.values()) {
+            for (Map.Entry<String, Object> entry : family.series.entrySet()) {
+                if (entry.getValue() instanceof LongAdder) {
+                    counters.put(series(family.name, entry.getKey()), ((LongAdder) entry.getValue()).sum());
+                } else {
+                    counters.put(series(family.name + "_count", entry.getKey()), ((LatencyHistogram) entry.getValue()).getCount());
+                }
+            }
+        }
+        return counters;
+    }
+
+    @Override
+    public Map<String, Double> getGauges() {
+        Map<String, Double> gauges = new TreeMap<>();
+        for (Family family : families.values()) {
+            if (family.type == Type.GAUGE) {
+                for (Map.Entry<String, Double> sample : collectGauge(family).entrySet()) {
+                    gauges.put(series(family.name, sample.getKey()), sample.getValue());
+                }
+            }
+        }
+        return gauges;
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP99Millis() {
+        Map<String, Double> latencies = new TreeMap<>();
+        for (Family family : families.values()) {
+            if (family.type == Type.SUMMARY) {
+                for (Map.Entry<String, Object> entry : family.series.entrySet()) {
+                    latencies.put(series(family.name, entry.getKey()),
+                            ((LatencyHistogram) entry.getValue()).getValueAtPercentile(99) / 1e6);
+                }
+            }
+        }
+        return latencies;
+    }
+
+    // Zeroes counters and histograms; gauges are live and have nothing to reset
+    @Override
+    public void reset() {
+        for (Family family : families.values()) {
+            for (Object value : family.series.values()) {
+                if (value instanceof LongAdder) {
+                    ((LongAdder) value).reset();
+                } else {
+                    ((LatencyHistogram) value).reset();
+                }
+            }
+        }
+    }
+
+    // Registers this instance with the platform MBean server; safe to call more than once
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBean", e);
+        }
+    }
+
+    // Serves scrape() at http://127.0.0.1:port/metrics; port 0 picks a free port
+    public synchronized int startHttpServer(int port) throws IOException {
+        if (server != null) {
+            return server.getAddress().getPort();
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    public synchronized void stopHttpServer() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+}
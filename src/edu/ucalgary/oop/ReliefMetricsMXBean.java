@@ -0,0 +1,18 @@
+package edu.ucalgary.oop;
+
+import java.util.Map;
+
+// Management view of ReliefMetrics; map keys are series names with their labels
+public interface ReliefMetricsMXBean {
+    Map<String, Long> getCounters();
+
+    Map<String, Double> getGauges();
+
+    // p99 latency per histogram series, in milliseconds
+    Map<String, Double> getLatencyP99Millis();
+
+    // Every metric in the Prometheus text format
+    String scrape();
+
+    void reset();
+}
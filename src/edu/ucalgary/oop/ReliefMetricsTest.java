@@ -0,0 +1,90 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class ReliefMetricsTest {
+    private ReliefMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new ReliefMetrics();
+    }
+
+    @After
+    public void tearDown() {
+        metrics.stopHttpServer();
+    }
+
+    @Test
+    public void testCountersAreSharedPerLabelSet() {
+        metrics.counter("relief_test_total", "Test counter", "kind", "a").increment();
+        metrics.counter("relief_test_total", "Test counter", "kind", "a").increment();
+        metrics.counter("relief_test_total", "Test counter", "kind", "b").increment();
+        assertEquals("The same labels should reach the same counter", Long.valueOf(2),
+                metrics.getCounters().get("relief_test_total{kind=\"a\"}"));
+        assertEquals("Other labels should have their own counter", Long.valueOf(1),
+                metrics.getCounters().get("relief_test_total{kind=\"b\"}"));
+    }
+
+    @Test
+    public void testScrapeUsesPrometheusTextFormat() {
+        metrics.counter("relief_test_total", "Test counter").add(3);
+        metrics.histogram("relief_test_seconds", "Test latency", "operation", "add_victim").record(2_000_000);
+        metrics.gauge("relief_test_level", "Test gauge", sink -> sink.sample(7, "location", "TELUS \"East\""));
+        String text = metrics.scrape();
+        assertTrue("Counters should have a type line", text.contains("# TYPE relief_test_total counter\n"));
+        assertTrue("Counter values should be written", text.contains("relief_test_total 3\n"));
+        assertTrue("Histograms should be summaries", text.contains("# TYPE relief_test_seconds summary\n"));
+        assertTrue("Quantiles should be labelled", text.contains("relief_test_seconds{operation=\"add_victim\",quantile=\"0.99\"}"));
+        assertTrue("The count should be written", text.contains("relief_test_seconds_count{operation=\"add_victim\"} 1\n"));
+        assertTrue("Gauge labels should be escaped", text.contains("relief_test_level{location=\"TELUS \\\"East\\\"\"} 7\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNameCannotChangeType() {
+        metrics.counter("relief_test", "Test");
+        metrics.histogram("relief_test", "Test");
+    }
+
+    @Test
+    public void testHttpEndpointServesScrape() throws Exception {
+        metrics.counter("relief_test_total", "Test counter").increment();
+        int port = metrics.startHttpServer(0);
+        HttpURLConnection connection = (HttpURLConnection) URI.create("http://127.0.0.1:" + port + "/metrics").toURL().openConnection();
+        try (InputStream in = connection.getInputStream()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals("The endpoint should answer", 200, connection.getResponseCode());
+            assertTrue("The content type should be Prometheus text",
+                    connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            assertTrue("The body should hold the counter", body.contains("relief_test_total 1"));
+        }
+    }
+
+    @Test
+    public void testMBeanExposesCounters() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ReliefMetrics.OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        metrics.counter("relief_test_total", "Test counter").add(5);
+        metrics.registerMBean();
+        try {
+            Object counters = server.getAttribute(name, "Counters");
+            assertNotNull("The counters attribute should be readable", counters);
+            assertTrue("The counter should be visible over JMX", counters.toString().contains("relief_test_total"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package edu.ucalgary.oop;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Storage used by the application, independent of where the data lives.
+// JdbcReliefRepository talks to PostgreSQL (or any JDBC database with the same tables),
+// InMemoryReliefRepository keeps everything in indexed concurrent maps, and
+// BenchmarkingReliefRepository, JournalingReliefRepository and WriteBehindReliefRepository
+// wrap another store and hand it on through getDelegate.
+public interface ReliefRepository extends AutoCloseable {
+
+    // Victims
+
+    // Stores a victim and returns its person_id
+    int addVictim(DisasterVictim victim) throws SQLException;
+
+    // Stores many victims at once; rows that fail are reported in the result
+    BulkVictimIntake.Result addVictims(Collection<DisasterVictim> victims) throws SQLException;
+
+    int countVictimsByFirstName(String firstName) throws SQLException;
+
+    // Returns how many victims were renamed
+    int renameVictims(String firstName, String newFirstName) throws SQLException;
+
+    // Returns how many victims were updated
+    int updateEntryDate(String firstName, String entryDate) throws SQLException;
+
+    // Hands every stored victim to the consumer with its stored family group, or null if it
+    // has none; onFirstPage runs once the first batch is delivered
+    void forEachVictim(BiConsumer<DisasterVictim, Integer> consumer, Runnable onFirstPage) throws SQLException;
+
+    // Family groups
+
+    void addFamilyGroup(int groupId, String headName) throws SQLException;
+
+    // Every stored family group: group id -> head name
+    Map<Integer, String> getFamilyGroups() throws SQLException;
+
+    // The stored family group of the first victim with the name, or null if they have none
+    Integer getFamilyGroup(String firstName) throws SQLException;
+
+    // Returns how many victims were assigned
+    int assignFamilyGroup(String firstName, int groupId) throws SQLException;
+
+    // Locations
+
+    int addLocation(Location location) throws SQLException;
+
+    List<Location> getLocations() throws SQLException;
+
+    // Supplies
+
+    // Records stock delivered to a location (person is null) or handed to a person; returns the supply_id
+    long addSupply(String type, int quantity, String person, String location) throws SQLException;
+
+    // Unexpired stock on hand per location and type: delivered minus handed out
+    Map<SupplyLedger.Key, Integer> getStockOnHand() throws SQLException;
+
+    // Unexpired water allocations: supply_id -> allocation time in epoch milliseconds
+    Map<Long, Long> getUnexpiredWater() throws SQLException;
+
+    void expireSupplies(List<Long> supplyIds) throws SQLException;
+
+    // Inquiries
+
+    void addInquiry(ReliefService inquiry) throws SQLException;
+
+    List<ReliefService> findInquiries(String missingPersonName) throws SQLException;
+
+    // Medical records
+
+    void addMedicalRecord(int personId, MedicalRecord record) throws SQLException;
+
+    List<MedicalRecord> getMedicalRecords(int personId) throws SQLException;
+
+    @Override
+    void close();
+
+    // Wrapping stores
+
+    // The store this one passes calls on to, or null if it holds the data itself
+    default ReliefRepository getDelegate() {
+        return null;
+    }
+
+    // The first store of the given kind in the chain starting at store, or null
+    static <T extends ReliefRepository> T unwrap(ReliefRepository store, Class<T> type) {
+        for (ReliefRepository current = store; current != null; current = current.getDelegate()) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+        }
+        return null;
+    }
+}
@@ -5,13 +5,11 @@ See LICENSE.txt for more information.
 */
 
 package edu.ucalgary.oop;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 public class ReliefService {
     private Inquirer inquirer;
     private DisasterVictim missingPerson;
-    private String dateOfInquiry;
+    private int dateOfInquiry; // Epoch day
     private String infoProvided;
     private Location lastKnownLocation;
 
@@ -44,15 +42,16 @@ public class ReliefService {
 
     // Getter and setter for dateOfInquiry
     public String getDateOfInquiry() {
+        return IsoDate.format(dateOfInquiry);
+    }
+
+    public int getDateOfInquiryEpochDay() {
         return dateOfInquiry;
     }
 
     public void setDateOfInquiry(String dateOfInquiry) throws IllegalArgumentException {
         // Check if the dateOfInquiry string matches the expected date format
-        if (!isValidDateFormat(dateOfInquiry)) {
-            throw new IllegalArgumentException("Invalid date format for date of inquiry. Expected format: YYYY-MM-DD");
-        }
-        this.dateOfInquiry = dateOfInquiry;
+        this.dateOfInquiry = IsoDate.parseOrThrow(dateOfInquiry, "Invalid date format for date of inquiry. Expected format: YYYY-MM-DD");
     }
 
     // Getter and setter for infoProvided
@@ -73,20 +72,11 @@ public class ReliefService {
         this.lastKnownLocation = lastKnownLocation;
     }
 
-    // Helper method to check if a string matches the YYYY-MM-DD date format
-    private boolean isValidDateFormat(String date) {
-        try {
-            LocalDate.parse(date, DateTimeFormatter.ISO_DATE);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
     public String getLogDetails() {
        return "Inquirer: " + inquirer.getFirstName() + 
            ", Missing Person: " + missingPerson.getFirstName() + 
-           ", Date of Inquiry: " + dateOfInquiry + 
+           ", Date of Inquiry: " + getDateOfInquiry() + 
            ", Info Provided: " + infoProvided + 
-           ", Last Known Location: " + lastKnownLocation.getName();
+           ", Last Known Location: " + (lastKnownLocation == null ? null : lastKnownLocation.getName());
 }
 }
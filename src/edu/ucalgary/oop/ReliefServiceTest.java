@@ -73,4 +73,11 @@ public class ReliefServiceTest {
     public void testGetLogDetails() {
         assertEquals("Log details should match the expected format", expectedLogDetails, reliefService.getLogDetails());
     }
+
+    @Test
+    public void testGetLogDetailsWithoutLocation() {
+        reliefService.setLastKnownLocation(null);
+        assertTrue("An inquiry with no known location should still log",
+                reliefService.getLogDetails().endsWith("Last Known Location: null"));
+    }
 }
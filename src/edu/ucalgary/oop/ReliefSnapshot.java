@@ -0,0 +1,843 @@
+package edu.ucalgary.oop;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.zip.CRC32C;
+
+// Compact binary image of the in-memory relief model, so a restart does not have to reload
+// everything from the database.
+// The file is a string dictionary followed by columns: every victim field is one array of
+// ints (social IDs, epoch days, dictionary codes) written in bulk, and lists such as
+// belongings, medical records, occupants and group members are a count per owner plus one
+// flattened array per field. A CRC32C of everything before it closes the file, and a new
+// file only replaces the old one once it is complete.
+// Code that changes the model holds the change lock's read side across the store call and
+// the model update; capture() takes the write side only long enough to mark the journal
+// position and copy references, then builds the columns and writes the file off the hot
+// path. An image therefore holds exactly the journal's events before its sequence, and
+// restoring it then replaying the journal from there gives back the current model.
+// Behind a write-behind queue the journal catches up with the model later, so the position
+// is asked for under the lock but may only be known once the queue has reached it.
+public class ReliefSnapshot {
+    private static final int MAGIC = 0x52534e50; // "RSNP"
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int NONE = -1; // Null string or person
+    private static final long POSITION_TIMEOUT_SECONDS = 60;
+
+    // Where the journal will stand once every change made so far is in it. Asked while
+    // changes are held back, so it must answer without waiting; the Future may complete later.
+    public interface JournalPosition {
+        Future<Long> mark() throws Exception;
+    }
+
+    // Column form of the model as of one journal sequence
+    public static final class Image {
+        private long journalSequence;
+        private long createdAt;
+        private String[] strings;
+        // Victims, one entry each
+        private int[] socialIds;
+        private int[] entryDays;
+        private int[] birthDays;
+        private byte[] genders;
+        private int[] firstNames;
+        private int[] lastNames;
+        private int[] comments;
+        private int[] belongingCounts;
+        private int[] medicalCounts;
+        private int[] relationCounts;
+        // Per-victim lists, flattened in victim order
+        private int[] belongingTypes;
+        private int[] belongingQuantities;
+        private int[] medicalLocations;
+        private int[] medicalAddresses;
+        private int[] medicalDetails;
+        private int[] medicalDays;
+        private int[] relationIndexes;
+        // Relations, stored once however many victims hold them
+        private int[] relationOnes;
+        private int[] relationTypes;
+        private int[] relationTwos;
+        // Locations, with occupants and supplies flattened
+        private int[] locationNames;
+        private int[] locationAddresses;
+        private int[] capacities;
+        private int[] occupantCounts;
+        private int[] occupants;
+        private int[] supplyCounts;
+        private int[] supplyTypes;
+        private int[] supplyQuantities;
+        // Inventory
+        private int[] stockLocations;
+        private int[] stockTypes;
+        private long[] stockAvailable;
+        private long[] stockAllocated;
+        // Stored family groups
+        private int[] groupIds;
+        private int[] groupHeads;
+        private int[] memberCounts;
+        private int[] members;
+
+        // The first journal event not included in the image
+        public long getJournalSequence() {
+            return journalSequence;
+        }
+
+        // Epoch milliseconds when the image was captured
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public int getVictimCount() {
+            return socialIds.length;
+        }
+
+        private String text(int code) {
+            return code == NONE ? null : strings[code];
+        }
+    }
+
+    private final VictimRegistry victims;
+    private final Set<Location> locations;
+    private final SupplyLedger inventory;
+    private final FamilyClusterer families;
+    private final ReadWriteLock changeLock;
+    private final JournalPosition journalPosition;
+
+    // Metrics
+    private volatile long written;
+    private volatile long lastBytes;
+    private volatile long lastPauseNanos;
+    private volatile long lastWriteNanos;
+
+    // journalPosition gives the sequence the next journaled change will get, once every
+    // change made so far is in the journal
+    public ReliefSnapshot(VictimRegistry victims, Set<Location> locations, SupplyLedger inventory,
+                          FamilyClusterer families, ReadWriteLock changeLock, JournalPosition journalPosition) {
+        this.victims = victims;
+        this.locations = locations;
+        this.inventory = inventory;
+        this.families = families;
+        this.changeLock = changeLock;
+        this.journalPosition = journalPosition;
+    }
+
+    // Grows an int column as values are added
+    private static final class Column {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    // Hands out one code per distinct string
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = strings.size();
+                codes.put(value, code);
+                strings.add(value);
+            }
+            return code;
+        }
+    }
+
+    // Copies the model into columns. Changes wait only while references are taken.
+    public Image capture() throws Exception {
+        Image image = new Image();
+        List<DisasterVictim> people;
+        String[] first;
+        String[] last;
+        List<SupplyLedger.Key> keys;
+        long[] available;
+        long[] allocated;
+        Map<Integer, List<Integer>> stored;
+        String[] heads;
+        Future<Long> position;
+        long started = System.nanoTime();
+        changeLock.writeLock().lock();
+        try {
+            position = journalPosition.mark();
+            image.createdAt = System.currentTimeMillis();
+            people = victims.values();
+            // Names are copied here because renames change them in place
+            first = new String[people.size()];
+            last = new String[people.size()];
+            for (int i = 0; i < first.length; i++) {
+                first[i] = people.get(i).getFirstName();
+                last[i] = people.get(i).getLastName();
+            }
+            keys = inventory.keys();
+            available = new long[keys.size()];
+            allocated = new long[keys.size()];
+            for (int i = 0; i < available.length; i++) {
+                SupplyLedger.Key key = keys.get(i);
+                available[i] = inventory.getAvailable(key.getLocation(), key.getType())
+                        + inventory.getReserved(key.getLocation(), key.getType());
+                allocated[i] = inventory.getAllocated(key.getLocation(), key.getType());
+            }
+            stored = families.getStoredAssignments();
+            heads = new String[stored.size()];
+            int group = 0;
+            for (int groupId : stored.keySet()) {
+                FamilyGroup current = families.getGroup(groupId);
+                heads[group++] = current == null ? null : current.getHeadName();
+            }
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+        lastPauseNanos = System.nanoTime() - started;
+
+        Dictionary dictionary = new Dictionary();
+        int count = people.size();
+        image.socialIds = new int[count];
+        image.entryDays = new int[count];
+        image.birthDays = new int[count];
+        image.genders = new byte[count];
+        image.firstNames = new int[count];
+        image.lastNames = new int[count];
+        image.comments = new int[count];
+        image.belongingCounts = new int[count];
+        image.medicalCounts = new int[count];
+        image.relationCounts = new int[count];
+        Column belongingTypes = new Column();
+        Column belongingQuantities = new Column();
+        Column medicalLocations = new Column();
+        Column medicalAddresses = new Column();
+        Column medicalDetails = new Column();
+        Column medicalDays = new Column();
+        Column relationIndexes = new Column();
+        Column relationOnes = new Column();
+        Column relationTypes = new Column();
+        Column relationTwos = new Column();
+        Map<FamilyRelation, Integer> relations = new IdentityHashMap<>();
+        for (int i = 0; i < count; i++) {
+            DisasterVictim victim = people.get(i);
+            image.socialIds[i] = victim.getAssignedSocialID();
+            image.entryDays[i] = victim.getEntryEpochDay();
+            image.birthDays[i] = victim.getDateOfBirthEpochDay();
+            image.genders[i] = (byte) (victim.getGender() == null ? NONE : victim.getGender().ordinal());
+            image.firstNames[i] = dictionary.code(first[i]);
+            image.lastNames[i] = dictionary.code(last[i]);
+            image.comments[i] = dictionary.code(victim.getComments());
+
+            Supply[] belongings = victim.getPersonalBelongings();
+            image.belongingCounts[i] = belongings.length;
+            for (Supply supply : belongings) {
+                belongingTypes.add(dictionary.code(supply.getType()));
+                belongingQuantities.add(supply.getQuantity());
+            }
+            MedicalRecord[] records = victim.getMedicalRecords();
+            image.medicalCounts[i] = records.length;
+            for (MedicalRecord record : records) {
+                Location location = record.getLocation();
+                medicalLocations.add(dictionary.code(location == null ? null : location.getName()));
+                medicalAddresses.add(dictionary.code(location == null ? null : location.getAddress()));
+                medicalDetails.add(dictionary.code(record.getTreatmentDetails()));
+                medicalDays.add(record.getDateOfTreatmentEpochDay());
+            }
+            FamilyRelation[] connections = victim.getFamilyConnections();
+            image.relationCounts[i] = connections.length;
+            for (FamilyRelation relation : connections) {
+                Integer index = relations.get(relation);
+                if (index == null) {
+                    index = relations.size();
+                    relations.put(relation, index);
+                    relationOnes.add(relation.getPersonOne() == null ? NONE : relation.getPersonOne().getAssignedSocialID());
+                    relationTypes.add(dictionary.code(relation.getRelationshipTo()));
+                    relationTwos.add(relation.getPersonTwo() == null ? NONE : relation.getPersonTwo().getAssignedSocialID());
+                }
+                relationIndexes.add(index);
+            }
+        }
+        image.belongingTypes = belongingTypes.toArray();
+        image.belongingQuantities = belongingQuantities.toArray();
+        image.medicalLocations = medicalLocations.toArray();
+        image.medicalAddresses = medicalAddresses.toArray();
+        image.medicalDetails = medicalDetails.toArray();
+        image.medicalDays = medicalDays.toArray();
+        image.relationIndexes = relationIndexes.toArray();
+        image.relationOnes = relationOnes.toArray();
+        image.relationTypes = relationTypes.toArray();
+        image.relationTwos = relationTwos.toArray();
+
+        List<Location> places = new ArrayList<>(locations);
+        image.locationNames = new int[places.size()];
+        image.locationAddresses = new int[places.size()];
+        image.capacities = new int[places.size()];
+        image.occupantCounts = new int[places.size()];
+        image.supplyCounts = new int[places.size()];
+        Column occupants = new Column();
+        Column supplyTypes = new Column();
+        Column supplyQuantities = new Column();
+        for (int i = 0; i < places.size(); i++) {
+            Location location = places.get(i);
+            image.locationNames[i] = dictionary.code(location.getName());
+            image.locationAddresses[i] = dictionary.code(location.getAddress());
+            image.capacities[i] = location.getCapacity();
+            int before = occupants.size;
+            location.forEachOccupant(occupant -> occupants.add(occupant.getAssignedSocialID()));
+            image.occupantCounts[i] = occupants.size - before;
+            List<Supply> supplies = location.supplyView();
+            image.supplyCounts[i] = supplies.size();
+            for (Supply supply : supplies) {
+                supplyTypes.add(dictionary.code(supply.getType()));
+                supplyQuantities.add(supply.getQuantity());
+            }
+        }
+        image.occupants = occupants.toArray();
+        image.supplyTypes = supplyTypes.toArray();
+        image.supplyQuantities = supplyQuantities.toArray();
+
+        image.stockLocations = new int[keys.size()];
+        image.stockTypes = new int[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            image.stockLocations[i] = dictionary.code(keys.get(i).getLocation());
+            image.stockTypes[i] = dictionary.code(keys.get(i).getType());
+        }
+        image.stockAvailable = available;
+        image.stockAllocated = allocated;
+
+        image.groupIds = new int[stored.size()];
+        image.groupHeads = new int[stored.size()];
+        image.memberCounts = new int[stored.size()];
+        Column members = new Column();
+        int group = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : stored.entrySet()) {
+            image.groupIds[group] = entry.getKey();
+            image.groupHeads[group] = dictionary.code(heads[group]);
+            image.memberCounts[group] = entry.getValue().size();
+            for (int member : entry.getValue()) {
+                members.add(member);
+            }
+            group++;
+        }
+        image.members = members.toArray();
+        image.strings = dictionary.strings.toArray(new String[0]);
+        try {
+            image.journalSequence = position.get(POSITION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            position.cancel(false);
+            throw new IOException("journal did not catch up with the model within " + POSITION_TIMEOUT_SECONDS + " s");
+        }
+        return image;
+    }
+
+    // Captures the model and writes it to file; returns the image written
+    public synchronized Image save(Path file) throws Exception {
+        Image image = capture();
+        long started = System.nanoTime();
+        lastBytes = write(image, file);
+        lastWriteNanos = System.nanoTime() - started;
+        written++;
+        return image;
+    }
+
+    // Writes the image beside file and then moves it into place; returns its size in bytes
+    public static long write(Image image, Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        long size;
+        try (Output out = new Output(FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(image.journalSequence);
+            out.putLong(image.createdAt);
+            out.putInt(image.strings.length);
+            for (String value : image.strings) {
+                out.putBytes(value.getBytes(StandardCharsets.UTF_8));
+            }
+            for (int[] column : intColumns(image)) {
+                out.putInts(column);
+            }
+            out.putBytes(image.genders);
+            out.putLongs(image.stockAvailable);
+            out.putLongs(image.stockAllocated);
+            size = out.finish();
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    // Int columns in file order
+    private static int[][] intColumns(Image image) {
+        return new int[][] {image.socialIds, image.entryDays, image.birthDays, image.firstNames, image.lastNames,
+                image.comments, image.belongingCounts, image.medicalCounts, image.relationCounts,
+                image.belongingTypes, image.belongingQuantities, image.medicalLocations, image.medicalAddresses,
+                image.medicalDetails, image.medicalDays, image.relationIndexes, image.relationOnes, image.relationTypes,
+                image.relationTwos, image.locationNames, image.locationAddresses, image.capacities, image.occupantCounts,
+                image.occupants, image.supplyCounts, image.supplyTypes, image.supplyQuantities, image.stockLocations,
+                image.stockTypes, image.groupIds, image.groupHeads, image.memberCounts, image.members};
+    }
+
+    // Reads an image, failing with IOException if the file is not a whole, intact snapshot
+    public static Image read(Path file) throws IOException {
+        try (Input in = new Input(FileChannel.open(file, StandardOpenOption.READ))) {
+            if (in.getInt() != MAGIC) {
+                throw new IOException(file + " is not a relief snapshot");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            Image image = new Image();
+            image.journalSequence = in.getLong();
+            image.createdAt = in.getLong();
+            image.strings = new String[in.count(4)];
+            for (int i = 0; i < image.strings.length; i++) {
+                image.strings[i] = new String(in.getBytes(), StandardCharsets.UTF_8);
+            }
+            image.socialIds = in.getInts();
+            image.entryDays = in.getInts();
+            image.birthDays = in.getInts();
+            image.firstNames = in.getInts();
+            image.lastNames = in.getInts();
+            image.comments = in.getInts();
+            image.belongingCounts = in.getInts();
+            image.medicalCounts = in.getInts();
+            image.relationCounts = in.getInts();
+            image.belongingTypes = in.getInts();
+            image.belongingQuantities = in.getInts();
+            image.medicalLocations = in.getInts();
+            image.medicalAddresses = in.getInts();
+            image.medicalDetails = in.getInts();
+            image.medicalDays = in.getInts();
+            image.relationIndexes = in.getInts();
+            image.relationOnes = in.getInts();
+            image.relationTypes = in.getInts();
+            image.relationTwos = in.getInts();
+            image.locationNames = in.getInts();
+            image.locationAddresses = in.getInts();
+            image.capacities = in.getInts();
+            image.occupantCounts = in.getInts();
+            image.occupants = in.getInts();
+            image.supplyCounts = in.getInts();
+            image.supplyTypes = in.getInts();
+            image.supplyQuantities = in.getInts();
+            image.stockLocations = in.getInts();
+            image.stockTypes = in.getInts();
+            image.groupIds = in.getInts();
+            image.groupHeads = in.getInts();
+            image.memberCounts = in.getInts();
+            image.members = in.getInts();
+            image.genders = in.getBytes();
+            image.stockAvailable = in.getLongs();
+            image.stockAllocated = in.getLongs();
+            in.verify();
+            return image;
+        }
+    }
+
+    // Loads an image into the model, which is expected to be empty
+    public void restore(Image image) {
+        Map<String, Location> tracked = new HashMap<>();
+        List<Location> places = new ArrayList<>(image.locationNames.length);
+        for (int i = 0; i < image.locationNames.length; i++) {
+            Location location = new Location(image.text(image.locationNames[i]),
+                    image.text(image.locationAddresses[i]), image.capacities[i]);
+            tracked.put(location.getName(), location);
+            places.add(location);
+        }
+        Map<String, Location> untracked = new HashMap<>();
+
+        int count = image.socialIds.length;
+        List<DisasterVictim> people = new ArrayList<>(count);
+        int belonging = 0;
+        int medical = 0;
+        for (int i = 0; i < count; i++) {
+            DisasterVictim victim = new DisasterVictim(image.socialIds[i], image.text(image.firstNames[i]), image.entryDays[i]);
+            victim.setLastName(image.text(image.lastNames[i]));
+            if (image.birthDays[i] != IsoDate.INVALID) {
+                victim.setDateOfBirth(image.birthDays[i]);
+            }
+            if (image.genders[i] != NONE) {
+                victim.setGender(DisasterVictim.Gender.values()[image.genders[i]]);
+            }
+            victim.setComments(image.text(image.comments[i]));
+            for (int end = belonging + image.belongingCounts[i]; belonging < end; belonging++) {
+                victim.addPersonalBelonging(new Supply(image.text(image.belongingTypes[belonging]),
+                        image.belongingQuantities[belonging]));
+            }
+            for (int end = medical + image.medicalCounts[i]; medical < end; medical++) {
+                String name = image.text(image.medicalLocations[medical]);
+                String address = image.text(image.medicalAddresses[medical]);
+                Location location = name == null ? null : tracked.get(name);
+                if (name != null && location == null) {
+                    location = untracked.computeIfAbsent(name, key -> new Location(key, address));
+                }
+                victim.addMedicalRecord(new MedicalRecord(location, image.text(image.medicalDetails[medical]),
+                        IsoDate.format(image.medicalDays[medical])));
+            }
+            people.add(victim);
+        }
+        victims.addAll(people);
+
+        FamilyRelation[] relations = new FamilyRelation[image.relationOnes.length];
+        for (int r = 0; r < relations.length; r++) {
+            relations[r] = new FamilyRelation(victims.get(image.relationOnes[r]),
+                    image.text(image.relationTypes[r]), victims.get(image.relationTwos[r]));
+        }
+        int connection = 0;
+        for (int i = 0; i < count; i++) {
+            for (int end = connection + image.relationCounts[i]; connection < end; connection++) {
+                people.get(i).addFamilyConnection(relations[image.relationIndexes[connection]]);
+            }
+        }
+
+        int occupant = 0;
+        int supply = 0;
+        for (int i = 0; i < places.size(); i++) {
+            Location location = places.get(i);
+            for (int end = occupant + image.occupantCounts[i]; occupant < end; occupant++) {
+                DisasterVictim victim = victims.get(image.occupants[occupant]);
+                if (victim != null) {
+                    location.addOccupant(victim);
+                }
+            }
+            for (int end = supply + image.supplyCounts[i]; supply < end; supply++) {
+                location.addSupply(new Supply(image.text(image.supplyTypes[supply]), image.supplyQuantities[supply]));
+            }
+        }
+        locations.addAll(places);
+
+        for (int i = 0; i < image.stockLocations.length; i++) {
+            String location = image.text(image.stockLocations[i]);
+            String type = image.text(image.stockTypes[i]);
+            long total = image.stockAvailable[i] + image.stockAllocated[i];
+            if (total > 0) {
+                inventory.restock(location, type, (int) total);
+            }
+            if (image.stockAllocated[i] > 0) {
+                inventory.allocate(location, type, (int) image.stockAllocated[i]);
+            }
+        }
+
+        for (FamilyRelation relation : relations) {
+            if (relation.getPersonOne() != null && relation.getPersonTwo() != null) {
+                families.addRelation(relation);
+            }
+        }
+        int member = 0;
+        for (int g = 0; g < image.groupIds.length; g++) {
+            families.createGroup(image.groupIds[g], image.text(image.groupHeads[g]));
+            for (int end = member + image.memberCounts[g]; member < end; member++) {
+                DisasterVictim victim = victims.get(image.members[member]);
+                if (victim != null) {
+                    families.assignStoredGroup(victim, image.groupIds[g]);
+                }
+            }
+        }
+    }
+
+    // Applies the journal's events from fromSequence on to the model; returns how many.
+    // Runs of new victims are registered together.
+    public long replay(Path journalDirectory, long fromSequence) throws Exception {
+        List<DisasterVictim> created = new ArrayList<>();
+        long count = EventJournal.replay(journalDirectory, fromSequence, event -> {
+            if (event.getType() == EventJournal.Type.VICTIM_CREATED) {
+                created.add(new DisasterVictim(event.getField(0), event.getField(1)));
+                return;
+            }
+            if (!created.isEmpty()) {
+                victims.addAll(created);
+                created.clear();
+            }
+            apply(event);
+        });
+        victims.addAll(created);
+        return count;
+    }
+
+    // Makes the same model change DisasterReliefApp makes after each journaled store change
+    private void apply(EventJournal.Event event) {
+        switch (event.getType()) {
+            case VICTIMS_RENAMED:
+                for (DisasterVictim victim : victims.findByFirstName(event.getField(0))) {
+                    victims.rename(victim, event.getField(1), victim.getLastName());
+                }
+                break;
+            case ENTRY_DATE_CHANGED:
+                int entryDay = IsoDate.parse(event.getField(1));
+                for (DisasterVictim victim : victims.findByFirstName(event.getField(0))) {
+                    DisasterVictim copy = victim.withEntryDate(entryDay);
+                    victims.replace(victim, copy);
+                    families.replace(copy);
+                    for (Location location : locations) {
+                        location.replaceOccupant(copy);
+                    }
+                }
+                break;
+            case FAMILY_GROUP_CREATED:
+                families.createGroup(event.getNumber(), event.getField(0));
+                break;
+            case FAMILY_GROUP_ASSIGNED:
+                for (DisasterVictim victim : victims.findByFirstName(event.getField(0))) {
+                    families.assignStoredGroup(victim, event.getNumber());
+                }
+                break;
+            case LOCATION_ADDED:
+                locations.add(new Location(event.getField(0), event.getField(1), event.getNumber()));
+                break;
+            case SUPPLY_ALLOCATED:
+                if (event.getField(1) == null) {
+                    inventory.restock(event.getField(2), event.getField(0), event.getNumber());
+                } else {
+                    inventory.allocate(event.getField(2), event.getField(0), event.getNumber());
+                }
+                break;
+            default:
+                break; // Expiries, inquiries and medical records are not held in the model
+        }
+    }
+
+    public long getWrittenCount() {
+        return written;
+    }
+
+    // How long the last capture held changes back
+    public long getLastPauseNanos() {
+        return lastPauseNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "written=" + written + " lastBytes=" + lastBytes + " lastPauseMs=" + lastPauseNanos / 1_000_000
+                + " lastWriteMs=" + lastWriteNanos / 1_000_000;
+    }
+
+    // Buffered, checksummed writer of big-endian values and length-prefixed arrays
+    private static final class Output implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        private long size;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void putInt(int value) throws IOException {
+            room(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            room(8);
+            buffer.putLong(value);
+        }
+
+        void putInts(int[] values) throws IOException {
+            putInt(values.length);
+            for (int i = 0; i < values.length; ) {
+                room(4);
+                int n = Math.min(values.length - i, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * 4);
+                i += n;
+            }
+        }
+
+        void putLongs(long[] values) throws IOException {
+            putInt(values.length);
+            for (int i = 0; i < values.length; ) {
+                room(8);
+                int n = Math.min(values.length - i, buffer.remaining() / 8);
+                buffer.asLongBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * 8);
+                i += n;
+            }
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            putInt(values.length);
+            for (int i = 0; i < values.length; ) {
+                room(1);
+                int n = Math.min(values.length - i, buffer.remaining());
+                buffer.put(values, i, n);
+                i += n;
+            }
+        }
+
+        // Writes the checksum, pushes the file to disk and returns its size
+        long finish() throws IOException {
+            drain();
+            buffer.putInt((int) crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer);
+            }
+            channel.force(true);
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Reader matching Output; checks every length against what is left of the file
+    private static final class Input implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        private long unread; // Bytes before the checksum not yet in the buffer
+
+        Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.unread = channel.size() - 4;
+            if (unread < 0) {
+                throw new EOFException("Snapshot is truncated");
+            }
+            buffer.limit(0);
+        }
+
+        private void fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (unread == 0) {
+                    throw new EOFException("Snapshot is truncated");
+                }
+                int start = buffer.position();
+                ByteBuffer window = buffer.duplicate();
+                window.limit(start + (int) Math.min(buffer.remaining(), unread));
+                int n = channel.read(window);
+                if (n < 0) {
+                    throw new EOFException("Snapshot is truncated");
+                }
+                crc.update(buffer.slice(start, n));
+                buffer.position(start + n);
+                unread -= n;
+            }
+            buffer.flip();
+        }
+
+        int getInt() throws IOException {
+            fill(4);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            fill(8);
+            return buffer.getLong();
+        }
+
+        // Reads an array length, rejecting one longer than the rest of the file
+        int count(int width) throws IOException {
+            int n = getInt();
+            if (n < 0 || (long) n * width > unread + buffer.remaining()) {
+                throw new IOException("Snapshot is corrupt");
+            }
+            return n;
+        }
+
+        int[] getInts() throws IOException {
+            int[] values = new int[count(4)];
+            for (int i = 0; i < values.length; ) {
+                fill(4);
+                int n = Math.min(values.length - i, buffer.remaining() / 4);
+                buffer.asIntBuffer().get(values, i, n);
+                buffer.position(buffer.position() + n * 4);
+                i += n;
+            }
+            return values;
+        }
+
+        long[] getLongs() throws IOException {
+            long[] values = new long[count(8)];
+            for (int i = 0; i < values.length; ) {
+                fill(8);
+                int n = Math.min(values.length - i, buffer.remaining() / 8);
+                buffer.asLongBuffer().get(values, i, n);
+                buffer.position(buffer.position() + n * 8);
+                i += n;
+            }
+            return values;
+        }
+
+        byte[] getBytes() throws IOException {
+            byte[] values = new byte[count(1)];
+            for (int i = 0; i < values.length; ) {
+                fill(1);
+                int n = Math.min(values.length - i, buffer.remaining());
+                buffer.get(values, i, n);
+                i += n;
+            }
+            return values;
+        }
+
+        // Fails unless everything was read and the checksum matches
+        void verify() throws IOException {
+            if (unread != 0 || buffer.hasRemaining()) {
+                throw new IOException("Snapshot has unexpected trailing data");
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(4);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, channel.size() - 4 + trailer.position()) < 0) {
+                    throw new EOFException("Snapshot is truncated");
+                }
+            }
+            if (trailer.getInt(0) != (int) crc.getValue()) {
+                throw new IOException("Snapshot checksum does not match");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+public class ReliefSnapshotTest {
+    private Path directory;
+    private Path file;
+    private long journalSequence;
+    private CompletableFuture<Long> pendingPosition; // Set to stand in for a journal that is catching up
+    private final CountDownLatch marked = new CountDownLatch(1);
+
+    // One copy of the in-memory model, as DisasterReliefApp holds it
+    private class Model {
+        final VictimRegistry victims = new VictimRegistry();
+        final Set<Location> locations = ConcurrentHashMap.newKeySet();
+        final SupplyLedger inventory = new SupplyLedger();
+        final FamilyClusterer families = new FamilyClusterer();
+        final ReadWriteLock changeLock = new ReentrantReadWriteLock();
+        final ReliefSnapshot snapshot = new ReliefSnapshot(victims, locations, inventory, families, changeLock,
+                () -> {
+                    marked.countDown();
+                    return pendingPosition != null ? pendingPosition : CompletableFuture.completedFuture(journalSequence);
+                });
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("relief-snapshot-test");
+        file = directory.resolve("relief.snapshot");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private DisasterVictim only(Model model, String firstName) {
+        List<DisasterVictim> found = model.victims.findByFirstName(firstName);
+        assertEquals("Expected one victim named " + firstName, 1, found.size());
+        return found.get(0);
+    }
+
+    @Test
+    public void testModelRoundTripsThroughTheFile() throws Exception {
+        Model original = new Model();
+        Location telus = new Location("TELUS", "136 8 Ave SE", 50);
+        original.locations.add(telus);
+        DisasterVictim freda = new DisasterVictim("Freda", "2025-01-15", "1987-06-02");
+        freda.setLastName("Okafor");
+        freda.setGender(DisasterVictim.Gender.WOMAN);
+        freda.setComments("Needs insulin");
+        freda.addPersonalBelonging(new Supply("blanket", 2));
+        freda.addMedicalRecord(new MedicalRecord(telus, "Splint", "2025-01-16"));
+        DisasterVictim kai = new DisasterVictim("Kai", "2025-01-15");
+        FamilyRelation siblings = new FamilyRelation(freda, "sibling", kai);
+        freda.addFamilyConnection(siblings);
+        kai.addFamilyConnection(siblings);
+        original.victims.addAll(List.of(freda, kai));
+        original.families.addRelation(siblings);
+        DisasterVictim amara = new DisasterVictim("Amara", "2025-01-16");
+        original.victims.add(amara);
+        original.families.createGroup(7, "Amara");
+        original.families.assignStoredGroup(amara, 7);
+        telus.addOccupant(freda);
+        telus.addSupply(new Supply("cot", 10));
+        original.inventory.restock("TELUS", "blanket", 20);
+        original.inventory.allocate("TELUS", "blanket", 5);
+        journalSequence = 42;
+
+        original.snapshot.save(file);
+        ReliefSnapshot.Image image = ReliefSnapshot.read(file);
+        assertEquals("The journal position should be kept", 42, image.getJournalSequence());
+        Model restored = new Model();
+        restored.snapshot.restore(image);
+
+        DisasterVictim copy = only(restored, "Freda");
+        assertEquals("Social IDs should be kept", freda.getAssignedSocialID(), copy.getAssignedSocialID());
+        assertEquals("Birth dates should be kept", "1987-06-02", copy.getDateOfBirth());
+        assertEquals("Last names should be kept", "Okafor", copy.getLastName());
+        assertEquals("Gender should be kept", DisasterVictim.Gender.WOMAN, copy.getGender());
+        assertEquals("Comments should be kept", "Needs insulin", copy.getComments());
+        assertEquals("Belongings should be kept", 2, copy.getBelongingQuantity("blanket"));
+        assertEquals("Medical records should point at the tracked location", "136 8 Ave SE",
+                copy.getMedicalRecords()[0].getLocation().getAddress());
+        assertSame("A relation should be shared by both people", copy.getFamilyConnections()[0],
+                only(restored, "Kai").getFamilyConnections()[0]);
+        assertTrue("Relations should rebuild families", restored.families.sameFamily(
+                copy.getAssignedSocialID(), only(restored, "Kai").getAssignedSocialID()));
+        assertEquals("Stored groups should keep their members", 1,
+                restored.families.getGroup(7).getMembers().size());
+        Location shelter = restored.locations.iterator().next();
+        assertEquals("Capacity should be kept", 50, shelter.getCapacity());
+        assertTrue("Occupants should be kept", shelter.hasOccupant(copy.getAssignedSocialID()));
+        assertEquals("Location supplies should be kept", 10, shelter.supplyView().get(0).getQuantity());
+        assertEquals("Available stock should be kept", 15, restored.inventory.getAvailable("TELUS", "blanket"));
+        assertEquals("Allocated stock should be kept", 5, restored.inventory.getAllocated("TELUS", "blanket"));
+    }
+
+    @Test
+    public void testJournalEventsAfterTheSnapshotAreReplayed() throws Exception {
+        Path journalDirectory = directory.resolve("journal");
+        Model original = new Model();
+        try (EventJournal journal = new EventJournal(journalDirectory, 4096)) {
+            JournalingReliefRepository store = new JournalingReliefRepository(new InMemoryReliefRepository(),
+                    journal, message -> fail(message));
+            DisasterVictim kai = new DisasterVictim("Kai", "2025-01-15");
+            store.addVictim(kai);
+            original.victims.add(kai);
+            store.addSupply("blanket", 10, null, "TELUS");
+            original.inventory.restock("TELUS", "blanket", 10);
+            journalSequence = journal.getNextSequence();
+            original.snapshot.save(file);
+
+            // Changes after the snapshot exist only in the journal
+            store.addVictim(new DisasterVictim("Freda", "2025-01-16"));
+            store.renameVictims("Kai", "Kainoa");
+            store.addSupply("blanket", 3, "Freda", "TELUS");
+            store.addFamilyGroup(4, "Freda");
+            store.assignFamilyGroup("Freda", 4);
+            store.updateEntryDate("Kainoa", "2025-01-20");
+            store.updateEntryDate("Freda", "2025-01-21");
+        }
+
+        Model restored = new Model();
+        ReliefSnapshot.Image image = ReliefSnapshot.read(file);
+        restored.snapshot.restore(image);
+        assertEquals("Only later events should be replayed", 7,
+                restored.snapshot.replay(journalDirectory, image.getJournalSequence()));
+        assertEquals("New victims should be added", 2, restored.victims.size());
+        assertTrue("Renames should be applied", restored.victims.findByFirstName("Kai").isEmpty());
+        assertEquals("Entry date changes should be applied", "2025-01-20", only(restored, "Kainoa").getEntryDate());
+        assertEquals("A changed entry date should be indexed", 1,
+                restored.victims.findByEntryDate("2025-01-20").size());
+        assertEquals("Allocations should come out of stock", 7, restored.inventory.getAvailable("TELUS", "blanket"));
+        assertEquals("Group assignments should be applied", 1, restored.families.getGroup(4).getMembers().size());
+        assertSame("The group should hold the copy with the changed entry date", only(restored, "Freda"),
+                restored.families.getGroup(4).getMembers().get(0));
+    }
+
+    @Test
+    public void testDamagedSnapshotIsRejected() throws Exception {
+        Model original = new Model();
+        original.victims.add(new DisasterVictim("Freda", "2025-01-15"));
+        original.snapshot.save(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xff}), channel.size() - 10);
+        }
+        try {
+            ReliefSnapshot.read(file);
+            fail("A damaged snapshot should not be read");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testCaptureWaitsForChangesInProgress() throws Exception {
+        Model model = new Model();
+        CountDownLatch captured = new CountDownLatch(1);
+        model.changeLock.readLock().lock();
+        Thread writer = new Thread(() -> {
+            try {
+                model.snapshot.capture();
+                captured.countDown();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        try {
+            writer.start();
+            assertFalse("A capture should wait while a change is under way",
+                    captured.await(100, TimeUnit.MILLISECONDS));
+        } finally {
+            model.changeLock.readLock().unlock();
+        }
+        assertTrue("The capture should go ahead once the change is done", captured.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testChangesGoAheadWhileTheJournalCatchesUp() throws Exception {
+        Model model = new Model();
+        model.victims.add(new DisasterVictim("Freda", "2025-01-15"));
+        pendingPosition = new CompletableFuture<>();
+        CompletableFuture<ReliefSnapshot.Image> captured = CompletableFuture.supplyAsync(() -> {
+            try {
+                return model.snapshot.capture();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue("The capture should mark the position", marked.await(5, TimeUnit.SECONDS));
+        assertTrue("Changes should not wait for the journal position",
+                model.changeLock.readLock().tryLock(1, TimeUnit.SECONDS));
+        model.changeLock.readLock().unlock();
+        assertFalse("The capture should wait for the position", captured.isDone());
+
+        pendingPosition.complete(7L);
+        assertEquals("The image should carry the position once known", 7,
+                captured.get(5, TimeUnit.SECONDS).getJournalSequence());
+    }
+}
@@ -0,0 +1,470 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Continuously matches open inquiries against victims as they arrive and move.
+// Intake, occupancy changes and new inquiries are queued as events and applied by one
+// worker thread, which owns every index, so no index needs locking. Open inquiries are
+// indexed by the sought person's folded full name, the only thing an inquiry knows about
+// them; each intake or occupancy change is a lookup in that index, and each new inquiry is
+// a lookup in the index of known victims and where they are staying. Matches go to a
+// bounded notification queue, each stamped with the time from the triggering event to its
+// emission.
+public class ReunificationPipeline implements VictimRegistry.Listener, AutoCloseable {
+    public static final int DEFAULT_NOTIFICATION_CAPACITY = 10_000;
+    private static final int LATENCY_WINDOW = 4096;
+
+    // What caused a match to be found
+    public enum Source {
+        INTAKE,    // A victim was registered or renamed
+        OCCUPANCY, // A victim arrived at a location
+        INQUIRY    // A new inquiry matched someone already known
+    }
+
+    public static final class Notification {
+        private final ReliefService inquiry;
+        private final DisasterVictim victim;
+        private final Location location;
+        private final Source source;
+        private final long latencyNanos;
+
+        Notification(ReliefService inquiry, DisasterVictim victim, Location location, Source source, long latencyNanos) {
+            this.inquiry = inquiry;
+            this.victim = victim;
+            this.location = location;
+            this.source = source;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public ReliefService getInquiry() {
+            return inquiry;
+        }
+
+        public DisasterVictim getVictim() {
+            return victim;
+        }
+
+        // Where the victim is staying, or null if they are registered but not placed
+        public Location getLocation() {
+            return location;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            Inquirer inquirer = inquiry.getInquirer();
+            return victim.getFirstName() + (victim.getLastName() == null ? "" : " " + victim.getLastName())
+                    + " (ID " + victim.getAssignedSocialID() + ")"
+                    + (location == null ? " is registered" : " is at " + location.getName())
+                    + (inquirer == null ? "" : ", sought by " + inquirer.getFirstName())
+                    + " [" + source + "]";
+        }
+    }
+
+    private interface Event {
+        void apply(long enqueuedAt);
+    }
+
+    private static final class OpenInquiry {
+        private final ReliefService service;
+        private final String nameKey;
+        private final Set<String> notified = new HashSet<>();
+
+        OpenInquiry(ReliefService service) {
+            this.service = service;
+            this.nameKey = nameKey(service.getMissingPerson());
+        }
+    }
+
+    private static final class Queued {
+        private final Event event;
+        private final long enqueuedAt;
+
+        Queued(Event event, long enqueuedAt) {
+            this.event = event;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private static final Queued STOP = new Queued(null, 0);
+
+    private final BlockingQueue<Queued> events = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Notification> notifications;
+    private volatile Thread worker;
+    private volatile boolean closed;
+
+    // Owned by whichever thread applies events
+    private final Map<ReliefService, OpenInquiry> open = new IdentityHashMap<>();
+    private final Map<String, List<OpenInquiry>> openBySoughtName = new HashMap<>();
+    private final Map<Integer, DisasterVictim> known = new HashMap<>();
+    private final Map<Integer, String> knownNames = new HashMap<>();
+    private final Map<String, Set<Integer>> knownByName = new HashMap<>();
+    private final Map<Integer, Set<Location>> placements = new HashMap<>();
+
+    // Metrics
+    private final AtomicLong eventsApplied = new AtomicLong();
+    private final AtomicLong emitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private volatile long maxLatencyNanos;
+    private volatile int openCount;
+    private final long[] recentLatencies = new long[LATENCY_WINDOW];
+
+    public ReunificationPipeline() {
+        this(DEFAULT_NOTIFICATION_CAPACITY);
+    }
+
+    public ReunificationPipeline(int notificationCapacity) {
+        this.notifications = new LinkedBlockingQueue<>(notificationCapacity);
+    }
+
+    // A pipeline that follows the registry's intake, seeded with the victims it already holds
+    public static ReunificationPipeline following(VictimRegistry registry) {
+        ReunificationPipeline pipeline = new ReunificationPipeline();
+        registry.addListener(pipeline);
+        for (DisasterVictim victim : registry.all()) {
+            pipeline.victimAdded(victim);
+        }
+        return pipeline;
+    }
+
+    // Starts the worker that applies events as they arrive
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        Thread thread = new Thread(this::run, "reunification");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    private void run() {
+        while (true) {
+            Queued event;
+            try {
+                event = events.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (event == STOP) {
+                return;
+            }
+            applyOne(event);
+        }
+    }
+
+    // Applies every queued event on the calling thread; for use when the worker is not started
+    public int processPending() {
+        if (worker != null) {
+            throw new IllegalStateException("The pipeline worker is running");
+        }
+        int applied = 0;
+        Queued event;
+        while ((event = events.poll()) != null) {
+            if (event != STOP) {
+                applyOne(event);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    private void applyOne(Queued queued) {
+        try {
+            queued.event.apply(queued.enqueuedAt);
+            eventsApplied.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedEvents.incrementAndGet(); // One bad record must not stop matching
+        }
+    }
+
+    private void submit(Event event) {
+        if (!closed) {
+            events.add(new Queued(event, System.nanoTime()));
+        }
+    }
+
+    @Override
+    public void victimAdded(DisasterVictim victim) {
+        submit(enqueuedAt -> {
+            remember(victim);
+            evaluate(victim, Source.INTAKE, enqueuedAt);
+        });
+    }
+
+    @Override
+    public void victimRemoved(DisasterVictim victim) {
+        submit(enqueuedAt -> {
+            if (placements.getOrDefault(victim.getAssignedSocialID(), Set.of()).isEmpty()) {
+                forget(victim.getAssignedSocialID());
+            }
+        });
+    }
+
+    @Override
+    public void victimRenamed(DisasterVictim victim) {
+        victimAdded(victim);
+    }
+
+    // Call after a victim is added to a location
+    public void occupantAdded(Location location, DisasterVictim victim) {
+        submit(enqueuedAt -> {
+            remember(victim);
+            placements.computeIfAbsent(victim.getAssignedSocialID(), id -> new HashSet<>()).add(location);
+            for (OpenInquiry inquiry : openBySoughtName.getOrDefault(nameKey(victim), List.of())) {
+                emit(inquiry, victim, location, Source.OCCUPANCY, enqueuedAt);
+            }
+        });
+    }
+
+    // Call after a victim leaves a location
+    public void occupantRemoved(Location location, DisasterVictim victim) {
+        submit(enqueuedAt -> {
+            Set<Location> at = placements.get(victim.getAssignedSocialID());
+            if (at != null) {
+                at.remove(location);
+                if (at.isEmpty()) {
+                    placements.remove(victim.getAssignedSocialID());
+                }
+            }
+        });
+    }
+
+    // Places the victim at the location and reports the change; returns false if it is full
+    public boolean admit(Location location, DisasterVictim victim) {
+        if (!location.addOccupant(victim)) {
+            return false;
+        }
+        occupantAdded(location, victim);
+        return true;
+    }
+
+    // Indexes everyone already staying at the location
+    public void trackLocation(Location location) {
+        location.forEachOccupant(victim -> occupantAdded(location, victim));
+    }
+
+    // Opens an inquiry and checks it against every victim already known
+    public void openInquiry(ReliefService inquiry) {
+        if (inquiry.getMissingPerson() == null) {
+            throw new IllegalArgumentException("An inquiry must name the person sought");
+        }
+        submit(enqueuedAt -> {
+            if (open.containsKey(inquiry)) {
+                return;
+            }
+            OpenInquiry entry = new OpenInquiry(inquiry);
+            open.put(inquiry, entry);
+            openBySoughtName.computeIfAbsent(entry.nameKey, key -> new ArrayList<>()).add(entry);
+            openCount = open.size();
+
+            for (int id : knownByName.getOrDefault(entry.nameKey, Set.of())) {
+                DisasterVictim victim = known.get(id);
+                Set<Location> at = placements.get(id);
+                if (at == null || at.isEmpty()) {
+                    emit(entry, victim, null, Source.INQUIRY, enqueuedAt);
+                } else {
+                    for (Location location : at) {
+                        emit(entry, victim, location, Source.INQUIRY, enqueuedAt);
+                    }
+                }
+            }
+        });
+    }
+
+    // Stops matching an inquiry, e.g. once the family has been reunited
+    public void closeInquiry(ReliefService inquiry) {
+        submit(enqueuedAt -> {
+            OpenInquiry entry = open.remove(inquiry);
+            if (entry == null) {
+                return;
+            }
+            removeFrom(openBySoughtName, entry.nameKey, entry);
+            openCount = open.size();
+        });
+    }
+
+    private void evaluate(DisasterVictim victim, Source source, long enqueuedAt) {
+        Set<Location> at = placements.get(victim.getAssignedSocialID());
+        for (OpenInquiry inquiry : openBySoughtName.getOrDefault(nameKey(victim), List.of())) {
+            if (at == null || at.isEmpty()) {
+                emit(inquiry, victim, null, source, enqueuedAt);
+            } else {
+                for (Location location : at) {
+                    emit(inquiry, victim, location, source, enqueuedAt);
+                }
+            }
+        }
+    }
+
+    private void emit(OpenInquiry inquiry, DisasterVictim victim, Location location, Source source, long enqueuedAt) {
+        String key = victim.getAssignedSocialID() + "@" + (location == null ? "" : location.getName());
+        if (!inquiry.notified.add(key)) {
+            return; // Already reported for this inquiry
+        }
+        long latency = System.nanoTime() - enqueuedAt;
+        if (!notifications.offer(new Notification(inquiry.service, victim, location, source, latency))) {
+            dropped.incrementAndGet();
+            return;
+        }
+        long count = emitted.incrementAndGet();
+        totalLatencyNanos.addAndGet(latency);
+        if (latency > maxLatencyNanos) {
+            maxLatencyNanos = latency;
+        }
+        synchronized (recentLatencies) {
+            recentLatencies[(int) ((count - 1) % LATENCY_WINDOW)] = latency;
+        }
+    }
+
+    private void remember(DisasterVictim victim) {
+        int id = victim.getAssignedSocialID();
+        String name = nameKey(victim);
+        String previous = knownNames.put(id, name);
+        if (previous != null && !previous.equals(name)) {
+            removeFrom(knownByName, previous, id);
+        }
+        known.put(id, victim);
+        knownByName.computeIfAbsent(name, key -> new HashSet<>()).add(id);
+    }
+
+    private void forget(int socialId) {
+        known.remove(socialId);
+        String name = knownNames.remove(socialId);
+        if (name != null) {
+            removeFrom(knownByName, name, socialId);
+        }
+    }
+
+    private static <K, V> void removeFrom(Map<K, ? extends Collection<V>> index, K key, V value) {
+        Collection<V> values = index.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static String nameKey(DisasterVictim victim) {
+        String last = victim.getLastName();
+        return MissingPersonMatcher.fold(last == null || last.isEmpty()
+                ? victim.getFirstName() : victim.getFirstName() + " " + last);
+    }
+
+    // Waits until every event submitted before the call has been applied; false on timeout
+    public boolean awaitApplied(long timeout, TimeUnit unit) throws InterruptedException {
+        if (worker == null) {
+            processPending();
+            return true;
+        }
+        CountDownLatch applied = new CountDownLatch(1);
+        submit(enqueuedAt -> applied.countDown());
+        return closed || applied.await(timeout, unit);
+    }
+
+    // Waits up to the timeout for the next match
+    public Notification poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return notifications.poll(timeout, unit);
+    }
+
+    // Moves every waiting match into the collection; returns how many were moved
+    public int drainNotifications(Collection<Notification> into) {
+        return notifications.drainTo(into);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = worker;
+        if (thread != null) {
+            events.add(STOP);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getOpenInquiryCount() {
+        return openCount;
+    }
+
+    public int getPendingEventCount() {
+        return events.size();
+    }
+
+    public long getEventsApplied() {
+        return eventsApplied.get();
+    }
+
+    public long getFailedEventCount() {
+        return failedEvents.get();
+    }
+
+    public long getEmittedCount() {
+        return emitted.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    public long getMeanLatencyNanos() {
+        long count = emitted.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / count;
+    }
+
+    // Latency percentile (0-100) over the most recent matches
+    public long getLatencyPercentileNanos(double percentile) {
+        long[] window;
+        synchronized (recentLatencies) {
+            int filled = (int) Math.min(emitted.get(), LATENCY_WINDOW);
+            window = Arrays.copyOf(recentLatencies, filled);
+        }
+        if (window.length == 0) {
+            return 0;
+        }
+        Arrays.sort(window);
+        int index = (int) Math.ceil(percentile / 100.0 * window.length) - 1;
+        return window[Math.max(0, Math.min(index, window.length - 1))];
+    }
+
+    public String getStats() {
+        return "open=" + openCount
+                + " pendingEvents=" + events.size()
+                + " events=" + eventsApplied.get()
+                + " matches=" + emitted.get()
+                + " dropped=" + dropped.get()
+                + " failed=" + failedEvents.get()
+                + String.format(" latency mean=%.2fms p99=%.2fms max=%.2fms", getMeanLatencyNanos() / 1e6,
+                        getLatencyPercentileNanos(99) / 1e6, maxLatencyNanos / 1e6);
+    }
+}
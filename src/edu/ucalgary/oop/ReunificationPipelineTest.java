@@ -0,0 +1,130 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ReunificationPipelineTest {
+    private VictimRegistry registry;
+    private ReunificationPipeline pipeline;
+    private Location shelter;
+
+    @Before
+    public void setUp() {
+        registry = new VictimRegistry();
+        pipeline = ReunificationPipeline.following(registry);
+        shelter = new Location("TELUS", "136 8 Ave SE");
+    }
+
+    private ReliefService inquiryFor(String name) {
+        return new ReliefService(new Inquirer("Chinoso", "Nwosu", "555-9876", null),
+                DisasterVictim.soughtPerson(name), "2025-01-02", "Seeking family", null);
+    }
+
+    private List<ReunificationPipeline.Notification> drain() {
+        pipeline.processPending();
+        List<ReunificationPipeline.Notification> matches = new ArrayList<>();
+        pipeline.drainNotifications(matches);
+        return matches;
+    }
+
+    @Test
+    public void testIntakeMatchesOpenInquiry() {
+        ReliefService inquiry = inquiryFor("Aurélie Dubois");
+        pipeline.openInquiry(inquiry);
+        assertTrue("Nobody should match before the intake", drain().isEmpty());
+
+        DisasterVictim victim = new DisasterVictim("Aurelie", "2025-01-03");
+        victim.setLastName("Dubois");
+        registry.add(victim);
+        List<ReunificationPipeline.Notification> matches = drain();
+        assertEquals("The new intake should match the inquiry", 1, matches.size());
+        assertSame("The match should name the victim", victim, matches.get(0).getVictim());
+        assertSame("The match should carry the inquiry", inquiry, matches.get(0).getInquiry());
+        assertEquals("The intake should be the source", ReunificationPipeline.Source.INTAKE, matches.get(0).getSource());
+        assertTrue("Latency should be measured", matches.get(0).getLatencyNanos() >= 0);
+    }
+
+    @Test
+    public void testOccupancyMatchesWithLocation() {
+        ReliefService inquiry = inquiryFor("Kai");
+        pipeline.openInquiry(inquiry);
+        DisasterVictim victim = new DisasterVictim("Kai", "2025-01-03");
+        assertTrue("The shelter has room", pipeline.admit(shelter, victim));
+        List<ReunificationPipeline.Notification> matches = drain();
+        assertEquals("The arrival should match the inquiry", 1, matches.size());
+        assertSame("The match should say where the victim is", shelter, matches.get(0).getLocation());
+        assertEquals("Occupancy should be the source", ReunificationPipeline.Source.OCCUPANCY, matches.get(0).getSource());
+    }
+
+    @Test
+    public void testNewInquiryChecksCurrentOccupants() {
+        DisasterVictim victim = new DisasterVictim("Mei", "2025-01-03");
+        shelter.addOccupant(victim);
+        pipeline.trackLocation(shelter);
+        drain();
+
+        pipeline.openInquiry(inquiryFor("mei"));
+        List<ReunificationPipeline.Notification> matches = drain();
+        assertEquals("The new inquiry should find the occupant", 1, matches.size());
+        assertEquals("The inquiry should be the source", ReunificationPipeline.Source.INQUIRY, matches.get(0).getSource());
+        assertSame("The occupant's location should be reported", shelter, matches.get(0).getLocation());
+    }
+
+    @Test
+    public void testInquiryForRegisteredVictimMatchesAtOnce() {
+        DisasterVictim victim = new DisasterVictim("Freda", "2025-01-03");
+        registry.add(victim);
+        drain();
+        ReliefService inquiry = new ReliefService(new Inquirer("Kai", null, null, null), victim, "2025-01-04", null, null);
+        pipeline.openInquiry(inquiry);
+        assertEquals("An inquiry naming a registered victim should match at once", 1, drain().size());
+    }
+
+    @Test
+    public void testMatchesAreReportedOnce() {
+        pipeline.openInquiry(inquiryFor("Kai"));
+        DisasterVictim victim = new DisasterVictim("Kai", "2025-01-03");
+        registry.add(victim);
+        registry.rename(victim, "Kai", null);
+        assertEquals("The same victim should only be reported once per inquiry", 1, drain().size());
+    }
+
+    @Test
+    public void testClosedInquiryStopsMatching() {
+        ReliefService inquiry = inquiryFor("Kai");
+        pipeline.openInquiry(inquiry);
+        pipeline.closeInquiry(inquiry);
+        registry.add(new DisasterVictim("Kai", "2025-01-03"));
+        assertTrue("A closed inquiry should not match", drain().isEmpty());
+        assertEquals("No inquiry should remain open", 0, pipeline.getOpenInquiryCount());
+    }
+
+    @Test
+    public void testWorkerEmitsAsynchronously() throws InterruptedException {
+        pipeline.start();
+        pipeline.openInquiry(inquiryFor("Kai"));
+        registry.add(new DisasterVictim("Kai", "2025-01-03"));
+        ReunificationPipeline.Notification match = pipeline.poll(5, TimeUnit.SECONDS);
+        pipeline.close();
+        assertNotNull("The worker should emit the match", match);
+        assertEquals("The match should be counted", 1, pipeline.getEmittedCount());
+        assertTrue("The maximum latency should cover the match", pipeline.getMaxLatencyNanos() >= match.getLatencyNanos());
+    }
+
+    @Test
+    public void testAwaitAppliedWaitsForEarlierEvents() throws InterruptedException {
+        pipeline.start();
+        pipeline.openInquiry(inquiryFor("Kai"));
+        pipeline.admit(shelter, new DisasterVictim("Kai", "2025-01-03"));
+        assertTrue("Earlier events should be applied in time", pipeline.awaitApplied(5, TimeUnit.SECONDS));
+        List<ReunificationPipeline.Notification> matches = new ArrayList<>();
+        pipeline.drainNotifications(matches);
+        pipeline.close();
+        assertEquals("The admission should already have matched", 1, matches.size());
+        assertSame("The match should name the location", shelter, matches.get(0).getLocation());
+    }
+}
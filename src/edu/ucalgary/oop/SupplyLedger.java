@@ -0,0 +1,205 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stock of each supply type at each location.
+// Every (location, type) pair has its own atomic counters, so desks working on different
+// stock never contend, and desks sharing stock contend on a single compare-and-set.
+// An allocation first reserves quantity, then either commits it or releases it back, and
+// available stock can never go negative.
+public class SupplyLedger {
+    private final Map<Key, Stock> stock = new ConcurrentHashMap<>();
+
+    // A location and supply type, compared case-insensitively
+    public static final class Key {
+        private final String location;
+        private final String type;
+
+        public Key(String location, String type) {
+            this.location = location.trim().toLowerCase(Locale.ROOT);
+            this.type = type.trim().toLowerCase(Locale.ROOT);
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return location.equals(key.location) && type.equals(key.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(location, type);
+        }
+
+        @Override
+        public String toString() {
+            return location + "/" + type;
+        }
+    }
+
+    // Counters for one key
+    private static final class Stock {
+        private final AtomicLong available = new AtomicLong();
+        private final AtomicLong reserved = new AtomicLong();
+        private final AtomicLong allocated = new AtomicLong();
+    }
+
+    // Quantity held back for one pending allocation
+    public final class Reservation {
+        private static final int PENDING = 0;
+        private static final int COMMITTED = 1;
+        private static final int RELEASED = 2;
+
+        private final Key key;
+        private final int quantity;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Reservation(Key key, int quantity) {
+            this.key = key;
+            this.quantity = quantity;
+        }
+
+        public Key getKey() {
+            return key;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        // Makes the allocation final; returns false if it was already committed or released
+        public boolean commit() {
+            if (!state.compareAndSet(PENDING, COMMITTED)) {
+                return false;
+            }
+            Stock counters = stock.get(key);
+            counters.reserved.addAndGet(-quantity);
+            counters.allocated.addAndGet(quantity);
+            return true;
+        }
+
+        // Returns the quantity to available stock; returns false if already committed or released
+        public boolean release() {
+            if (!state.compareAndSet(PENDING, RELEASED)) {
+                return false;
+            }
+            Stock counters = stock.get(key);
+            counters.reserved.addAndGet(-quantity);
+            counters.available.addAndGet(quantity);
+            return true;
+        }
+
+        public boolean isPending() {
+            return state.get() == PENDING;
+        }
+    }
+
+    private Stock stockFor(Key key) {
+        return stock.computeIfAbsent(key, k -> new Stock());
+    }
+
+    // Adds newly received stock
+    public void restock(String location, String type, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        stockFor(new Key(location, type)).available.addAndGet(quantity);
+    }
+
+    // Holds back quantity for an allocation, or returns null if there is not enough stock
+    public Reservation reserve(String location, String type, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        Key key = new Key(location, type);
+        Stock counters = stock.get(key);
+        if (counters == null) {
+            return null;
+        }
+        while (true) {
+            long current = counters.available.get();
+            if (current < quantity) {
+                return null;
+            }
+            if (counters.available.compareAndSet(current, current - quantity)) {
+                counters.reserved.addAndGet(quantity);
+                return new Reservation(key, quantity);
+            }
+        }
+    }
+
+    // Reserve and commit in one step; returns false if there is not enough stock
+    public boolean allocate(String location, String type, int quantity) {
+        Reservation reservation = reserve(location, type, quantity);
+        return reservation != null && reservation.commit();
+    }
+
+    // Non-blocking read of stock that can still be reserved
+    public long getAvailable(String location, String type) {
+        Stock counters = stock.get(new Key(location, type));
+        return counters == null ? 0 : counters.available.get();
+    }
+
+    public long getReserved(String location, String type) {
+        Stock counters = stock.get(new Key(location, type));
+        return counters == null ? 0 : counters.reserved.get();
+    }
+
+    public long getAllocated(String location, String type) {
+        Stock counters = stock.get(new Key(location, type));
+        return counters == null ? 0 : counters.allocated.get();
+    }
+
+    // Available quantity of a type summed over all locations
+    public long getTotalAvailable(String type) {
+        String wanted = type.trim().toLowerCase(Locale.ROOT);
+        long total = 0;
+        for (Map.Entry<Key, Stock> entry : stock.entrySet()) {
+            if (entry.getKey().type.equals(wanted)) {
+                total += entry.getValue().available.get();
+            }
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return stock.isEmpty();
+    }
+
+    // Point-in-time list of available stock, one Supply per key
+    public List<Supply> snapshot(String location) {
+        String wanted = location.trim().toLowerCase(Locale.ROOT);
+        List<Supply> supplies = new ArrayList<>();
+        for (Map.Entry<Key, Stock> entry : stock.entrySet()) {
+            if (entry.getKey().location.equals(wanted)) {
+                supplies.add(new Supply(entry.getKey().type, (int) entry.getValue().available.get()));
+            }
+        }
+        return supplies;
+    }
+
+    public List<Key> keys() {
+        return new ArrayList<>(stock.keySet());
+    }
+}
@@ -0,0 +1,78 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SupplyLedgerTest {
+    private SupplyLedger ledger;
+
+    @Before
+    public void setUp() {
+        ledger = new SupplyLedger();
+        ledger.restock("TELUS", "water", 10);
+    }
+
+    @Test
+    public void testReserveAndCommit() {
+        SupplyLedger.Reservation reservation = ledger.reserve("TELUS", "water", 4);
+        assertNotNull("A reservation within stock should succeed", reservation);
+        assertEquals("Reserved stock should not be available", 6, ledger.getAvailable("TELUS", "water"));
+        assertEquals("Reserved stock should be tracked", 4, ledger.getReserved("TELUS", "water"));
+        assertTrue("A pending reservation should commit", reservation.commit());
+        assertEquals("Committed stock should be allocated", 4, ledger.getAllocated("TELUS", "water"));
+        assertEquals("Committed stock should no longer be reserved", 0, ledger.getReserved("TELUS", "water"));
+        assertFalse("A committed reservation cannot be released", reservation.release());
+    }
+
+    @Test
+    public void testReleaseReturnsStock() {
+        SupplyLedger.Reservation reservation = ledger.reserve("TELUS", "water", 4);
+        assertTrue("A pending reservation should release", reservation.release());
+        assertEquals("Released stock should be available again", 10, ledger.getAvailable("TELUS", "water"));
+        assertFalse("A released reservation cannot be committed", reservation.commit());
+    }
+
+    @Test
+    public void testCannotOversubscribe() {
+        assertNull("Reserving more than is available should fail", ledger.reserve("TELUS", "water", 11));
+        assertNull("Reserving stock that was never received should fail", ledger.reserve("TELUS", "cot", 1));
+        assertEquals("A failed reservation should not change stock", 10, ledger.getAvailable("TELUS", "water"));
+    }
+
+    @Test
+    public void testKeysIgnoreCase() {
+        ledger.restock(" telus ", "Water", 5);
+        assertEquals("Location and type should be matched case-insensitively", 15, ledger.getAvailable("Telus", "WATER"));
+    }
+
+    @Test
+    public void testTotalAvailableAcrossLocations() {
+        ledger.restock("University of Calgary", "water", 7);
+        ledger.restock("University of Calgary", "blanket", 3);
+        assertEquals("Totals should sum one type over every location", 17, ledger.getTotalAvailable("water"));
+    }
+
+    @Test
+    public void testConcurrentDesksNeverOversubscribe() throws InterruptedException {
+        ledger.restock("TELUS", "blanket", 1000);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService desks = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4000; i++) {
+            desks.execute(() -> {
+                if (ledger.allocate("TELUS", "blanket", 1)) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        desks.shutdown();
+        assertTrue("Allocation desks should finish", desks.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals("Exactly the stocked quantity should be granted", 1000, granted.get());
+        assertEquals("No stock should remain", 0, ledger.getAvailable("TELUS", "blanket"));
+        assertEquals("Everything granted should be allocated", 1000, ledger.getAllocated("TELUS", "blanket"));
+    }
+}
@@ -0,0 +1,246 @@
+package edu.ucalgary.oop;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+// Immutable set of translations for one language file.
+// Keys are interned once into small integer ids shared by every catalog, and each catalog
+// is just an array of values indexed by that id, so a lookup is a map read plus an array
+// read with no locking. The XML is streamed with StAX and compiled into a binary cache
+// file next to it; the cache is reused for as long as the XML's mtime and size match.
+// Loaded catalogs stay resident, so switching between languages does not reload anything.
+public final class TranslationCatalog {
+    public static final String CACHE_SUFFIX = ".cat";
+    private static final int CACHE_MAGIC = 0x54524331; // "TRC1"
+
+    private static final Map<String, Integer> keyIds = new ConcurrentHashMap<>();
+    private static final Map<Path, TranslationCatalog> resident = new ConcurrentHashMap<>();
+    private static final TranslationCatalog EMPTY = new TranslationCatalog(null, new String[0], 0, 0, false);
+
+    private final Path source;
+    private final String[] values;
+    private final long sourceModified;
+    private final long sourceSize;
+    private final boolean fromCache;
+
+    private TranslationCatalog(Path source, String[] values, long sourceModified, long sourceSize, boolean fromCache) {
+        this.source = source;
+        this.values = values;
+        this.sourceModified = sourceModified;
+        this.sourceSize = sourceSize;
+        this.fromCache = fromCache;
+    }
+
+    // Catalog with no translations; every key falls back to itself
+    public static TranslationCatalog empty() {
+        return EMPTY;
+    }
+
+    // Returns the id for a key, assigning the next free id the first time it is seen
+    public static int keyId(String key) {
+        Integer id = keyIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (keyIds) {
+            return keyIds.computeIfAbsent(key, k -> keyIds.size());
+        }
+    }
+
+    // Returns the resident catalog for the file, loading it only if it is new or has changed
+    public static TranslationCatalog load(Path xmlFile) throws IOException {
+        Path file = xmlFile.toAbsolutePath().normalize();
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        long size = Files.size(file);
+        TranslationCatalog current = resident.get(file);
+        if (current != null && current.sourceModified == modified && current.sourceSize == size) {
+            return current;
+        }
+        TranslationCatalog loaded = readCache(file, modified, size);
+        if (loaded == null) {
+            loaded = compile(file, modified, size);
+            writeCache(loaded);
+        }
+        resident.put(file, loaded);
+        return loaded;
+    }
+
+    // Drops every resident catalog; mainly for tests
+    static void clearResident() {
+        resident.clear();
+    }
+
+    static int residentCount() {
+        return resident.size();
+    }
+
+    // Translated value for the key, or the key itself when this catalog has none
+    public String translate(String key) {
+        Integer id = keyIds.get(key);
+        String value = id == null ? null : get(id);
+        return value == null ? key : value;
+    }
+
+    // Translated value for an interned key id, or null when this catalog has none
+    public String get(int keyId) {
+        String[] table = values;
+        return keyId >= 0 && keyId < table.length ? table[keyId] : null;
+    }
+
+    public int size() {
+        int count = 0;
+        for (String value : values) {
+            if (value != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public Path getSource() {
+        return source;
+    }
+
+    public boolean isFromCache() {
+        return fromCache;
+    }
+
+    public static Path cacheFileFor(Path xmlFile) {
+        return xmlFile.resolveSibling(xmlFile.getFileName() + CACHE_SUFFIX);
+    }
+
+    // Streams <translation><key/><value/></translation> elements out of the XML
+    private static TranslationCatalog compile(Path file, long modified, long size) throws IOException {
+        List<String> keys = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                String key = null;
+                String value = null;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (name.equals("translation")) {
+                            key = null;
+                            value = null;
+                        } else if (name.equals("key")) {
+                            key = reader.getElementText();
+                        } else if (name.equals("value")) {
+                            value = reader.getElementText();
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT
+                            && reader.getLocalName().equals("translation") && key != null && value != null) {
+                        keys.add(key);
+                        texts.add(value);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed language file " + file + ": " + e.getMessage(), e);
+        }
+        return build(file, keys, texts, modified, size, false);
+    }
+
+    private static TranslationCatalog build(Path file, List<String> keys, List<String> texts,
+                                            long modified, long size, boolean fromCache) {
+        int[] ids = new int[keys.size()];
+        int highest = -1;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = keyId(keys.get(i));
+            highest = Math.max(highest, ids[i]);
+        }
+        String[] values = new String[highest + 1];
+        for (int i = 0; i < ids.length; i++) {
+            values[ids[i]] = texts.get(i);
+        }
+        return new TranslationCatalog(file, values, modified, size, fromCache);
+    }
+
+    // Cache layout: magic, source mtime, source size, entry count, then key/value pairs
+    private static void writeCache(TranslationCatalog catalog) {
+        Path cache = cacheFileFor(catalog.source);
+        Path temp = cache.resolveSibling(cache.getFileName() + ".tmp");
+        String[] keysById = keysById();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeLong(catalog.sourceModified);
+                out.writeLong(catalog.sourceSize);
+                out.writeInt(catalog.size());
+                for (int id = 0; id < catalog.values.length; id++) {
+                    if (catalog.values[id] != null) {
+                        out.writeUTF(keysById[id]);
+                        out.writeUTF(catalog.values[id]);
+                    }
+                }
+            }
+            Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // The cache only speeds up the next start; the compiled catalog is still usable
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static TranslationCatalog readCache(Path file, long modified, long size) {
+        Path cache = cacheFileFor(file);
+        if (!Files.isRegularFile(cache)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cache)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readLong() != modified || in.readLong() != size) {
+                return null;
+            }
+            int count = in.readInt();
+            List<String> keys = new ArrayList<>(count);
+            List<String> texts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                keys.add(in.readUTF());
+                texts.add(in.readUTF());
+            }
+            return build(file, keys, texts, modified, size, true);
+        } catch (IOException e) {
+            // A stale or truncated cache is simply rebuilt from the XML
+            return null;
+        }
+    }
+
+    private static String[] keysById() {
+        String[] keys = new String[keyIds.size()];
+        for (Map.Entry<String, Integer> entry : keyIds.entrySet()) {
+            if (entry.getValue() < keys.length) {
+                keys[entry.getValue()] = entry.getKey();
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return "TranslationCatalog[" + source + ", " + size() + " entries" + (fromCache ? ", cached" : "") + "]";
+    }
+}
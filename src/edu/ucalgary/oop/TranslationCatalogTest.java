@@ -0,0 +1,94 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class TranslationCatalogTest {
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("translation-test");
+        TranslationCatalog.clearResident();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TranslationCatalog.clearResident();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private Path writeLanguage(String name, String... pairs) throws IOException {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<translations>\n");
+        for (int i = 0; i < pairs.length; i += 2) {
+            xml.append("  <translation><key>").append(pairs[i]).append("</key><value>")
+                    .append(pairs[i + 1]).append("</value></translation>\n");
+        }
+        xml.append("</translations>\n");
+        Path file = directory.resolve(name);
+        Files.writeString(file, xml);
+        return file;
+    }
+
+    @Test
+    public void testTranslateAndFallback() throws IOException {
+        TranslationCatalog catalog = TranslationCatalog.load(writeLanguage("en-CA.xml", "main_menu", "Main Menu", "exiting", "Exiting..."));
+        assertEquals("A known key should be translated", "Main Menu", catalog.translate("main_menu"));
+        assertEquals("An unknown key should fall back to itself", "missing_key", catalog.translate("missing_key"));
+        assertEquals("Both translations should be loaded", 2, catalog.size());
+        assertEquals("Lookups by key id should match lookups by key", "Exiting...", catalog.get(TranslationCatalog.keyId("exiting")));
+    }
+
+    @Test
+    public void testCompiledCacheIsReused() throws IOException {
+        Path file = writeLanguage("en-CA.xml", "main_menu", "Main Menu");
+        assertFalse("The first load should compile the XML", TranslationCatalog.load(file).isFromCache());
+        assertTrue("The compiled cache should be written beside the XML", Files.exists(TranslationCatalog.cacheFileFor(file)));
+
+        TranslationCatalog.clearResident();
+        TranslationCatalog cached = TranslationCatalog.load(file);
+        assertTrue("A restart should read the compiled cache", cached.isFromCache());
+        assertEquals("The cached catalog should hold the same translations", "Main Menu", cached.translate("main_menu"));
+    }
+
+    @Test
+    public void testChangedFileIsRecompiled() throws IOException {
+        Path file = writeLanguage("en-CA.xml", "main_menu", "Main Menu");
+        TranslationCatalog.load(file);
+        writeLanguage("en-CA.xml", "main_menu", "Menu principal");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+
+        TranslationCatalog reloaded = TranslationCatalog.load(file);
+        assertFalse("A stale cache should not be used", reloaded.isFromCache());
+        assertEquals("The new translation should be served", "Menu principal", reloaded.translate("main_menu"));
+    }
+
+    @Test
+    public void testSeveralLanguagesStayResident() throws IOException {
+        Path english = writeLanguage("en-CA.xml", "exit_program", "Exit");
+        Path french = writeLanguage("fr-CA.xml", "exit_program", "Quitter");
+        TranslationCatalog en = TranslationCatalog.load(english);
+        TranslationCatalog fr = TranslationCatalog.load(french);
+        assertEquals("Each language should keep its own value", "Exit", en.translate("exit_program"));
+        assertEquals("Each language should keep its own value", "Quitter", fr.translate("exit_program"));
+        assertSame("Switching back should reuse the resident catalog", en, TranslationCatalog.load(english));
+        assertEquals("Both catalogs should be resident", 2, TranslationCatalog.residentCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedFile() throws IOException {
+        Path file = directory.resolve("xx-XX.xml");
+        Files.writeString(file, "<translations><translation><key>a</key>");
+        TranslationCatalog.load(file);
+    }
+}
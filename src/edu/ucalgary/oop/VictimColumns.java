@@ -0,0 +1,359 @@
+package edu.ucalgary.oop;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Column-per-field copy of the victim population for population-wide questions.
+// Social ID, birth and entry epoch days, location and family group are int arrays, gender is
+// a byte array and names are codes into per-column dictionaries, so a scan reads a few
+// contiguous arrays instead of chasing a million objects. A Filter keeps one byte per row
+// (1 selected, 0 not); every condition and aggregate is a straight loop over arrays with
+// no branches in the body, which the JIT can unroll and vectorise. The columns are a copy:
+// build them from the registry when a report is wanted, from one thread, then scan freely.
+public class VictimColumns {
+    public static final int NONE = -1; // No location or family group
+    public static final int UNKNOWN_GENDER = DisasterVictim.Gender.values().length; // Gender slot for "not recorded"
+
+    // Layout assumed by the footprint estimates: 64-bit JVM with compressed references
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    private int size;
+    private int[] socialIds = new int[16];
+    private int[] birthDays = new int[16];
+    private int[] entryDays = new int[16];
+    private byte[] genders = new byte[16];
+    private int[] locations = new int[16];
+    private int[] familyGroups = new int[16];
+    private int[] firstNames = new int[16];
+    private int[] lastNames = new int[16];
+    private final Dictionary firstNameDictionary = new Dictionary();
+    private final Dictionary lastNameDictionary = new Dictionary();
+    private final Dictionary locationDictionary = new Dictionary();
+
+    // Strings stored once each and referred to by position
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String value(int code) {
+            return code == NONE ? null : values.get(code);
+        }
+
+        // One flag per code, set where the normalised value matches
+        byte[] matching(String wanted) {
+            String key = VictimRegistry.normalize(wanted);
+            byte[] flags = new byte[values.size() + 1]; // Last slot stands for NONE
+            for (int i = 0; i < values.size(); i++) {
+                flags[i] = (byte) (VictimRegistry.normalize(values.get(i)).equals(key) ? 1 : 0);
+            }
+            flags[values.size()] = (byte) (key.isEmpty() ? 1 : 0);
+            return flags;
+        }
+
+        long footprintBytes() {
+            // Hash table and list array, then a map node, a boxed code and the text per entry
+            long bytes = align(ARRAY_HEADER + (long) REFERENCE * codes.size() * 2)
+                    + align(ARRAY_HEADER + (long) REFERENCE * values.size());
+            for (String value : values) {
+                bytes += 32 + 16 + stringBytes(value);
+            }
+            return bytes;
+        }
+    }
+
+    // Copies every victim, placing each at the location holding it and in its family group;
+    // locations and families may be empty
+    public static VictimColumns of(Collection<DisasterVictim> victims, Collection<Location> locations,
+                                   FamilyClusterer families) {
+        Map<Integer, String> locationOf = new HashMap<>();
+        for (Location location : locations) {
+            location.forEachOccupant(occupant -> locationOf.put(occupant.getAssignedSocialID(), location.getName()));
+        }
+        VictimColumns columns = new VictimColumns();
+        columns.reserve(victims.size());
+        for (DisasterVictim victim : victims) {
+            FamilyGroup group = families == null ? null : families.groupOf(victim);
+            columns.add(victim, locationOf.get(victim.getAssignedSocialID()), group == null ? NONE : group.getGroupId());
+        }
+        return columns;
+    }
+
+    // Appends one row
+    public void add(DisasterVictim victim, String locationName, int familyGroupId) {
+        reserve(size + 1);
+        socialIds[size] = victim.getAssignedSocialID();
+        birthDays[size] = victim.getDateOfBirthEpochDay();
+        entryDays[size] = victim.getEntryEpochDay();
+        genders[size] = (byte) (victim.getGender() == null ? UNKNOWN_GENDER : victim.getGender().ordinal());
+        locations[size] = locationDictionary.code(locationName);
+        familyGroups[size] = familyGroupId;
+        firstNames[size] = firstNameDictionary.code(victim.getFirstName());
+        lastNames[size] = lastNameDictionary.code(victim.getLastName());
+        size++;
+    }
+
+    private void reserve(int rows) {
+        if (rows <= socialIds.length) {
+            return;
+        }
+        int capacity = Math.max(rows, socialIds.length * 2);
+        socialIds = Arrays.copyOf(socialIds, capacity);
+        birthDays = Arrays.copyOf(birthDays, capacity);
+        entryDays = Arrays.copyOf(entryDays, capacity);
+        genders = Arrays.copyOf(genders, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        familyGroups = Arrays.copyOf(familyGroups, capacity);
+        firstNames = Arrays.copyOf(firstNames, capacity);
+        lastNames = Arrays.copyOf(lastNames, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getSocialId(int row) {
+        return socialIds[row];
+    }
+
+    public String getFirstName(int row) {
+        return firstNameDictionary.value(firstNames[row]);
+    }
+
+    public String getLastName(int row) {
+        return lastNameDictionary.value(lastNames[row]);
+    }
+
+    public String getLocation(int row) {
+        return locationDictionary.value(locations[row]);
+    }
+
+    // Starts a filter with every row selected
+    public Filter filter() {
+        return new Filter();
+    }
+
+    // Selected rows, narrowed by each condition in turn
+    public final class Filter {
+        private final byte[] selected = new byte[size];
+
+        private Filter() {
+            Arrays.fill(selected, (byte) 1);
+        }
+
+        // Born on or after from and on or before to, as epoch days; unknown births never match
+        public Filter bornBetween(int fromEpochDay, int toEpochDay) {
+            int[] births = birthDays;
+            for (int i = 0; i < selected.length; i++) {
+                int birth = births[i];
+                selected[i] &= (byte) (birth >= fromEpochDay & birth <= toEpochDay & birth != IsoDate.INVALID ? 1 : 0);
+            }
+            return this;
+        }
+
+        // Younger than the given number of whole years on asOfEpochDay
+        public Filter youngerThan(int years, int asOfEpochDay) {
+            int cutoff = (int) LocalDate.ofEpochDay(asOfEpochDay).minusYears(years).toEpochDay();
+            return bornBetween(cutoff + 1, asOfEpochDay);
+        }
+
+        public Filter enteredBetween(int fromEpochDay, int toEpochDay) {
+            int[] entries = entryDays;
+            for (int i = 0; i < selected.length; i++) {
+                int entry = entries[i];
+                selected[i] &= (byte) (entry >= fromEpochDay & entry <= toEpochDay ? 1 : 0);
+            }
+            return this;
+        }
+
+        // Gender, or null for victims with none recorded
+        public Filter gender(DisasterVictim.Gender gender) {
+            byte wanted = (byte) (gender == null ? UNKNOWN_GENDER : gender.ordinal());
+            for (int i = 0; i < selected.length; i++) {
+                selected[i] &= (byte) (genders[i] == wanted ? 1 : 0);
+            }
+            return this;
+        }
+
+        // Victims held at the named location, or at none for null
+        public Filter atLocation(String locationName) {
+            Integer code = locationName == null ? Integer.valueOf(NONE) : locationDictionary.codes.get(locationName);
+            int wanted = code == null ? Integer.MIN_VALUE : code;
+            for (int i = 0; i < selected.length; i++) {
+                selected[i] &= (byte) (locations[i] == wanted ? 1 : 0);
+            }
+            return this;
+        }
+
+        public Filter inFamilyGroup(int familyGroupId) {
+            for (int i = 0; i < selected.length; i++) {
+                selected[i] &= (byte) (familyGroups[i] == familyGroupId ? 1 : 0);
+            }
+            return this;
+        }
+
+        // First name compared the way VictimRegistry compares it, ignoring case and spaces
+        public Filter firstName(String firstName) {
+            byte[] matches = firstNameDictionary.matching(firstName);
+            int none = matches.length - 1;
+            for (int i = 0; i < selected.length; i++) {
+                int code = firstNames[i];
+                selected[i] &= matches[code == NONE ? none : code];
+            }
+            return this;
+        }
+
+        public int count() {
+            int count = 0;
+            for (byte flag : selected) {
+                count += flag;
+            }
+            return count;
+        }
+
+        // Social IDs of the selected rows, in row order
+        public int[] socialIds() {
+            int[] ids = new int[count() + 1]; // Unselected rows write to the slot after the last
+            int next = 0;
+            for (int i = 0; i < selected.length; i++) {
+                ids[next] = socialIds[i];
+                next += selected[i];
+            }
+            return Arrays.copyOf(ids, next);
+        }
+
+        // Selected rows per location name; victims at no location are counted under null
+        public Map<String, Integer> countByLocation() {
+            int[] counts = new int[locationDictionary.values.size() + 1]; // Slot 0 is NONE
+            for (int i = 0; i < selected.length; i++) {
+                counts[locations[i] + 1] += selected[i];
+            }
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (int code = NONE; code < counts.length - 1; code++) {
+                if (counts[code + 1] > 0) {
+                    result.put(locationDictionary.value(code), counts[code + 1]);
+                }
+            }
+            return result;
+        }
+
+        // Selected rows per gender ordinal, with UNKNOWN_GENDER as the last slot
+        public int[] countByGender() {
+            int[] counts = new int[UNKNOWN_GENDER + 1];
+            for (int i = 0; i < selected.length; i++) {
+                counts[genders[i]] += selected[i];
+            }
+            return counts;
+        }
+
+        // Selected rows per entry date (YYYY-MM-DD), each split by gender as countByGender is
+        public SortedMap<String, int[]> countByEntryDateAndGender() {
+            if (selected.length == 0) {
+                return Collections.emptySortedMap();
+            }
+            int first = Integer.MAX_VALUE;
+            int last = Integer.MIN_VALUE;
+            for (int i = 0; i < selected.length; i++) {
+                first = Math.min(first, entryDays[i]);
+                last = Math.max(last, entryDays[i]);
+            }
+            int slots = UNKNOWN_GENDER + 1;
+            int[] counts = new int[(last - first + 1) * slots];
+            for (int i = 0; i < selected.length; i++) {
+                counts[(entryDays[i] - first) * slots + genders[i]] += selected[i];
+            }
+            SortedMap<String, int[]> result = new TreeMap<>();
+            for (int day = 0; day <= last - first; day++) {
+                int[] byGender = Arrays.copyOfRange(counts, day * slots, (day + 1) * slots);
+                if (Arrays.stream(byGender).sum() > 0) {
+                    result.put(IsoDate.format(first + day), byGender);
+                }
+            }
+            return result;
+        }
+    }
+
+    // Approximate heap held by the columns and their dictionaries
+    public long footprintBytes() {
+        long bytes = align(ARRAY_HEADER + 4L * socialIds.length) * 7 + align(ARRAY_HEADER + genders.length);
+        return bytes + firstNameDictionary.footprintBytes() + lastNameDictionary.footprintBytes()
+                + locationDictionary.footprintBytes();
+    }
+
+    // Approximate heap held by the victims themselves: each object, its lists and maps and what
+    // they hold, with every distinct String counted once
+    public static long estimateObjectBytes(Collection<DisasterVictim> victims) {
+        Map<Object, Boolean> seen = new IdentityHashMap<>();
+        long bytes = 0;
+        for (DisasterVictim victim : victims) {
+            bytes += align(HEADER + 13 * REFERENCE); // 13 fields, all 4 bytes wide
+            bytes += 3 * align(HEADER + 3 * REFERENCE); // Relation, medical and belonging ArrayLists
+            bytes += align(HEADER + 12 * REFERENCE); // Belonging totals LinkedHashMap
+            bytes += string(seen, victim.getFirstName()) + string(seen, victim.getLastName())
+                    + string(seen, victim.getComments());
+            FamilyRelation[] relations = victim.getFamilyConnections();
+            bytes += list(relations.length);
+            for (FamilyRelation relation : relations) {
+                if (seen.put(relation, Boolean.TRUE) == null) {
+                    bytes += align(HEADER + 3 * REFERENCE) + string(seen, relation.getRelationshipTo());
+                }
+            }
+            MedicalRecord[] records = victim.getMedicalRecords();
+            bytes += list(records.length);
+            for (MedicalRecord record : records) {
+                bytes += align(HEADER + 3 * REFERENCE) + string(seen, record.getTreatmentDetails());
+            }
+            Supply[] belongings = victim.getPersonalBelongings();
+            bytes += list(belongings.length) * 2; // The list and its cached array
+            for (Supply supply : belongings) {
+                bytes += align(HEADER + 2 * REFERENCE) + string(seen, supply.getType());
+            }
+            int types = victim.getBelongingQuantities().size();
+            if (types > 0) {
+                // Default 16-slot table, then a linked entry and a boxed total per type
+                bytes += align(ARRAY_HEADER + 16 * REFERENCE) + types * (align(HEADER + 6 * REFERENCE) + 16);
+            }
+        }
+        return bytes;
+    }
+
+    private static long list(int elements) {
+        return elements == 0 ? 0 : align(ARRAY_HEADER + (long) REFERENCE * elements);
+    }
+
+    private static long string(Map<Object, Boolean> seen, String value) {
+        return value == null || seen.put(value, Boolean.TRUE) != null ? 0 : stringBytes(value);
+    }
+
+    private static long stringBytes(String value) {
+        return align(HEADER + 3 * REFERENCE) + align(ARRAY_HEADER + value.length()); // Latin-1 text
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
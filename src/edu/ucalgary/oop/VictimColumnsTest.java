@@ -0,0 +1,95 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+public class VictimColumnsTest {
+    private static final int TODAY = IsoDate.parse("2025-01-20");
+    private List<DisasterVictim> victims;
+    private Location telus;
+    private Location shelter;
+    private FamilyClusterer families;
+
+    @Before
+    public void setUp() {
+        victims = new ArrayList<>();
+        telus = new Location("TELUS", "136 8 Ave SE");
+        shelter = new Location("Shelter", "1 Main St");
+        families = new FamilyClusterer();
+        victims.add(victim("Freda", "2025-01-15", "2022-03-01", DisasterVictim.Gender.WOMAN, telus));
+        victims.add(victim("Kai", "2025-01-15", "2023-06-10", DisasterVictim.Gender.MAN, telus));
+        victims.add(victim("kai ", "2025-01-16", "1987-06-02", DisasterVictim.Gender.MAN, telus));
+        victims.add(victim("Amara", "2025-01-16", "2024-12-01", null, shelter));
+        victims.add(victim("Jonah", "2025-01-16", null, DisasterVictim.Gender.NON_BINARY, null));
+        families.createGroup(3, "Freda");
+        families.assignStoredGroup(victims.get(0), 3);
+        families.assignStoredGroup(victims.get(1), 3);
+    }
+
+    private DisasterVictim victim(String name, String entry, String birth, DisasterVictim.Gender gender, Location location) {
+        DisasterVictim victim = birth == null ? new DisasterVictim(name, entry) : new DisasterVictim(name, entry, birth);
+        victim.setGender(gender);
+        if (location != null) {
+            location.addOccupant(victim);
+        }
+        return victim;
+    }
+
+    private VictimColumns columns() {
+        return VictimColumns.of(victims, List.of(telus, shelter), families);
+    }
+
+    @Test
+    public void testChildrenUnderFivePerLocation() {
+        Map<String, Integer> children = columns().filter().youngerThan(5, TODAY).countByLocation();
+        assertEquals("Two young children are at TELUS", Integer.valueOf(2), children.get("TELUS"));
+        assertEquals("One young child is at the shelter", Integer.valueOf(1), children.get("Shelter"));
+        assertFalse("Unknown birth dates should not count as children", children.containsKey(null));
+    }
+
+    @Test
+    public void testGenderBreakdownByEntryDate() {
+        SortedMap<String, int[]> breakdown = columns().filter().countByEntryDateAndGender();
+        assertEquals("Both entry dates should be present", List.of("2025-01-15", "2025-01-16"),
+                new ArrayList<>(breakdown.keySet()));
+        assertArrayEquals("First day: one man, one woman", new int[] {1, 1, 0, 0}, breakdown.get("2025-01-15"));
+        assertArrayEquals("Second day: one man, one non-binary, one unrecorded", new int[] {1, 0, 1, 1},
+                breakdown.get("2025-01-16"));
+    }
+
+    @Test
+    public void testConditionsCombine() {
+        VictimColumns columns = columns();
+        int[] kais = columns.filter().firstName("KAI").gender(DisasterVictim.Gender.MAN).socialIds();
+        assertEquals("Names should match ignoring case and spaces", 2, kais.length);
+        assertEquals("Rows should come back in order", victims.get(1).getAssignedSocialID(), kais[0]);
+        assertEquals("Family groups should be copied", 2, columns.filter().inFamilyGroup(3).count());
+        assertEquals("Victims at no location can be selected", 1, columns.filter().atLocation(null).count());
+        assertEquals("Entry ranges should be inclusive", 3, columns.filter()
+                .enteredBetween(IsoDate.parse("2025-01-16"), IsoDate.parse("2025-01-16")).count());
+        assertEquals("An unknown location matches nothing", 0, columns.filter().atLocation("Nowhere").count());
+        assertEquals("Gender totals should cover every row", 5, Arrays.stream(columns.filter().countByGender()).sum());
+    }
+
+    @Test
+    public void testColumnsAreSmallerThanTheObjects() {
+        List<DisasterVictim> population = new ArrayList<>();
+        VictimColumns columns = new VictimColumns();
+        for (int i = 0; i < 10_000; i++) {
+            DisasterVictim victim = new DisasterVictim("Victim" + i % 500, 20103);
+            victim.setLastName("Family" + i);
+            population.add(victim);
+            columns.add(victim, "TELUS", VictimColumns.NONE);
+        }
+        assertEquals("Every row should be stored", 10_000, columns.size());
+        assertEquals("Names should be decoded", "Family42", columns.getLastName(42));
+        assertTrue("Columns should take less memory than the objects",
+                columns.footprintBytes() < VictimColumns.estimateObjectBytes(population));
+    }
+}
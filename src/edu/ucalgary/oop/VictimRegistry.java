@@ -0,0 +1,288 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// In-memory index of disaster victims.
+// The primary index is a hash map on the assigned social ID; names and entry dates
+// are kept in sorted secondary indexes so both point lookups and range scans avoid
+// walking the whole population.
+public class VictimRegistry {
+    private final Map<Integer, DisasterVictim> bySocialId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Integer>> byFirstName = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Set<Integer>> byLastName = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Set<Integer>> byEntryDate = new ConcurrentSkipListMap<>(); // Keyed by epoch day
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Notified after the registry changes, while the registry lock is held
+    public interface Listener {
+        default void victimAdded(DisasterVictim victim) {
+        }
+
+        default void victimRemoved(DisasterVictim victim) {
+        }
+
+        default void victimRenamed(DisasterVictim victim) {
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Adds or replaces a victim; returns false if the social ID was already registered
+    public synchronized boolean add(DisasterVictim victim) {
+        DisasterVictim previous = bySocialId.put(victim.getAssignedSocialID(), victim);
+        if (previous != null) {
+            unindex(previous);
+            for (Listener listener : listeners) {
+                listener.victimRemoved(previous);
+            }
+        }
+        index(victim);
+        for (Listener listener : listeners) {
+            listener.victimAdded(victim);
+        }
+        return previous == null;
+    }
+
+    // Same as add for each victim, under one lock; index entries are grouped by key first so
+    // each key is looked up once, which is what makes loading a whole population quick
+    public synchronized void addAll(Collection<DisasterVictim> victims) {
+        for (DisasterVictim victim : victims) {
+            DisasterVictim previous = bySocialId.put(victim.getAssignedSocialID(), victim);
+            if (previous != null && previous != victim) { // The same object re-added keeps its entries
+                unindex(previous);
+                for (Listener listener : listeners) {
+                    listener.victimRemoved(previous);
+                }
+            }
+        }
+        Map<String, List<Integer>> firstNames = new HashMap<>();
+        Map<String, List<Integer>> lastNames = new HashMap<>();
+        Map<Integer, List<Integer>> entryDates = new HashMap<>();
+        for (DisasterVictim victim : victims) {
+            Integer id = victim.getAssignedSocialID();
+            if (bySocialId.get(id) != victim) {
+                continue; // Replaced by a later entry with the same social ID
+            }
+            firstNames.computeIfAbsent(normalize(victim.getFirstName()), k -> new ArrayList<>()).add(id);
+            lastNames.computeIfAbsent(normalize(victim.getLastName()), k -> new ArrayList<>()).add(id);
+            entryDates.computeIfAbsent(victim.getEntryEpochDay(), k -> new ArrayList<>()).add(id);
+        }
+        putAll(byFirstName, firstNames);
+        putAll(byLastName, lastNames);
+        putAll(byEntryDate, entryDates);
+        for (DisasterVictim victim : victims) {
+            for (Listener listener : listeners) {
+                listener.victimAdded(victim);
+            }
+        }
+    }
+
+    public synchronized boolean remove(int socialId) {
+        DisasterVictim removed = bySocialId.remove(socialId);
+        if (removed == null) {
+            return false;
+        }
+        unindex(removed);
+        for (Listener listener : listeners) {
+            listener.victimRemoved(removed);
+        }
+        return true;
+    }
+
+    // Renames a victim and moves it between name index entries
+    public synchronized void rename(DisasterVictim victim, String firstName, String lastName) {
+        boolean registered = bySocialId.get(victim.getAssignedSocialID()) == victim;
+        if (registered) {
+            unindex(victim);
+        }
+        victim.setFirstName(firstName);
+        victim.setLastName(lastName);
+        if (registered) {
+            index(victim);
+            for (Listener listener : listeners) {
+                listener.victimRenamed(victim);
+            }
+        }
+    }
+
+    // Registers a copy made by DisasterVictim.withEntryDate in place of the victim and points
+    // the relations they share at the copy
+    public synchronized void replace(DisasterVictim victim, DisasterVictim copy) {
+        if (victim.getAssignedSocialID() != copy.getAssignedSocialID()) {
+            throw new IllegalArgumentException("A replacement must keep the social ID");
+        }
+        for (FamilyRelation relation : copy.getFamilyConnections()) {
+            if (relation.getPersonOne() == victim) {
+                relation.setPersonOne(copy);
+            }
+            if (relation.getPersonTwo() == victim) {
+                relation.setPersonTwo(copy);
+            }
+        }
+        add(copy);
+    }
+
+    public DisasterVictim get(int socialId) {
+        return bySocialId.get(socialId);
+    }
+
+    public boolean contains(int socialId) {
+        return bySocialId.containsKey(socialId);
+    }
+
+    public int size() {
+        return bySocialId.size();
+    }
+
+    public boolean isEmpty() {
+        return bySocialId.isEmpty();
+    }
+
+    public List<DisasterVictim> findByFirstName(String firstName) {
+        return resolve(byFirstName.get(normalize(firstName)));
+    }
+
+    public List<DisasterVictim> findByLastName(String lastName) {
+        return resolve(byLastName.get(normalize(lastName)));
+    }
+
+    public List<DisasterVictim> findByName(String firstName, String lastName) {
+        List<DisasterVictim> matches = new ArrayList<>();
+        String wantedLast = normalize(lastName);
+        for (DisasterVictim victim : findByFirstName(firstName)) {
+            if (normalize(victim.getLastName()).equals(wantedLast)) {
+                matches.add(victim);
+            }
+        }
+        return matches;
+    }
+
+    // Victims whose normalized first name starts with the prefix, in name order
+    public List<DisasterVictim> findByFirstNamePrefix(String prefix) {
+        String from = normalize(prefix);
+        if (from.isEmpty()) {
+            return all();
+        }
+        List<DisasterVictim> result = new ArrayList<>();
+        for (Map.Entry<String, Set<Integer>> entry : byFirstName.tailMap(from, true).entrySet()) {
+            if (!entry.getKey().startsWith(from)) {
+                break; // Keys are sorted, so no later key has the prefix
+            }
+            result.addAll(resolve(entry.getValue()));
+        }
+        return result;
+    }
+
+    public List<DisasterVictim> findByEntryDate(String entryDate) {
+        return resolve(byEntryDate.get(IsoDate.parse(entryDate)));
+    }
+
+    // Victims who entered between the two YYYY-MM-DD dates, inclusive, in date order
+    public List<DisasterVictim> findByEntryDateBetween(String from, String to) {
+        return findByEntryDateBetween(IsoDate.parseOrThrow(from, "Invalid start date. Expected format: YYYY-MM-DD"),
+                IsoDate.parseOrThrow(to, "Invalid end date. Expected format: YYYY-MM-DD"));
+    }
+
+    // Same as above with both ends given as epoch days
+    public List<DisasterVictim> findByEntryDateBetween(int fromEpochDay, int toEpochDay) {
+        if (fromEpochDay > toEpochDay) {
+            return Collections.emptyList();
+        }
+        return resolveRange(byEntryDate.subMap(fromEpochDay, true, toEpochDay, true));
+    }
+
+    // All victims ordered by social ID
+    public List<DisasterVictim> all() {
+        List<Integer> ids = new ArrayList<>(bySocialId.keySet());
+        Collections.sort(ids);
+        List<DisasterVictim> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            DisasterVictim victim = bySocialId.get(id);
+            if (victim != null) {
+                result.add(victim);
+            }
+        }
+        return result;
+    }
+
+    // All victims in no particular order; a cheaper full copy than all()
+    public List<DisasterVictim> values() {
+        return new ArrayList<>(bySocialId.values());
+    }
+
+    private void index(DisasterVictim victim) {
+        int id = victim.getAssignedSocialID();
+        put(byFirstName, normalize(victim.getFirstName()), id);
+        put(byLastName, normalize(victim.getLastName()), id);
+        put(byEntryDate, victim.getEntryEpochDay(), id);
+    }
+
+    private void unindex(DisasterVictim victim) {
+        int id = victim.getAssignedSocialID();
+        take(byFirstName, normalize(victim.getFirstName()), id);
+        take(byLastName, normalize(victim.getLastName()), id);
+        take(byEntryDate, victim.getEntryEpochDay(), id);
+    }
+
+    private static <K> void put(Map<K, Set<Integer>> index, K key, int id) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private static <K> void putAll(Map<K, Set<Integer>> index, Map<K, List<Integer>> staged) {
+        for (Map.Entry<K, List<Integer>> entry : staged.entrySet()) {
+            index.computeIfAbsent(entry.getKey(), k -> ConcurrentHashMap.newKeySet(entry.getValue().size()))
+                    .addAll(entry.getValue());
+        }
+    }
+
+    private static <K> void take(Map<K, Set<Integer>> index, K key, int id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private List<DisasterVictim> resolve(Set<Integer> ids) {
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        List<DisasterVictim> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            DisasterVictim victim = bySocialId.get(id);
+            if (victim != null) {
+                result.add(victim);
+            }
+        }
+        return result;
+    }
+
+    private List<DisasterVictim> resolveRange(NavigableMap<?, Set<Integer>> range) {
+        List<DisasterVictim> result = new ArrayList<>();
+        for (Set<Integer> ids : range.values()) {
+            result.addAll(resolve(ids));
+        }
+        return result;
+    }
+
+    // Case- and whitespace-insensitive key for name indexes
+    static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+}
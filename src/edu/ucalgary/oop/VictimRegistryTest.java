@@ -0,0 +1,137 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VictimRegistryTest {
+    private VictimRegistry registry;
+    private DisasterVictim aurelie;
+    private DisasterVictim raman;
+    private DisasterVictim nathalie;
+
+    @Before
+    public void setUp() {
+        registry = new VictimRegistry();
+        aurelie = new DisasterVictim("Aurelie", "2025-01-05");
+        aurelie.setLastName("Dupont");
+        raman = new DisasterVictim("Raman", "2025-01-02");
+        raman.setLastName("Narayan");
+        nathalie = new DisasterVictim("Nathalie", "2025-01-09");
+        nathalie.setLastName("Dupont-Nwosu");
+        registry.add(aurelie);
+        registry.add(raman);
+        registry.add(nathalie);
+    }
+
+    @Test
+    public void testLookupBySocialId() {
+        assertSame("get should return the victim registered under the social ID", raman, registry.get(raman.getAssignedSocialID()));
+        assertEquals("size should count every registered victim", 3, registry.size());
+    }
+
+    @Test
+    public void testLookupByFirstNameIgnoresCaseAndSpacing() {
+        List<DisasterVictim> found = registry.findByFirstName("  aUReLie ");
+        assertEquals("findByFirstName should normalize the name", 1, found.size());
+        assertSame("findByFirstName should return the matching victim", aurelie, found.get(0));
+    }
+
+    @Test
+    public void testLookupByFullName() {
+        assertEquals("findByName should match first and last name", 1, registry.findByName("Nathalie", "dupont-nwosu").size());
+        assertTrue("findByName should not match a different last name", registry.findByName("Nathalie", "Dupont").isEmpty());
+    }
+
+    @Test
+    public void testFirstNamePrefixScanIsSorted() {
+        DisasterVictim nadia = new DisasterVictim("Nadia", "2025-01-03");
+        registry.add(nadia);
+        List<DisasterVictim> found = registry.findByFirstNamePrefix("Na");
+        assertEquals("Prefix scan should find both names starting with Na", 2, found.size());
+        assertSame("Prefix scan should return names in order", nadia, found.get(0));
+        assertSame("Prefix scan should return names in order", nathalie, found.get(1));
+    }
+
+    @Test
+    public void testPrefixEndingInLastCharacterDoesNotFail() {
+        DisasterVictim edge = new DisasterVictim("Na\uffff", "2025-01-03");
+        registry.add(edge);
+        assertEquals("A prefix ending in \\uffff should still be scanned", List.of(edge),
+                registry.findByFirstNamePrefix("Na\uffff"));
+    }
+
+    @Test
+    public void testReaddingTheSameVictimIsNotARemoval() {
+        List<String> events = new ArrayList<>();
+        registry.addListener(new VictimRegistry.Listener() {
+            @Override
+            public void victimAdded(DisasterVictim victim) {
+                events.add("added " + victim.getFirstName());
+            }
+
+            @Override
+            public void victimRemoved(DisasterVictim victim) {
+                events.add("removed " + victim.getFirstName());
+            }
+        });
+        registry.addAll(List.of(raman));
+        assertEquals("Re-adding the same object should not report a removal", List.of("added Raman"), events);
+        assertEquals("The victim should still be found by name", List.of(raman), registry.findByFirstName("Raman"));
+    }
+
+    @Test
+    public void testEntryDateRangeScan() {
+        List<DisasterVictim> found = registry.findByEntryDateBetween("2025-01-01", "2025-01-05");
+        assertEquals("Range scan should include both endpoints", 2, found.size());
+        assertSame("Range scan should be ordered by entry date", raman, found.get(0));
+        assertSame("Range scan should be ordered by entry date", aurelie, found.get(1));
+    }
+
+    @Test
+    public void testRenameMovesNameIndex() {
+        registry.rename(raman, "Ram", "Narayan");
+        assertTrue("The old name should no longer match", registry.findByFirstName("Raman").isEmpty());
+        assertSame("The new name should match", raman, registry.findByFirstName("Ram").get(0));
+    }
+
+    @Test
+    public void testRemove() {
+        assertTrue("remove should report a registered victim", registry.remove(aurelie.getAssignedSocialID()));
+        assertNull("A removed victim should not be found by social ID", registry.get(aurelie.getAssignedSocialID()));
+        assertTrue("A removed victim should not be found by name", registry.findByFirstName("Aurelie").isEmpty());
+        assertFalse("Removing twice should report nothing removed", registry.remove(aurelie.getAssignedSocialID()));
+    }
+
+    @Test
+    public void testAllIsOrderedBySocialId() {
+        List<DisasterVictim> all = registry.all();
+        assertEquals("all should return every victim", 3, all.size());
+        assertSame("all should be ordered by social ID", aurelie, all.get(0));
+        assertSame("all should be ordered by social ID", nathalie, all.get(2));
+    }
+
+    @Test
+    public void testReplaceMovesVictimToNewEntryDate() {
+        FamilyRelation siblings = new FamilyRelation(aurelie, "sibling", nathalie);
+        aurelie.addFamilyConnection(siblings);
+        aurelie.setDateOfBirth("1985-03-15");
+        DisasterVictim corrected = aurelie.withEntryDate(IsoDate.parse("2025-01-07"));
+        registry.replace(aurelie, corrected);
+
+        assertSame("The copy should be registered under the same social ID", corrected,
+                registry.get(aurelie.getAssignedSocialID()));
+        assertTrue("The old entry date should no longer find the victim", registry.findByEntryDate("2025-01-05").isEmpty());
+        assertSame("The new entry date should find the copy", corrected, registry.findByEntryDate("2025-01-07").get(0));
+        assertEquals("Other details should be carried over", "1985-03-15", corrected.getDateOfBirth());
+        assertSame("Shared relations should point at the copy", corrected, siblings.getPersonOne());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEntryDateCannotMoveBeforeBirth() {
+        aurelie.setDateOfBirth("2025-01-04");
+        aurelie.withEntryDate(IsoDate.parse("2025-01-01"));
+    }
+}
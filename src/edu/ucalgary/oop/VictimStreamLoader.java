@@ -0,0 +1,110 @@
+package edu.ucalgary.oop;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.BiConsumer;
+
+// Streams disaster victims out of the database one page at a time.
+// Pages are selected by keyset on person_id, and each page is read through a
+// server-side cursor, so memory stays bounded by the page and fetch sizes
+// no matter how large the registry is.
+public class VictimStreamLoader {
+    public static final int DEFAULT_PAGE_SIZE = 5000;
+    public static final int DEFAULT_FETCH_SIZE = 500;
+    private static final String PAGE_QUERY =
+            "SELECT person_id, first_name, entry_date, family_group_id FROM disaster_victims "
+                    + "WHERE person_id > ? ORDER BY person_id LIMIT ?";
+
+    private final DatabaseManager databaseManager;
+    private final int pageSize;
+    private final int fetchSize;
+    private volatile long rowsLoaded;
+    private volatile int pagesLoaded;
+    private volatile int lastPersonId;
+
+    public VictimStreamLoader(DatabaseManager databaseManager) {
+        this(databaseManager, DEFAULT_PAGE_SIZE, DEFAULT_FETCH_SIZE);
+    }
+
+    public VictimStreamLoader(DatabaseManager databaseManager, int pageSize, int fetchSize) {
+        if (pageSize <= 0 || fetchSize <= 0) {
+            throw new IllegalArgumentException("Page size and fetch size must be positive");
+        }
+        this.databaseManager = databaseManager;
+        this.pageSize = pageSize;
+        this.fetchSize = fetchSize;
+    }
+
+    public void load(BiConsumer<DisasterVictim, Integer> consumer) throws SQLException {
+        load(consumer, null);
+    }
+
+    // Hands every row, with its family_group_id or null, to the consumer in person_id order;
+    // onFirstPage runs once the first page is delivered
+    public void load(BiConsumer<DisasterVictim, Integer> consumer, Runnable onFirstPage) throws SQLException {
+        loadFrom(0, consumer, onFirstPage);
+    }
+
+    // Resumes a load after the given person_id
+    public void loadFrom(int afterPersonId, BiConsumer<DisasterVictim, Integer> consumer, Runnable onFirstPage) throws SQLException {
+        lastPersonId = afterPersonId;
+        boolean firstPage = true;
+        while (true) {
+            int rows = loadPage(consumer);
+            if (firstPage) {
+                firstPage = false;
+                if (onFirstPage != null) {
+                    onFirstPage.run();
+                }
+            }
+            if (rows < pageSize) {
+                return;
+            }
+        }
+    }
+
+    // Each page gets its own short transaction so no lease is held across the whole scan
+    private int loadPage(BiConsumer<DisasterVictim, Integer> consumer) throws SQLException {
+        int rows = 0;
+        try (Connection conn = databaseManager.getConnection()) {
+            // PostgreSQL only uses a cursor for setFetchSize when autocommit is off
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(PAGE_QUERY)) {
+                pstmt.setFetchSize(fetchSize);
+                pstmt.setInt(1, lastPersonId);
+                pstmt.setInt(2, pageSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        lastPersonId = rs.getInt("person_id");
+                        int groupId = rs.getInt("family_group_id");
+                        consumer.accept(new DisasterVictim(rs.getString("first_name"), rs.getString("entry_date")),
+                                rs.wasNull() || groupId == 0 ? null : groupId);
+                        rows++;
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        rowsLoaded += rows;
+        pagesLoaded++;
+        return rows;
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    public int getPagesLoaded() {
+        return pagesLoaded;
+    }
+
+    // Highest person_id delivered so far, usable as a resume point
+    public int getLastPersonId() {
+        return lastPersonId;
+    }
+}
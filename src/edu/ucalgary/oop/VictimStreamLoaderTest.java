@@ -0,0 +1,161 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class VictimStreamLoaderTest {
+    // person_id, first_name, entry_date, family_group_id (null for none)
+    private List<Object[]> table;
+    private List<Integer> pageStarts; // The person_id each page query started after
+    private List<String> transactions;
+    private DatabaseManager pool;
+
+    // Answers the page query from the table, the way the database would
+    private Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement": return fakePage();
+                        case "commit": transactions.add("commit"); return null;
+                        case "rollback": transactions.add("rollback"); return null;
+                        case "isValid": return true;
+                        case "isClosed": return false;
+                        case "getAutoCommit": return true;
+                        default: return null;
+                    }
+                });
+    }
+
+    private PreparedStatement fakePage() {
+        int[] params = new int[3];
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setInt": params[(int) args[0]] = (int) args[1]; return null;
+                        case "executeQuery":
+                            pageStarts.add(params[1]);
+                            List<Object[]> page = new ArrayList<>();
+                            for (Object[] row : table) {
+                                if ((int) row[0] > params[1] && page.size() < params[2]) {
+                                    page.add(row);
+                                }
+                            }
+                            return fakeRows(page);
+                        default: return null;
+                    }
+                });
+    }
+
+    private static ResultSet fakeRows(List<Object[]> rows) {
+        int[] cursor = {-1};
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next": return ++cursor[0] < rows.size();
+                        case "wasNull": return wasNull[0];
+                        case "getString":
+                        case "getInt":
+                            Object[] row = rows.get(cursor[0]);
+                            Object value = row[List.of("person_id", "first_name", "entry_date", "family_group_id")
+                                    .indexOf((String) args[0])];
+                            wasNull[0] = value == null;
+                            if (method.getName().equals("getInt")) {
+                                return value == null ? 0 : (Integer) value;
+                            }
+                            return value;
+                        default: return null;
+                    }
+                });
+    }
+
+    @Before
+    public void setUp() {
+        table = new ArrayList<>();
+        pageStarts = new ArrayList<>();
+        transactions = new ArrayList<>();
+        pool = new DatabaseManager(this::fakeConnection, 2, 50, 60000);
+        table.add(new Object[]{3, "Freda", "2025-01-15", 7});
+        table.add(new Object[]{8, "Kai", "2025-01-16", null});
+        table.add(new Object[]{9, "Mei", "2025-01-16", 7});
+        table.add(new Object[]{15, "Jane", "2025-01-17", null});
+        table.add(new Object[]{21, "Amara", "2025-01-18", 2});
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testPagesFollowTheLastPersonId() throws SQLException {
+        VictimStreamLoader loader = new VictimStreamLoader(pool, 2, 10);
+        List<String> names = new ArrayList<>();
+        List<Integer> groups = new ArrayList<>();
+        loader.load((victim, group) -> {
+            names.add(victim.getFirstName());
+            groups.add(group);
+        });
+        assertEquals("Every row should be delivered in person_id order",
+                List.of("Freda", "Kai", "Mei", "Jane", "Amara"), names);
+        assertEquals("Stored family groups should come with their rows", Arrays.asList(7, null, 7, null, 2), groups);
+        assertEquals("Each page should start after the last person_id seen", List.of(0, 8, 15), pageStarts);
+        assertEquals("A short page should end the load", 3, loader.getPagesLoaded());
+        assertEquals("Every row should be counted", 5, loader.getRowsLoaded());
+        assertEquals("The resume point should be the last person_id", 21, loader.getLastPersonId());
+        assertEquals("Each page should be its own transaction", List.of("commit", "commit", "commit"), transactions);
+    }
+
+    @Test
+    public void testFullLastPageIsFollowedByAnEmptyOne() throws SQLException {
+        table.remove(table.size() - 1);
+        VictimStreamLoader loader = new VictimStreamLoader(pool, 2, 10);
+        loader.load((victim, group) -> { });
+        assertEquals("A full page cannot tell if more rows follow", List.of(0, 8, 15), pageStarts);
+        assertEquals("Only real rows should be counted", 4, loader.getRowsLoaded());
+    }
+
+    @Test
+    public void testFirstPageIsSignalledBeforeTheRest() throws SQLException {
+        VictimStreamLoader loader = new VictimStreamLoader(pool, 2, 10);
+        List<String> names = new ArrayList<>();
+        int[] deliveredAtFirstPage = {-1};
+        loader.load((victim, group) -> names.add(victim.getFirstName()), () -> deliveredAtFirstPage[0] = names.size());
+        assertEquals("onFirstPage should run once the first page is delivered", 2, deliveredAtFirstPage[0]);
+    }
+
+    @Test
+    public void testLoadResumesAfterGivenPersonId() throws SQLException {
+        VictimStreamLoader loader = new VictimStreamLoader(pool, 2, 10);
+        List<String> names = new ArrayList<>();
+        loader.loadFrom(9, (victim, group) -> names.add(victim.getFirstName()), null);
+        assertEquals("Only rows after the resume point should be loaded", List.of("Jane", "Amara"), names);
+        assertEquals("The first page should start at the resume point", Integer.valueOf(9), pageStarts.get(0));
+    }
+
+    @Test
+    public void testFailingConsumerRollsBackThePage() throws SQLException {
+        VictimStreamLoader loader = new VictimStreamLoader(pool, 2, 10);
+        try {
+            loader.load((victim, group) -> {
+                if (victim.getFirstName().equals("Mei")) {
+                    throw new IllegalStateException("consumer failed");
+                }
+            });
+            fail("The consumer's failure should reach the caller");
+        } catch (IllegalStateException e) {
+            assertEquals("The failing page should be rolled back", List.of("commit", "rollback"), transactions);
+            assertEquals("The resume point should be the row being handled", 9, loader.getLastPersonId());
+        }
+    }
+}
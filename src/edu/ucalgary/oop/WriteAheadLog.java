@@ -0,0 +1,195 @@
+package edu.ucalgary.oop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Append-only log file of length-prefixed records, each guarded by a CRC32C of its payload.
+// Appends are group-committed: writers add their record to the file under a short lock and
+// then wait for an fsync that covers it, so writers arriving while a sync is in progress
+// all share the next one. A record cut short by a crash fails its check on open and the
+// file is truncated back to the last whole record.
+public class WriteAheadLog implements AutoCloseable {
+    private static final int HEADER_BYTES = 8; // length + crc
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    // Receives each stored record during replay
+    public interface RecordHandler {
+        void accept(ByteBuffer payload) throws IOException;
+    }
+
+    private final Path file;
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long writtenPosition;
+    private volatile long syncedPosition;
+
+    // Metrics
+    private volatile long syncs;
+    private volatile long truncatedBytes;
+
+    // Opens or creates the log and drops any torn record at its end
+    public WriteAheadLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = scan(null);
+        if (valid < channel.size()) {
+            truncatedBytes = channel.size() - valid;
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        channel.position(valid);
+        writtenPosition = valid;
+        syncedPosition = valid;
+    }
+
+    // Hands every stored record to the handler in order and returns how many there were
+    public synchronized int replay(RecordHandler handler) throws IOException {
+        int[] count = {0};
+        scan(payload -> {
+            handler.accept(payload);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    // Reads records from the start and returns the end of the last valid one
+    private long scan(RecordHandler handler) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32C crc = new CRC32C();
+        long position = 0;
+        long size = channel.size();
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            int expected = header.getInt(4);
+            if (length < 0 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+            if (handler != null) {
+                handler.accept(payload.flip());
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + file);
+            }
+        }
+    }
+
+    // Appends a record and returns once it is on disk
+    public void append(byte[] payload) throws IOException {
+        sync(write(payload));
+    }
+
+    // Appends a record without waiting for the disk; returns the position to pass to sync()
+    public synchronized long write(byte[] payload) throws IOException {
+        ByteBuffer record = frame(payload);
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        writtenPosition = channel.position();
+        return writtenPosition;
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes is too large");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+    }
+
+    // Waits until everything up to position is on disk, syncing at most once for a whole group
+    public void sync(long position) throws IOException {
+        if (syncedPosition >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedPosition >= position) {
+                return; // Covered by the sync that ran while this writer waited
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = writtenPosition;
+                current = channel;
+            }
+            current.force(false);
+            syncedPosition = target;
+            syncs++;
+        }
+    }
+
+    // Replaces the whole log with the given records, e.g. once everything in it has been applied.
+    // The new file is written beside the old one and moved over it, so a crash leaves one or the other.
+    public void reset(List<byte[]> records) throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                Path next = file.resolveSibling(file.getFileName() + ".next");
+                try (FileChannel out = FileChannel.open(next, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    for (byte[] payload : records) {
+                        ByteBuffer record = frame(payload);
+                        while (record.hasRemaining()) {
+                            out.write(record);
+                        }
+                    }
+                    out.force(true);
+                }
+                channel.close();
+                Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                writtenPosition = channel.size();
+                channel.position(writtenPosition);
+                syncedPosition = writtenPosition;
+            }
+        }
+    }
+
+    public synchronized long size() {
+        return writtenPosition;
+    }
+
+    public long getSyncCount() {
+        return syncs;
+    }
+
+    // Bytes of torn records dropped when the log was opened
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,827 @@
+package edu.ucalgary.oop;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// ReliefRepository that acknowledges intake writes once they are in a local write-ahead
+// log, and applies them to the real store from a background flusher.
+// Victims, supplies, expiries, inquiries and medical records are appended to the log
+// (group-committed, so concurrent desks share an fsync) and queued; the caller gets a
+// provisional negative id straight away. The flusher drains the queue in order, sends runs
+// of victims as one bulk insert, maps provisional ids to the stored ones and writes a
+// checkpoint record after each step, so a restart replays only what had not reached the
+// store. Reads and the rarer updates wait for the queue to drain and then go to the store,
+// so they always see every acknowledged write. A crash between a store write and its
+// checkpoint replays that step again, so delivery is at least once.
+public class WriteBehindReliefRepository implements ReliefRepository {
+    public static final int DEFAULT_CAPACITY = 100_000;
+    public static final int DEFAULT_MAX_BATCH = 500;
+    private static final long COMPACT_BYTES = 64L * 1024 * 1024;
+    private static final long DRAIN_TIMEOUT_MS = 30_000;
+    private static final long POLL_MS = 50;
+    private static final long MIN_BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 5_000;
+
+    private static final byte VICTIM = 1;
+    private static final byte SUPPLY = 2;
+    private static final byte EXPIRE = 3;
+    private static final byte INQUIRY = 4;
+    private static final byte MEDICAL = 5;
+    private static final byte CHECKPOINT = 6;
+
+    // One acknowledged write on its way to the store
+    private static final class Op {
+        private final byte type;
+        private long seq;
+        private long id;          // provisional victim or supply id, or the person of a medical record
+        private int quantity;
+        private String[] text;    // string fields in the order each type writes them
+        private long[] supplyIds; // for EXPIRE
+        private final long enqueuedNanos = System.nanoTime();
+
+        Op(byte type, String... text) {
+            this.type = type;
+            this.text = text;
+        }
+    }
+
+    // A question to answer on the flusher right after a given write reaches the store
+    private static final class Marker {
+        private final long seq;
+        private final Callable<?> probe;
+        private final CompletableFuture<Object> answer = new CompletableFuture<>();
+
+        Marker(long seq, Callable<?> probe) {
+            this.seq = seq;
+            this.probe = probe;
+        }
+
+        void answer() {
+            try {
+                answer.complete(probe.call());
+            } catch (Exception e) {
+                answer.completeExceptionally(e);
+            }
+        }
+    }
+
+    private final WriteAheadLog wal;
+    private final ReliefRepository target;
+    private final Consumer<String> errorHandler;
+    private final int maxBatch;
+    private final BlockingQueue<Op> queue;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object flushed = new Object();
+    private Thread flusher;
+    private volatile boolean closed;
+    private final ArrayDeque<Marker> markers = new ArrayDeque<>(); // In sequence order; guarded by itself
+    private volatile long nextMarkerSeq = Long.MAX_VALUE; // Sequence of the first marker, re-read between victims
+
+    // Guarded by appendLock
+    private long lastSeq;
+    private int lastVictimId;
+    private long lastSupplyId;
+
+    // Owned by the flusher: stored id of each provisional id, indexed by -id - 1
+    private int[] victimIds = new int[1024];
+    private long[] supplyIds = new long[1024];
+
+    // Metrics
+    private volatile long appendedSeq;
+    private volatile long flushedSeq;
+    private volatile long inFlightSince;
+    private volatile int lastBatchSize;
+    private volatile int maxBatchSize;
+    private final LongAdder flushedOps;
+    private final LongAdder batches;
+    private final LongAdder flushErrors;
+    private final LongAdder rejected;
+    private final LatencyHistogram flushLatency;
+    private volatile int replayed;
+
+    WriteBehindReliefRepository(WriteAheadLog wal, ReliefRepository target, Consumer<String> errorHandler,
+                                int capacity, int maxBatch, ReliefMetrics metrics) {
+        if (capacity <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        this.wal = wal;
+        this.target = target;
+        this.errorHandler = errorHandler;
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        flushedOps = metrics.counter("relief_writebehind_flushed_total", "Queued writes applied to the store");
+        batches = metrics.counter("relief_writebehind_batches_total", "Store calls made by the write-behind flusher");
+        flushErrors = metrics.counter("relief_writebehind_flush_errors_total", "Flusher store calls that failed and were retried");
+        rejected = metrics.counter("relief_writebehind_rejected_total", "Acknowledged writes the store refused");
+        flushLatency = metrics.histogram("relief_writebehind_flush_seconds", "Time per store call made by the flusher");
+        metrics.gauge("relief_writebehind_queue_depth", "Acknowledged writes not yet in the store",
+                sink -> sink.sample(getQueueDepth()));
+        metrics.gauge("relief_writebehind_flush_lag_seconds", "Age of the oldest write not yet in the store",
+                sink -> sink.sample(getFlushLagMillis() / 1000.0));
+        metrics.gauge("relief_writebehind_last_batch_size", "Writes applied by the flusher's last store call",
+                sink -> sink.sample(lastBatchSize));
+        metrics.gauge("relief_writebehind_log_bytes", "Size of the write-ahead log",
+                sink -> sink.sample(wal.size()));
+    }
+
+    // Opens the log, applies whatever a previous run left unflushed and starts the flusher.
+    // If the store is unreachable the replay fails and the log is left as it was.
+    public static WriteBehindReliefRepository open(Path logFile, ReliefRepository target, Consumer<String> errorHandler)
+            throws IOException, SQLException {
+        return open(logFile, target, errorHandler, ReliefMetrics.getInstance());
+    }
+
+    static WriteBehindReliefRepository open(Path logFile, ReliefRepository target, Consumer<String> errorHandler,
+                                            ReliefMetrics metrics) throws IOException, SQLException {
+        WriteAheadLog wal = new WriteAheadLog(logFile);
+        WriteBehindReliefRepository repository = new WriteBehindReliefRepository(wal, target, errorHandler,
+                DEFAULT_CAPACITY, DEFAULT_MAX_BATCH, metrics);
+        try {
+            repository.recover();
+        } catch (IOException | SQLException | RuntimeException e) {
+            wal.close();
+            throw e;
+        }
+        repository.start();
+        return repository;
+    }
+
+    void recover() throws IOException, SQLException {
+        List<Op> ops = new ArrayList<>();
+        long[] checkpoint = {0};
+        wal.replay(payload -> {
+            Op op = decode(payload);
+            if (op.type == CHECKPOINT) {
+                checkpoint[0] = Math.max(checkpoint[0], op.seq);
+            } else {
+                ops.add(op);
+            }
+        });
+        ops.removeIf(op -> op.seq <= checkpoint[0]);
+        for (int from = 0; from < ops.size(); ) {
+            from = applyGroup(ops, from);
+        }
+        replayed = ops.size();
+        // Everything is in the store now, so the old provisional ids are no longer referenced
+        wal.reset(List.of());
+        Arrays.fill(victimIds, 0);
+        Arrays.fill(supplyIds, 0);
+        long seq = Math.max(checkpoint[0], ops.isEmpty() ? 0 : ops.get(ops.size() - 1).seq);
+        lastSeq = seq;
+        appendedSeq = seq;
+        flushedSeq = seq;
+    }
+
+    void start() {
+        flusher = new Thread(this::flushLoop, "write-behind-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Writes
+
+    @Override
+    public int addVictim(DisasterVictim victim) throws SQLException {
+        Op op = new Op(VICTIM, victim.getFirstName(), victim.getEntryDate());
+        append(List.of(op));
+        return (int) op.id;
+    }
+
+    @Override
+    public BulkVictimIntake.Result addVictims(Collection<DisasterVictim> victims) throws SQLException {
+        BulkVictimIntake.Result result = new BulkVictimIntake.Result();
+        List<Op> ops = new ArrayList<>(victims.size());
+        List<Integer> rows = new ArrayList<>(victims.size());
+        int row = 0;
+        for (DisasterVictim victim : victims) {
+            if (victim == null || victim.getFirstName() == null) {
+                result.recordFailure(row, "A victim must have a first name");
+            } else {
+                ops.add(new Op(VICTIM, victim.getFirstName(), victim.getEntryDate()));
+                rows.add(row);
+            }
+            row++;
+        }
+        append(ops);
+        for (int i = 0; i < ops.size(); i++) {
+            result.recordSuccess(rows.get(i), (int) ops.get(i).id);
+        }
+        return result;
+    }
+
+    @Override
+    public long addSupply(String type, int quantity, String person, String location) throws SQLException {
+        Op op = new Op(SUPPLY, type, person, location);
+        op.quantity = quantity;
+        append(List.of(op));
+        return op.id;
+    }
+
+    @Override
+    public void expireSupplies(List<Long> supplyIds) throws SQLException {
+        Op op = new Op(EXPIRE);
+        op.supplyIds = supplyIds.stream().mapToLong(Long::longValue).toArray();
+        append(List.of(op));
+    }
+
+    @Override
+    public void addInquiry(ReliefService inquiry) throws SQLException {
+        append(List.of(new Op(INQUIRY, inquiry.getInquirer().getFirstName(),
+                inquiry.getMissingPerson().getFirstName(), inquiry.getDateOfInquiry())));
+    }
+
+    @Override
+    public void addMedicalRecord(int personId, MedicalRecord record) throws SQLException {
+        Op op = new Op(MEDICAL, record.getLocation() == null ? null : record.getLocation().getName(),
+                record.getTreatmentDetails(), record.getDateOfTreatment());
+        op.id = personId;
+        append(List.of(op));
+    }
+
+    // Logs and queues the writes in order, then waits for the disk. Ids and sequence numbers
+    // are handed out under the same lock, so queue order, log order and id order all agree.
+    private void append(List<Op> ops) throws SQLException {
+        if (ops.isEmpty()) {
+            return;
+        }
+        long position;
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new SQLException("Write-behind repository is closed");
+            }
+            position = 0;
+            for (Op op : ops) {
+                op.seq = ++lastSeq;
+                if (op.type == VICTIM) {
+                    op.id = --lastVictimId;
+                } else if (op.type == SUPPLY) {
+                    op.id = --lastSupplyId;
+                }
+                position = wal.write(encode(op));
+                queue.put(op);
+                appendedSeq = op.seq;
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not write to " + wal.getFile() + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while queueing a write", e);
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            wal.sync(position);
+        } catch (IOException e) {
+            throw new SQLException("Could not sync " + wal.getFile() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Everything else waits for the queue to drain, then goes straight to the store
+
+    @Override
+    public int countVictimsByFirstName(String firstName) throws SQLException {
+        awaitFlushed();
+        return target.countVictimsByFirstName(firstName);
+    }
+
+    @Override
+    public int renameVictims(String firstName, String newFirstName) throws SQLException {
+        awaitFlushed();
+        return target.renameVictims(firstName, newFirstName);
+    }
+
+    @Override
+    public int updateEntryDate(String firstName, String entryDate) throws SQLException {
+        awaitFlushed();
+        return target.updateEntryDate(firstName, entryDate);
+    }
+
+    @Override
+    public void forEachVictim(BiConsumer<DisasterVictim, Integer> consumer, Runnable onFirstPage) throws SQLException {
+        awaitFlushed();
+        target.forEachVictim(consumer, onFirstPage);
+    }
+
+    @Override
+    public void addFamilyGroup(int groupId, String headName) throws SQLException {
+        awaitFlushed();
+        target.addFamilyGroup(groupId, headName);
+    }
+
+    @Override
+    public Map<Integer, String> getFamilyGroups() throws SQLException {
+        awaitFlushed();
+        return target.getFamilyGroups();
+    }
+
+    @Override
+    public Integer getFamilyGroup(String firstName) throws SQLException {
+        awaitFlushed();
+        return target.getFamilyGroup(firstName);
+    }
+
+    @Override
+    public int assignFamilyGroup(String firstName, int groupId) throws SQLException {
+        awaitFlushed();
+        return target.assignFamilyGroup(firstName, groupId);
+    }
+
+    @Override
+    public int addLocation(Location location) throws SQLException {
+        awaitFlushed();
+        return target.addLocation(location);
+    }
+
+    @Override
+    public List<Location> getLocations() throws SQLException {
+        awaitFlushed();
+        return target.getLocations();
+    }
+
+    @Override
+    public Map<SupplyLedger.Key, Integer> getStockOnHand() throws SQLException {
+        awaitFlushed();
+        return target.getStockOnHand();
+    }
+
+    @Override
+    public Map<Long, Long> getUnexpiredWater() throws SQLException {
+        awaitFlushed();
+        return target.getUnexpiredWater();
+    }
+
+    @Override
+    public List<ReliefService> findInquiries(String missingPersonName) throws SQLException {
+        awaitFlushed();
+        return target.findInquiries(missingPersonName);
+    }
+
+    @Override
+    public List<MedicalRecord> getMedicalRecords(int personId) throws SQLException {
+        awaitFlushed();
+        return target.getMedicalRecords(personId);
+    }
+
+    // Waits until every write acknowledged so far has reached the store
+    public void awaitFlushed() throws SQLException {
+        awaitFlushed(appendedSeq, DRAIN_TIMEOUT_MS);
+    }
+
+    // Calls probe once every write acknowledged so far has reached the store and before any
+    // later one does, without waiting for that here. Answered at once when nothing is queued,
+    // otherwise on the flusher between store calls. The caller must keep the store's direct
+    // writes (renames, family groups, entry dates) from running until this returns.
+    @SuppressWarnings("unchecked")
+    public <T> Future<T> whenFlushed(Callable<T> probe) {
+        Marker marker;
+        appendLock.lock();
+        try {
+            marker = new Marker(appendedSeq, probe);
+            // The flusher publishes flushedSeq under this lock, so a marker is either answered
+            // here or queued before the step that reaches it checks the queue
+            synchronized (markers) {
+                if (flushedSeq >= marker.seq) {
+                    marker.answer();
+                } else if (closed) {
+                    marker.answer.completeExceptionally(new SQLException("Write-behind repository is closed"));
+                } else {
+                    markers.add(marker);
+                    nextMarkerSeq = markers.peek().seq;
+                }
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        return (Future<T>) marker.answer;
+    }
+
+    // Answers the markers the flusher has now reached; runs before flushedSeq moves on, so
+    // writes waiting for the queue to drain cannot reach the store in between
+    private void answerMarkers(long seq) {
+        synchronized (markers) {
+            while (!markers.isEmpty() && markers.peek().seq <= seq) {
+                markers.poll().answer();
+            }
+            nextMarkerSeq = markers.isEmpty() ? Long.MAX_VALUE : markers.peek().seq;
+        }
+    }
+
+    private void awaitFlushed(long seq, long timeoutMs) throws SQLException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (flushed) {
+            while (flushedSeq < seq) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new SQLException("Timed out waiting for " + getQueueDepth() + " queued writes to reach the store");
+                }
+                try {
+                    flushed.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for queued writes", e);
+                }
+            }
+        }
+    }
+
+    // Flusher
+
+    private void flushLoop() {
+        List<Op> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            Op first;
+            try {
+                first = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                if (closed) {
+                    return;
+                }
+                compactIfIdle();
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+            if (!flush(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // Applies the batch step by step, retrying a failed step with backoff until the store
+    // takes it; returns false if interrupted while waiting to retry
+    private boolean flush(List<Op> batch) {
+        long backoff = MIN_BACKOFF_MS;
+        int from = 0;
+        while (from < batch.size()) {
+            inFlightSince = batch.get(from).enqueuedNanos;
+            try {
+                from = applyGroup(batch, from);
+                backoff = MIN_BACKOFF_MS;
+            } catch (SQLException e) {
+                flushErrors.increment();
+                errorHandler.accept("Write-behind flush failed, retrying in " + backoff + " ms: " + e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return false;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+        inFlightSince = 0;
+        return true;
+    }
+
+    // Applies one store call's worth of writes starting at from, checkpoints it and
+    // returns where the next step starts
+    private int applyGroup(List<Op> ops, int from) throws SQLException {
+        long started = System.nanoTime();
+        Op first = ops.get(from);
+        int end = from + 1;
+        List<long[]> mapped = new ArrayList<>();
+        try {
+            switch (first.type) {
+                case VICTIM:
+                    // A store call never runs past a marker; one queued mid-run is seen here
+                    while (end < ops.size() && end - from < maxBatch && ops.get(end).type == VICTIM
+                            && ops.get(end - 1).seq < nextMarkerSeq) {
+                        end++;
+                    }
+                    applyVictims(ops.subList(from, end), mapped);
+                    break;
+                case SUPPLY:
+                    long supplyId = target.addSupply(first.text[0], first.quantity, first.text[1], first.text[2]);
+                    supplyIds = remember(supplyIds, first.id, supplyId);
+                    mapped.add(new long[] {SUPPLY, first.id, supplyId});
+                    break;
+                case EXPIRE:
+                    List<Long> stored = new ArrayList<>(first.supplyIds.length);
+                    for (long id : first.supplyIds) {
+                        long storedId = id < 0 ? lookup(supplyIds, id) : id;
+                        if (storedId > 0) {
+                            stored.add(storedId);
+                        }
+                    }
+                    if (!stored.isEmpty()) {
+                        target.expireSupplies(stored);
+                    }
+                    break;
+                case INQUIRY:
+                    target.addInquiry(new ReliefService(new Inquirer(first.text[0], null, null, null),
+                            DisasterVictim.soughtPerson(first.text[1]), first.text[2], null, null));
+                    break;
+                case MEDICAL:
+                    int personId = first.id < 0 ? (int) lookup(victimIds, first.id) : (int) first.id;
+                    if (personId == 0) {
+                        throw new IllegalStateException("Victim " + first.id + " was never stored");
+                    }
+                    target.addMedicalRecord(personId, new MedicalRecord(
+                            first.text[0] == null ? null : new Location(first.text[0], null), first.text[1], first.text[2]));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown write type " + first.type);
+            }
+        } catch (RuntimeException e) {
+            // Retrying cannot fix a write the store or the model refuses
+            rejected.add(end - from);
+            errorHandler.accept("Write-behind dropped " + (end - from) + " write(s): " + e.getMessage());
+        }
+        long seq = ops.get(end - 1).seq;
+        try {
+            wal.append(encodeCheckpoint(seq, mapped));
+        } catch (IOException e) {
+            // The writes are in the store; without the checkpoint a restart applies them again
+            errorHandler.accept("Write-behind checkpoint failed: " + e.getMessage());
+        }
+        int size = end - from;
+        flushedOps.add(size);
+        batches.increment();
+        lastBatchSize = size;
+        if (size > maxBatchSize) {
+            maxBatchSize = size;
+        }
+        flushLatency.recordSince(started);
+        synchronized (markers) {
+            if (seq >= nextMarkerSeq) {
+                answerMarkers(seq);
+            }
+            synchronized (flushed) {
+                flushedSeq = seq;
+                flushed.notifyAll();
+            }
+        }
+        return end;
+    }
+
+    private void applyVictims(List<Op> ops, List<long[]> mapped) throws SQLException {
+        List<DisasterVictim> victims = new ArrayList<>(ops.size());
+        for (Op op : ops) {
+            victims.add(new DisasterVictim(op.text[0], op.text[1]));
+        }
+        BulkVictimIntake.Result result = target.addVictims(victims);
+        for (int i = 0; i < ops.size(); i++) {
+            Integer personId = i < result.getPersonIds().size() ? result.getPersonIds().get(i) : null;
+            if (personId == null) {
+                rejected.increment();
+                errorHandler.accept("Write-behind victim " + ops.get(i).text[0] + " was refused: "
+                        + result.getFailures().get(i));
+                continue;
+            }
+            victimIds = remember(victimIds, ops.get(i).id, personId);
+            mapped.add(new long[] {VICTIM, ops.get(i).id, personId});
+        }
+    }
+
+    private static int[] remember(int[] ids, long provisional, long stored) {
+        int index = (int) (-provisional - 1);
+        if (index >= ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(ids.length * 2, index + 1));
+        }
+        ids[index] = (int) stored;
+        return ids;
+    }
+
+    private static long[] remember(long[] ids, long provisional, long stored) {
+        int index = (int) (-provisional - 1);
+        if (index >= ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(ids.length * 2, index + 1));
+        }
+        ids[index] = stored;
+        return ids;
+    }
+
+    private static long lookup(int[] ids, long provisional) {
+        int index = (int) (-provisional - 1);
+        return index < ids.length ? ids[index] : 0;
+    }
+
+    private static long lookup(long[] ids, long provisional) {
+        int index = (int) (-provisional - 1);
+        return index < ids.length ? ids[index] : 0;
+    }
+
+    // Once the log is large and fully applied, starts it over with one checkpoint holding
+    // the id mappings later writes may still refer to
+    private void compactIfIdle() {
+        if (wal.size() < COMPACT_BYTES || !appendLock.tryLock()) {
+            return;
+        }
+        try {
+            if (flushedSeq != lastSeq) {
+                return;
+            }
+            List<long[]> mapped = new ArrayList<>();
+            for (int i = 0; i < victimIds.length; i++) {
+                if (victimIds[i] != 0) {
+                    mapped.add(new long[] {VICTIM, -i - 1, victimIds[i]});
+                }
+            }
+            for (int i = 0; i < supplyIds.length; i++) {
+                if (supplyIds[i] != 0) {
+                    mapped.add(new long[] {SUPPLY, -i - 1, supplyIds[i]});
+                }
+            }
+            wal.reset(List.of(encodeCheckpoint(lastSeq, mapped)));
+        } catch (IOException e) {
+            errorHandler.accept("Write-behind log compaction failed: " + e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Encoding
+
+    private static byte[] encode(Op op) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(op.type);
+            out.writeLong(op.seq);
+            out.writeLong(op.id);
+            out.writeInt(op.quantity);
+            out.writeByte(op.text.length);
+            for (String value : op.text) {
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeUTF(value);
+                }
+            }
+            long[] ids = op.supplyIds == null ? new long[0] : op.supplyIds;
+            out.writeInt(ids.length);
+            for (long id : ids) {
+                out.writeLong(id);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Cannot happen writing to memory
+        }
+    }
+
+    // Mappings are {type, provisional id, stored id}; replay only needs the sequence number,
+    // the mappings let a log that was compacted mid-run still resolve older provisional ids
+    private static byte[] encodeCheckpoint(long seq, List<long[]> mapped) {
+        Op checkpoint = new Op(CHECKPOINT);
+        checkpoint.seq = seq;
+        checkpoint.supplyIds = new long[mapped.size() * 3];
+        for (int i = 0; i < mapped.size(); i++) {
+            System.arraycopy(mapped.get(i), 0, checkpoint.supplyIds, i * 3, 3);
+        }
+        return encode(checkpoint);
+    }
+
+    private Op decode(ByteBuffer payload) throws IOException {
+        DataInputStream in = new DataInputStream(new InputStream() {
+            @Override
+            public int read() {
+                return payload.hasRemaining() ? payload.get() & 0xff : -1;
+            }
+        });
+        Op op = new Op(in.readByte());
+        op.seq = in.readLong();
+        op.id = in.readLong();
+        op.quantity = in.readInt();
+        op.text = new String[in.readByte()];
+        for (int i = 0; i < op.text.length; i++) {
+            op.text[i] = in.readBoolean() ? in.readUTF() : null;
+        }
+        op.supplyIds = new long[in.readInt()];
+        for (int i = 0; i < op.supplyIds.length; i++) {
+            op.supplyIds[i] = in.readLong();
+        }
+        if (op.type == CHECKPOINT) {
+            for (int i = 0; i + 2 < op.supplyIds.length; i += 3) {
+                if (op.supplyIds[i] == VICTIM) {
+                    victimIds = remember(victimIds, op.supplyIds[i + 1], op.supplyIds[i + 2]);
+                } else {
+                    supplyIds = remember(supplyIds, op.supplyIds[i + 1], op.supplyIds[i + 2]);
+                }
+            }
+        }
+        return op;
+    }
+
+    // Metrics
+
+    public int getQueueDepth() {
+        return (int) Math.max(0, appendedSeq - flushedSeq);
+    }
+
+    // Age of the oldest acknowledged write that has not reached the store
+    public long getFlushLagMillis() {
+        long since = inFlightSince;
+        if (since == 0) {
+            Op next = queue.peek();
+            if (next == null) {
+                return 0;
+            }
+            since = next.enqueuedNanos;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since);
+    }
+
+    public long getFlushedCount() {
+        return flushedOps.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getFlushErrorCount() {
+        return flushErrors.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    // Writes a previous run left in the log and applied on open
+    public int getReplayedCount() {
+        return replayed;
+    }
+
+    @Override
+    public ReliefRepository getDelegate() {
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        long batchCount = getBatchCount();
+        return String.format("queue depth %d, flush lag %d ms, %d writes in %d store calls (mean batch %.1f, max %d), "
+                        + "%d retries, %d refused, %d replayed, %d log syncs",
+                getQueueDepth(), getFlushLagMillis(), getFlushedCount(), batchCount,
+                batchCount == 0 ? 0.0 : (double) getFlushedCount() / batchCount, maxBatchSize,
+                getFlushErrorCount(), getRejectedCount(), replayed, wal.getSyncCount());
+    }
+
+    // Stops taking writes, gives the flusher time to drain and closes the store. Anything
+    // still queued when time runs out stays in the log and is applied on the next start.
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                awaitFlushed(appendedSeq, DRAIN_TIMEOUT_MS);
+            } catch (SQLException e) {
+                errorHandler.accept("Write-behind closed with " + getQueueDepth() + " writes left in "
+                        + wal.getFile() + ": " + e.getMessage());
+            }
+            flusher.interrupt();
+            try {
+                flusher.join(DRAIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (markers) {
+            for (Marker marker : markers) {
+                marker.answer.completeExceptionally(new SQLException("Write-behind closed before write " + marker.seq
+                        + " reached the store"));
+            }
+            markers.clear();
+        }
+        try {
+            wal.close();
+        } catch (IOException e) {
+            errorHandler.accept("Could not close " + wal.getFile() + ": " + e.getMessage());
+        }
+        target.close();
+    }
+}
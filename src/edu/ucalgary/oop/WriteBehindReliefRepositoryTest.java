@@ -0,0 +1,225 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class WriteBehindReliefRepositoryTest {
+    private Path directory;
+    private Path log;
+    private List<String> errors;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("write-behind-test");
+        log = directory.resolve("relief.wal");
+        errors = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private WriteBehindReliefRepository open(ReliefRepository target) throws IOException, SQLException {
+        return WriteBehindReliefRepository.open(log, target, errors::add, new ReliefMetrics());
+    }
+
+    @Test
+    public void testWritesAreAcknowledgedThenApplied() throws Exception {
+        InMemoryReliefRepository target = new InMemoryReliefRepository();
+        WriteBehindReliefRepository repository = open(target);
+        int personId = repository.addVictim(new DisasterVictim("Freda", "2025-01-15"));
+        BulkVictimIntake.Result result = repository.addVictims(List.of(
+                new DisasterVictim("Kai", "2025-01-15"), new DisasterVictim("Kai", "2025-01-16")));
+        assertTrue("Acknowledged ids should be provisional", personId < 0);
+        assertEquals("Every row should be acknowledged", 2, result.getInsertedCount());
+
+        assertEquals("Reads should wait for queued writes", 2, repository.countVictimsByFirstName("Kai"));
+        assertEquals("The store should hold every victim", 3, target.getVictimCount());
+        assertEquals("Nothing should be left queued", 0, repository.getQueueDepth());
+        assertTrue("Victims should reach the store in fewer calls than writes", repository.getBatchCount() <= 3);
+        repository.close();
+        assertTrue("No errors expected: " + errors, errors.isEmpty());
+    }
+
+    @Test
+    public void testWrappedStoreIsReachableThroughEveryLayer() throws Exception {
+        InMemoryReliefRepository target = new InMemoryReliefRepository();
+        WriteBehindReliefRepository writeBehind = open(target);
+        ReliefRepository chain = new BenchmarkingReliefRepository(writeBehind);
+        assertSame("The write-behind layer should be found under the benchmark", writeBehind,
+                ReliefRepository.unwrap(chain, WriteBehindReliefRepository.class));
+        assertSame("The underlying store should be found through both layers", target,
+                ReliefRepository.unwrap(chain, InMemoryReliefRepository.class));
+        assertNull("A store that is not in the chain should not be found",
+                ReliefRepository.unwrap(chain, JdbcReliefRepository.class));
+        writeBehind.close();
+    }
+
+    @Test
+    public void testProvisionalSupplyIdsCanBeExpired() throws Exception {
+        InMemoryReliefRepository target = new InMemoryReliefRepository();
+        WriteBehindReliefRepository repository = open(target);
+        long water = repository.addSupply("water", 2, "Freda", "TELUS");
+        repository.expireSupplies(List.of(water));
+        repository.awaitFlushed();
+        assertTrue("Water ids should be provisional until stored", water < 0);
+        assertTrue("The stored allocation should be expired", target.getUnexpiredWater().isEmpty());
+        repository.close();
+    }
+
+    @Test
+    public void testUnflushedWritesAreReplayedOnOpen() throws Exception {
+        InMemoryReliefRepository target = new InMemoryReliefRepository();
+        // Never started, so nothing is flushed: the same as a crash right after acknowledging
+        WriteBehindReliefRepository crashed = new WriteBehindReliefRepository(new WriteAheadLog(log), target,
+                errors::add, 1000, 100, new ReliefMetrics());
+        crashed.recover();
+        crashed.addVictims(List.of(new DisasterVictim("Amara", "2025-01-15"), new DisasterVictim("Jonah", "2025-01-15")));
+        crashed.addSupply("blanket", 5, null, "TELUS");
+        crashed.addInquiry(new ReliefService(new Inquirer("Kai", null, null, null),
+                new DisasterVictim("Amara", "2025-01-16"), "2025-01-16", null, null));
+        assertEquals("Nothing should have reached the store yet", 0, target.getVictimCount());
+
+        WriteBehindReliefRepository reopened = open(target);
+        assertEquals("Every logged write should be replayed", 4, reopened.getReplayedCount());
+        assertEquals("Replayed victims should be stored", 2, target.getVictimCount());
+        assertEquals("Replayed inquiries should be stored", 1, target.findInquiries("Amara").size());
+        assertEquals("Replayed deliveries should be stocked", Integer.valueOf(5),
+                target.getStockOnHand().get(new SupplyLedger.Key("TELUS", "blanket")));
+        reopened.close();
+
+        assertEquals("A clean log should replay nothing", 0, open(target).getReplayedCount());
+        assertEquals("Nothing should be stored twice", 2, target.getVictimCount());
+    }
+
+    @Test
+    public void testFailedFlushesAreRetried() throws Exception {
+        AtomicInteger failures = new AtomicInteger(2);
+        InMemoryReliefRepository target = new InMemoryReliefRepository();
+        // Wrapping lets the override throw SQLException like a real database would
+        ReliefRepository flaky = new BenchmarkingReliefRepository(target) {
+            @Override
+            public BulkVictimIntake.Result addVictims(Collection<DisasterVictim> victims) throws SQLException {
+                if (failures.get() > 0) {
+                    failures.decrementAndGet();
+                    throw new SQLException("database unavailable");
+                }
+                return super.addVictims(victims);
+            }
+        };
+        WriteBehindReliefRepository repository = open(flaky);
+        assertTrue("Writes should be acknowledged while the store is down",
+                repository.addVictim(new DisasterVictim("Freda", "2025-01-15")) < 0);
+        repository.awaitFlushed();
+        assertEquals("The write should land once the store recovers", 1, target.getVictimCount());
+        assertEquals("Both failed attempts should be counted", 2, repository.getFlushErrorCount());
+        repository.close();
+    }
+
+    @Test
+    public void testMarkerIsAnsweredWhenTheQueueReachesIt() throws Exception {
+        CountDownLatch storeDown = new CountDownLatch(1);
+        InMemoryReliefRepository target = new InMemoryReliefRepository();
+        ReliefRepository slow = new BenchmarkingReliefRepository(target) {
+            @Override
+            public long addSupply(String type, int quantity, String person, String location) throws SQLException {
+                try {
+                    storeDown.await();
+                } catch (InterruptedException e) {
+                    throw new SQLException(e);
+                }
+                return super.addSupply(type, quantity, person, location);
+            }
+        };
+        WriteBehindReliefRepository repository = open(slow);
+        repository.addSupply("blanket", 5, null, "TELUS");
+        repository.addVictim(new DisasterVictim("Freda", "2025-01-15"));
+        Future<Integer> stored = repository.whenFlushed(target::getVictimCount);
+        repository.addVictim(new DisasterVictim("Kai", "2025-01-15"));
+        assertFalse("Marking should not wait for the store", stored.isDone());
+
+        storeDown.countDown();
+        assertEquals("The marker should see every earlier write and none after it", 1,
+                (int) stored.get(5, TimeUnit.SECONDS));
+        repository.awaitFlushed();
+        assertEquals("Later writes should still be applied", 2, target.getVictimCount());
+        assertEquals("With nothing queued the answer should come at once", 2,
+                (int) repository.whenFlushed(target::getVictimCount).get(0, TimeUnit.SECONDS));
+        repository.close();
+    }
+
+    @Test
+    public void testMarkersRacingTheFlusherAreAllAnswered() throws Exception {
+        InMemoryReliefRepository target = new InMemoryReliefRepository();
+        WriteBehindReliefRepository repository = open(target);
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger acknowledged = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 2000; i++) {
+                    started.incrementAndGet();
+                    repository.addVictim(new DisasterVictim("Kai", "2025-01-15"));
+                    acknowledged.incrementAndGet();
+                }
+            } catch (SQLException e) {
+                errors.add(e.getMessage());
+            }
+        });
+        writer.start();
+        List<int[]> bounds = new ArrayList<>();
+        List<Future<Integer>> answers = new ArrayList<>();
+        while (writer.isAlive()) {
+            int before = acknowledged.get();
+            answers.add(repository.whenFlushed(target::getVictimCount));
+            bounds.add(new int[] {before, started.get()});
+        }
+        writer.join();
+        for (int i = 0; i < answers.size(); i++) {
+            // A marker missed by the flusher would wait for a write that never comes
+            int seen = answers.get(i).get(5, TimeUnit.SECONDS);
+            assertTrue("Marker " + i + " saw " + seen + " victims, outside " + bounds.get(i)[0] + ".." + bounds.get(i)[1],
+                    seen >= bounds.get(i)[0] && seen <= bounds.get(i)[1]);
+        }
+        repository.close();
+        assertTrue("No errors expected: " + errors, errors.isEmpty());
+    }
+
+    @Test
+    public void testTornRecordIsDroppedOnOpen() throws Exception {
+        try (WriteAheadLog wal = new WriteAheadLog(log)) {
+            wal.append("first".getBytes(StandardCharsets.UTF_8));
+            wal.append("second".getBytes(StandardCharsets.UTF_8));
+        }
+        long whole = Files.size(log);
+        Files.write(log, new byte[] {0, 0, 0, 9, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (WriteAheadLog wal = new WriteAheadLog(log)) {
+            List<String> records = new ArrayList<>();
+            wal.replay(payload -> records.add(StandardCharsets.UTF_8.decode(payload).toString()));
+            assertEquals("Only whole records should be replayed", List.of("first", "second"), records);
+            assertEquals("The torn tail should be truncated", whole, Files.size(log));
+            assertEquals("The dropped bytes should be reported", 7, wal.getTruncatedBytes());
+        }
+    }
+}